@@ -181,6 +181,12 @@ public class LobbyHome extends Scene {
 
         ClientUtil.addDefault2DControlCommands(client, center, otherPlayers, otherPlayerPositionStates, this);
 
+        client.addCommand(Commands.ResyncClientGameState, (Integer playerIndex) -> {
+            if (playerPositionState != null) {
+                playerPositionState.resyncWithServer();
+            }
+        });
+
         client.addCommand(Commands.SwitchScene, (String sceneName) -> {
             Log.info("Switching to scene \"{}\"", sceneName);
             FastJEngine.runLater(() -> FastJEngine.<SceneManager>getLogicManager().switchScenes(sceneName), CoreLoopState.LateUpdate);
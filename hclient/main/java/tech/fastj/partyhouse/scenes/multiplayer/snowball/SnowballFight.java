@@ -167,6 +167,12 @@ public class SnowballFight extends Scene {
 
         ClientUtil.addDefault2DControlCommands(client, center, otherPlayers, otherPlayerPositionStates, this);
 
+        client.addCommand(Commands.ResyncClientGameState, (Integer playerIndex) -> {
+            if (playerPositionState != null) {
+                playerPositionState.resyncWithServer();
+            }
+        });
+
         client.addCommand(Commands.SnowballThrow, (SnowballInfo snowballInfo) -> FastJEngine.runLater(() -> {
             Snowball snowball = new Snowball(snowballInfo, this);
             drawableManager().addGameObject(snowball);
@@ -10,8 +10,12 @@ import tech.fastj.systems.control.Scene;
 import tech.fastj.systems.control.SceneManager;
 
 import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
 
 import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -24,8 +28,6 @@ import tech.fastj.partyhouse.scenes.multiplayer.snowball.SnowballFight;
 import tech.fastj.partyhouse.ui.ContentBox;
 import tech.fastj.partyhouse.user.User;
 import tech.fastj.partyhousecore.ClientInfo;
-import tech.fastj.partyhousecore.ClientPosition;
-import tech.fastj.partyhousecore.ClientVelocity;
 import tech.fastj.partyhousecore.Commands;
 import tech.fastj.partyhousecore.PositionState;
 
@@ -63,10 +65,17 @@ public class ClientUtil {
 
     public static void addDefault2DControlCommands(LocalClient<Commands> client, Pointf center, Map<UUID, Player> otherPlayers,
                                                    Map<UUID, PositionState> otherPlayerPositionStates, GameHandler gameHandler) {
+        Map<Integer, PositionState> positionStatesByIndex = new HashMap<>();
+
         client.addCommand(Commands.ClientJoinLobby, (ClientInfo clientInfo) -> {
             Log.info("{} joined.", clientInfo.clientName());
 
-            PositionState positionState = PlayerUtil.createOtherPositionState(clientInfo, center, otherPlayerPositionStates);
+            // their first game state update may have arrived first, and later updates are relative to it
+            PositionState positionState = otherPlayerPositionStates.get(clientInfo.clientId());
+            if (positionState == null) {
+                positionState = PlayerUtil.createOtherPositionState(clientInfo, center, otherPlayerPositionStates);
+            }
+
             Player otherPlayer = PlayerUtil.createOtherPlayer(positionState, otherPlayers, gameHandler);
 
             otherPlayers.put(clientInfo.clientId(), otherPlayer);
@@ -76,6 +85,9 @@ public class ClientUtil {
         client.addCommand(Commands.ClientLeaveLobby, (ClientInfo clientInfo) -> {
             Log.info("{} left.", clientInfo.clientName());
 
+            // the session hands their index to the next player to join
+            positionStatesByIndex.values().remove(otherPlayerPositionStates.get(clientInfo.clientId()));
+
             FastJEngine.runLater(() -> {
                 otherPlayerPositionStates.remove(clientInfo.clientId());
                 Player otherPlayer = otherPlayers.remove(clientInfo.clientId());
@@ -104,26 +116,35 @@ public class ClientUtil {
             otherPlayer.setPlayerName(clientInfo.clientName());
         });
 
-        client.addCommand(Commands.UpdateClientGameState,
-            (ClientInfo clientInfo, ClientPosition clientPosition, ClientVelocity clientVelocity) -> {
-                PositionState positionState = otherPlayerPositionStates.get(clientInfo.clientId());
-                Player otherPlayer = otherPlayers.get(clientInfo.clientId());
+        client.addStreamCommand(Commands.UpdateClientGameState, inputStream -> {
+            int playerIndex = inputStream.readIntField();
 
-                if (positionState == null) {
-                    positionState = PlayerUtil.createOtherPositionState(clientInfo, center, otherPlayerPositionStates);
-                }
+            // kept from the first update on, so a player waiting on a resync only asks for it once
+            PositionState positionState = positionStatesByIndex.computeIfAbsent(playerIndex, index -> new PositionState());
 
-                if (otherPlayer == null) {
-                    otherPlayer = PlayerUtil.createOtherPlayer(positionState, otherPlayers, gameHandler);
+            try {
+                positionState.applyUpdate(inputStream);
+            } catch (IOException exception) {
+                Log.warn("Unable to apply player {}'s game state update: {}", playerIndex, exception.getMessage());
+
+                if (positionState.requestResync()) {
+                    client.sendCommand(NetworkType.TCP, CommandTarget.Session, Commands.ResyncClientGameState, playerIndex);
                 }
 
-                positionState.setClientInfo(clientInfo);
-                positionState.setClientPosition(clientPosition);
-                positionState.setClientVelocity(clientVelocity);
+                return;
+            }
+
+            // the first update applied is the whole state, which says whose it is
+            UUID clientId = positionState.getClientInfo().clientId();
+            otherPlayerPositionStates.put(clientId, positionState);
+            Player otherPlayer = otherPlayers.get(clientId);
 
-                otherPlayer.setPlayerName(clientInfo.clientName());
+            if (otherPlayer == null) {
+                otherPlayer = PlayerUtil.createOtherPlayer(positionState, otherPlayers, gameHandler);
             }
-        );
+
+            otherPlayer.setPlayerName(positionState.getClientInfo().clientName());
+        });
     }
 
     public static ContentBox setupClientPingForDisplay(LocalClient<Commands> client, GameHandler gameHandler) {
@@ -22,6 +22,7 @@ repositories.mavenCentral()
 
 dependencies.implementation(libs.bundles.fastj)
 dependencies.implementation(projects.network)
+dependencies.annotationProcessor(projects.processor)
 
 dependencies.testImplementation(dependencies.platform("org.junit:junit-bom:5.8.2"))
 dependencies.testImplementation("org.junit.jupiter:junit-jupiter:5.8.2")
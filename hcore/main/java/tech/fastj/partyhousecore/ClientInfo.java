@@ -1,7 +1,9 @@
 package tech.fastj.partyhousecore;
 
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
 
 import java.util.UUID;
 
+@NetworkMessage
 public record ClientInfo(UUID clientId, String clientName) implements Message {}
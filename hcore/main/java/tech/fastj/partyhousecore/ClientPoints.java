@@ -1,7 +1,9 @@
 package tech.fastj.partyhousecore;
 
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
 
+@NetworkMessage
 public record ClientPoints(ClientInfo clientInfo, int points) implements Message, Comparable<ClientPoints> {
     @Override
     public int compareTo(ClientPoints o) {
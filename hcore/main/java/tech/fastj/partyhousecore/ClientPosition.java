@@ -1,8 +1,18 @@
 package tech.fastj.partyhousecore;
 
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+import tech.fastj.network.serial.Quantized;
+
+@NetworkMessage
+public record ClientPosition(@Quantized(min = ClientPosition.MinCoordinate, max = ClientPosition.MaxCoordinate, bits = ClientPosition.CoordinateBits) float x,
+                             @Quantized(min = ClientPosition.MinCoordinate, max = ClientPosition.MaxCoordinate, bits = ClientPosition.CoordinateBits) float y)
+    implements Message {
+
+    public static final float MinCoordinate = -4096f;
+    public static final float MaxCoordinate = 4096f;
+    public static final int CoordinateBits = 16;
 
-public record ClientPosition(float x, float y) implements Message {
     public ClientPosition() {
         this(0f, 0f);
     }
@@ -1,9 +1,21 @@
 package tech.fastj.partyhousecore;
 
+import tech.fastj.network.serial.Angle;
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+import tech.fastj.network.serial.Quantized;
+
+@NetworkMessage
+public record ClientVelocity(@Angle(bits = ClientVelocity.AngleBits) float angle,
+                             @Quantized(min = ClientVelocity.MinSpeed, max = ClientVelocity.MaxSpeed, bits = ClientVelocity.SpeedBits) float speed)
+    implements Message {
+
+    public static final int AngleBits = 12;
+    public static final float MinSpeed = -1024f;
+    public static final float MaxSpeed = 1024f;
+    public static final int SpeedBits = 16;
 
-public record ClientVelocity(float angle, float speed) implements Message {
     public ClientVelocity() {
         this(0f, 0f);
     }
-}
\ No newline at end of file
+}
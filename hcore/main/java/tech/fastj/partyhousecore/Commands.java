@@ -9,6 +9,7 @@ import tech.fastj.network.rpc.classes.Classes3;
 import tech.fastj.network.rpc.classes.Classes4;
 import tech.fastj.network.rpc.classes.Classes5;
 import tech.fastj.network.rpc.classes.Classes6;
+import tech.fastj.network.replication.StateDelta;
 
 public enum Commands implements CommandAlias {
     ClientJoinLobby(ClientInfo.class),
@@ -17,7 +18,8 @@ public enum Commands implements CommandAlias {
     Ready(ClientInfo.class),
     UnReady(ClientInfo.class),
 
-    UpdateClientGameState(ClientInfo.class, ClientPosition.class, ClientVelocity.class),
+    UpdateClientGameState(int.class, StateDelta.class),
+    ResyncClientGameState(int.class),
     ModifyPoints(),
     SetPoints(),
     GameFinished(ClientInfo.class),
@@ -0,0 +1,118 @@
+package tech.fastj.partyhousecore;
+
+import tech.fastj.network.replication.Replicable;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The parts of a {@link PositionState} that are replicated, as deltas from the last update each recipient received.
+ * Positions and velocities are written quantized the same way as {@link ClientPosition} and {@link ClientVelocity}.
+ */
+public class PlayerState implements Replicable<PlayerState> {
+
+    private static final int ClientInfoComponent = 0;
+    private static final int PositionComponent = 1;
+    private static final int VelocityComponent = 2;
+
+    private ClientInfo clientInfo;
+    private float x;
+    private float y;
+    private float angle;
+    private float speed;
+
+    public PlayerState() {
+    }
+
+    public ClientInfo getClientInfo() {
+        return clientInfo;
+    }
+
+    public void setClientInfo(ClientInfo clientInfo) {
+        this.clientInfo = clientInfo;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public float getAngle() {
+        return angle;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setVelocity(float angle, float speed) {
+        this.angle = angle;
+        this.speed = speed;
+    }
+
+    @Override
+    public int componentCount() {
+        return 3;
+    }
+
+    @Override
+    public boolean isComponentChanged(int index, PlayerState other) {
+        return switch (index) {
+            case ClientInfoComponent -> !Objects.equals(clientInfo, other.clientInfo);
+            case PositionComponent -> Float.compare(x, other.x) != 0 || Float.compare(y, other.y) != 0;
+            case VelocityComponent -> Float.compare(angle, other.angle) != 0 || Float.compare(speed, other.speed) != 0;
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
+
+    @Override
+    public void writeComponent(MessageOutputStream outputStream, int index) throws IOException {
+        switch (index) {
+            case ClientInfoComponent -> outputStream.writeObject(clientInfo, ClientInfo.class);
+            case PositionComponent -> {
+                outputStream.writeQuantizedFloat(x, ClientPosition.MinCoordinate, ClientPosition.MaxCoordinate, ClientPosition.CoordinateBits);
+                outputStream.writeQuantizedFloat(y, ClientPosition.MinCoordinate, ClientPosition.MaxCoordinate, ClientPosition.CoordinateBits);
+            }
+            case VelocityComponent -> {
+                outputStream.writeAngle(angle, ClientVelocity.AngleBits);
+                outputStream.writeQuantizedFloat(speed, ClientVelocity.MinSpeed, ClientVelocity.MaxSpeed, ClientVelocity.SpeedBits);
+            }
+            default -> throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    @Override
+    public void readComponent(MessageInputStream inputStream, int index) throws IOException {
+        switch (index) {
+            case ClientInfoComponent -> clientInfo = (ClientInfo) inputStream.readObject(ClientInfo.class);
+            case PositionComponent -> {
+                x = inputStream.readQuantizedFloat(ClientPosition.MinCoordinate, ClientPosition.MaxCoordinate, ClientPosition.CoordinateBits);
+                y = inputStream.readQuantizedFloat(ClientPosition.MinCoordinate, ClientPosition.MaxCoordinate, ClientPosition.CoordinateBits);
+            }
+            case VelocityComponent -> {
+                angle = inputStream.readAngle(ClientVelocity.AngleBits);
+                speed = inputStream.readQuantizedFloat(ClientVelocity.MinSpeed, ClientVelocity.MaxSpeed, ClientVelocity.SpeedBits);
+            }
+            default -> throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    @Override
+    public void set(PlayerState other) {
+        clientInfo = other.clientInfo;
+        x = other.x;
+        y = other.y;
+        angle = other.angle;
+        speed = other.speed;
+    }
+}
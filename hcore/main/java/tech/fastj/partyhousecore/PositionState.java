@@ -3,20 +3,36 @@ package tech.fastj.partyhousecore;
 import tech.fastj.math.Pointf;
 import tech.fastj.graphics.game.GameObject;
 
+import tech.fastj.network.replication.Replica;
+import tech.fastj.network.replication.ReplicatedState;
+import tech.fastj.network.replication.StateDelta;
 import tech.fastj.network.rpc.NetworkSender;
 import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.MessageInputStream;
 
 import java.io.IOException;
+import java.util.UUID;
 
 public class PositionState {
 
-    private ClientInfo clientInfo;
-    private ClientPosition clientPosition;
-    private ClientVelocity clientVelocity;
+    /** The recipient a client's own updates are tracked under, since it only ever sends them to the server. */
+    private static final UUID ServerRecipientId = new UUID(0L, 0L);
+
+    /** The index a client sends its own updates with, since the server knows whose they are from the connection. */
+    public static final int OwnPlayerIndex = -1;
+
+    private final ReplicatedState<PlayerState> replicatedState = new ReplicatedState<>(PlayerState.class);
+    private final Replica<PlayerState> replica = new Replica<>(PlayerState.class);
+
+    private final PlayerState playerState = new PlayerState();
+
+    private int playerIndex = OwnPlayerIndex;
     private boolean isPlayerDead;
 
     private boolean needsUpdate;
+    private boolean isResyncRequested;
 
     public PositionState() {
     }
@@ -29,37 +45,49 @@ public class PositionState {
         isPlayerDead = playerDead;
     }
 
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /**
+     * Sets the index the session's players know this state by, assigned when its client joins. Updates are sent with it
+     * instead of the client's id, and the first one each player is sent carries the whole state, client id included.
+     */
+    public void setPlayerIndex(int playerIndex) {
+        this.playerIndex = playerIndex;
+    }
+
     public ClientInfo getClientInfo() {
-        return clientInfo;
+        return playerState.getClientInfo();
     }
 
     public void setClientInfo(ClientInfo clientInfo) {
-        this.clientInfo = clientInfo;
+        playerState.setClientInfo(clientInfo);
         needsUpdate = true;
     }
 
     public ClientPosition getClientPosition() {
-        return clientPosition;
+        return new ClientPosition(playerState.getX(), playerState.getY());
     }
 
     public void setClientPosition(ClientPosition clientPosition) {
-        this.clientPosition = clientPosition;
+        playerState.setPosition(clientPosition.x(), clientPosition.y());
         needsUpdate = true;
     }
 
     public ClientVelocity getClientVelocity() {
-        return clientVelocity;
+        return new ClientVelocity(playerState.getAngle(), playerState.getSpeed());
     }
 
     public void setClientVelocity(ClientVelocity clientVelocity) {
-        this.clientVelocity = clientVelocity;
+        playerState.setVelocity(clientVelocity.angle(), clientVelocity.speed());
         needsUpdate = true;
     }
 
     public void updatePlayerPosition(GameObject player) {
-        player.setTranslation(new Pointf(clientPosition.x(), clientPosition.y()));
+        player.setTranslation(new Pointf(playerState.getX(), playerState.getY()));
         player.rotate(-player.getRotation());
-        player.rotate(clientVelocity.angle());
+        player.rotate(playerState.getAngle());
     }
 
     public boolean needsUpdate() {
@@ -69,15 +97,80 @@ public class PositionState {
     public void sendUpdate(NetworkSender sender, CommandTarget target) throws IOException {
         needsUpdate = false;
         if (!isPlayerDead) {
-            sender.sendCommand(NetworkType.TCP, target, Commands.UpdateClientGameState, clientInfo, clientPosition, clientVelocity);
+            sendUpdate(sender, target, ServerRecipientId);
+        }
+    }
+
+    /** Sends {@code recipient} the changes to this state since the last update it was sent, or all of it the first time. */
+    public void sendUpdate(NetworkSender recipient, UUID recipientId) throws IOException {
+        sendUpdate(recipient, CommandTarget.Client, recipientId);
+    }
+
+    private void sendUpdate(NetworkSender recipient, CommandTarget target, UUID recipientId) throws IOException {
+        replicatedState.set(playerState);
+
+        StateDelta stateDelta = replicatedState.deltaFor(recipient.getSerializer(), recipientId);
+        recipient.sendCommand(NetworkType.TCP, target, Commands.UpdateClientGameState, playerIndex, stateDelta);
+
+        // sent over TCP, so the recipient has every update in order and this one is its next baseline
+        replicatedState.acknowledge(recipientId, stateDelta.sequence());
+    }
+
+    /** Applies an update sent by {@link #sendUpdate}. */
+    public void applyUpdate(Serializer serializer, StateDelta stateDelta) throws IOException {
+        setPlayerState(replica.apply(serializer, stateDelta));
+        isResyncRequested = false;
+    }
+
+    /**
+     * Applies an update read straight from the {@code StateDelta} argument of an {@code UpdateClientGameState} command, for
+     * stream commands which don't create the delta first.
+     */
+    public void applyUpdate(MessageInputStream inputStream) throws IOException {
+        setPlayerState(replica.apply(inputStream));
+        isResyncRequested = false;
+    }
+
+    /**
+     * Called when an update couldn't be applied. Returns whether the sender should be asked for the whole state with a
+     * {@code ResyncClientGameState} command, which is only once until an update applies again.
+     */
+    public boolean requestResync() {
+        if (isResyncRequested) {
+            return false;
         }
+
+        isResyncRequested = true;
+        return true;
+    }
+
+    private void setPlayerState(PlayerState playerState) {
+        // the replica's own state, which its later updates overwrite
+        this.playerState.set(playerState);
+        needsUpdate = true;
+    }
+
+    /**
+     * Drops what was sent to {@code recipientId}, who has left or couldn't apply an update; the next update they are sent
+     * is the whole state again.
+     */
+    public void forgetRecipient(UUID recipientId) {
+        replicatedState.forget(recipientId);
+    }
+
+    /** Sends the server the whole state with the next update, after it couldn't apply one of this client's updates. */
+    public void resyncWithServer() {
+        replicatedState.forget(ServerRecipientId);
+        needsUpdate = true;
     }
 
     public void updateVelocity(float inputAngle, float v) {
-        setClientVelocity(new ClientVelocity(clientVelocity.angle() + inputAngle, clientVelocity.speed() + v));
+        playerState.setVelocity(playerState.getAngle() + inputAngle, playerState.getSpeed() + v);
+        needsUpdate = true;
     }
 
     public void updatePosition(float x, float y) {
-        setClientPosition(new ClientPosition(clientPosition.x() + x, clientPosition.y() + y));
+        playerState.setPosition(playerState.getX() + x, playerState.getY() + y);
+        needsUpdate = true;
     }
 }
@@ -1,11 +1,20 @@
 package tech.fastj.partyhousecore;
 
+import tech.fastj.network.serial.Angle;
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+import tech.fastj.network.serial.Quantized;
 
 import java.util.UUID;
 
-public record SnowballInfo(ClientInfo clientInfo, UUID snowballId, float trajectoryX, float trajectoryY, float positionX, float positionY,
-                           float rotation, float currentLife) implements Message {
+@NetworkMessage
+public record SnowballInfo(ClientInfo clientInfo, UUID snowballId,
+                           @Quantized(min = -1f, max = 1f, bits = 16) float trajectoryX,
+                           @Quantized(min = -1f, max = 1f, bits = 16) float trajectoryY,
+                           @Quantized(min = -4096f, max = 4096f, bits = 16) float positionX,
+                           @Quantized(min = -4096f, max = 4096f, bits = 16) float positionY,
+                           @Angle(bits = 12) float rotation,
+                           @Quantized(min = 0f, max = 4f, bits = 12) float currentLife) implements Message {
 
     public SnowballHitInfo hitInfo() {
         return new SnowballHitInfo(this);
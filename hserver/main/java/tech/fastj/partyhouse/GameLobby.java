@@ -53,21 +53,11 @@ public class GameLobby extends Lobby<Commands> {
         replaceClientInfo(clientInfo);
         replaceClientPoints(clientInfo);
 
-        for (var serverClient : clients) {
-            if (clientInfo.clientId().equals(serverClient.getClientId())) {
-                return;
-            }
-
-            try {
-                GameLobbyLogger.info(
-                    "Telling {}:{} that {}:{} changed its name",
-                    serverClient.getClientId(), clientInfoMap.get(serverClient.getClientId()).clientName(),
-                    clientInfo.clientId(), clientInfoMap.get(clientInfo.clientId()).clientName()
-                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientInfo, clientInfo);
-            } catch (IOException exception) {
-                GameLobbyLogger.warn("error while trying to send lobby name to " + serverClient.getClientId(), exception);
-            }
+        try {
+            GameLobbyLogger.info("Telling other clients that {}:{} changed its name", clientInfo.clientId(), clientInfo.clientName());
+            broadcastExcept(clientInfo.clientId()).sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientInfo, clientInfo);
+        } catch (IOException exception) {
+            GameLobbyLogger.warn("error while trying to send lobby name of " + clientInfo.clientId(), exception);
         }
     }
 
@@ -79,14 +69,14 @@ public class GameLobby extends Lobby<Commands> {
         GameLobbyLogger.info("new client {}", clientInfo);
         GameLobbyLogger.info("{} to notify from lobby", clients.size());
 
-        for (var serverClient : getClients()) {
-            try {
-                GameLobbyLogger.info("Notifying {} on new client {}", getClientInfo(serverClient).clientName(), clientInfo.clientName());
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ClientJoinLobby, clientInfo);
-            } catch (IOException exception) {
-                GameLobbyLogger.warn("tried to send notification to all clients, but {}", exception.getMessage());
-            }
+        try {
+            GameLobbyLogger.info("Notifying existing clients on new client {}", clientInfo.clientName());
+            broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ClientJoinLobby, clientInfo);
+        } catch (IOException exception) {
+            GameLobbyLogger.warn("tried to send notification to all clients, but {}", exception.getMessage());
+        }
 
+        for (var serverClient : getClients()) {
             try {
                 GameLobbyLogger.info("Notifying new client {} on existing client {}", clientInfo.clientName(), getClientInfo(serverClient).clientName());
                 client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ClientJoinLobby, getClientInfo(serverClient));
@@ -106,14 +96,10 @@ public class GameLobby extends Lobby<Commands> {
         GameLobbyLogger.info("client {} leaving", clientInfo.clientName());
         GameLobbyLogger.info("{} to notify from lobby", clients.size());
 
-        for (var serverClient : getClients()) {
-            GameLobbyLogger.info("telling {} that {} is leaving", getClientInfo(serverClient).clientName(), clientInfo.clientName());
-
-            try {
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ClientLeaveLobby, clientInfo);
-            } catch (IOException exception) {
-                GameLobbyLogger.warn("tried to send notification to all clients, but {}", exception.getMessage());
-            }
+        try {
+            broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ClientLeaveLobby, clientInfo);
+        } catch (IOException exception) {
+            GameLobbyLogger.warn("tried to send notification to all clients, but {}", exception.getMessage());
         }
 
         clientInfoMap.remove(client.getClientId());
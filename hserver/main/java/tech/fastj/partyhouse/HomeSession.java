@@ -4,6 +4,7 @@ import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
 import tech.fastj.network.rpc.server.ServerClient;
 import tech.fastj.network.rpc.server.Session;
+import tech.fastj.network.serial.read.MessageInputStream;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -28,6 +29,7 @@ public class HomeSession extends Session<Commands> {
     private static final Logger HomeSessionLogger = LoggerFactory.getLogger(HomeSession.class);
 
     private final Map<UUID, PositionState> clientGameStates;
+    private final Map<Integer, PositionState> positionStatesByIndex;
 
     private final Map<UUID, Boolean> clientsReady;
 
@@ -35,11 +37,13 @@ public class HomeSession extends Session<Commands> {
         super(lobby, SessionNames.Home, Commands.class);
 
         clientGameStates = new HashMap<>();
+        positionStatesByIndex = new HashMap<>();
         clientsReady = new LinkedHashMap<>();
 
         setOnClientJoin(this::addNewPositionState);
         setOnClientLeave(this::removePositionState);
-        addCommand(Commands.UpdateClientGameState, this::updatePositionState);
+        addStreamCommand(Commands.UpdateClientGameState, this::updatePositionState);
+        addCommand(Commands.ResyncClientGameState, this::resyncPositionState);
         addCommand(Commands.Ready, this::notifyClientReady);
         addCommand(Commands.UnReady, this::notifyClientUnReady);
     }
@@ -57,59 +61,99 @@ public class HomeSession extends Session<Commands> {
         newGameState.setClientPosition(new ClientPosition(640f, 360f));
         newGameState.setClientVelocity(new ClientVelocity());
 
+        int playerIndex = 0;
+        while (positionStatesByIndex.containsKey(playerIndex)) {
+            playerIndex++;
+        }
+
+        newGameState.setPlayerIndex(playerIndex);
+        positionStatesByIndex.put(playerIndex, newGameState);
         clientGameStates.put(client.getClientId(), newGameState);
         clientsReady.put(client.getClientId(), false);
 
         HomeSessionLogger.info("{} to notify from session about client game state adding", getClients().size());
 
-        for (var serverClient : getClients()) {
-            try {
-                HomeSessionLogger.info("sending new game state from {} to {}", client.getClientId(), serverClient.getClientId());
+        try {
+            HomeSessionLogger.info("sending new game state from {} to existing clients", client.getClientId());
 
-                serverClient.sendCommand(
-                    NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState,
-                    newGameState.getClientInfo(), newGameState.getClientPosition(), newGameState.getClientVelocity()
-                );
-            } catch (IOException exception) {
-                HomeSessionLogger.warn("Error while trying to send client game state to {}: {}", serverClient.getClientId(), exception);
+            for (var serverClient : getClients()) {
+                newGameState.sendUpdate(serverClient, serverClient.getClientId());
             }
+        } catch (IOException exception) {
+            HomeSessionLogger.warn("Error while trying to send {}'s client game state: {}", client.getClientId(), exception);
+        }
 
+        for (var serverClient : getClients()) {
             try {
                 HomeSessionLogger.info("sending existing game state from {} to {}", serverClient.getClientId(), client.getClientId());
 
                 PositionState existingGameState = clientGameStates.get(serverClient.getClientId());
-                client.sendCommand(
-                    NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState,
-                    existingGameState.getClientInfo(), existingGameState.getClientPosition(), existingGameState.getClientVelocity()
-                );
+                existingGameState.sendUpdate(client, client.getClientId());
             } catch (IOException exception) {
                 HomeSessionLogger.warn("Error while trying to send client game state to {}: {}", client.getClientId(), exception);
             }
         }
     }
 
-    private void updatePositionState(ServerClient<Commands> client, ClientInfo info, ClientPosition position, ClientVelocity velocity) {
-        PositionState positionState = clientGameStates.get(info.clientId());
-        positionState.setClientInfo(info);
-        positionState.setClientPosition(position);
-        positionState.setClientVelocity(velocity);
+    private void updatePositionState(ServerClient<Commands> client, MessageInputStream inputStream) throws IOException {
+        // the index a client sends its own updates with; whose they are comes from the connection
+        inputStream.readIntField();
+
+        UUID clientId = client.getClientId();
+        PositionState positionState = clientGameStates.get(clientId);
+
+        try {
+            positionState.applyUpdate(inputStream);
+        } catch (IOException exception) {
+            HomeSessionLogger.warn("error while trying to apply {}'s game state update: {}", clientId, exception.getMessage());
+
+            if (positionState.requestResync()) {
+                client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ResyncClientGameState, PositionState.OwnPlayerIndex);
+            }
+
+            return;
+        }
 
         for (var serverClient : getClients()) {
-            if (info.clientId().equals(serverClient.getClientId())) {
+            if (serverClient.getClientId().equals(clientId)) {
                 continue;
             }
 
             try {
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState, info, position, velocity);
+                positionState.sendUpdate(serverClient, serverClient.getClientId());
             } catch (IOException exception) {
-                HomeSessionLogger.warn("error while trying to send {}'s game state update: {}", serverClient.getClientId(), exception.getMessage());
+                HomeSessionLogger.warn("error while trying to send {}'s game state update: {}", clientId, exception.getMessage());
             }
         }
     }
 
+    private void resyncPositionState(ServerClient<Commands> client, Integer playerIndex) {
+        PositionState positionState = positionStatesByIndex.get(playerIndex);
+
+        if (positionState == null) {
+            return;
+        }
+
+        positionState.forgetRecipient(client.getClientId());
+
+        try {
+            positionState.sendUpdate(client, client.getClientId());
+        } catch (IOException exception) {
+            HomeSessionLogger.warn("error while trying to resend {}'s game state to {}: {}", positionState.getClientInfo().clientId(), client.getClientId(), exception.getMessage());
+        }
+    }
+
     private void removePositionState(Session<Commands> session, ServerClient<Commands> client) {
-        clientGameStates.remove(client.getClientId());
+        PositionState removedState = clientGameStates.remove(client.getClientId());
+        if (removedState != null) {
+            positionStatesByIndex.remove(removedState.getPlayerIndex());
+        }
+
         clientsReady.remove(client.getClientId());
+
+        for (PositionState positionState : clientGameStates.values()) {
+            positionState.forgetRecipient(client.getClientId());
+        }
     }
 
     private void notifyClientReady(ServerClient<Commands> client, ClientInfo info) {
@@ -117,21 +161,14 @@ public class HomeSession extends Session<Commands> {
 
         clientsReady.put(info.clientId(), true);
 
-        for (var serverClient : getClients()) {
-            if (client.getClientId().equals(serverClient.getClientId())) {
-                continue;
-            }
-
-            try {
-                HomeSessionLogger.info(
-                    "Telling {} that {} is ready to play",
-                    clientGameStates.get(serverClient.getClientId()).getClientInfo().clientName(),
-                    clientGameStates.get(client.getClientId()).getClientInfo().clientName()
-                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.Ready, info);
-            } catch (IOException exception) {
-                HomeSessionLogger.warn("error while trying to send {}'s readiness: {}", serverClient.getClientId(), exception.getMessage());
-            }
+        try {
+            HomeSessionLogger.info(
+                "Telling other clients that {} is ready to play",
+                clientGameStates.get(client.getClientId()).getClientInfo().clientName()
+            );
+            broadcastExcept(client.getClientId()).sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.Ready, info);
+        } catch (IOException exception) {
+            HomeSessionLogger.warn("error while trying to send {}'s readiness: {}", client.getClientId(), exception.getMessage());
         }
 
         checkClientsReadyToSwitch();
@@ -154,17 +191,8 @@ public class HomeSession extends Session<Commands> {
 
         lobby.switchCurrentSession(SessionNames.SnowballFight);
         Future<Integer> exCheck = startSessionSequence(() -> {
-            for (int i = getClients().size() - 1; i >= 0; i--) {
-                var client = getClients().get(i);
-
-                HomeSessionLogger.info(
-                    "Telling client {}:{} to switch scenes",
-                    client.getClientId(),
-                    clientGameStates.get(client.getClientId()).getClientInfo().clientName()
-                );
-
-                client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SwitchScene, SessionNames.SnowballFight);
-            }
+            HomeSessionLogger.info("Telling {} clients to switch scenes", getClients().size());
+            broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SwitchScene, SessionNames.SnowballFight);
 
             TimeUnit.SECONDS.sleep(1L);
 
@@ -201,21 +229,14 @@ public class HomeSession extends Session<Commands> {
 
         clientsReady.put(info.clientId(), false);
 
-        for (var serverClient : getClients()) {
-            if (client.getClientId().equals(serverClient.getClientId())) {
-                continue;
-            }
-
-            try {
-                HomeSessionLogger.info(
-                    "Telling {} that {} is no longer ready to play",
-                    clientGameStates.get(serverClient.getClientId()).getClientInfo().clientName(),
-                    clientGameStates.get(client.getClientId()).getClientInfo().clientName()
-                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UnReady, info);
-            } catch (IOException exception) {
-                HomeSessionLogger.warn("error while trying to send {}'s un-readiness: {}", serverClient.getClientId(), exception.getMessage());
-            }
+        try {
+            HomeSessionLogger.info(
+                "Telling other clients that {} is no longer ready to play",
+                clientGameStates.get(client.getClientId()).getClientInfo().clientName()
+            );
+            broadcastExcept(client.getClientId()).sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UnReady, info);
+        } catch (IOException exception) {
+            HomeSessionLogger.warn("error while trying to send {}'s un-readiness: {}", client.getClientId(), exception.getMessage());
         }
     }
 
@@ -27,8 +27,13 @@ public class Main {
             server.get().createLobby("Test 2");
             server.get().createLobby("Test 3");
             server.get().createLobby("Test 4");
+
+            server.get().awaitStop();
         } catch (IOException exception) {
             server.get().stop();
+        } catch (InterruptedException exception) {
+            server.get().stop();
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -4,6 +4,7 @@ import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
 import tech.fastj.network.rpc.server.ServerClient;
 import tech.fastj.network.rpc.server.Session;
+import tech.fastj.network.serial.read.MessageInputStream;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,6 +26,7 @@ public class SnowballFightSession extends Session<Commands> {
     private static final Logger SnowballFightSessionLogger = LoggerFactory.getLogger(SnowballFightSession.class);
 
     private final Map<UUID, PositionState> clientPositions;
+    private final Map<Integer, PositionState> positionStatesByIndex;
     private final Map<UUID, PointsState> clientPoints;
     private ScheduledExecutorService survivorPoints;
 
@@ -33,11 +35,13 @@ public class SnowballFightSession extends Session<Commands> {
     public SnowballFightSession(GameLobby lobby) {
         super(lobby, SessionNames.SnowballFight, Commands.class);
         clientPositions = new HashMap<>();
+        positionStatesByIndex = new HashMap<>();
         clientPoints = new HashMap<>();
 
         setOnClientJoin(this::addNewClientStates);
         setOnClientLeave(this::removeClientStates);
-        addCommand(Commands.UpdateClientGameState, this::updatePositionState);
+        addStreamCommand(Commands.UpdateClientGameState, this::updatePositionState);
+        addCommand(Commands.ResyncClientGameState, this::resyncPositionState);
         addCommand(Commands.SnowballThrow, this::notifySnowballThrow);
         addCommand(Commands.SnowballHit, this::notifySnowballHit);
     }
@@ -49,21 +53,10 @@ public class SnowballFightSession extends Session<Commands> {
             snowballInfo.clientInfo().clientName()
         );
 
-        for (var serverClient : getClients()) {
-            if (serverClient.getClientId().equals(snowballInfo.clientInfo().clientId())) {
-                continue;
-            }
-
-            try {
-                SnowballFightSessionLogger.debug(
-                    "Telling {} that {} threw a snowball",
-                    clientPositions.get(serverClient.getClientId()).getClientInfo().clientName(),
-                    snowballInfo.clientInfo().clientName()
-                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SnowballThrow, snowballInfo);
-            } catch (IOException exception) {
-                SnowballFightSessionLogger.warn("error while trying to send snowball throw update to {}: {}", serverClient.getClientId(), exception);
-            }
+        try {
+            broadcastExcept(snowballInfo.clientInfo().clientId()).sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SnowballThrow, snowballInfo);
+        } catch (IOException exception) {
+            SnowballFightSessionLogger.warn("error while trying to send snowball throw update: {}", exception.toString());
         }
     }
 
@@ -80,22 +73,10 @@ public class SnowballFightSession extends Session<Commands> {
 
         clientPositions.get(clientHit.clientId()).setPlayerDead(true);
 
-        for (var serverClient : getClients()) {
-            if (serverClient.getClientId().equals(snowballInfo.clientInfo().clientId())) {
-                continue;
-            }
-
-            try {
-                SnowballFightSessionLogger.debug(
-                    "Telling {} that {} has been hit by {}'s snowball",
-                    clientPositions.get(serverClient.getClientId()).getClientInfo().clientName(),
-                    clientHit.clientName(),
-                    snowballInfo.clientInfo().clientName()
-                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SnowballThrow, snowballInfo);
-            } catch (IOException exception) {
-                SnowballFightSessionLogger.warn("error while trying to send snowball hit update to {}: {}", serverClient.getClientId(), exception);
-            }
+        try {
+            broadcastExcept(snowballInfo.clientInfo().clientId()).sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SnowballThrow, snowballInfo);
+        } catch (IOException exception) {
+            SnowballFightSessionLogger.warn("error while trying to send snowball hit update: {}", exception.toString());
         }
 
         checkForWinner();
@@ -110,6 +91,13 @@ public class SnowballFightSession extends Session<Commands> {
         newGameState.setClientPosition(new ClientPosition(640f, 360f));
         newGameState.setClientVelocity(new ClientVelocity());
 
+        int playerIndex = 0;
+        while (positionStatesByIndex.containsKey(playerIndex)) {
+            playerIndex++;
+        }
+
+        newGameState.setPlayerIndex(playerIndex);
+        positionStatesByIndex.put(playerIndex, newGameState);
         clientPositions.put(client.getClientId(), newGameState);
 
         PointsState newPointsState = new PointsState();
@@ -118,63 +106,76 @@ public class SnowballFightSession extends Session<Commands> {
 
         SnowballFightSessionLogger.info("{} to notify from session about client game state adding", getClients().size());
 
-        for (var serverClient : getClients()) {
-            try {
-                SnowballFightSessionLogger.info("sending new game state from {} to {}", client.getClientId(), serverClient.getClientId());
+        try {
+            SnowballFightSessionLogger.info("sending new game state from {} to existing clients", client.getClientId());
 
-                serverClient.sendCommand(
-                    NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState,
-                    newGameState.getClientInfo(), newGameState.getClientPosition(), newGameState.getClientVelocity()
-                );
-            } catch (IOException exception) {
-                SnowballFightSessionLogger.warn("Error while trying to send client game state to {}: {}", serverClient.getClientId(), exception);
+            for (var serverClient : getClients()) {
+                newGameState.sendUpdate(serverClient, serverClient.getClientId());
             }
+        } catch (IOException exception) {
+            SnowballFightSessionLogger.warn("Error while trying to send {}'s client game state: {}", client.getClientId(), exception);
+        }
 
+        for (var serverClient : getClients()) {
             try {
                 SnowballFightSessionLogger.info("sending existing game state from {} to {}", serverClient.getClientId(), client.getClientId());
 
                 PositionState existingGameState = clientPositions.get(serverClient.getClientId());
-                client.sendCommand(
-                    NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState,
-                    existingGameState.getClientInfo(), existingGameState.getClientPosition(), existingGameState.getClientVelocity()
-                );
+                existingGameState.sendUpdate(client, client.getClientId());
             } catch (IOException exception) {
                 SnowballFightSessionLogger.warn("Error while trying to send client game state to {}: {}", client.getClientId(), exception);
             }
         }
     }
 
-    private void updatePositionState(ServerClient<Commands> client, ClientInfo info, ClientPosition position, ClientVelocity velocity) {
-//        SnowballFightSessionLogger.debug("Telling {} clients {} has moved to: {}, {}", getClients().size(), info.clientName(), position.x(), position.y());
+    private void updatePositionState(ServerClient<Commands> client, MessageInputStream inputStream) throws IOException {
+        // the index a client sends its own updates with; whose they are comes from the connection
+        inputStream.readIntField();
+
+        UUID clientId = client.getClientId();
+        PositionState positionState = clientPositions.get(clientId);
+
+        try {
+            positionState.applyUpdate(inputStream);
+        } catch (IOException exception) {
+            SnowballFightSessionLogger.warn("error while trying to apply {}'s game state update: {}", clientId, exception.getMessage());
+
+            if (positionState.requestResync()) {
+                client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.ResyncClientGameState, PositionState.OwnPlayerIndex);
+            }
 
-        PositionState positionState = clientPositions.get(info.clientId());
-        positionState.setClientInfo(info);
-        positionState.setClientPosition(position);
-        positionState.setClientVelocity(velocity);
+            return;
+        }
 
         for (var serverClient : getClients()) {
-            if (info.clientId().equals(serverClient.getClientId())) {
-//                SnowballFightSessionLogger.debug(
-//                    "Don't tell {} that {} moved",
-//                    clientPositions.get(serverClient.getClientId()).getClientInfo().clientName(),
-//                    clientPositions.get(client.getClientId()).getClientInfo().clientName()
-//                );
+            if (serverClient.getClientId().equals(clientId)) {
                 continue;
             }
 
             try {
-//                SnowballFightSessionLogger.debug(
-//                    "Telling {} that {} moved",
-//                    clientPositions.get(serverClient.getClientId()).getClientInfo().clientName(),
-//                    clientPositions.get(client.getClientId()).getClientInfo().clientName()
-//                );
-                serverClient.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.UpdateClientGameState, info, position, velocity);
+                positionState.sendUpdate(serverClient, serverClient.getClientId());
             } catch (IOException exception) {
-                SnowballFightSessionLogger.warn("error while trying to send {}'s game state update: {}", serverClient.getClientId(), exception);
+                SnowballFightSessionLogger.warn("error while trying to send {}'s game state update: {}", clientId, exception.getMessage());
             }
         }
     }
 
+    private void resyncPositionState(ServerClient<Commands> client, Integer playerIndex) {
+        PositionState positionState = positionStatesByIndex.get(playerIndex);
+
+        if (positionState == null) {
+            return;
+        }
+
+        positionState.forgetRecipient(client.getClientId());
+
+        try {
+            positionState.sendUpdate(client, client.getClientId());
+        } catch (IOException exception) {
+            SnowballFightSessionLogger.warn("error while trying to resend {}'s game state to {}: {}", positionState.getClientInfo().clientId(), client.getClientId(), exception.getMessage());
+        }
+    }
+
     public void startGame() {
         SnowballFightSessionLogger.info("Start Snowball Fight!");
 
@@ -208,9 +209,9 @@ public class SnowballFightSession extends Session<Commands> {
         }
     }
 
-    private synchronized void checkForWinner() {
+    private synchronized ClientInfo claimWinner() {
         if (!isGameRunning) {
-            return;
+            return null;
         }
 
         List<ClientInfo> playersRemaining = new ArrayList<>();
@@ -224,19 +225,25 @@ public class SnowballFightSession extends Session<Commands> {
         }
 
         if (playersRemaining.size() != 1) {
-            return;
+            return null;
         }
 
         isGameRunning = false;
+        return playersRemaining.get(0);
+    }
+
+    private void checkForWinner() {
+        ClientInfo winnerInfo = claimWinner();
+
+        if (winnerInfo == null) {
+            return;
+        }
 
-        ClientInfo winnerInfo = playersRemaining.get(0);
         SnowballFightSessionLogger.info("Somehow, {} has won!", winnerInfo.clientName());
 
         try {
             startSessionSequence(() -> {
-                for (ServerClient<Commands> client : getClients()) {
-                    client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.GameFinished, winnerInfo);
-                }
+                broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.GameFinished, winnerInfo);
 
                 ((GameLobby) lobby).replaceTotalPoints(clientPoints);
 
@@ -248,32 +255,14 @@ public class SnowballFightSession extends Session<Commands> {
                     .map(PointsState::createClientPoints)
                     .toArray(ClientPoints[]::new);
 
-                for (ServerClient<Commands> client : getClients()) {
-//                    PointsState pointsState = allPoints.get(client.getClientId());
-//
-//                    if (pointsState == null) {
-//                        pointsState = new PointsState();
-//                        pointsState.setClientInfo(clientPoints.get(client.getClientId()).getClientInfo());
-//                    }
-
-                    client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.GameResults, allPointsArray);
-                }
+                broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.GameResults, allPointsArray);
 
                 TimeUnit.SECONDS.sleep(Info.SessionSwitchTime);
 
                 lobby.switchCurrentSession(SessionNames.Home);
 
-                for (int i = getClients().size() - 1; i >= 0; i--) {
-                    var client = getClients().get(i);
-
-                    SnowballFightSessionLogger.info(
-                        "Telling client {}:{} to switch scenes",
-                        client.getClientId(),
-                        clientPositions.get(client.getClientId()).getClientInfo().clientName()
-                    );
-
-                    client.sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SwitchScene, SessionNames.Home);
-                }
+                SnowballFightSessionLogger.info("Telling {} clients to switch scenes", getClients().size());
+                broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, Commands.SwitchScene, SessionNames.Home);
 
                 TimeUnit.SECONDS.sleep(1L);
 
@@ -298,8 +287,16 @@ public class SnowballFightSession extends Session<Commands> {
     }
 
     private void removeClientStates(Session<Commands> session, ServerClient<Commands> client) {
-        clientPositions.remove(client.getClientId());
+        PositionState removedState = clientPositions.remove(client.getClientId());
+        if (removedState != null) {
+            positionStatesByIndex.remove(removedState.getPlayerIndex());
+        }
+
         clientPoints.remove(client.getClientId());
+
+        for (PositionState positionState : clientPositions.values()) {
+            positionState.forgetRecipient(client.getClientId());
+        }
     }
 
     @Override
@@ -0,0 +1,152 @@
+package benchmark;
+
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.rpc.CoalescingOutputStream;
+import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what compressing a TCP frame costs and saves, for payloads shaped like the game's larger messages:
+ * <ul>
+ *     <li>{@code lobbies-N}: the {@code LobbyIdentifier[]} sent by {@code Server.returnAvailableLobbies}.</li>
+ *     <li>{@code results-N}: the {@code ClientPoints[]} sent in {@code Commands.GameResults}.</li>
+ *     <li>{@code drawing-N}: the 160000-bit {@code DrawingState} pixel set, with {@code N} strokes drawn.</li>
+ * </ul>
+ * The {@code wireBytes} counter is the framed length of each message. Compressing pays off once the extra time per
+ * message is less than the time the link takes to carry the bytes it saves, e.g. 800 ns per byte at 10 Mbit/s.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompressionBenchmark {
+
+    @Param({"lobbies-4", "lobbies-64", "results-4", "results-32", "drawing-0", "drawing-20", "drawing-200"})
+    public String payload;
+
+    private byte[] message;
+    private CoalescingOutputStream uncompressedOut;
+    private CoalescingOutputStream compressedOut;
+    private CountingOutputStream uncompressedSocket;
+    private CountingOutputStream compressedSocket;
+
+    public record Player(UUID clientId, String clientName) implements Message {}
+
+    public record Points(Player player, int points) implements Message {}
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WireBytes {
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0L;
+        }
+    }
+
+    @Setup
+    public void createMessage() throws IOException {
+        String[] parts = payload.split("-");
+        int count = Integer.parseInt(parts[1]);
+        Serializer serializer = new Serializer(LobbyIdentifier.class, Player.class, Points.class);
+
+        message = switch (parts[0]) {
+            case "lobbies" -> {
+                LobbyIdentifier[] lobbies = new LobbyIdentifier[count];
+                for (int i = 0; i < count; i++) {
+                    lobbies[i] = new LobbyIdentifier(UUID.randomUUID(), "Lobby " + (i + 1), i % 4, 4);
+                }
+
+                yield serializer.writeMessages(lobbies);
+            }
+            case "results" -> {
+                Points[] results = new Points[count];
+                for (int i = 0; i < count; i++) {
+                    results[i] = new Points(new Player(UUID.randomUUID(), "Player " + (i + 1)), i * 25);
+                }
+
+                yield serializer.writeMessages(results);
+            }
+            case "drawing" -> {
+                BitSet pixels = new BitSet(160000);
+                Random random = new Random(count);
+
+                for (int stroke = 0; stroke < count; stroke++) {
+                    int start = random.nextInt(160000 - 400);
+                    for (int pixel = 0; pixel < 400; pixel += 1 + random.nextInt(3)) {
+                        pixels.set(start + pixel);
+                    }
+                }
+
+                // DrawingState sends its full pixel set, not just up to the last set bit
+                pixels.set(159999);
+                yield pixels.toByteArray();
+            }
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+
+        uncompressedSocket = new CountingOutputStream();
+        uncompressedOut = new CoalescingOutputStream(uncompressedSocket, TcpBufferConfig.Default);
+        uncompressedOut.enableFraming();
+
+        compressedSocket = new CountingOutputStream();
+        compressedOut = new CoalescingOutputStream(compressedSocket, TcpBufferConfig.Default);
+        compressedOut.enableFraming();
+        compressedOut.enableCompression(0);
+    }
+
+    @Benchmark
+    public void uncompressed(WireBytes counter) throws IOException {
+        long before = uncompressedSocket.count;
+        uncompressedOut.write(message);
+        uncompressedOut.flush();
+        counter.wireBytes += uncompressedSocket.count - before;
+    }
+
+    @Benchmark
+    public void compressed(WireBytes counter) throws IOException {
+        long before = compressedSocket.count;
+        compressedOut.write(message);
+        compressedOut.flush();
+        counter.wireBytes += compressedSocket.count - before;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package benchmark;
+
+import tech.fastj.network.concurrent.ExecutorStrategy;
+import tech.fastj.network.concurrent.NetworkExecutors;
+import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes0;
+import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.server.Server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares platform and virtual listener threads on a blocking-mode server.
+ * <p>
+ * {@code commandRoundTrip} reports p99 latency of a TCP command and its reply while {@code clients} other connections
+ * sit idle on their listener threads. {@code connectClients} measures how long it takes to bring {@code clients}
+ * concurrent connections up, and fails outright once a mode can no longer create the threads it needs. Virtual mode
+ * requires a JVM with virtual thread support.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExecutorStrategyBenchmark {
+
+    private static final int Port = 19990;
+
+    @Param({"Platform", "Virtual"})
+    public String strategy;
+
+    @Param({"64", "512", "2048"})
+    public int clients;
+
+    private Server<BenchmarkCommands> server;
+    private List<LocalClient<BenchmarkCommands>> idleClients;
+    private LocalClient<BenchmarkCommands> pinger;
+    private SynchronousQueue<Boolean> pongs;
+
+    enum BenchmarkCommands implements CommandAlias {
+        Ping(new Classes0()),
+        Pong(new Classes0());
+
+        private final Classes commandClasses;
+
+        BenchmarkCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        NetworkExecutors.setStrategy(strategy.equals("Virtual") ? ExecutorStrategy.virtual() : ExecutorStrategy.platform());
+
+        ServerConfig serverConfig = new ServerConfig(InetAddress.getLoopbackAddress(), Port, clients + 1, clients + 1);
+        server = new Server<>(serverConfig, BenchmarkCommands.class, null);
+        server.addCommand(BenchmarkCommands.Ping, client -> {
+            try {
+                client.sendCommand(NetworkType.TCP, CommandTarget.Client, BenchmarkCommands.Pong);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+
+        server.start();
+        server.allowClients();
+
+        idleClients = new ArrayList<>(clients);
+        pongs = new SynchronousQueue<>();
+
+        pinger = connect();
+        pinger.addCommand(BenchmarkCommands.Pong, () -> {
+            try {
+                pongs.put(true);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void connectIdleClients() throws IOException {
+        while (idleClients.size() < clients) {
+            idleClients.add(connect());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        for (LocalClient<BenchmarkCommands> client : idleClients) {
+            client.disconnect();
+        }
+
+        pinger.disconnect();
+        server.stop();
+        NetworkExecutors.setStrategy(ExecutorStrategy.defaultStrategy());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Boolean commandRoundTrip() throws IOException, InterruptedException {
+        pinger.sendCommand(NetworkType.TCP, CommandTarget.Server, BenchmarkCommands.Ping);
+        return pongs.take();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int connectClients() throws IOException {
+        List<LocalClient<BenchmarkCommands>> connectedClients = new ArrayList<>(clients);
+
+        try {
+            for (int i = 0; i < clients; i++) {
+                connectedClients.add(connect());
+            }
+
+            return server.getClients().size();
+        } finally {
+            for (LocalClient<BenchmarkCommands> client : connectedClients) {
+                client.disconnect();
+            }
+        }
+    }
+
+    private LocalClient<BenchmarkCommands> connect() throws IOException {
+        LocalClient<BenchmarkCommands> client = new LocalClient<>(new ClientConfig(InetAddress.getLoopbackAddress(), Port), BenchmarkCommands.class);
+        client.connect();
+
+        return client;
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link Serializer#writeMessages(Message...)}, which writes an array of nested messages in one pass into a
+ * reused growable buffer, against measuring the array with {@link MessageUtils#bytesLength} first to size a new buffer
+ * for it, as it did before.
+ * <p>
+ * {@code Points} is shaped like the game's {@code ClientPoints}, sent as an array in {@code Commands.GameResults}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NestedPayloadBenchmark {
+
+    @Param({"4", "32"})
+    public int players;
+
+    private Serializer serializer;
+    private Points[] results;
+
+    public record Player(UUID clientId, String clientName) implements Message {}
+
+    public record Points(Player player, int points) implements Message {}
+
+    @Setup
+    public void createResults() {
+        serializer = new Serializer(Player.class, Points.class);
+        results = new Points[players];
+
+        for (int i = 0; i < players; i++) {
+            results[i] = new Points(new Player(UUID.randomUUID(), "Player " + (i + 1)), i * 25);
+        }
+    }
+
+    @Benchmark
+    public byte[] singlePass() throws IOException {
+        return serializer.writeMessages(results);
+    }
+
+    @Benchmark
+    public byte[] measureThenWrite() throws IOException {
+        int length = 0;
+
+        for (Message message : results) {
+            length += MessageUtils.bytesLength(serializer, message);
+        }
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, length + Integer.BYTES);
+        serializer.writeMessages(outputStream, results);
+
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,206 @@
+package benchmark;
+
+import tech.fastj.network.rpc.PacketBuffer;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.RecordSerializer;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.read.MessageReader;
+import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.write.MessageOutputStream;
+import tech.fastj.network.serial.write.MessageWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the generated record codecs against the reflective ones they replaced, which call each component's accessor
+ * through {@code Method.invoke} and the canonical constructor through {@code Constructor.newInstance}.
+ * <p>
+ * {@code Position} is shaped like the game's {@code ClientPosition}; {@code Snowball} is shaped like its
+ * {@code SnowballInfo}, with a nested message, a UUID and six floats.
+ * <p>
+ * {@code Buffer} reads and writes through the {@code ByteBuffer}-backed streams the socket paths use; {@code Stream}
+ * reads and writes through plain {@code MessageInputStream}/{@code MessageOutputStream}s over byte array streams.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordCodecBenchmark {
+
+    @Param({"Position", "Snowball"})
+    public String message;
+
+    @Param({"Generated", "Reflective"})
+    public String codec;
+
+    @Param({"Buffer", "Stream"})
+    public String source;
+
+    private Message value;
+    private RecordSerializer<Message> recordSerializer;
+
+    private PacketBuffer packetBuffer;
+    private ByteArrayOutputStream streamBuffer;
+    private MessageOutputStream streamOut;
+
+    private byte[] encoded;
+    private BufferMessageInputStream bufferIn;
+    private ByteArrayInputStream streamView;
+    private MessageInputStream streamIn;
+
+    public record Player(UUID id, String name) implements Message {}
+
+    public record Position(float x, float y) implements Message {}
+
+    public record Snowball(Player player, UUID snowballId, float trajectoryX, float trajectoryY, float positionX, float positionY,
+                           float rotation, float currentLife) implements Message {}
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void createCodecs() throws IOException {
+        Serializer serializer = new Serializer(Player.class, Position.class, Snowball.class);
+
+        value = message.equals("Position")
+            ? new Position(640f, 360f)
+            : new Snowball(new Player(UUID.randomUUID(), "Player 1"), UUID.randomUUID(), 0.5f, -0.5f, 640f, 360f, 45f, 2.5f);
+
+        Class<Message> messageClass = (Class<Message>) value.getClass();
+        recordSerializer = codec.equals("Generated")
+            ? RecordSerializerUtils.generate(serializer, messageClass)
+            : ReflectiveCodecs.generate(serializer, messageClass);
+
+        packetBuffer = new PacketBuffer(serializer);
+        recordSerializer.writer().write(packetBuffer.begin(), value);
+        encoded = Arrays.copyOf(packetBuffer.data(), packetBuffer.length());
+
+        streamBuffer = new ByteArrayOutputStream(encoded.length);
+        streamOut = new MessageOutputStream(streamBuffer, serializer);
+
+        bufferIn = new BufferMessageInputStream(serializer);
+        streamView = new ByteArrayInputStream(encoded);
+        streamIn = new MessageInputStream(streamView, serializer);
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        if (source.equals("Buffer")) {
+            recordSerializer.writer().write(packetBuffer.begin(), value);
+            return packetBuffer.length();
+        }
+
+        streamBuffer.reset();
+        recordSerializer.writer().write(streamOut, value);
+        return streamBuffer.size();
+    }
+
+    @Benchmark
+    public Message read() throws IOException {
+        if (source.equals("Buffer")) {
+            bufferIn.reset(encoded, 0, encoded.length);
+            return recordSerializer.reader().read(bufferIn);
+        }
+
+        streamView.reset();
+        return recordSerializer.reader().read(streamIn);
+    }
+
+    @Benchmark
+    public int size() {
+        return recordSerializer.byteLengthFunction().apply(value);
+    }
+
+    /** The reflective codecs {@code RecordSerializerUtils} generated before it composed method handles. */
+    private static class ReflectiveCodecs {
+
+        static <T extends Message> RecordSerializer<T> generate(Serializer serializer, Class<T> messageType) {
+            RecordComponent[] components = messageType.getRecordComponents();
+            Constructor<T> constructor;
+
+            try {
+                constructor = messageType.getDeclaredConstructor(
+                    Arrays.stream(components)
+                        .map(RecordComponent::getType)
+                        .toArray(Class<?>[]::new)
+                );
+            } catch (NoSuchMethodException exception) {
+                throw new IllegalArgumentException(exception);
+            }
+
+            return new RecordSerializer<>(
+                messageType,
+                generateByteSizeFunction(serializer, components),
+                generateReader(constructor),
+                generateWriter(components)
+            );
+        }
+
+        private static <T extends Message> Function<T, Integer> generateByteSizeFunction(Serializer serializer, RecordComponent[] components) {
+            return message -> {
+                int size = 0;
+
+                for (var component : components) {
+                    try {
+                        size += MessageUtils.bytesLength(serializer, component.getAccessor().invoke(message));
+                    } catch (ReflectiveOperationException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+
+                return size;
+            };
+        }
+
+        private static <T extends Message> MessageReader<T> generateReader(Constructor<T> constructor) {
+            return inputStream -> {
+                Object[] values = new Object[constructor.getParameterCount()];
+
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = inputStream.readObject(constructor.getParameterTypes()[i]);
+                }
+
+                try {
+                    return constructor.newInstance(values);
+                } catch (ReflectiveOperationException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            };
+        }
+
+        private static <T extends Message> MessageWriter<T> generateWriter(RecordComponent[] components) {
+            return (outputStream, message) -> {
+                for (var component : components) {
+                    try {
+                        outputStream.writeObject(component.getAccessor().invoke(message), component.getType());
+                    } catch (ReflectiveOperationException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+            };
+        }
+    }
+}
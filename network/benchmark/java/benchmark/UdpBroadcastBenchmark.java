@@ -0,0 +1,163 @@
+package benchmark;
+
+import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
+import tech.fastj.network.rpc.server.Lobby;
+import tech.fastj.network.rpc.server.Server;
+import tech.fastj.network.rpc.server.ServerClient;
+import tech.fastj.network.rpc.server.Session;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures UDP fan-out from a session to {@code recipients} clients on loopback.
+ * <p>
+ * {@code sessionBroadcast} serializes each command once and sends the batch through the server's datagram channel.
+ * {@code perClientSends} is the old approach of looping over the session's clients and sending each one its own copy.
+ * Both report how many complete broadcasts go out per second.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UdpBroadcastBenchmark {
+
+    private static final int Port = 19991;
+
+    @Param({"8", "64", "256"})
+    public int recipients;
+
+    private Server<BenchmarkCommands> server;
+    private List<LocalClient<BenchmarkCommands>> clients;
+    private Session<BenchmarkCommands> session;
+    private float[] state;
+
+    enum BenchmarkCommands implements CommandAlias {
+        State(new Classes1<>(float[].class));
+
+        private final Classes commandClasses;
+
+        BenchmarkCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException, InterruptedException {
+        ServerConfig serverConfig = new ServerConfig(InetAddress.getLoopbackAddress(), Port, recipients + 1, recipients + 1);
+        server = new Server<>(serverConfig, BenchmarkCommands.class, (client, lobbyName) -> new BenchmarkLobby(server, lobbyName, recipients));
+        server.start();
+        server.allowClients();
+
+        clients = new ArrayList<>(recipients);
+        LobbyIdentifier lobby = null;
+
+        for (int i = 0; i < recipients; i++) {
+            LocalClient<BenchmarkCommands> client = new LocalClient<>(new ClientConfig(InetAddress.getLoopbackAddress(), Port), BenchmarkCommands.class);
+            client.connect();
+            client.addCommand(BenchmarkCommands.State, (float[] receivedState) -> {});
+
+            if (lobby == null) {
+                lobby = client.createLobby("benchmark");
+            } else {
+                client.joinLobby(lobby.id());
+            }
+
+            clients.add(client);
+        }
+
+        ServerClient<BenchmarkCommands> serverClient = server.getClient(clients.get(0).getClientId());
+        session = server.getLobby(serverClient).getCurrentSession();
+        state = new float[16];
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        for (LocalClient<BenchmarkCommands> client : clients) {
+            client.disconnect();
+        }
+
+        server.stop();
+    }
+
+    @Benchmark
+    public void sessionBroadcast() throws IOException {
+        session.broadcast().sendCommand(NetworkType.UDP, CommandTarget.Client, BenchmarkCommands.State, state);
+    }
+
+    @Benchmark
+    public void perClientSends() throws IOException {
+        for (ServerClient<BenchmarkCommands> client : session.getClients()) {
+            client.sendCommand(NetworkType.UDP, CommandTarget.Client, BenchmarkCommands.State, state);
+        }
+    }
+
+    private static class BenchmarkLobby extends Lobby<BenchmarkCommands> {
+
+        private static final Logger BenchmarkLobbyLogger = LoggerFactory.getLogger(BenchmarkLobby.class);
+
+        private BenchmarkLobby(Server<BenchmarkCommands> server, String lobbyName, int expectedLobbySize) {
+            super(server, expectedLobbySize, lobbyName, BenchmarkCommands.class);
+
+            BenchmarkSession session = new BenchmarkSession(this, lobbyName + "_Session");
+
+            addSession(session);
+            setCurrentSession(session);
+            setHomeSessionId(session.getSessionId());
+        }
+
+        @Override
+        public Logger getLogger() {
+            return BenchmarkLobbyLogger;
+        }
+    }
+
+    private static class BenchmarkSession extends Session<BenchmarkCommands> {
+
+        private static final Logger BenchmarkSessionLogger = LoggerFactory.getLogger(BenchmarkSession.class);
+
+        private BenchmarkSession(Lobby<BenchmarkCommands> lobby, String sessionName) {
+            super(lobby, sessionName, BenchmarkCommands.class);
+        }
+
+        @Override
+        public Logger getLogger() {
+            return BenchmarkSessionLogger;
+        }
+    }
+}
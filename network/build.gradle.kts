@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("maven-publish")
     id("signing")
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "io.github.lucasstarsz.fastj"
@@ -18,6 +19,11 @@ sourceSets {
         java.setSrcDirs(listOf("test/java"))
         resources.setSrcDirs(listOf("test/resources"))
     }
+
+    named("jmh") {
+        java.setSrcDirs(listOf("benchmark/java"))
+        resources.setSrcDirs(listOf("benchmark/resources"))
+    }
 }
 
 repositories.maven { setUrl("https://jitpack.io/") }
@@ -27,11 +33,17 @@ dependencies.implementation(libs.bundles.fastj)
 
 dependencies.testImplementation(dependencies.platform("org.junit:junit-bom:5.8.2"))
 dependencies.testImplementation(libs.bundles.unittest)
+dependencies.testAnnotationProcessor(projects.processor)
 
 tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion.set("1.36")
+    includes.set(listOfNotNull(project.findProperty("jmhIncludes") as String?))
+}
+
 java.withJavadocJar()
 java.withSourcesJar()
 
@@ -1,7 +1,9 @@
 module fastj.network {
     requires transitive org.slf4j;
 
+    exports tech.fastj.network.concurrent;
     exports tech.fastj.network.config;
+    exports tech.fastj.network.replication;
 
     exports tech.fastj.network.rpc;
     exports tech.fastj.network.rpc.classes;
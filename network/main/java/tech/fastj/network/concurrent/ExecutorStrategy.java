@@ -0,0 +1,47 @@
+package tech.fastj.network.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decides which threads run the network library's blocking work: connection listeners, client accepters, UDP receivers and
+ * session sequences.
+ * <p>
+ * Use {@link NetworkExecutors#setStrategy(ExecutorStrategy)} to change the strategy used by servers and clients created
+ * afterwards. Threads from either strategy are daemon threads, so an application hosting a server should wait on
+ * {@code Server#awaitStop()} rather than rely on network threads to keep the JVM alive.
+ * <p>
+ * UDP receive loops always run on platform threads, since {@code DatagramSocket.receive} would pin a virtual thread.
+ */
+public interface ExecutorStrategy {
+
+    /** Creates a thread factory whose threads are named after {@code name}. */
+    ThreadFactory threadFactory(String name);
+
+    /** Creates an executor that runs each submitted task on its own thread, or a reused one where threads are expensive. */
+    ExecutorService newExecutor(String name);
+
+    /** Daemon platform threads from a cached pool, so idle listener threads are reused instead of recreated. */
+    static ExecutorStrategy platform() {
+        return PlatformExecutorStrategy.Instance;
+    }
+
+    /**
+     * A new virtual thread per task, so blocking socket reads and sleeping sequences do not pin an OS thread each.
+     *
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads.
+     */
+    static ExecutorStrategy virtual() {
+        return VirtualExecutorStrategy.get();
+    }
+
+    /** Virtual threads when the running JVM supports them, platform threads otherwise. */
+    static ExecutorStrategy defaultStrategy() {
+        return VirtualExecutorStrategy.isSupported() ? virtual() : platform();
+    }
+
+    /** Whether the running JVM supports virtual threads. */
+    static boolean isVirtualSupported() {
+        return VirtualExecutorStrategy.isSupported();
+    }
+}
@@ -0,0 +1,30 @@
+package tech.fastj.network.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+public class NetworkExecutors {
+
+    private static volatile ExecutorStrategy strategy = ExecutorStrategy.defaultStrategy();
+
+    private NetworkExecutors() {
+    }
+
+    public static ExecutorStrategy getStrategy() {
+        return strategy;
+    }
+
+    /** Sets the strategy used for executors created from now on. Executors that are already running are left alone. */
+    public static void setStrategy(ExecutorStrategy strategy) {
+        NetworkExecutors.strategy = Objects.requireNonNull(strategy, "executor strategy");
+    }
+
+    public static ThreadFactory threadFactory(String name) {
+        return strategy.threadFactory(name);
+    }
+
+    public static ExecutorService newExecutor(String name) {
+        return strategy.newExecutor(name);
+    }
+}
@@ -0,0 +1,35 @@
+package tech.fastj.network.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+final class PlatformExecutorStrategy implements ExecutorStrategy {
+
+    static final PlatformExecutorStrategy Instance = new PlatformExecutorStrategy();
+
+    private PlatformExecutorStrategy() {
+    }
+
+    @Override
+    public ThreadFactory threadFactory(String name) {
+        ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+        return task -> {
+            Thread thread = defaultFactory.newThread(task);
+            thread.setName(name + "-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        return Executors.newCachedThreadPool(threadFactory(name));
+    }
+
+    @Override
+    public String toString() {
+        return "Platform";
+    }
+}
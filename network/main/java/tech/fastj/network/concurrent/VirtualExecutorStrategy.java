@@ -0,0 +1,101 @@
+package tech.fastj.network.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual thread support, looked up at runtime so the library still builds and runs on JVMs without virtual threads.
+ */
+final class VirtualExecutorStrategy implements ExecutorStrategy {
+
+    private static final Logger VirtualExecutorStrategyLogger = LoggerFactory.getLogger(VirtualExecutorStrategy.class);
+
+    private static final MethodHandle OfVirtual;
+    private static final MethodHandle BuilderName;
+    private static final MethodHandle BuilderFactory;
+    private static final MethodHandle NewThreadPerTaskExecutor;
+    private static final VirtualExecutorStrategy Instance;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        VirtualExecutorStrategy instance = null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            builderName = lookup.findVirtual(virtualBuilderClass, "name", MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            builderFactory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(
+                Executors.class,
+                "newThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class, ThreadFactory.class)
+            );
+
+            // preview builds expose the methods but refuse to create threads unless previews are enabled
+            ofVirtual.invoke();
+            instance = new VirtualExecutorStrategy();
+        } catch (Throwable exception) {
+            VirtualExecutorStrategyLogger.debug("Virtual threads unavailable: {}", exception.toString());
+        }
+
+        OfVirtual = ofVirtual;
+        BuilderName = builderName;
+        BuilderFactory = builderFactory;
+        NewThreadPerTaskExecutor = newThreadPerTaskExecutor;
+        Instance = instance;
+    }
+
+    private VirtualExecutorStrategy() {
+    }
+
+    static boolean isSupported() {
+        return Instance != null;
+    }
+
+    static VirtualExecutorStrategy get() {
+        if (Instance == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by Java " + Runtime.version() + ".");
+        }
+
+        return Instance;
+    }
+
+    @Override
+    public ThreadFactory threadFactory(String name) {
+        try {
+            Object builder = OfVirtual.invoke();
+            builder = BuilderName.invoke(builder, name + "-", 0L);
+
+            return (ThreadFactory) BuilderFactory.invoke(builder);
+        } catch (Throwable exception) {
+            throw new IllegalStateException("Unable to create virtual thread factory for " + name, exception);
+        }
+    }
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        try {
+            return (ExecutorService) NewThreadPerTaskExecutor.invoke(threadFactory(name));
+        } catch (Throwable exception) {
+            throw new IllegalStateException("Unable to create virtual thread executor for " + name, exception);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Virtual";
+    }
+}
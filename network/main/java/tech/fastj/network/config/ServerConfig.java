@@ -2,11 +2,32 @@ package tech.fastj.network.config;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Set;
 
-public record ServerConfig(InetAddress address, int port, int maxClients, int clientBacklog) {
+public record ServerConfig(InetAddress address, int port, int maxClients, int clientBacklog, ServerIoMode ioMode, int ioThreads,
+                           int udpReceivers, TcpBufferConfig tcpBuffer, Set<WireFeature> wireFeatures) {
 
     public static final int DefaultMaxClients = 4;
     public static final int DefaultClientBacklog = 10;
+    public static final ServerIoMode DefaultIoMode = ServerIoMode.Blocking;
+    public static final int DefaultIoThreads = Runtime.getRuntime().availableProcessors();
+    public static final int DefaultUdpReceivers = 1;
+    public static final Set<WireFeature> DefaultWireFeatures = Set.of(WireFeature.Framing, WireFeature.CompactEncoding, WireFeature.Compression);
+
+    public ServerConfig {
+        if (ioMode == ServerIoMode.Selector && !wireFeatures.contains(WireFeature.Framing)) {
+            throw new IllegalArgumentException(ServerIoMode.Selector + " servers need " + WireFeature.Framing + " to know where each TCP message ends.");
+        }
+
+        if (wireFeatures.contains(WireFeature.StringDictionary) && !wireFeatures.contains(WireFeature.Framing)) {
+            throw new IllegalArgumentException(WireFeature.StringDictionary + " needs " + WireFeature.Framing + ", so a string definition is only read once all of it has arrived.");
+        }
+    }
+
+    public ServerConfig(InetAddress address, int port, int maxClients, int clientBacklog) {
+        this(address, port, maxClients, clientBacklog, DefaultIoMode, DefaultIoThreads, DefaultUdpReceivers, TcpBufferConfig.Default,
+            DefaultWireFeatures);
+    }
 
     public ServerConfig(int port) throws UnknownHostException {
         this(InetAddress.getLocalHost(), port, DefaultMaxClients, DefaultClientBacklog);
@@ -23,4 +44,13 @@ public record ServerConfig(InetAddress address, int port, int maxClients, int cl
     public ServerConfig(int port, int maxClients, int backlog) throws UnknownHostException {
         this(InetAddress.getLocalHost(), port, maxClients, backlog);
     }
+
+    public ServerConfig(int port, ServerIoMode ioMode) throws UnknownHostException {
+        this(port, ioMode, DefaultWireFeatures);
+    }
+
+    public ServerConfig(int port, ServerIoMode ioMode, Set<WireFeature> wireFeatures) throws UnknownHostException {
+        this(InetAddress.getLocalHost(), port, DefaultMaxClients, DefaultClientBacklog, ioMode, DefaultIoThreads, DefaultUdpReceivers, TcpBufferConfig.Default,
+            wireFeatures);
+    }
 }
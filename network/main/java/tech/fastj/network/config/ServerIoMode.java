@@ -0,0 +1,11 @@
+package tech.fastj.network.config;
+
+public enum ServerIoMode {
+    /** Each client gets its own blocking listener threads. */
+    Blocking,
+    /**
+     * All clients share a small set of {@link java.nio.channels.Selector selector} event loops. Needs
+     * {@link WireFeature#Framing}, so a message is only read once all of it has arrived.
+     */
+    Selector
+}
@@ -0,0 +1,41 @@
+package tech.fastj.network.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls how outgoing TCP data is coalesced before it reaches the socket.
+ *
+ * @param maxBytes             Buffered bytes at which data is written out immediately, even mid-batch. {@code 0} writes
+ *                             every flush straight through.
+ * @param maxLatency           Longest time a flushed message may wait in the buffer. {@code 0} means flushes outside a
+ *                             {@link tech.fastj.network.rpc.WriteBatch} are written immediately, and flushes inside one
+ *                             wait for the batch to end.
+ * @param latencyUnit          Unit of {@code maxLatency}.
+ * @param compressionThreshold Length from which a message is compressed, on connections using
+ *                             {@link WireFeature#Compression}. A message is only sent compressed if that makes it
+ *                             shorter.
+ */
+public record TcpBufferConfig(int maxBytes, long maxLatency, TimeUnit latencyUnit, int compressionThreshold) {
+
+    public static final int DefaultMaxBytes = 8192;
+    public static final int DefaultCompressionThreshold = 1024;
+
+    public static final TcpBufferConfig Default = new TcpBufferConfig(DefaultMaxBytes, 0L, TimeUnit.MILLISECONDS);
+    public static final TcpBufferConfig Unbuffered = new TcpBufferConfig(0, 0L, TimeUnit.MILLISECONDS);
+
+    public TcpBufferConfig(int maxBytes) {
+        this(maxBytes, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    public TcpBufferConfig(int maxBytes, long maxLatency, TimeUnit latencyUnit) {
+        this(maxBytes, maxLatency, latencyUnit, DefaultCompressionThreshold);
+    }
+
+    public TcpBufferConfig withCompressionThreshold(int compressionThreshold) {
+        return new TcpBufferConfig(maxBytes, maxLatency, latencyUnit, compressionThreshold);
+    }
+
+    public long maxLatencyNanos() {
+        return latencyUnit.toNanos(maxLatency);
+    }
+}
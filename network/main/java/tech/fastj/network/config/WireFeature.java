@@ -0,0 +1,70 @@
+package tech.fastj.network.config;
+
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.WireFormat;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Optional parts of the wire format. The server sends the features it uses during the handshake, and clients either
+ * adopt them or refuse the connection.
+ */
+public enum WireFeature {
+    /** Prefixes each TCP message with its length, so a receiver can bound each message and skip ones it can't read. */
+    Framing,
+    /** Encodes enum ordinals, lengths and int fields with {@link WireFormat#Compact}, over both TCP and UDP. */
+    CompactEncoding,
+    /**
+     * Sends repeated strings over TCP as ids from a per-connection {@link tech.fastj.network.serial.StringDictionary},
+     * once each string has been sent in full. Packets broadcast to several clients write their strings inline. Needs
+     * {@link #Framing}.
+     */
+    StringDictionary,
+    /**
+     * Deflates TCP messages of at least {@link TcpBufferConfig#compressionThreshold()} bytes, flagging each compressed
+     * one in its length prefix. Only used along with {@link #Framing}.
+     */
+    Compression;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int toBits(Set<WireFeature> features) {
+        int bits = 0;
+
+        for (WireFeature feature : features) {
+            bits |= feature.bit();
+        }
+
+        return bits;
+    }
+
+    public static Set<WireFeature> fromBits(int bits) {
+        Set<WireFeature> features = EnumSet.noneOf(WireFeature.class);
+
+        for (WireFeature feature : values()) {
+            if ((bits & feature.bit()) != 0) {
+                features.add(feature);
+            }
+        }
+
+        return features;
+    }
+
+    public static WireFormat wireFormat(Set<WireFeature> features) {
+        return features.contains(CompactEncoding) ? WireFormat.Compact : WireFormat.Fixed;
+    }
+
+    /** Sets up {@code serializer} to read and write with {@code features}. */
+    public static void configure(Serializer serializer, Set<WireFeature> features) {
+        serializer.setWireFormat(wireFormat(features));
+        serializer.setUsesStringDictionary(features.contains(StringDictionary));
+    }
+
+    /** Returns the bits in {@code bits} which don't belong to any known feature. */
+    public static int unknownBits(int bits) {
+        return bits & ~toBits(EnumSet.allOf(WireFeature.class));
+    }
+}
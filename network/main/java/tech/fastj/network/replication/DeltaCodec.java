@@ -0,0 +1,176 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.FieldCodec;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.FieldCodecUtils;
+import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.Objects;
+
+/**
+ * Writes a message record as the difference from an earlier value of it: a bitmask of the components that changed,
+ * followed by those components in declaration order. Components that didn't change are taken from the earlier value
+ * when reading.
+ */
+public class DeltaCodec<T extends Message> implements StateCodec<T> {
+
+    /** The most components a record can have, one per bit of the non-negative bitmask. */
+    public static final int MaxComponents = Integer.SIZE - 1;
+
+    private static final ClassValue<DeltaCodec<?>> DeltaCodecs = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected DeltaCodec<?> computeValue(Class<?> type) {
+            return new DeltaCodec(type);
+        }
+    };
+
+    private final Class<T> messageType;
+    private final MethodHandle[] accessors;
+    private final FieldCodec[] codecs;
+    private final MethodHandle constructor;
+
+    private DeltaCodec(Class<T> messageType) {
+        RecordComponent[] components = messageType.getRecordComponents();
+
+        if (components == null) {
+            throw new IllegalArgumentException("Cannot replicate non-record class " + messageType.getSimpleName());
+        }
+
+        if (components.length > MaxComponents) {
+            throw new IllegalArgumentException(
+                "Cannot replicate " + messageType.getSimpleName() + ", it has " + components.length + " components but at most "
+                    + MaxComponents + " are supported."
+            );
+        }
+
+        this.messageType = messageType;
+        this.accessors = new MethodHandle[components.length];
+        this.codecs = new FieldCodec[components.length];
+
+        Class<?>[] componentTypes = new Class<?>[components.length];
+
+        try {
+            MethodHandles.Lookup lookup = RecordSerializerUtils.lookupFor(messageType);
+
+            for (int i = 0; i < components.length; i++) {
+                componentTypes[i] = components[i].getType();
+                accessors[i] = lookup.unreflect(components[i].getAccessor())
+                    .asType(MethodType.methodType(Object.class, Message.class));
+                codecs[i] = FieldCodecUtils.get(components[i]);
+            }
+
+            constructor = lookup.findConstructor(messageType, MethodType.methodType(void.class, componentTypes))
+                .asSpreader(Object[].class, components.length)
+                .asType(MethodType.methodType(Message.class, Object[].class));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Message> DeltaCodec<T> get(Class<T> messageType) {
+        return (DeltaCodec<T>) DeltaCodecs.get(messageType);
+    }
+
+    @Override
+    public Class<T> messageType() {
+        return messageType;
+    }
+
+    @Override
+    public int componentCount() {
+        return accessors.length;
+    }
+
+    @Override
+    public int changedComponents(T baseline, T state) {
+        if (baseline == null) {
+            return (1 << accessors.length) - 1;
+        }
+
+        int changedComponents = 0;
+
+        for (int i = 0; i < accessors.length; i++) {
+            if (!Objects.deepEquals(component(i, baseline), component(i, state))) {
+                changedComponents |= 1 << i;
+            }
+        }
+
+        return changedComponents;
+    }
+
+    @Override
+    public void write(MessageOutputStream outputStream, T baseline, T state) throws IOException {
+        int changedComponents = changedComponents(baseline, state);
+        outputStream.writeLength(changedComponents);
+
+        for (int i = 0; i < accessors.length; i++) {
+            if ((changedComponents & (1 << i)) != 0) {
+                codecs[i].write(outputStream, component(i, state));
+            }
+        }
+    }
+
+    /**
+     * Reads a state written by {@link #write}. An update which changed nothing returns {@code baseline} itself.
+     *
+     * @throws IOException if the data is malformed, or names unchanged components without a baseline to take them from.
+     */
+    @SuppressWarnings("unchecked")
+    public T read(MessageInputStream inputStream, T baseline) throws IOException {
+        int changedComponents = readChangedComponents(inputStream, baseline);
+
+        if (changedComponents == 0 && baseline != null) {
+            return baseline;
+        }
+
+        Object[] values = new Object[accessors.length];
+
+        for (int i = 0; i < accessors.length; i++) {
+            values[i] = (changedComponents & (1 << i)) != 0 ? codecs[i].read(inputStream) : component(i, baseline);
+        }
+
+        try {
+            return (T) (Message) constructor.invokeExact(values);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /** Records are immutable, so {@code entry} is ignored and a new record is read. */
+    @Override
+    public T read(MessageInputStream inputStream, T baseline, T entry) throws IOException {
+        return read(inputStream, baseline);
+    }
+
+    /** Records are immutable, so history entries just refer to them. */
+    @Override
+    public T newEntry() {
+        return null;
+    }
+
+    @Override
+    public T store(T state, T entry) {
+        return state;
+    }
+
+    private Object component(int index, T message) {
+        try {
+            return (Object) accessors[index].invokeExact((Message) message);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
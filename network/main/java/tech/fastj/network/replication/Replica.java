@@ -0,0 +1,153 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.MessageUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The receiving side of a {@link ReplicatedState}, which rebuilds each update from the deltas it's sent.
+ * <p>
+ * A {@link Replicable} state is decoded into the history entry of the update it replaces, so the state returned is the
+ * replica's own and is overwritten {@link ReplicatedState#HistoryLength} updates later. Copy it rather than keeping it.
+ */
+public class Replica<T extends Message> {
+
+    private final StateCodec<T> stateCodec;
+    private final Object[] history = new Object[ReplicatedState.HistoryLength];
+    private final int[] historySequences = new int[ReplicatedState.HistoryLength];
+
+    private int sequence = MessageUtils.Null;
+    private T state;
+    private BufferMessageInputStream changesIn;
+
+    public Replica(Class<T> stateType) {
+        stateCodec = StateCodec.get(stateType);
+        Arrays.fill(historySequences, MessageUtils.Null);
+
+        for (int i = 0; i < history.length; i++) {
+            history[i] = stateCodec.newEntry();
+        }
+    }
+
+    public synchronized T get() {
+        return state;
+    }
+
+    /** The sequence of the last update applied, which is what the sender should be told was acknowledged. */
+    public synchronized int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Applies {@code stateDelta} and returns the resulting state. Updates older than the last one applied are ignored.
+     *
+     * @throws IOException if the delta is relative to an update this replica doesn't have, in which case the sender
+     *                     should {@link ReplicatedState#forget forget} this recipient and send a snapshot.
+     */
+    public synchronized T apply(Serializer serializer, StateDelta stateDelta) throws IOException {
+        if (stateDelta.sequence() <= sequence) {
+            return state;
+        }
+
+        T baseline = baseline(stateDelta.sequence(), stateDelta.baselineSequence());
+
+        if (changesIn == null || changesIn.getSerializer() != serializer) {
+            changesIn = new BufferMessageInputStream(serializer);
+        }
+
+        changesIn.reset(stateDelta.changes(), 0, stateDelta.changes().length);
+        return applyChanges(stateDelta.sequence(), changesIn, baseline);
+    }
+
+    /**
+     * Like {@link #apply(Serializer, StateDelta)}, but reads a {@link StateDelta} command argument straight from
+     * {@code inputStream} and decodes its changes in place, without creating the delta or copying its changes first. The
+     * stream is left after the delta even when it's ignored or can't be applied, so the rest of the packet can be read.
+     */
+    public synchronized T apply(MessageInputStream inputStream) throws IOException {
+        // the same layout a StateDelta message argument is written in
+        if (inputStream.readBoolean()) {
+            throw new IOException("Missing update of " + stateCodec.messageType().getSimpleName());
+        }
+
+        int deltaSequence = inputStream.readIntField();
+        int baselineSequence = inputStream.readIntField();
+        int changesLength = inputStream.readLength();
+
+        if (changesLength < 0) {
+            throw new IOException("Missing changes in update " + deltaSequence + " of " + stateCodec.messageType().getSimpleName());
+        }
+
+        if (deltaSequence <= sequence) {
+            skipFully(inputStream, changesLength);
+            return state;
+        }
+
+        T baseline;
+
+        try {
+            baseline = baseline(deltaSequence, baselineSequence);
+        } catch (IOException exception) {
+            skipFully(inputStream, changesLength);
+            throw exception;
+        }
+
+        return applyChanges(deltaSequence, inputStream, baseline);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T baseline(int deltaSequence, int baselineSequence) throws IOException {
+        if (baselineSequence == MessageUtils.Null) {
+            return null;
+        }
+
+        int baselineIndex = Math.floorMod(baselineSequence, ReplicatedState.HistoryLength);
+
+        if (historySequences[baselineIndex] != baselineSequence) {
+            throw new IOException("Missing baseline " + baselineSequence + " for update " + deltaSequence + " of " + stateCodec.messageType().getSimpleName());
+        }
+
+        return (T) history[baselineIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T applyChanges(int deltaSequence, MessageInputStream changes, T baseline) throws IOException {
+        int index = Math.floorMod(deltaSequence, ReplicatedState.HistoryLength);
+        T newState;
+
+        // a mutable entry is read into, so it no longer holds its old update even if this one fails
+        historySequences[index] = MessageUtils.Null;
+
+        try {
+            newState = stateCodec.read(changes, baseline, (T) history[index]);
+        } catch (EOFException exception) {
+            throw new IOException("Truncated update " + deltaSequence + " of " + stateCodec.messageType().getSimpleName(), exception);
+        }
+
+        history[index] = newState;
+        historySequences[index] = deltaSequence;
+
+        sequence = deltaSequence;
+        state = newState;
+
+        return newState;
+    }
+
+    private static void skipFully(MessageInputStream inputStream, int length) throws IOException {
+        for (int remaining = length; remaining > 0; ) {
+            int skipped = inputStream.skipBytes(remaining);
+
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+
+/**
+ * A mutable state for {@link ReplicatedState} and {@link Replica}, which keep a preallocated copy of it per history entry
+ * and decode each update into the entry it replaces, instead of creating a new message record per update.
+ * <p>
+ * Its components are numbered from 0 and written in that order, at most {@link DeltaCodec#MaxComponents} of them. It
+ * needs a public no-argument constructor.
+ */
+public interface Replicable<T extends Replicable<T>> extends Message {
+
+    int componentCount();
+
+    /** Returns whether component {@code index} of this state differs from {@code other}'s. */
+    boolean isComponentChanged(int index, T other);
+
+    void writeComponent(MessageOutputStream outputStream, int index) throws IOException;
+
+    void readComponent(MessageInputStream inputStream, int index) throws IOException;
+
+    /** Makes every component of this state equal to {@code other}'s. */
+    void set(T other);
+}
@@ -0,0 +1,128 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/** Writes a {@link Replicable} state the same way {@link DeltaCodec} writes a record, and reads it back in place. */
+final class ReplicableCodec<T extends Replicable<T>> implements StateCodec<T> {
+
+    private static final ClassValue<ReplicableCodec<?>> ReplicableCodecs = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected ReplicableCodec<?> computeValue(Class<?> type) {
+            return new ReplicableCodec(type);
+        }
+    };
+
+    private final Class<T> messageType;
+    private final MethodHandle constructor;
+    private final int componentCount;
+
+    private ReplicableCodec(Class<T> messageType) {
+        this.messageType = messageType;
+
+        try {
+            constructor = RecordSerializerUtils.lookupFor(messageType)
+                .findConstructor(messageType, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Replicable.class));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalArgumentException(
+                "Cannot replicate " + messageType.getSimpleName() + ", it has no accessible no-argument constructor.",
+                exception
+            );
+        }
+
+        componentCount = newEntry().componentCount();
+
+        if (componentCount > DeltaCodec.MaxComponents) {
+            throw new IllegalArgumentException(
+                "Cannot replicate " + messageType.getSimpleName() + ", it has " + componentCount + " components but at most "
+                    + DeltaCodec.MaxComponents + " are supported."
+            );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Replicable<T>> ReplicableCodec<T> get(Class<T> messageType) {
+        return (ReplicableCodec<T>) ReplicableCodecs.get(messageType);
+    }
+
+    @Override
+    public Class<T> messageType() {
+        return messageType;
+    }
+
+    @Override
+    public int componentCount() {
+        return componentCount;
+    }
+
+    @Override
+    public int changedComponents(T baseline, T state) {
+        if (baseline == null) {
+            return (1 << componentCount) - 1;
+        }
+
+        int changedComponents = 0;
+
+        for (int i = 0; i < componentCount; i++) {
+            if (state.isComponentChanged(i, baseline)) {
+                changedComponents |= 1 << i;
+            }
+        }
+
+        return changedComponents;
+    }
+
+    @Override
+    public void write(MessageOutputStream outputStream, T baseline, T state) throws IOException {
+        int changedComponents = changedComponents(baseline, state);
+        outputStream.writeLength(changedComponents);
+
+        for (int i = 0; i < componentCount; i++) {
+            if ((changedComponents & (1 << i)) != 0) {
+                state.writeComponent(outputStream, i);
+            }
+        }
+    }
+
+    @Override
+    public T read(MessageInputStream inputStream, T baseline, T entry) throws IOException {
+        int changedComponents = readChangedComponents(inputStream, baseline);
+
+        if (baseline != null) {
+            entry.set(baseline);
+        }
+
+        for (int i = 0; i < componentCount; i++) {
+            if ((changedComponents & (1 << i)) != 0) {
+                entry.readComponent(inputStream, i);
+            }
+        }
+
+        return entry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newEntry() {
+        try {
+            return (T) (Replicable<?>) constructor.invokeExact();
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Override
+    public T store(T state, T entry) {
+        entry.set(state);
+        return entry;
+    }
+}
@@ -0,0 +1,111 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The sending side of a replicated message record, which remembers the last update each recipient acknowledged and
+ * sends each of them only the components that changed since then.
+ * <p>
+ * A recipient with no acknowledged update, or whose last one is more than {@link #HistoryLength} updates old, gets a
+ * full snapshot instead. Over TCP, an update can be acknowledged as soon as it's sent; over UDP, only once the recipient
+ * says it arrived. Either way, {@link #forget(UUID)} makes the next update for a recipient a full snapshot.
+ * <p>
+ * A {@link Replicable} state is copied into a preallocated history entry by {@link #set}, so the caller can keep
+ * changing the instance it passed in.
+ */
+public class ReplicatedState<T extends Message> {
+
+    /** How many past updates are kept to send deltas from, on both the sending and the {@link Replica} side. */
+    public static final int HistoryLength = 32;
+
+    private static final int DeltaBufferLength = 32;
+
+    private final StateCodec<T> stateCodec;
+    private final Object[] history = new Object[HistoryLength];
+    private final Map<UUID, Integer> acknowledgedSequences = new HashMap<>();
+
+    private int sequence = MessageUtils.Null;
+    private T state;
+    private StateDelta lastDelta;
+
+    public ReplicatedState(Class<T> stateType) {
+        stateCodec = StateCodec.get(stateType);
+
+        for (int i = 0; i < history.length; i++) {
+            history[i] = stateCodec.newEntry();
+        }
+    }
+
+    public synchronized T get() {
+        return state;
+    }
+
+    public synchronized int getSequence() {
+        return sequence;
+    }
+
+    /** Makes {@code newState} the next update, unless it's equal to the current state. Returns whether it changed. */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean set(T newState) {
+        if (state != null && stateCodec.changedComponents(state, newState) == 0) {
+            return false;
+        }
+
+        sequence++;
+
+        int index = sequence % HistoryLength;
+        history[index] = stateCodec.store(newState, (T) history[index]);
+        state = (T) history[index];
+
+        return true;
+    }
+
+    /** Returns the current state as the change from what {@code recipientId} last acknowledged. */
+    public synchronized StateDelta deltaFor(Serializer serializer, UUID recipientId) throws IOException {
+        Integer acknowledgedSequence = acknowledgedSequences.get(recipientId);
+        boolean hasBaseline = acknowledgedSequence != null && sequence - acknowledgedSequence < HistoryLength;
+
+        return delta(serializer, hasBaseline ? acknowledgedSequence : MessageUtils.Null);
+    }
+
+    /** Returns the whole current state, for a recipient that has nothing to apply a delta to. */
+    public synchronized StateDelta snapshot(Serializer serializer) throws IOException {
+        return delta(serializer, MessageUtils.Null);
+    }
+
+    public synchronized void acknowledge(UUID recipientId, int acknowledgedSequence) {
+        acknowledgedSequences.merge(recipientId, acknowledgedSequence, Math::max);
+    }
+
+    public synchronized void forget(UUID recipientId) {
+        acknowledgedSequences.remove(recipientId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private StateDelta delta(Serializer serializer, int baselineSequence) throws IOException {
+        if (state == null) {
+            throw new IllegalStateException("Nothing to replicate before the first state is set.");
+        }
+
+        // recipients that acknowledged the same update share its encoding
+        if (lastDelta != null && lastDelta.sequence() == sequence && lastDelta.baselineSequence() == baselineSequence) {
+            return lastDelta;
+        }
+
+        T baseline = baselineSequence == MessageUtils.Null ? null : (T) history[baselineSequence % HistoryLength];
+
+        BufferMessageOutputStream changes = new BufferMessageOutputStream(serializer, DeltaBufferLength);
+        stateCodec.write(changes, baseline, state);
+
+        lastDelta = new StateDelta(sequence, baselineSequence, changes.toByteArray());
+        return lastDelta;
+    }
+}
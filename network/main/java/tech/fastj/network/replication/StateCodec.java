@@ -0,0 +1,60 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+
+/**
+ * How {@link ReplicatedState} and {@link Replica} compare, write, read and keep the states of one type: a
+ * {@link DeltaCodec} for message records, or a {@link ReplicableCodec} for {@link Replicable} states.
+ */
+interface StateCodec<T extends Message> {
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T extends Message> StateCodec<T> get(Class<T> stateType) {
+        if (Replicable.class.isAssignableFrom(stateType)) {
+            return ReplicableCodec.get((Class) stateType);
+        }
+
+        return DeltaCodec.get(stateType);
+    }
+
+    Class<T> messageType();
+
+    int componentCount();
+
+    /** Returns a bitmask with bit {@code i} set when component {@code i} differs, or every bit set if there's no baseline. */
+    int changedComponents(T baseline, T state);
+
+    void write(MessageOutputStream outputStream, T baseline, T state) throws IOException;
+
+    /**
+     * Reads a state written by {@link #write}. A mutable {@code entry} is read into and returned; otherwise a new state is
+     * returned, or {@code baseline} itself for an update which changed nothing.
+     */
+    T read(MessageInputStream inputStream, T baseline, T entry) throws IOException;
+
+    /** Creates a history entry to copy states into, or returns {@code null} if entries just refer to each state. */
+    T newEntry();
+
+    /** Returns what a history entry holds for {@code state}: {@code entry} with {@code state} copied into it if it's mutable. */
+    T store(T state, T entry);
+
+    /** Reads the bitmask of changed components before them. */
+    default int readChangedComponents(MessageInputStream inputStream, T baseline) throws IOException {
+        int allComponents = (1 << componentCount()) - 1;
+        int changedComponents = inputStream.readLength();
+
+        if (changedComponents < 0 || changedComponents > allComponents) {
+            throw new IOException("Invalid changed components " + Integer.toBinaryString(changedComponents) + " for " + messageType().getSimpleName());
+        }
+
+        if (baseline == null && changedComponents != allComponents) {
+            throw new IOException("Missing baseline for a partial " + messageType().getSimpleName());
+        }
+
+        return changedComponents;
+    }
+}
@@ -0,0 +1,10 @@
+package tech.fastj.network.replication;
+
+import tech.fastj.network.serial.Message;
+
+/**
+ * One update of a {@link ReplicatedState}, holding only the components that changed since the update numbered
+ * {@code baselineSequence}, or every component when {@code baselineSequence} is {@code MessageUtils.Null}.
+ */
+public record StateDelta(int sequence, int baselineSequence, byte[] changes) implements Message {
+}
@@ -1,24 +1,34 @@
 package tech.fastj.network.rpc;
 
+import tech.fastj.network.concurrent.ExecutorStrategy;
+import tech.fastj.network.concurrent.NetworkExecutors;
 import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.TcpBufferConfig;
 import tech.fastj.network.rpc.message.NetworkType;
 import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.SerializerRegistry;
+import tech.fastj.network.serial.StringDictionary;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
 import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.VarIntUtils;
 import tech.fastj.network.serial.write.MessageOutputStream;
 
-import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements NetworkSender, CommandReader<H> {
 
@@ -26,22 +36,49 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
     protected final ClientConfig clientConfig;
     protected final Socket tcpSocket;
     protected final DatagramSocket udpSocket;
+    protected final TcpBufferConfig tcpBufferConfig;
 
     protected UUID clientId;
     protected ConnectionStatus connectionStatus;
 
     protected MessageInputStream tcpIn;
     protected MessageOutputStream tcpOut;
+    protected CoalescingOutputStream tcpWriter;
+
+    protected final PacketBuffer packetBuffer;
+    private final DatagramPacket udpPacket;
 
     protected ExecutorService connectionListener;
+    protected ExecutorService udpListener;
     protected boolean isListening;
 
     private Runnable onDisconnect;
 
+    private boolean isFramed;
+    private byte[] frameData;
+    private BufferMessageInputStream frameIn;
+
+    private boolean isCompressed;
+    private Inflater frameInflater;
+    private byte[] inflatedFrameData;
+    private BufferMessageInputStream inflatedFrameIn;
+
+    private StringDictionary outgoingStrings;
+    private StringDictionary incomingStrings;
+    private int definedStringCount;
+
     protected ClientBase(Socket tcpSocket, DatagramSocket udpServer) throws IOException {
+        this(tcpSocket, udpServer, TcpBufferConfig.Default, new SerializerRegistry());
+    }
+
+    protected ClientBase(Socket tcpSocket, DatagramSocket udpServer, TcpBufferConfig tcpBufferConfig, SerializerRegistry serializerRegistry)
+        throws IOException {
+        this.tcpBufferConfig = tcpBufferConfig;
         this.clientConfig = new ClientConfig(tcpSocket.getInetAddress(), tcpSocket.getPort());
         this.clientId = UUID.randomUUID();
-        this.serializer = new Serializer();
+        this.serializer = new Serializer(serializerRegistry);
+        this.packetBuffer = new PacketBuffer(serializer);
+        this.udpPacket = new DatagramPacket(packetBuffer.data(), 0);
 
         this.tcpSocket = tcpSocket;
         this.tcpSocket.setSoTimeout(10000);
@@ -52,8 +89,15 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
     }
 
     protected ClientBase(ClientConfig clientConfig) throws IOException {
+        this(clientConfig, TcpBufferConfig.Default, new SerializerRegistry());
+    }
+
+    protected ClientBase(ClientConfig clientConfig, TcpBufferConfig tcpBufferConfig, SerializerRegistry serializerRegistry) throws IOException {
         this.clientConfig = clientConfig;
-        this.serializer = new Serializer();
+        this.tcpBufferConfig = tcpBufferConfig;
+        this.serializer = new Serializer(serializerRegistry);
+        this.packetBuffer = new PacketBuffer(serializer);
+        this.udpPacket = new DatagramPacket(packetBuffer.data(), 0);
 
         tcpSocket = new Socket();
         tcpSocket.setSoTimeout(10000);
@@ -71,7 +115,8 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
             tcpSocket.connect(address);
         }
 
-        tcpOut = new MessageOutputStream(tcpSocket.getOutputStream(), getSerializer());
+        tcpWriter = new CoalescingOutputStream(tcpSocket.getOutputStream(), tcpBufferConfig);
+        tcpOut = new MessageOutputStream(tcpWriter, getSerializer());
         tcpOut.flush();
 
         tcpIn = new MessageInputStream(tcpSocket.getInputStream(), getSerializer());
@@ -100,6 +145,14 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
         return isListening;
     }
 
+    public boolean isFramed() {
+        return isFramed;
+    }
+
+    public boolean isCompressed() {
+        return isCompressed;
+    }
+
     public void setOnDisconnect(Runnable onDisconnect) {
         this.onDisconnect = onDisconnect;
     }
@@ -109,6 +162,52 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
         return serializer;
     }
 
+    /** The address UDP packets to the other end of this connection are sent to. */
+    protected abstract ClientConfig getUdpConfig();
+
+    @Override
+    public MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException {
+        if (getLogger().isTraceEnabled()) {
+            getLogger().trace("{} sending {} {} to {}:{}", clientId, networkType.name(), messageType.name(), clientConfig.address(), clientConfig.port());
+        }
+
+        if (networkType == NetworkType.TCP && outgoingStrings != null && outgoingStrings.isFull()) {
+            // only between packets, so no packet mixes ids from before and after
+            outgoingStrings.clear();
+            definedStringCount = 0;
+        }
+
+        // UDP packets can be lost or reordered, so they can't rely on the other end having a string's definition
+        MessageOutputStream packetOut = packetBuffer.begin(networkType == NetworkType.TCP ? outgoingStrings : null);
+
+        if (networkType == NetworkType.UDP) {
+            SendUtils.writeUDPHeader(packetOut, clientId);
+        }
+
+        packetOut.writeEnum(messageType);
+        return packetOut;
+    }
+
+    @Override
+    public void sendPacket(NetworkType networkType) throws IOException {
+        switch (networkType) {
+            case TCP -> {
+                sendStringDefinitions(packetBuffer.highestStringId());
+                packetBuffer.writeTo(tcpOut);
+                tcpOut.flush();
+            }
+            case UDP -> {
+                SendUtils.checkUDPPacketSize(packetBuffer);
+
+                ClientConfig udpConfig = getUdpConfig();
+                udpPacket.setData(packetBuffer.data(), 0, packetBuffer.length());
+                udpPacket.setAddress(udpConfig.address());
+                udpPacket.setPort(udpConfig.port());
+                udpSocket.send(udpPacket);
+            }
+        }
+    }
+
     public void startListening() {
         if (isListening) {
             getLogger().warn("Client {} is already listening to {}:{}.", clientId, clientConfig.address(), clientConfig.port());
@@ -117,6 +216,21 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
 
         isListening = true;
 
+        shutdownListeners();
+
+        listen();
+    }
+
+    protected void listen() {
+        connectionListener = NetworkExecutors.newExecutor("fastj-client-listener");
+        connectionListener.submit(this::listenTCP);
+
+        // DatagramSocket.receive blocks while holding a monitor, which would pin a virtual thread to its carrier
+        udpListener = ExecutorStrategy.platform().newExecutor("fastj-client-udp");
+        udpListener.submit(this::listenUDP);
+    }
+
+    private void shutdownListeners() {
         if (connectionListener != null) {
             if (!connectionListener.isShutdown()) {
                 connectionListener.shutdownNow();
@@ -125,9 +239,13 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
             connectionListener = null;
         }
 
-        connectionListener = Executors.newFixedThreadPool(2);
-        connectionListener.submit(this::listenTCP);
-        connectionListener.submit(this::listenUDP);
+        if (udpListener != null) {
+            if (!udpListener.isShutdown()) {
+                udpListener.shutdownNow();
+            }
+
+            udpListener = null;
+        }
     }
 
     public void stopListening() {
@@ -138,12 +256,157 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
 
         isListening = false;
 
-        if (connectionListener != null) {
-            if (!connectionListener.isShutdown()) {
-                connectionListener.shutdownNow();
+        shutdownListeners();
+    }
+
+    /**
+     * Switches the TCP connection to length-prefixed frames. Both ends switch right after the handshake data they send:
+     * the server once it has sent the client id, and the client once it has sent its UDP port.
+     */
+    protected void enableFraming() {
+        isFramed = true;
+        frameData = new byte[SendUtils.UdpPacketBufferLength];
+        frameIn = new BufferMessageInputStream(getSerializer());
+        frameIn.setStringDictionary(incomingStrings);
+
+        tcpWriter.enableFraming();
+    }
+
+    /**
+     * Starts compressing large TCP frames, and reading the compressed frames the other end sends. Both ends start right
+     * after {@link #enableFraming()}.
+     */
+    protected void enableCompression() {
+        isCompressed = true;
+        frameInflater = new Inflater(true);
+        inflatedFrameData = new byte[SendUtils.UdpPacketBufferLength];
+        inflatedFrameIn = new BufferMessageInputStream(getSerializer());
+        inflatedFrameIn.setStringDictionary(incomingStrings);
+
+        tcpWriter.enableCompression(tcpBufferConfig.compressionThreshold());
+    }
+
+    /** Returns the body length held by a frame's length prefix. */
+    protected int frameLength(int framePrefix) {
+        return isCompressed ? framePrefix >>> 1 : framePrefix;
+    }
+
+    /** Returns whether a frame's length prefix flags its body as compressed. */
+    protected boolean isCompressedFrame(int framePrefix) {
+        return isCompressed && (framePrefix & 1) != 0;
+    }
+
+    /**
+     * Decompresses a compressed frame body, held by {@code frameBody} from its position to its limit, and returns a
+     * stream reading the decompressed frame. The stream is reused for every compressed frame.
+     */
+    protected MessageInputStream inflateFrame(ByteBuffer frameBody) throws StreamCorruptedException {
+        int inflatedLength = VarIntUtils.read(frameBody);
+
+        if (inflatedLength < 0 || inflatedLength > SendUtils.MaxTcpFrameLength) {
+            throw new StreamCorruptedException("Invalid decompressed TCP frame length " + inflatedLength + ".");
+        }
+
+        // one spare byte, so data decompressing past the stated length is caught
+        if (inflatedFrameData.length <= inflatedLength) {
+            inflatedFrameData = new byte[Math.max(inflatedLength + 1, inflatedFrameData.length * 2)];
+        }
+
+        frameInflater.reset();
+        frameInflater.setInput(frameBody);
+
+        int position = 0;
+
+        try {
+            while (!frameInflater.finished() && position <= inflatedLength) {
+                int inflated = frameInflater.inflate(inflatedFrameData, position, inflatedLength + 1 - position);
+
+                if (inflated == 0 && (frameInflater.needsInput() || frameInflater.needsDictionary())) {
+                    break;
+                }
+
+                position += inflated;
             }
+        } catch (DataFormatException exception) {
+            throw new StreamCorruptedException("Invalid compressed TCP frame: " + exception.getMessage());
+        }
 
-            connectionListener = null;
+        if (!frameInflater.finished() || position != inflatedLength) {
+            throw new StreamCorruptedException("Compressed TCP frame doesn't decompress to its stated " + inflatedLength + " bytes.");
+        }
+
+        inflatedFrameIn.reset(inflatedFrameData, 0, inflatedLength);
+        return inflatedFrameIn;
+    }
+
+    /**
+     * Starts sending repeated strings over TCP as ids from this connection's own dictionary, and reading the ids the
+     * other end sends. Both ends start right after the handshake data they send, like {@link #enableFraming()}, which
+     * must be enabled first.
+     */
+    protected void enableStringDictionary() {
+        this.outgoingStrings = new StringDictionary();
+        this.incomingStrings = new StringDictionary();
+
+        if (tcpIn != null) {
+            tcpIn.setStringDictionary(incomingStrings);
+        }
+
+        if (frameIn != null) {
+            frameIn.setStringDictionary(incomingStrings);
+        }
+
+        if (inflatedFrameIn != null) {
+            inflatedFrameIn.setStringDictionary(incomingStrings);
+        }
+    }
+
+    protected StringDictionary getIncomingStrings() {
+        return incomingStrings;
+    }
+
+    /**
+     * Sends the definitions of the string ids up to {@code highestStringId} which the other end hasn't been sent yet, as a
+     * packet of their own. Since they aren't part of the packet using them, the other end still learns them if it
+     * can't read that packet. Definitions starting from id {@code 0} replace any the other end already has. The caller
+     * must hold {@link #getSendLock()}.
+     */
+    protected void sendStringDefinitions(int highestStringId) throws IOException {
+        if (highestStringId < definedStringCount) {
+            return;
+        }
+
+        tcpOut.writeEnum(SentMessageType.StringDefinitions);
+        tcpOut.writeLength(definedStringCount);
+        tcpOut.writeLength(highestStringId + 1 - definedStringCount);
+
+        for (int stringId = definedStringCount; stringId <= highestStringId; stringId++) {
+            tcpOut.writeArray(outgoingStrings.bytes(stringId));
+        }
+
+        tcpOut.flush();
+        definedStringCount = highestStringId + 1;
+    }
+
+    /** Reads the definitions written by {@link #sendStringDefinitions(int)}. */
+    protected void readStringDefinitions(MessageInputStream inputStream) throws IOException {
+        int firstStringId = inputStream.readLength();
+        int stringCount = inputStream.readLength();
+
+        if (incomingStrings == null || (firstStringId != 0 && firstStringId != incomingStrings.size()) || stringCount < 0) {
+            throw new StreamCorruptedException("Unexpected definitions of " + stringCount + " string(s) from id " + firstStringId + ".");
+        }
+
+        if (firstStringId == 0) {
+            incomingStrings.clear();
+        }
+
+        for (int i = 0; i < stringCount; i++) {
+            byte[] stringBytes = inputStream.readByteArray();
+
+            if (stringBytes == null || !incomingStrings.define(new String(stringBytes, StandardCharsets.UTF_8))) {
+                throw new StreamCorruptedException("Invalid definition of string id " + incomingStrings.size() + ".");
+            }
         }
     }
 
@@ -152,9 +415,20 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
 
         while (isListening && !tcpSocket.isClosed()) {
             try {
+                if (isFramed) {
+                    readFrame();
+                    continue;
+                }
+
                 SentMessageType sentMessageType = (SentMessageType) tcpIn.readObject(SentMessageType.class);
-                readMessageType(NetworkType.TCP, clientId, tcpIn, sentMessageType);
-            } catch (SocketException | EOFException exception) {
+
+                WriteBatch.begin();
+                try {
+                    readMessageType(NetworkType.TCP, clientId, tcpIn, sentMessageType);
+                } finally {
+                    WriteBatch.end();
+                }
+            } catch (SocketException | EOFException | StreamCorruptedException exception) {
                 getLogger().warn("{} Error receiving TCP packet: {}", clientId, exception.getMessage());
 
                 connectionStatus = ConnectionStatus.Disconnected;
@@ -185,24 +459,58 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
         getLogger().debug("{} stopped listening on TCP.", clientId);
     }
 
+    private void readFrame() throws IOException {
+        int framePrefix = VarIntUtils.read(tcpIn);
+        int frameLength = frameLength(framePrefix);
+
+        if (frameLength < 0 || frameLength > SendUtils.MaxTcpFrameLength) {
+            throw new StreamCorruptedException("Invalid TCP frame length " + frameLength + ".");
+        }
+
+        if (frameData.length < frameLength) {
+            frameData = new byte[Math.max(frameLength, frameData.length * 2)];
+        }
+
+        tcpIn.readFully(frameData, 0, frameLength);
+        frameIn.reset(frameData, 0, frameLength);
+
+        WriteBatch.begin();
+        try {
+            MessageInputStream frameStream = isCompressedFrame(framePrefix) ? inflateFrame(ByteBuffer.wrap(frameData, 0, frameLength)) : frameIn;
+
+            SentMessageType sentMessageType = (SentMessageType) frameStream.readObject(SentMessageType.class);
+            readMessageType(NetworkType.TCP, clientId, frameStream, sentMessageType);
+        } catch (SocketException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            getLogger().error(clientId + " Error reading TCP frame, skipping its " + frameLength + " bytes", exception);
+        } finally {
+            WriteBatch.end();
+        }
+    }
+
     protected void listenUDP() {
         getLogger().debug("{} started listening on UDP.", clientId);
 
+        byte[] receivePacketBuffer = new byte[SendUtils.UdpPacketBufferLength];
+        DatagramPacket packet = new DatagramPacket(receivePacketBuffer, receivePacketBuffer.length);
+        BufferMessageInputStream packetStream = new BufferMessageInputStream(getSerializer());
+
         while (isListening && !udpSocket.isClosed()) {
             try {
-                byte[] receivePacketBuffer = new byte[SendUtils.UdpPacketBufferLength];
-                DatagramPacket packet = new DatagramPacket(receivePacketBuffer, SendUtils.UdpPacketBufferLength);
-
+                packet.setLength(receivePacketBuffer.length);
                 udpSocket.receive(packet);
 
-                byte[] data = new byte[packet.getLength()];
-                System.arraycopy(packet.getData(), 0, data, 0, data.length);
-
-                MessageInputStream tempStream = new MessageInputStream(new ByteArrayInputStream(data), getSerializer());
-                UUID senderId = (UUID) tempStream.readObject(UUID.class);
-                SentMessageType sentMessageType = (SentMessageType) tempStream.readObject(SentMessageType.class);
+                packetStream.reset(receivePacketBuffer, 0, packet.getLength());
+                UUID senderId = (UUID) packetStream.readObject(UUID.class);
+                SentMessageType sentMessageType = (SentMessageType) packetStream.readObject(SentMessageType.class);
 
-                readMessageType(NetworkType.UDP, senderId, tempStream, sentMessageType);
+                WriteBatch.begin();
+                try {
+                    readMessageType(NetworkType.UDP, senderId, packetStream, sentMessageType);
+                } finally {
+                    WriteBatch.end();
+                }
             } catch (SocketException exception) {
                 getLogger().warn("{} Error receiving UDP packet: {}", clientId, exception.getMessage());
 
@@ -235,8 +543,14 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
             if (isConnected()) {
                 sendDisconnect(NetworkType.TCP);
             }
-
+        } catch (IOException sendException) {
+            getLogger().debug("{} unable to send disconnect: {}", clientId, sendException.getMessage());
+        } finally {
+            // set even when the peer is already gone, so Server.disconnectClient doesn't disconnect this client again
             connectionStatus = ConnectionStatus.Disconnected;
+        }
+
+        try {
             shutdown();
         } catch (IOException shutdownException) {
             getLogger().error(clientId + " Error shutting down socket(s)", shutdownException);
@@ -249,6 +563,19 @@ public abstract class ClientBase<H extends Enum<H> & CommandAlias> implements Ne
         getLogger().debug("{} shutting down", clientId);
 
         stopListening();
+        flushTcp();
         tcpSocket.close();
     }
+
+    protected void flushTcp() {
+        if (tcpWriter == null) {
+            return;
+        }
+
+        try {
+            tcpWriter.flushNow();
+        } catch (IOException exception) {
+            getLogger().debug("{} unable to write remaining TCP data: {}", clientId, exception.getMessage());
+        }
+    }
 }
@@ -0,0 +1,277 @@
+package tech.fastj.network.rpc;
+
+import tech.fastj.network.concurrent.ExecutorStrategy;
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.serial.util.VarIntUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers a connection's outgoing TCP data so several messages can share one write.
+ * <p>
+ * {@link #flush()} marks a message boundary rather than forcing a write: inside a {@link WriteBatch} the data waits for
+ * the batch to close, and otherwise it waits at most {@link TcpBufferConfig#maxLatency()}. {@link #flushNow()} always
+ * writes immediately.
+ * <p>
+ * Once {@link #enableFraming() framing} is enabled, the data written between two message boundaries becomes one frame,
+ * prefixed with its length as a variable-length int. An unfinished frame is never written out.
+ * <p>
+ * Once {@link #enableCompression(int) compression} is enabled as well, the length prefix is shifted left by one and its
+ * low bit flags a compressed frame. A frame of at least the compression threshold is replaced by its uncompressed
+ * length as a variable-length int, followed by its raw Deflate data, as long as that is shorter.
+ */
+public class CoalescingOutputStream extends OutputStream {
+
+    private static final Logger CoalescingOutputStreamLogger = LoggerFactory.getLogger(CoalescingOutputStream.class);
+
+    private final OutputStream out;
+    private final int maxBytes;
+    private final long maxLatencyNanos;
+
+    private byte[] buffer;
+    private int count;
+    private WriteBatch deferredBatch;
+    private boolean isFlushScheduled;
+    private boolean isFramed;
+    private int frameStart = -1;
+
+    private Deflater deflater;
+    private int compressionThreshold;
+    private byte[] compressedFrame;
+
+    public CoalescingOutputStream(OutputStream out, TcpBufferConfig bufferConfig) {
+        this.out = out;
+        this.maxBytes = Math.max(0, bufferConfig.maxBytes());
+        this.maxLatencyNanos = Math.max(0L, bufferConfig.maxLatencyNanos());
+        this.buffer = new byte[Math.max(64, Math.min(maxBytes, TcpBufferConfig.DefaultMaxBytes))];
+    }
+
+    /** Starts prefixing each message written after the next boundary with its length. */
+    public synchronized void enableFraming() {
+        isFramed = true;
+    }
+
+    public synchronized boolean isFramed() {
+        return isFramed;
+    }
+
+    /**
+     * Starts compressing each framed message of at least {@code threshold} bytes, and flagging in each length prefix
+     * whether the frame is compressed. The stream keeps one {@link Deflater} for every frame it compresses.
+     */
+    public synchronized void enableCompression(int threshold) {
+        deflater = new Deflater(Deflater.BEST_SPEED, true);
+        compressionThreshold = Math.max(0, threshold);
+        compressedFrame = new byte[0];
+    }
+
+    public synchronized boolean isCompressed() {
+        return deflater != null;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        startFrame();
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+
+        if (frameStart < 0 && count >= maxBytes) {
+            flushNow();
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+        startFrame();
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+
+        if (frameStart < 0 && count >= maxBytes) {
+            flushNow();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        WriteBatch batch = WriteBatch.current();
+
+        synchronized (this) {
+            if (frameStart >= 0) {
+                endFrame();
+
+                if (count >= maxBytes) {
+                    flushNow();
+                    return;
+                }
+            }
+
+            if (count == 0) {
+                return;
+            }
+
+            if (batch != null) {
+                if (deferredBatch != batch) {
+                    deferredBatch = batch;
+                    batch.defer(this);
+                }
+
+                scheduleFlush();
+                return;
+            }
+
+            if (maxLatencyNanos > 0L) {
+                scheduleFlush();
+                return;
+            }
+
+            flushNow();
+        }
+    }
+
+    public synchronized void flushNow() throws IOException {
+        writeBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushNow();
+        } finally {
+            synchronized (this) {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+
+            out.close();
+        }
+    }
+
+    synchronized void flushDeferred() {
+        deferredBatch = null;
+
+        try {
+            flushNow();
+        } catch (IOException exception) {
+            CoalescingOutputStreamLogger.warn("Unable to write deferred TCP data: {}", exception.getMessage());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (maxLatencyNanos == 0L || isFlushScheduled) {
+            return;
+        }
+
+        isFlushScheduled = true;
+        FlushScheduler.Instance.schedule(this::flushScheduled, maxLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void flushScheduled() {
+        isFlushScheduled = false;
+
+        try {
+            flushNow();
+        } catch (IOException exception) {
+            CoalescingOutputStreamLogger.warn("Unable to write buffered TCP data: {}", exception.getMessage());
+        }
+    }
+
+    private void startFrame() {
+        if (!isFramed || frameStart >= 0) {
+            return;
+        }
+
+        ensureCapacity(VarIntUtils.MaxBytes);
+        frameStart = count;
+        count += VarIntUtils.MaxBytes;
+    }
+
+    private void endFrame() {
+        int bodyStart = frameStart + VarIntUtils.MaxBytes;
+        int bodyLength = count - bodyStart;
+        int prefix = bodyLength;
+
+        if (deflater != null) {
+            int compressedLength = bodyLength >= compressionThreshold ? compressFrame(bodyStart, bodyLength) : -1;
+
+            if (compressedLength < 0) {
+                prefix = bodyLength << 1;
+            } else {
+                System.arraycopy(compressedFrame, 0, buffer, bodyStart, compressedLength);
+                bodyLength = compressedLength;
+                prefix = (bodyLength << 1) | 1;
+            }
+        }
+
+        int prefixLength = VarIntUtils.write(prefix, buffer, frameStart);
+
+        if (prefixLength < VarIntUtils.MaxBytes) {
+            System.arraycopy(buffer, bodyStart, buffer, frameStart + prefixLength, bodyLength);
+        }
+
+        count = frameStart + prefixLength + bodyLength;
+        frameStart = -1;
+    }
+
+    /**
+     * Compresses the frame body into {@link #compressedFrame}, and returns its compressed length, or {@code -1} if
+     * compressing doesn't make it any shorter.
+     */
+    private int compressFrame(int bodyStart, int bodyLength) {
+        if (compressedFrame.length < bodyLength) {
+            compressedFrame = new byte[bodyLength];
+        }
+
+        int position = VarIntUtils.write(bodyLength, compressedFrame, 0);
+
+        deflater.reset();
+        deflater.setInput(buffer, bodyStart, bodyLength);
+        deflater.finish();
+
+        while (!deflater.finished() && position < bodyLength) {
+            position += deflater.deflate(compressedFrame, position, bodyLength - position);
+        }
+
+        return deflater.finished() && position < bodyLength ? position : -1;
+    }
+
+    private void writeBuffer() throws IOException {
+        int end = frameStart >= 0 ? frameStart : count;
+
+        if (end == 0) {
+            return;
+        }
+
+        out.write(buffer, 0, end);
+
+        if (end < count) {
+            System.arraycopy(buffer, end, buffer, 0, count - end);
+            frameStart = 0;
+        }
+
+        count -= end;
+    }
+
+    private void ensureCapacity(int length) {
+        if (count + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+    }
+
+    private static class FlushScheduler {
+        private static final ScheduledExecutorService Instance = Executors.newSingleThreadScheduledExecutor(
+            ExecutorStrategy.platform().threadFactory("fastj-network-flush")
+        );
+    }
+}
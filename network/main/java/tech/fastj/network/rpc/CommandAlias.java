@@ -1,8 +1,11 @@
 package tech.fastj.network.rpc;
 
 import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.serial.FieldCodec;
 import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.util.FieldCodecUtils;
+import tech.fastj.network.serial.util.SchemaUtils;
 
 public interface CommandAlias {
 
@@ -16,6 +19,18 @@ public interface CommandAlias {
         return commandClassesArray().length;
     }
 
+    /** Returns the codec for each of the command's classes, in order. */
+    default FieldCodec[] commandCodecs() {
+        Class<?>[] commandClasses = commandClassesArray();
+        FieldCodec[] codecs = new FieldCodec[commandClasses.length];
+
+        for (int i = 0; i < commandClasses.length; i++) {
+            codecs[i] = FieldCodecUtils.get(commandClasses[i]);
+        }
+
+        return codecs;
+    }
+
     @SuppressWarnings("unchecked")
     default void registerMessages(Serializer serializer) {
         for (Class<?> possiblySerializable : commandClassesArray()) {
@@ -26,4 +41,22 @@ public interface CommandAlias {
             }
         }
     }
+
+    /**
+     * Returns a hash of every command in {@code aliasClass}, in order, with the schema of each of its classes. A client
+     * and server only understand each other's commands when their fingerprints match.
+     */
+    static <E extends Enum<E> & CommandAlias> long schemaFingerprint(Class<E> aliasClass) {
+        StringBuilder schema = new StringBuilder(aliasClass.getName());
+
+        for (E alias : aliasClass.getEnumConstants()) {
+            schema.append(';').append(alias.name());
+
+            for (Class<?> commandClass : alias.commandClassesArray()) {
+                schema.append(',').append(SchemaUtils.schema(commandClass));
+            }
+        }
+
+        return SchemaUtils.hash(schema.toString());
+    }
 }
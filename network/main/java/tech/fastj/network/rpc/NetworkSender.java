@@ -3,8 +3,10 @@ package tech.fastj.network.rpc;
 import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
 import tech.fastj.network.rpc.message.RequestType;
+import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.write.MessageOutputStream;
 
 import java.io.IOException;
 
@@ -12,8 +14,41 @@ public interface NetworkSender {
 
     Serializer getSerializer();
 
-    void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, byte[] rawData)
-        throws IOException;
+    /** The lock held from {@link #beginPacket} to {@link #sendPacket}. Senders sharing a packet buffer must share it. */
+    default Object getSendLock() {
+        return this;
+    }
+
+    /**
+     * Starts a new outgoing packet of the given type and returns the stream its contents should be written to. The
+     * caller must hold {@link #getSendLock()} from here until {@link #sendPacket(NetworkType)}.
+     */
+    MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException;
+
+    /** Sends the packet started by the last {@link #beginPacket(NetworkType, SentMessageType)}. */
+    void sendPacket(NetworkType networkType) throws IOException;
+
+    /**
+     * Finishes sending anything {@link #sendPacket(NetworkType)} deferred so it wouldn't do I/O while holding
+     * {@link #getSendLock()}. Called after the lock is released; does nothing by default.
+     */
+    default void flushPackets() throws IOException {
+    }
+
+    default void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, byte[] rawData)
+        throws IOException {
+        synchronized (getSendLock()) {
+            MessageOutputStream packetOut = beginCommand(networkType, commandTarget, commandId);
+
+            if (rawData != null) {
+                packetOut.write(rawData);
+            }
+
+            sendPacket(networkType);
+        }
+
+        flushPackets();
+    }
 
     default void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId)
         throws IOException {
@@ -22,60 +57,134 @@ public interface NetworkSender {
 
     default void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, Message message)
         throws IOException {
-        byte[] rawData = getSerializer().writeMessage(message);
-        this.sendCommand(networkType, commandTarget, commandId, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeMessage(beginCommand(networkType, commandTarget, commandId), message);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, Message... messages)
         throws IOException {
-        byte[] rawData = getSerializer().writeMessages(messages);
-        this.sendCommand(networkType, commandTarget, commandId, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeMessages(beginCommand(networkType, commandTarget, commandId), messages);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, Object... objects)
         throws IOException {
-        byte[] rawData = getSerializer().writeObjects(objects);
-        this.sendCommand(networkType, commandTarget, commandId, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeObjects(beginCommand(networkType, commandTarget, commandId), objects);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default <T> void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, T object)
         throws IOException {
-        byte[] rawData = getSerializer().writeObject(object);
-        this.sendCommand(networkType, commandTarget, commandId, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeObject(beginCommand(networkType, commandTarget, commandId), object);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
-    void sendRequest(NetworkType networkType, RequestType requestType, byte[] rawData) throws IOException;
+    default void sendRequest(NetworkType networkType, RequestType requestType, byte[] rawData) throws IOException {
+        synchronized (getSendLock()) {
+            MessageOutputStream packetOut = beginRequest(networkType, requestType);
+
+            if (rawData != null) {
+                packetOut.write(rawData);
+            }
+
+            sendPacket(networkType);
+        }
+
+        flushPackets();
+    }
 
     default void sendRequest(NetworkType networkType, RequestType requestType) throws IOException {
         this.sendRequest(networkType, requestType, (byte[]) null);
     }
 
     default void sendRequest(NetworkType networkType, RequestType requestType, Message message) throws IOException {
-        byte[] rawData = getSerializer().writeMessage(message);
-        this.sendRequest(networkType, requestType, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeMessage(beginRequest(networkType, requestType), message);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default void sendRequest(NetworkType networkType, RequestType requestType, Message... messages)
         throws IOException {
-        byte[] rawData = getSerializer().writeMessages(messages);
-        this.sendRequest(networkType, requestType, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeMessages(beginRequest(networkType, requestType), messages);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default void sendRequest(NetworkType networkType, RequestType requestType, Object... objects) throws IOException {
-        byte[] rawData = getSerializer().writeObjects(objects);
-        this.sendRequest(networkType, requestType, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeObjects(beginRequest(networkType, requestType), objects);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
     default <T> void sendRequest(NetworkType networkType, RequestType requestType, T object) throws IOException {
-        byte[] rawData = getSerializer().writeObject(object);
-        this.sendRequest(networkType, requestType, rawData);
+        synchronized (getSendLock()) {
+            getSerializer().writeObject(beginRequest(networkType, requestType), object);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
     }
 
-    void sendDisconnect(NetworkType networkType, byte[] rawData) throws IOException;
+    default void sendDisconnect(NetworkType networkType, byte[] rawData) throws IOException {
+        synchronized (getSendLock()) {
+            beginPacket(networkType, SentMessageType.Disconnect);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
+    }
 
     default void sendDisconnect(NetworkType networkType) throws IOException {
         this.sendDisconnect(networkType, null);
     }
 
-    void sendKeepAlive(NetworkType networkType) throws IOException;
+    default void sendKeepAlive(NetworkType networkType) throws IOException {
+        synchronized (getSendLock()) {
+            beginPacket(networkType, SentMessageType.KeepAlive);
+            sendPacket(networkType);
+        }
+
+        flushPackets();
+    }
+
+    private MessageOutputStream beginCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId)
+        throws IOException {
+        MessageOutputStream packetOut = beginPacket(networkType, SentMessageType.RPCCommand);
+        packetOut.writeEnum(commandTarget);
+        packetOut.writeEnum(commandId);
+
+        return packetOut;
+    }
+
+    private MessageOutputStream beginRequest(NetworkType networkType, RequestType requestType) throws IOException {
+        MessageOutputStream packetOut = beginPacket(networkType, SentMessageType.Request);
+        packetOut.writeEnum(requestType);
+
+        return packetOut;
+    }
 }
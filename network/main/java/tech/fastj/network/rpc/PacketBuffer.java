@@ -0,0 +1,60 @@
+package tech.fastj.network.rpc;
+
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.StringDictionary;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A reusable buffer that outgoing packets are serialized into, so building a packet doesn't allocate once the buffer
+ * has grown to fit the largest packet sent through it.
+ * <p>
+ * A packet buffer is not thread-safe; each sender owns one and only uses it while holding its own lock.
+ */
+public class PacketBuffer {
+
+    private final BufferMessageOutputStream packetOut;
+
+    public PacketBuffer(Serializer serializer) {
+        this(serializer, SendUtils.UdpPacketBufferLength);
+    }
+
+    public PacketBuffer(Serializer serializer, int initialCapacity) {
+        this.packetOut = new BufferMessageOutputStream(serializer, initialCapacity);
+    }
+
+    /** Discards the previous packet and returns the stream the next packet should be written to. */
+    public MessageOutputStream begin() {
+        return begin(null);
+    }
+
+    /**
+     * Discards the previous packet and returns the stream the next packet should be written to, which writes strings as
+     * ids from {@code stringDictionary}.
+     */
+    public MessageOutputStream begin(StringDictionary stringDictionary) {
+        packetOut.reset();
+        packetOut.setStringDictionary(stringDictionary);
+        return packetOut;
+    }
+
+    public byte[] data() {
+        return packetOut.data();
+    }
+
+    public int length() {
+        return packetOut.length();
+    }
+
+    /** The highest string id in the packet, whose definition must be sent first. */
+    public int highestStringId() {
+        return packetOut.getHighestStringId();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        packetOut.writeTo(out);
+    }
+}
@@ -0,0 +1,36 @@
+package tech.fastj.network.rpc;
+
+import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
+import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.SerializerRegistry;
+
+/**
+ * Builds the {@link SerializerRegistry} of each {@link CommandAlias} enum once, with the prebuilt messages and every
+ * message its commands send, and shares it with every server, lobby, session and connection using those commands.
+ */
+public class RegistryUtils {
+
+    private static final ClassValue<SerializerRegistry> AliasRegistries = new ClassValue<>() {
+        @Override
+        protected SerializerRegistry computeValue(Class<?> aliasClass) {
+            Serializer serializer = new Serializer();
+            serializer.registerSerializer(SessionIdentifier.class);
+            serializer.registerSerializer(LobbyIdentifier.class);
+
+            for (Object commandAlias : aliasClass.getEnumConstants()) {
+                ((CommandAlias) commandAlias).registerMessages(serializer);
+            }
+
+            return serializer.getRegistry().freeze();
+        }
+    };
+
+    private RegistryUtils() {
+    }
+
+    /** Returns the frozen registry of {@code aliasClass}'s messages, building it the first time it's needed. */
+    public static <E extends Enum<E> & CommandAlias> SerializerRegistry registryFor(Class<E> aliasClass) {
+        return AliasRegistries.get(aliasClass);
+    }
+}
@@ -0,0 +1,80 @@
+package tech.fastj.network.rpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defers TCP flushes made on the current thread until the outermost batch closes, so every command sent while
+ * handling one message, or during one game tick, leaves each connection in as few writes as possible.
+ * <p>
+ * Incoming messages are already dispatched inside a batch. Other code can open its own:
+ * <pre>{@code
+ * WriteBatch.begin();
+ * try {
+ *     for (ServerClient<E> client : session.getClients()) {
+ *         client.sendCommand(NetworkType.TCP, CommandTarget.Client, commandId, data);
+ *     }
+ * } finally {
+ *     WriteBatch.end();
+ * }
+ * }</pre>
+ * A batch can also be closed with try-with-resources.
+ * Code that blocks inside a batch while waiting on a reply to something it sent should call {@link #flushPending()}
+ * first.
+ */
+public final class WriteBatch implements AutoCloseable {
+
+    private static final ThreadLocal<WriteBatch> ThreadBatch = ThreadLocal.withInitial(WriteBatch::new);
+
+    private final List<CoalescingOutputStream> deferredStreams;
+    private int depth;
+
+    private WriteBatch() {
+        deferredStreams = new ArrayList<>();
+    }
+
+    public static WriteBatch begin() {
+        WriteBatch batch = ThreadBatch.get();
+        batch.depth++;
+
+        return batch;
+    }
+
+    /** Ends the current thread's innermost batch, the same as closing the batch {@link #begin()} returned. */
+    public static void end() {
+        ThreadBatch.get().close();
+    }
+
+    /** Writes out everything deferred by the current thread's batch so far, without ending the batch. */
+    public static void flushPending() {
+        ThreadBatch.get().flushDeferred();
+    }
+
+    static WriteBatch current() {
+        WriteBatch batch = ThreadBatch.get();
+        return batch.depth > 0 ? batch : null;
+    }
+
+    void defer(CoalescingOutputStream stream) {
+        deferredStreams.add(stream);
+    }
+
+    @Override
+    public void close() {
+        if (depth == 0) {
+            return;
+        }
+
+        if (--depth == 0) {
+            flushDeferred();
+        }
+    }
+
+    private void flushDeferred() {
+        for (int i = 0; i < deferredStreams.size(); i++) {
+            deferredStreams.get(i).flushDeferred();
+        }
+
+        deferredStreams.clear();
+    }
+}
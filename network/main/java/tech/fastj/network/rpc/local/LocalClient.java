@@ -1,11 +1,15 @@
 package tech.fastj.network.rpc.local;
 
+import tech.fastj.network.concurrent.NetworkExecutors;
 import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.config.WireFeature;
 import tech.fastj.network.rpc.ClientBase;
 import tech.fastj.network.rpc.CommandAlias;
 import tech.fastj.network.rpc.ConnectionStatus;
-import tech.fastj.network.rpc.SendUtils;
+import tech.fastj.network.rpc.RegistryUtils;
 import tech.fastj.network.rpc.local.command.LocalCommand;
+import tech.fastj.network.rpc.local.command.LocalCommandInvoker;
 import tech.fastj.network.rpc.local.command.LocalCommandReader;
 import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
@@ -14,13 +18,12 @@ import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
 import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
 import tech.fastj.network.serial.read.MessageInputStream;
-import tech.fastj.network.serial.util.MessageUtils;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -41,6 +44,7 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
     private final ExecutorService updateFreshener;
     private final Class<E> aliasClass;
     private final Map<E, LocalCommand> commands;
+    private final Map<E, LocalCommandInvoker> invokers;
 
     private ScheduledExecutorService pingSender;
     private boolean isSendingPings;
@@ -58,17 +62,15 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
     private volatile boolean recentLobbyUpdate;
 
     public LocalClient(ClientConfig clientConfig, Class<E> aliasClass) throws IOException {
-        super(clientConfig);
+        this(clientConfig, aliasClass, TcpBufferConfig.Default);
+    }
+
+    public LocalClient(ClientConfig clientConfig, Class<E> aliasClass, TcpBufferConfig tcpBufferConfig) throws IOException {
+        super(clientConfig, tcpBufferConfig, RegistryUtils.registryFor(aliasClass));
 
         this.aliasClass = aliasClass;
         this.commands = new EnumMap<>(aliasClass);
-
-        serializer.registerSerializer(SessionIdentifier.class);
-        serializer.registerSerializer(LobbyIdentifier.class);
-
-        for (E commandAlias : aliasClass.getEnumConstants()) {
-            commandAlias.registerMessages(serializer);
-        }
+        this.invokers = new EnumMap<>(aliasClass);
 
         resetCommands();
 
@@ -79,7 +81,7 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
         onSessionUpdate = (oldSession, newSession) -> {
         };
 
-        updateFreshener = Executors.newWorkStealingPool();
+        updateFreshener = NetworkExecutors.newExecutor("fastj-client-update");
     }
 
     @Override
@@ -102,13 +104,47 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
 
         clientId = (UUID) tcpIn.readObject(UUID.class);
 
+        int wireFeatureBits = tcpIn.readInt();
+        if (WireFeature.unknownBits(wireFeatureBits) != 0) {
+            disconnect();
+            throw new IOException("Failed to join server " + clientConfig.address() + ":" + clientConfig.port() + ", unsupported wire features " + Integer.toBinaryString(wireFeatureBits) + ".");
+        }
+
+        Set<WireFeature> wireFeatures = WireFeature.fromBits(wireFeatureBits);
+        WireFeature.configure(serializer, wireFeatures);
+
+        long schemaFingerprint = CommandAlias.schemaFingerprint(aliasClass);
+        long serverSchemaFingerprint = tcpIn.readLong();
+        if (serverSchemaFingerprint != schemaFingerprint) {
+            disconnect();
+            throw new IOException(
+                "Failed to join server " + clientConfig.address() + ":" + clientConfig.port() + ", its schema fingerprint "
+                    + Long.toHexString(serverSchemaFingerprint) + " doesn't match this client's " + Long.toHexString(schemaFingerprint)
+                    + ". Are both built with the same commands?"
+            );
+        }
+
         ClientLogger.debug("Client id synced to server, now {}.", clientId);
+        ClientLogger.debug("{} using wire features {}.", clientId, wireFeatures);
         ClientLogger.debug("{} connection status to {}:{} satisfactory.", clientId, clientConfig.address(), clientConfig.port());
         ClientLogger.debug("Sending UDP port {}", udpSocket.getLocalPort());
 
         tcpOut.writeInt(udpSocket.getLocalPort());
+        tcpOut.writeLong(schemaFingerprint);
         tcpOut.flush();
 
+        if (wireFeatures.contains(WireFeature.Framing)) {
+            enableFraming();
+
+            if (wireFeatures.contains(WireFeature.Compression)) {
+                enableCompression();
+            }
+
+            if (wireFeatures.contains(WireFeature.StringDictionary)) {
+                enableStringDictionary();
+            }
+        }
+
         startListening();
     }
 
@@ -168,6 +204,7 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
 
                 readCommand(commandId, inputStream);
             }
+            case StringDefinitions -> readStringDefinitions(inputStream);
             default -> ClientLogger.warn(
                 "{} Received unused message type {}, discarding {}",
                 senderId,
@@ -218,16 +255,13 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
     }
 
     private void sendPing() {
-        byte[] packetData = ByteBuffer.allocate(MessageUtils.EnumBytes + Long.BYTES)
-            .putInt(SentMessageType.PingRequest.ordinal())
-            .putLong(System.nanoTime())
-            .array();
-
         ClientLogger.trace("sending ping to {}:{}", clientConfig.address(), clientConfig.port());
 
         try {
-            tcpOut.write(packetData);
-            tcpOut.flush();
+            synchronized (this) {
+                beginPacket(NetworkType.TCP, SentMessageType.PingRequest).writeLong(System.nanoTime());
+                sendPacket(NetworkType.TCP);
+            }
         } catch (IOException exception) {
             ClientLogger.error("Unable to send UDP ping packet. Stopping pings", exception);
             stopPings();
@@ -358,43 +392,12 @@ public class LocalClient<E extends Enum<E> & CommandAlias> extends ClientBase<E>
     }
 
     @Override
-    public synchronized void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, byte[] rawData)
-        throws IOException {
-        assert aliasClass.isAssignableFrom(commandId.getClass());
-
-        ClientLogger.trace("{} sending {} \"{}\" to {}:{}", clientId, networkType.name(), commandId.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPCommand(tcpOut, commandTarget, commandId, rawData);
-            case UDP -> SendUtils.sendUDPCommand(udpSocket, clientConfig, commandTarget, commandId, clientId, rawData);
-        }
-    }
-
-    @Override
-    public synchronized void sendRequest(NetworkType networkType, RequestType requestType, byte[] rawData) throws IOException {
-        ClientLogger.debug("{} sending {} \"{}\" to {}:{}", clientId, networkType.name(), requestType.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPRequest(tcpOut, requestType, rawData);
-            case UDP -> SendUtils.sendUDPRequest(udpSocket, clientConfig, requestType, clientId, rawData);
-        }
+    public Map<E, LocalCommandInvoker> getInvokers() {
+        return invokers;
     }
 
     @Override
-    public synchronized void sendDisconnect(NetworkType networkType, byte[] rawData) throws IOException {
-        ClientLogger.debug("{} sending {} disconnect to {}:{}", clientId, networkType.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPDisconnect(tcpOut);
-            case UDP -> SendUtils.sendUDPDisconnect(clientId, udpSocket, clientConfig);
-        }
-    }
-
-    @Override
-    public synchronized void sendKeepAlive(NetworkType networkType) throws IOException {
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPKeepAlive(tcpOut);
-            case UDP -> SendUtils.sendUDPKeepAlive(clientId, udpSocket, clientConfig);
-        }
+    protected ClientConfig getUdpConfig() {
+        return clientConfig;
     }
 }
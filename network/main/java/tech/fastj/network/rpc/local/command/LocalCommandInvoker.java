@@ -0,0 +1,116 @@
+package tech.fastj.network.rpc.local.command;
+
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.serial.FieldCodec;
+import tech.fastj.network.serial.read.MessageInputStream;
+
+import java.io.IOException;
+
+/**
+ * Reads a command's arguments and runs its handler. {@link LocalCommandReader} builds one per command as the command is
+ * added, so running a command is one lookup and one call, with each argument's codec already resolved.
+ */
+@FunctionalInterface
+public interface LocalCommandInvoker {
+
+    void invoke(MessageInputStream inputStream) throws IOException;
+
+    /** Returns the invoker for {@code command}, added as {@code id}. */
+    @SuppressWarnings("unchecked")
+    static LocalCommandInvoker of(CommandAlias id, LocalCommand command) {
+        if (command instanceof LocalStreamCommand streamCommand) {
+            return streamCommand::runCommand;
+        }
+
+        FieldCodec[] codecs = id.commandCodecs();
+
+        return switch (codecs.length) {
+            case 0 -> {
+                var command0 = (LocalCommand0) command;
+                yield inputStream -> command0.runCommand();
+            }
+            case 1 -> {
+                var command1 = (LocalCommand1<Object>) command;
+                FieldCodec codec1 = codecs[0];
+
+                yield inputStream -> command1.runCommand(codec1.read(inputStream));
+            }
+            case 2 -> {
+                var command2 = (LocalCommand2<Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+
+                yield inputStream -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    command2.runCommand(t1, t2);
+                };
+            }
+            case 3 -> {
+                var command3 = (LocalCommand3<Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+
+                yield inputStream -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    command3.runCommand(t1, t2, t3);
+                };
+            }
+            case 4 -> {
+                var command4 = (LocalCommand4<Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+
+                yield inputStream -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    command4.runCommand(t1, t2, t3, t4);
+                };
+            }
+            case 5 -> {
+                var command5 = (LocalCommand5<Object, Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+                FieldCodec codec5 = codecs[4];
+
+                yield inputStream -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    Object t5 = codec5.read(inputStream);
+                    command5.runCommand(t1, t2, t3, t4, t5);
+                };
+            }
+            case 6 -> {
+                var command6 = (LocalCommand6<Object, Object, Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+                FieldCodec codec5 = codecs[4];
+                FieldCodec codec6 = codecs[5];
+
+                yield inputStream -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    Object t5 = codec5.read(inputStream);
+                    Object t6 = codec6.read(inputStream);
+                    command6.runCommand(t1, t2, t3, t4, t5, t6);
+                };
+            }
+            default -> throw new IllegalArgumentException(id + " has " + codecs.length + " command parameters, more than the maximum of 6.");
+        };
+    }
+}
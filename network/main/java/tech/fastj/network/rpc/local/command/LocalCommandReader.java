@@ -2,20 +2,11 @@ package tech.fastj.network.rpc.local.command;
 
 import tech.fastj.network.rpc.CommandAlias;
 import tech.fastj.network.rpc.CommandReader;
-import tech.fastj.network.rpc.classes.Classes;
-import tech.fastj.network.rpc.classes.Classes0;
-import tech.fastj.network.rpc.classes.Classes1;
-import tech.fastj.network.rpc.classes.Classes2;
-import tech.fastj.network.rpc.classes.Classes3;
-import tech.fastj.network.rpc.classes.Classes4;
-import tech.fastj.network.rpc.classes.Classes5;
-import tech.fastj.network.rpc.classes.Classes6;
 import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.read.MessageInputStream;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.UUID;
 
 public interface LocalCommandReader<E extends Enum<E> & CommandAlias> extends CommandReader<E> {
 
@@ -63,9 +54,20 @@ public interface LocalCommandReader<E extends Enum<E> & CommandAlias> extends Co
         tryAddSerializer(id.commandClassesArray());
     }
 
+    /** Adds a command which reads its own arguments, like {@link LocalStreamCommand} describes. */
+    default void addStreamCommand(E id, LocalStreamCommand command) {
+        idRegisterCheck(id);
+        getCommands().put(id, command);
+        getInvokers().put(id, LocalCommandInvoker.of(id, command));
+        tryAddSerializer(id.commandClassesArray());
+    }
+
     @Override
     Map<E, LocalCommand> getCommands();
 
+    /** The invoker for each added command, which {@link #readCommand} runs it through. */
+    Map<E, LocalCommandInvoker> getInvokers();
+
     @Override
     default void clearCommand(E id) {
         LocalCommand clearCommand = LocalCommandClears.get(id.commandCount());
@@ -78,106 +80,20 @@ public interface LocalCommandReader<E extends Enum<E> & CommandAlias> extends Co
     private void tryAddSerializer(Class<?>... possibleClasses) {
         for (Class<?> possibleClass : possibleClasses) {
             if (Message.class.isAssignableFrom(possibleClass)) {
-                getSerializer().registerSerializer(UUID.randomUUID(), (Class<? extends Message>) possibleClass);
+                getSerializer().registerSerializer((Class<? extends Message>) possibleClass);
             }
         }
     }
 
     default void readCommand(E commandId, MessageInputStream inputStream) throws IOException {
-        Classes classes = commandId.getCommandClasses();
-
-        if (classes instanceof Classes0) {
-            runCommand(commandId);
-        } else if (classes instanceof Classes1<?> classes1) {
-            runCommand(commandId, readObject(classes1.t1(), inputStream));
-        } else if (classes instanceof Classes2<?, ?> classes2) {
-            runCommand(
-                commandId,
-                readObject(classes2.t1(), inputStream),
-                readObject(classes2.t2(), inputStream)
-            );
-        } else if (classes instanceof Classes3<?, ?, ?> classes3) {
-            runCommand(
-                commandId,
-                readObject(classes3.t1(), inputStream),
-                readObject(classes3.t2(), inputStream),
-                readObject(classes3.t3(), inputStream)
-            );
-        } else if (classes instanceof Classes4<?, ?, ?, ?> classes4) {
-            runCommand(
-                commandId,
-                readObject(classes4.t1(), inputStream),
-                readObject(classes4.t2(), inputStream),
-                readObject(classes4.t3(), inputStream),
-                readObject(classes4.t4(), inputStream)
-            );
-        } else if (classes instanceof Classes5<?, ?, ?, ?, ?> classes5) {
-            runCommand(
-                commandId,
-                readObject(classes5.t1(), inputStream),
-                readObject(classes5.t2(), inputStream),
-                readObject(classes5.t3(), inputStream),
-                readObject(classes5.t4(), inputStream),
-                readObject(classes5.t5(), inputStream)
-            );
-        } else if (classes instanceof Classes6<?, ?, ?, ?, ?, ?> classes6) {
-            runCommand(
-                commandId,
-                readObject(classes6.t1(), inputStream),
-                readObject(classes6.t2(), inputStream),
-                readObject(classes6.t3(), inputStream),
-                readObject(classes6.t4(), inputStream),
-                readObject(classes6.t5(), inputStream),
-                readObject(classes6.t6(), inputStream)
-            );
-        }
-    }
-
-    default void runCommand(E id) {
-        var command = (LocalCommand0) getCommands().get(id);
-        command.runCommand();
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1> void runCommand(E id, T1 t1) {
-        var command = (LocalCommand1<T1>) getCommands().get(id);
-        command.runCommand(t1);
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1, T2> void runCommand(E id, T1 t1, T2 t2) {
-        var command = (LocalCommand2<T1, T2>) getCommands().get(id);
-        command.runCommand(t1, t2);
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1, T2, T3> void runCommand(E id, T1 t1, T2 t2, T3 t3) {
-        var command = (LocalCommand3<T1, T2, T3>) getCommands().get(id);
-        command.runCommand(t1, t2, t3);
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1, T2, T3, T4> void runCommand(E id, T1 t1, T2 t2, T3 t3, T4 t4) {
-        var command = (LocalCommand4<T1, T2, T3, T4>) getCommands().get(id);
-        command.runCommand(t1, t2, t3, t4);
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1, T2, T3, T4, T5> void runCommand(E id, T1 t1, T2 t2, T3 t3, T4 t4, T5 t5) {
-        var command = (LocalCommand5<T1, T2, T3, T4, T5>) getCommands().get(id);
-        command.runCommand(t1, t2, t3, t4, t5);
-    }
-
-    @SuppressWarnings("unchecked")
-    default <T1, T2, T3, T4, T5, T6> void runCommand(E id, T1 t1, T2 t2, T3 t3, T4 t4, T5 t5, T6 t6) {
-        var command = (LocalCommand6<T1, T2, T3, T4, T5, T6>) getCommands().get(id);
-        command.runCommand(t1, t2, t3, t4, t5, t6);
+        getInvokers().get(commandId).invoke(inputStream);
     }
 
     private void registerCommand(E id, LocalCommand command) {
         idRegisterCheck(id);
         commandNumberCheck(id, command);
         getCommands().put(id, command);
+        getInvokers().put(id, LocalCommandInvoker.of(id, command));
     }
 
     private void commandNumberCheck(E id, LocalCommand command) {
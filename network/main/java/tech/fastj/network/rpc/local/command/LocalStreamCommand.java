@@ -0,0 +1,22 @@
+package tech.fastj.network.rpc.local.command;
+
+import tech.fastj.network.serial.read.MessageInputStream;
+
+import java.io.IOException;
+
+/**
+ * A command which reads its own arguments from the packet they arrived in, so it can decode them into objects it
+ * reuses rather than being handed new ones. It must read every argument its alias lists, in order, and the stream is only
+ * valid while it runs.
+ */
+@FunctionalInterface
+public interface LocalStreamCommand extends LocalCommand {
+
+    void runCommand(MessageInputStream inputStream) throws IOException;
+
+    /** Unknown, since the command reads its arguments itself. */
+    @Override
+    default int commandArgumentCount() {
+        return -1;
+    }
+}
@@ -9,5 +9,6 @@ public enum SentMessageType {
     SessionUpdate,
     AvailableLobbiesUpdate,
     RPCCommand,
-    Request
+    Request,
+    StringDefinitions
 }
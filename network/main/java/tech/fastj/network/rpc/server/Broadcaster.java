@@ -0,0 +1,218 @@
+package tech.fastj.network.rpc.server;
+
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.NetworkSender;
+import tech.fastj.network.rpc.PacketBuffer;
+import tech.fastj.network.rpc.SendUtils;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.message.SentMessageType;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends packets to a group of clients, serializing each packet once and sending the same bytes to every recipient.
+ * <p>
+ * A client that can't be sent to is logged and skipped, so one broken connection doesn't stop the rest of a broadcast.
+ * <p>
+ * UDP broadcasts are copied into a batch holding the payload and every recipient's address, and are sent through the
+ * server's {@link DatagramChannel} by {@link #flushPackets()} once the send lock has been released. Batches are pooled,
+ * so steady-state broadcasting doesn't allocate.
+ */
+public class Broadcaster<E extends Enum<E> & CommandAlias> implements NetworkSender {
+
+    private static final Logger BroadcasterLogger = LoggerFactory.getLogger(Broadcaster.class);
+
+    private final Serializer serializer;
+    private final Server<E> server;
+    private final List<ServerClient<E>> clients;
+    private final UUID senderId;
+
+    private final PacketBuffer packetBuffer;
+    private final Queue<UdpBatch> pendingBatches;
+    private final Queue<UdpBatch> freeBatches;
+
+    Broadcaster(Serializer serializer, Server<E> server, List<ServerClient<E>> clients, UUID senderId) {
+        this.serializer = serializer;
+        this.server = server;
+        this.clients = clients;
+        this.senderId = senderId;
+
+        packetBuffer = new PacketBuffer(serializer);
+        pendingBatches = new ConcurrentLinkedQueue<>();
+        freeBatches = new ConcurrentLinkedQueue<>();
+    }
+
+    /** Returns a sender for every client in the group except the one with the given id. */
+    public NetworkSender except(UUID clientId) {
+        return to(client -> !clientId.equals(client.getClientId()));
+    }
+
+    /** Returns a sender for the clients in the group matching {@code recipients}. */
+    public NetworkSender to(Predicate<ServerClient<E>> recipients) {
+        return new FilteredBroadcast(recipients);
+    }
+
+    @Override
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException {
+        BroadcasterLogger.trace("{} broadcasting {} {} to up to {} client(s)", senderId, networkType.name(), messageType.name(), clients.size());
+
+        // each client has its own string ids, so a packet written once for all of them writes its strings inline
+        MessageOutputStream packetOut = packetBuffer.begin();
+
+        if (networkType == NetworkType.UDP) {
+            SendUtils.writeUDPHeader(packetOut, senderId);
+        }
+
+        packetOut.writeEnum(messageType);
+        return packetOut;
+    }
+
+    @Override
+    public void sendPacket(NetworkType networkType) throws IOException {
+        sendPacket(networkType, null);
+    }
+
+    private void sendPacket(NetworkType networkType, Predicate<ServerClient<E>> recipients) throws IOException {
+        switch (networkType) {
+            case TCP -> {
+                for (ServerClient<E> client : clients) {
+                    if (recipients == null || recipients.test(client)) {
+                        sendTCP(client);
+                    }
+                }
+            }
+            case UDP -> {
+                SendUtils.checkUDPPacketSize(packetBuffer);
+
+                UdpBatch batch = freeBatches.poll();
+
+                if (batch == null) {
+                    batch = new UdpBatch();
+                }
+
+                batch.reset(packetBuffer.data(), packetBuffer.length());
+
+                for (ServerClient<E> client : clients) {
+                    if (recipients == null || recipients.test(client)) {
+                        batch.addTarget(client.getUdpAddress());
+                    }
+                }
+
+                pendingBatches.add(batch);
+            }
+        }
+    }
+
+    @Override
+    public void flushPackets() {
+        UdpBatch batch;
+
+        while ((batch = pendingBatches.poll()) != null) {
+            try {
+                sendBatch(server.getUdpChannel(), batch);
+            } finally {
+                freeBatches.add(batch);
+            }
+        }
+    }
+
+    private void sendTCP(ServerClient<E> client) {
+        try {
+            client.sendTCP(packetBuffer.data(), 0, packetBuffer.length());
+        } catch (IOException exception) {
+            BroadcasterLogger.warn("Unable to broadcast TCP packet to {}: {}", client.getClientId(), exception.getMessage());
+        }
+    }
+
+    private void sendBatch(DatagramChannel udpChannel, UdpBatch batch) {
+        for (int i = 0; i < batch.targetCount; i++) {
+            InetSocketAddress target = batch.targets[i];
+            batch.targets[i] = null;
+
+            try {
+                batch.payload.rewind();
+                udpChannel.send(batch.payload, target);
+            } catch (IOException exception) {
+                BroadcasterLogger.warn("Unable to broadcast UDP packet to {}: {}", target, exception.getMessage());
+            }
+        }
+    }
+
+    private class FilteredBroadcast implements NetworkSender {
+
+        private final Predicate<ServerClient<E>> recipients;
+
+        private FilteredBroadcast(Predicate<ServerClient<E>> recipients) {
+            this.recipients = recipients;
+        }
+
+        @Override
+        public Object getSendLock() {
+            return Broadcaster.this;
+        }
+
+        @Override
+        public Serializer getSerializer() {
+            return serializer;
+        }
+
+        @Override
+        public MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException {
+            return Broadcaster.this.beginPacket(networkType, messageType);
+        }
+
+        @Override
+        public void sendPacket(NetworkType networkType) throws IOException {
+            Broadcaster.this.sendPacket(networkType, recipients);
+        }
+
+        @Override
+        public void flushPackets() {
+            Broadcaster.this.flushPackets();
+        }
+    }
+
+    private static class UdpBatch {
+
+        private final ByteBuffer payload = ByteBuffer.allocate(SendUtils.UdpPacketBufferLength);
+        private InetSocketAddress[] targets = new InetSocketAddress[8];
+        private int targetCount;
+
+        private void reset(byte[] data, int length) {
+            payload.clear();
+            payload.put(data, 0, length).flip();
+            targetCount = 0;
+        }
+
+        private void addTarget(InetSocketAddress target) {
+            if (target == null) {
+                return;
+            }
+
+            if (targetCount == targets.length) {
+                targets = Arrays.copyOf(targets, targets.length * 2);
+            }
+
+            targets[targetCount++] = target;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package tech.fastj.network.rpc.server;
+
+import tech.fastj.network.rpc.SendUtils;
+import tech.fastj.network.serial.util.VarIntUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class ChannelConnection implements EventLoop.SelectorHandler {
+
+    private static final Logger ChannelConnectionLogger = LoggerFactory.getLogger(ChannelConnection.class);
+    private static final int InitialReadBufferLength = 8192;
+    private static final int MaxReadBufferLength = SendUtils.MaxTcpFrameLength + VarIntUtils.MaxBytes;
+    private static final int InitialWriteBufferLength = 8192;
+    private static final long MaxPendingWriteLength = 2L * SendUtils.MaxTcpFrameLength;
+
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final Consumer<ByteBuffer> reader;
+    private final Runnable onRemoteClose;
+
+    private final Deque<ByteBuffer> pendingWrites;
+    private final ChannelOutputStream outputStream;
+
+    private long pendingWriteLength;
+    private boolean hasWriteOverflowed;
+
+    private ByteBuffer readBuffer;
+    private volatile SelectionKey key;
+
+    ChannelConnection(SocketChannel channel, EventLoop eventLoop, Consumer<ByteBuffer> reader, Runnable onRemoteClose) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.reader = reader;
+        this.onRemoteClose = onRemoteClose;
+
+        pendingWrites = new ArrayDeque<>();
+        outputStream = new ChannelOutputStream();
+        readBuffer = ByteBuffer.allocate(InitialReadBufferLength);
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    void startReading() {
+        if (key != null) {
+            key.interestOpsOr(SelectionKey.OP_READ);
+            eventLoop.wakeup();
+            return;
+        }
+
+        eventLoop.register(channel, SelectionKey.OP_READ, this).thenAccept(registeredKey -> {
+            synchronized (pendingWrites) {
+                key = registeredKey;
+
+                if (!pendingWrites.isEmpty()) {
+                    key.interestOpsOr(SelectionKey.OP_WRITE);
+                }
+            }
+        }).exceptionally(exception -> {
+            ChannelConnectionLogger.error("Unable to register channel " + channel, exception);
+            return null;
+        });
+    }
+
+    void stopReading() {
+        SelectionKey currentKey = key;
+
+        if (currentKey != null && currentKey.isValid()) {
+            currentKey.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key) throws IOException {
+        try {
+            if (key.isReadable()) {
+                onReadable();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                onWritable();
+            }
+        } catch (IOException exception) {
+            ChannelConnectionLogger.warn("Channel {} failed: {}", channel, exception.getMessage());
+            onRemoteClose.run();
+        }
+    }
+
+    void close() {
+        synchronized (pendingWrites) {
+            try {
+                writePending();
+            } catch (IOException exception) {
+                ChannelConnectionLogger.debug("Unable to write remaining data to {} before closing: {}", channel, exception.getMessage());
+            }
+
+            pendingWrites.clear();
+            pendingWriteLength = 0L;
+        }
+
+        if (key != null) {
+            key.cancel();
+        }
+
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            ChannelConnectionLogger.warn("Unable to close channel {}: {}", channel, exception.getMessage());
+        }
+    }
+
+    private void onReadable() throws IOException {
+        int readLength = channel.read(readBuffer);
+
+        if (readLength == -1) {
+            key.cancel();
+            onRemoteClose.run();
+            return;
+        }
+
+        readBuffer.flip();
+        reader.accept(readBuffer);
+        readBuffer.compact();
+
+        if (!readBuffer.hasRemaining()) {
+            if (readBuffer.capacity() >= MaxReadBufferLength) {
+                ChannelConnectionLogger.warn("Channel {} sent {} bytes without finishing a message, disconnecting it", channel, readBuffer.capacity());
+                key.cancel();
+                onRemoteClose.run();
+                return;
+            }
+
+            ByteBuffer largerBuffer = ByteBuffer.allocate(Math.min(readBuffer.capacity() * 2, MaxReadBufferLength));
+            readBuffer.flip();
+            largerBuffer.put(readBuffer);
+            readBuffer = largerBuffer;
+        }
+    }
+
+    private void onWritable() throws IOException {
+        synchronized (pendingWrites) {
+            if (writePending()) {
+                key.interestOpsAnd(~SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private boolean writePending() throws IOException {
+        while (!pendingWrites.isEmpty()) {
+            ByteBuffer data = pendingWrites.peek();
+            pendingWriteLength -= channel.write(data);
+
+            if (data.hasRemaining()) {
+                return false;
+            }
+
+            pendingWrites.poll();
+        }
+
+        return true;
+    }
+
+    /** Writes {@code data}, returning whether some of it had to be queued for later. */
+    private boolean write(ByteBuffer data) throws IOException {
+        synchronized (pendingWrites) {
+            if (hasWriteOverflowed) {
+                throw new IOException("Channel " + channel + " is disconnecting, its write queue overflowed.");
+            }
+
+            if (pendingWrites.isEmpty() && key != null) {
+                channel.write(data);
+
+                if (!data.hasRemaining()) {
+                    return false;
+                }
+            }
+
+            if (pendingWriteLength + data.remaining() > MaxPendingWriteLength) {
+                ChannelConnectionLogger.warn("Channel {} is not reading its {} queued bytes, disconnecting it", channel, pendingWriteLength);
+
+                hasWriteOverflowed = true;
+                pendingWrites.clear();
+                pendingWriteLength = 0L;
+                eventLoop.execute(onRemoteClose);
+
+                throw new IOException("Channel " + channel + " has more than " + MaxPendingWriteLength + " bytes waiting to be written.");
+            }
+
+            pendingWrites.add(data);
+            pendingWriteLength += data.remaining();
+
+            if (key != null) {
+                key.interestOpsOr(SelectionKey.OP_WRITE);
+                eventLoop.wakeup();
+            }
+
+            return true;
+        }
+    }
+
+    private class ChannelOutputStream extends OutputStream {
+
+        private byte[] pendingData = new byte[InitialWriteBufferLength];
+        private int pendingLength;
+
+        @Override
+        public synchronized void write(int b) {
+            ensureCapacity(1);
+            pendingData[pendingLength++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, pendingData, pendingLength, length);
+            pendingLength += length;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (pendingLength == 0) {
+                return;
+            }
+
+            int length = pendingLength;
+            pendingLength = 0;
+
+            if (ChannelConnection.this.write(ByteBuffer.wrap(pendingData, 0, length))) {
+                // the write queue now holds this array
+                pendingData = new byte[InitialWriteBufferLength];
+            }
+        }
+
+        private void ensureCapacity(int length) {
+            if (pendingLength + length > pendingData.length) {
+                pendingData = Arrays.copyOf(pendingData, Math.max(pendingData.length * 2, pendingLength + length));
+            }
+        }
+
+        @Override
+        public void close() {
+            ChannelConnection.this.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package tech.fastj.network.rpc.server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class EventLoop implements Runnable {
+
+    private static final Logger EventLoopLogger = LoggerFactory.getLogger(EventLoop.class);
+
+    private final Selector selector;
+    private final Queue<Runnable> pendingTasks;
+    private final Thread thread;
+
+    private volatile boolean isRunning;
+
+    EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        pendingTasks = new ConcurrentLinkedQueue<>();
+
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        isRunning = true;
+        thread.start();
+    }
+
+    void shutdown() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    void execute(Runnable task) {
+        pendingTasks.add(task);
+
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    void wakeup() {
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    CompletableFuture<SelectionKey> register(SelectableChannel channel, int interestOps, SelectorHandler handler) {
+        CompletableFuture<SelectionKey> registration = new CompletableFuture<>();
+
+        execute(() -> {
+            try {
+                registration.complete(channel.register(selector, interestOps, handler));
+            } catch (IOException | RuntimeException exception) {
+                registration.completeExceptionally(exception);
+            }
+        });
+
+        return registration;
+    }
+
+    @Override
+    public void run() {
+        EventLoopLogger.debug("{} started.", thread.getName());
+
+        try {
+            while (isRunning) {
+                if (pendingTasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+
+                runPendingTasks();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    try {
+                        ((SelectorHandler) key.attachment()).handle(key);
+                    } catch (Exception exception) {
+                        EventLoopLogger.error(thread.getName() + " failed to handle selected key", exception);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException exception) {
+            EventLoopLogger.error(thread.getName() + " stopped unexpectedly", exception);
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException exception) {
+                EventLoopLogger.warn("{} could not close its selector: {}", thread.getName(), exception.getMessage());
+            }
+        }
+
+        EventLoopLogger.debug("{} stopped.", thread.getName());
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+
+        while ((task = pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception exception) {
+                EventLoopLogger.error(thread.getName() + " failed to run task", exception);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface SelectorHandler {
+        void handle(SelectionKey key) throws IOException;
+    }
+}
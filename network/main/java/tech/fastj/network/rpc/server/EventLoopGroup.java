@@ -0,0 +1,47 @@
+package tech.fastj.network.rpc.server;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EventLoopGroup {
+
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextLoop;
+
+    private boolean isStarted;
+
+    EventLoopGroup(int loopCount) throws IOException {
+        eventLoops = new EventLoop[Math.max(1, loopCount)];
+        nextLoop = new AtomicInteger();
+
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop("fastj-network-io-" + i);
+        }
+    }
+
+    synchronized void start() {
+        if (isStarted) {
+            return;
+        }
+
+        isStarted = true;
+
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+    }
+
+    synchronized void shutdown() {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+
+    EventLoop acceptLoop() {
+        return eventLoops[0];
+    }
+
+    EventLoop next() {
+        return eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)];
+    }
+}
@@ -1,9 +1,11 @@
 package tech.fastj.network.rpc.server;
 
+import tech.fastj.network.config.WireFeature;
 import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.NetworkSender;
 import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
-import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
 import tech.fastj.network.rpc.server.command.ServerCommand;
+import tech.fastj.network.rpc.server.command.ServerCommandInvoker;
 import tech.fastj.network.rpc.server.command.ServerCommandReader;
 import tech.fastj.network.serial.Serializer;
 
@@ -15,7 +17,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerCommandReader<E> {
 
@@ -25,8 +29,11 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
     protected final Server<E> server;
     protected final List<ServerClient<E>> clients;
     protected final Map<UUID, Session<E>> sessions;
+    private final Map<UUID, Session<E>> sessionsByClientId;
 
     private final Map<E, ServerCommand> commands;
+    private final Map<E, ServerCommandInvoker<E>> invokers;
+    private final Broadcaster<E> broadcaster;
 
     protected LobbyIdentifier lobbyIdentifier;
     protected Session<E> currentSession;
@@ -41,20 +48,17 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         this.server = server;
 
         commands = new EnumMap<>(aliasClass);
-        serializer = new Serializer();
-
-        serializer.registerSerializer(SessionIdentifier.class);
-        serializer.registerSerializer(LobbyIdentifier.class);
-
-        for (E commandAlias : aliasClass.getEnumConstants()) {
-            commandAlias.registerMessages(serializer);
-        }
+        invokers = new EnumMap<>(aliasClass);
+        serializer = new Serializer(server.getSerializer().getRegistry());
+        WireFeature.configure(serializer, server.getWireFeatures());
 
         resetCommands();
 
         clients = new ArrayList<>(expectedLobbySize);
         sessions = new HashMap<>();
+        sessionsByClientId = new ConcurrentHashMap<>();
         lobbyIdentifier = new LobbyIdentifier(UUID.randomUUID(), name, 0, expectedLobbySize);
+        broadcaster = new Broadcaster<>(serializer, server, clients, lobbyIdentifier.id());
 
         onSwitchSession = (oldSession, newSession) -> {
         };
@@ -102,6 +106,21 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         return server;
     }
 
+    /** Returns a sender for every client in the lobby. Each packet is serialized once, whatever the client count. */
+    public NetworkSender broadcast() {
+        return broadcaster;
+    }
+
+    /** Returns a sender for every client in the lobby except the one with the given id. */
+    public NetworkSender broadcastExcept(UUID clientId) {
+        return broadcaster.except(clientId);
+    }
+
+    /** Returns a sender for the clients in the lobby matching {@code recipients}. */
+    public NetworkSender broadcastTo(Predicate<ServerClient<E>> recipients) {
+        return broadcaster.to(recipients);
+    }
+
     public void setOnSwitchSession(BiConsumer<Session<E>, Session<E>> onSwitchSession) {
         this.onSwitchSession = onSwitchSession;
     }
@@ -115,13 +134,7 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
     }
 
     public Session<E> getClientSession(ServerClient<E> client) {
-        for (Session<E> session : sessions.values()) {
-            if (session.getClients().contains(client)) {
-                return session;
-            }
-        }
-
-        return null;
+        return sessionsByClientId.get(client.getClientId());
     }
 
     public void receiveNewClient(ServerClient<E> client) throws IOException {
@@ -132,13 +145,13 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         clients.add(client);
         lobbyIdentifier = new LobbyIdentifier(lobbyIdentifier.id(), lobbyIdentifier.name(), clients.size(), lobbyIdentifier.maxPlayers());
 
-        client.sendLobbyUpdate(lobbyIdentifier);
-
         Session<E> newClientSession = sessions.get(homeSessionId);
 
         if (newClientSession != null) {
             newClientSession.clientJoin(client);
         }
+
+        client.sendLobbyUpdate(lobbyIdentifier);
     }
 
     public void stop() {
@@ -147,6 +160,7 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         }
 
         sessions.clear();
+        sessionsByClientId.clear();
 
         for (int i = clients.size() - 1; i >= 0; i--) {
             clients.get(i).disconnect();
@@ -181,6 +195,14 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         onSwitchSession.accept(previousSession, currentSession);
     }
 
+    void trackClientSession(ServerClient<E> client, Session<E> session) {
+        sessionsByClientId.put(client.getClientId(), session);
+    }
+
+    void untrackClientSession(ServerClient<E> client, Session<E> session) {
+        sessionsByClientId.remove(client.getClientId(), session);
+    }
+
     protected void addSession(Session<E> session) {
         sessions.put(session.getSessionId(), session);
     }
@@ -208,6 +230,11 @@ public abstract class Lobby<E extends Enum<E> & CommandAlias> implements ServerC
         return commands;
     }
 
+    @Override
+    public Map<E, ServerCommandInvoker<E>> getInvokers() {
+        return invokers;
+    }
+
     private Session<E> findSession(String sessionName) {
         for (Session<E> session : sessions.values()) {
             if (session == null) {
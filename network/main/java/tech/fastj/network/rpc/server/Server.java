@@ -1,33 +1,50 @@
 package tech.fastj.network.rpc.server;
 
+import tech.fastj.network.concurrent.ExecutorStrategy;
+import tech.fastj.network.concurrent.NetworkExecutors;
 import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.config.ServerIoMode;
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.config.WireFeature;
 import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.RegistryUtils;
+import tech.fastj.network.rpc.SendUtils;
 import tech.fastj.network.rpc.local.LocalClient;
 import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.RequestType;
-import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
-import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
 import tech.fastj.network.rpc.server.command.ServerCommand;
+import tech.fastj.network.rpc.server.command.ServerCommandInvoker;
 import tech.fastj.network.rpc.server.command.ServerCommandReader;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
 import tech.fastj.network.serial.read.MessageInputStream;
 import tech.fastj.network.serial.util.MessageUtils;
 
 import java.io.IOException;
+import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
+import java.net.SocketException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 
 import org.slf4j.Logger;
@@ -38,17 +55,32 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
     protected final Serializer serializer;
 
     private final List<ServerClient<E>> allClients;
+    private final Map<UUID, ServerClient<E>> clientsById;
     private final Map<UUID, Lobby<E>> lobbies;
+    private final Map<UUID, Lobby<E>> lobbiesByClientId;
     private final BiFunction<ServerClient<E>, String, Lobby<E>> lobbyCreator;
 
     private final Class<E> aliasClass;
     private final Map<E, ServerCommand> commands;
+    private final Map<E, ServerCommandInvoker<E>> invokers;
 
     private final ServerSocket tcpServer;
     private final DatagramSocket udpServer;
+    private final DatagramChannel udpChannel;
     private final Logger serverLogger = LoggerFactory.getLogger(Server.class);
 
+    private final ServerSocketChannel tcpServerChannel;
+    private final EventLoopGroup eventLoops;
+
+    private final int udpReceiverCount;
+    private final TcpBufferConfig tcpBufferConfig;
+    private final Set<WireFeature> wireFeatures;
+    private final long schemaFingerprint;
+    private final CountDownLatch stopLatch;
+
     private ExecutorService clientAccepter;
+    private ExecutorService udpReceiver;
+    private volatile SelectionKey acceptKey;
     private volatile boolean isRunning;
     private volatile boolean isAcceptingClients;
 
@@ -56,22 +88,36 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         throws IOException {
         this.aliasClass = aliasClass;
         commands = new EnumMap<>(aliasClass);
-        serializer = new Serializer();
+        invokers = new EnumMap<>(aliasClass);
+        serializer = new Serializer(RegistryUtils.registryFor(aliasClass));
 
-        this.allClients = new ArrayList<>(serverConfig.maxClients());
+        this.allClients = new CopyOnWriteArrayList<>();
+        this.clientsById = new ConcurrentHashMap<>();
         this.lobbies = new LinkedHashMap<>();
+        this.lobbiesByClientId = new ConcurrentHashMap<>();
         this.lobbyCreator = lobbyCreator;
 
-        tcpServer = new ServerSocket(serverConfig.port(), serverConfig.clientBacklog(), serverConfig.address());
-        udpServer = new DatagramSocket(serverConfig.port(), serverConfig.address());
-
-        serializer.registerSerializer(SessionIdentifier.class);
-        serializer.registerSerializer(LobbyIdentifier.class);
-
-        for (E commandAlias : aliasClass.getEnumConstants()) {
-            commandAlias.registerMessages(serializer);
+        if (serverConfig.ioMode() == ServerIoMode.Selector) {
+            tcpServerChannel = ServerSocketChannel.open();
+            tcpServerChannel.bind(new InetSocketAddress(serverConfig.address(), serverConfig.port()), serverConfig.clientBacklog());
+            tcpServer = tcpServerChannel.socket();
+            eventLoops = new EventLoopGroup(serverConfig.ioThreads());
+        } else {
+            tcpServerChannel = null;
+            tcpServer = new ServerSocket(serverConfig.port(), serverConfig.clientBacklog(), serverConfig.address());
+            eventLoops = null;
         }
 
+        udpChannel = DatagramChannel.open();
+        udpChannel.bind(new InetSocketAddress(serverConfig.address(), serverConfig.port()));
+        udpServer = udpChannel.socket();
+        udpReceiverCount = Math.max(1, serverConfig.udpReceivers());
+        tcpBufferConfig = serverConfig.tcpBuffer();
+        wireFeatures = Set.copyOf(serverConfig.wireFeatures());
+        WireFeature.configure(serializer, wireFeatures);
+        schemaFingerprint = CommandAlias.schemaFingerprint(aliasClass);
+        stopLatch = new CountDownLatch(1);
+
         resetCommands();
     }
 
@@ -91,6 +137,11 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         return udpServer;
     }
 
+    /** The channel behind {@link #getUdpServer()}, for sending a buffer to many addresses without copying it. */
+    public DatagramChannel getUdpChannel() {
+        return udpChannel;
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
@@ -114,29 +165,43 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         return serializer;
     }
 
+    public Set<WireFeature> getWireFeatures() {
+        return wireFeatures;
+    }
+
+    /** Clients only join when their {@link CommandAlias#schemaFingerprint(Class)} matches this one. */
+    public long getSchemaFingerprint() {
+        return schemaFingerprint;
+    }
+
+    /** The format every serializer writing to or reading from this server's clients uses. */
+    public WireFormat getWireFormat() {
+        return serializer.getWireFormat();
+    }
+
     @Override
     public Map<E, ServerCommand> getCommands() {
         return commands;
     }
 
-    public Lobby<E> getLobby(ServerClient<E> client) {
-        for (Lobby<E> lobby : lobbies.values()) {
-            if (lobby.hasClient(client)) {
-                return lobby;
-            }
-        }
+    @Override
+    public Map<E, ServerCommandInvoker<E>> getInvokers() {
+        return invokers;
+    }
 
-        return null;
+    public Lobby<E> getLobby(ServerClient<E> client) {
+        return lobbiesByClientId.get(client.getClientId());
     }
 
     public void disconnectAllClients() {
         serverLogger.debug("disconnecting {} clients", allClients.size());
 
-        for (int i = allClients.size() - 1; i >= 0; i--) {
-            allClients.get(i).disconnect();
+        for (ServerClient<E> client : allClients) {
+            client.disconnect();
         }
 
         allClients.clear();
+        clientsById.clear();
     }
 
     public void stopAllLobbies() {
@@ -145,6 +210,7 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         }
 
         lobbies.clear();
+        lobbiesByClientId.clear();
     }
 
     public void stop() {
@@ -161,7 +227,21 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
             serverLogger.error("Issue while closing server sockets", exception);
         }
 
+        if (eventLoops != null) {
+            eventLoops.shutdown();
+        }
+
+        if (udpReceiver != null) {
+            udpReceiver.shutdownNow();
+            udpReceiver = null;
+        }
+
         isRunning = false;
+        stopLatch.countDown();
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopLatch.await();
     }
 
     public void allowClients() {
@@ -174,8 +254,13 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
             return;
         }
 
+        if (eventLoops != null) {
+            allowChannelClients();
+            return;
+        }
+
         if (clientAccepter == null || clientAccepter.isShutdown()) {
-            clientAccepter = Executors.newSingleThreadExecutor();
+            clientAccepter = NetworkExecutors.newExecutor("fastj-server-accepter");
         }
 
         isAcceptingClients = true;
@@ -191,18 +276,17 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
             clientAccepter.shutdownNow();
         }
 
+        if (acceptKey != null) {
+            acceptKey.cancel();
+            acceptKey = null;
+        }
+
         isAcceptingClients = false;
         serverLogger.debug("Server no longer accepting clients.");
     }
 
     public ServerClient<E> getClient(UUID senderId) {
-        for (ServerClient<E> client : allClients) {
-            if (senderId.equals(client.getClientId())) {
-                return client;
-            }
-        }
-
-        return null;
+        return clientsById.get(senderId);
     }
 
     private void acceptClients() {
@@ -223,7 +307,7 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         disallowClients();
     }
 
-    private synchronized void acceptClient() throws IOException {
+    private void acceptClient() throws IOException {
         ServerClient<E> client = null;
 
         try {
@@ -233,13 +317,13 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
 
             serverLogger.debug("Received new client, creating connection...");
 
-            client = new ServerClient<>(clientSocket, this, udpServer, aliasClass);
+            client = new ServerClient<>(clientSocket, this, udpServer, aliasClass, tcpBufferConfig);
             client.connect();
 
             serverLogger.debug("Client {} connected.", client.getClientId());
 
             client.startListening();
-            allClients.add(client);
+            addClient(client);
         } catch (IOException exception) {
             if (client != null && client.isConnected()) {
                 client.getTcpOut().writeInt(LocalClient.Leave);
@@ -255,8 +339,147 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         }
     }
 
+    private void allowChannelClients() {
+        isAcceptingClients = true;
+
+        try {
+            tcpServerChannel.configureBlocking(false);
+        } catch (IOException exception) {
+            serverLogger.error("Unable to accept clients without blocking", exception);
+            isAcceptingClients = false;
+            return;
+        }
+
+        eventLoops.acceptLoop().register(tcpServerChannel, SelectionKey.OP_ACCEPT, key -> acceptChannelClients())
+            .thenAccept(key -> acceptKey = key)
+            .exceptionally(exception -> {
+                serverLogger.error("Unable to register server channel", exception);
+                isAcceptingClients = false;
+                return null;
+            });
+
+        serverLogger.debug("Now accepting clients...");
+    }
+
+    private void acceptChannelClients() {
+        SocketChannel clientChannel;
+
+        try {
+            while (isAcceptingClients && (clientChannel = tcpServerChannel.accept()) != null) {
+                try {
+                    acceptChannelClient(clientChannel);
+                } catch (IOException exception) {
+                    serverLogger.error("Failed to accept new client", exception);
+                }
+            }
+        } catch (IOException exception) {
+            if (isRunning && isAcceptingClients) {
+                serverLogger.error("Failed to accept new client", exception);
+            }
+        }
+    }
+
+    private void acceptChannelClient(SocketChannel clientChannel) throws IOException {
+        ServerClient<E> client = null;
+
+        try {
+            serverLogger.debug("Received new client, creating connection...");
+
+            clientChannel.configureBlocking(false);
+
+            client = new ServerClient<>(clientChannel, this, udpServer, aliasClass, eventLoops.next(), tcpBufferConfig);
+            client.connect();
+
+            serverLogger.debug("Client {} connected.", client.getClientId());
+
+            client.startListening();
+            addClient(client);
+        } catch (IOException exception) {
+            if (client != null) {
+                client.disconnect();
+            } else {
+                clientChannel.close();
+            }
+
+            throw new IOException(
+                "Unable to connect to client "
+                    + (client != null ? client.getClientId() : "(null)"),
+                exception
+            );
+        }
+    }
+
+    private void addClient(ServerClient<E> client) {
+        clientsById.put(client.getClientId(), client);
+        allClients.add(client);
+    }
+
     public void start() {
+        if (eventLoops != null) {
+            eventLoops.start();
+        }
+
         isRunning = true;
+
+        if (udpReceiver == null || udpReceiver.isShutdown()) {
+            // platform threads for the same reason as ClientBase.listen
+            udpReceiver = ExecutorStrategy.platform().newExecutor("fastj-server-udp");
+
+            for (int i = 0; i < udpReceiverCount; i++) {
+                udpReceiver.submit(this::receiveUDP);
+            }
+        }
+    }
+
+    private void receiveUDP() {
+        serverLogger.debug("Now receiving UDP packets...");
+
+        byte[] receivePacketBuffer = new byte[SendUtils.UdpPacketBufferLength];
+        DatagramPacket packet = new DatagramPacket(receivePacketBuffer, receivePacketBuffer.length);
+        BufferMessageInputStream packetStream = new BufferMessageInputStream(serializer);
+
+        while (isRunning && !udpServer.isClosed()) {
+            try {
+                packet.setLength(receivePacketBuffer.length);
+                udpServer.receive(packet);
+
+                packetStream.reset(receivePacketBuffer, 0, packet.getLength());
+                routeUDP(packetStream, packet.getLength());
+            } catch (SocketException exception) {
+                if (isRunning && !udpServer.isClosed()) {
+                    serverLogger.error("UDP socket failed", exception);
+                }
+
+                break;
+            } catch (IOException exception) {
+                serverLogger.error("IOException receiving UDP packet", exception);
+                serverLogger.warn("Discarding packet.");
+            } catch (Exception exception) {
+                serverLogger.error("Exception while reading UDP packet", exception);
+                serverLogger.warn("Discarding packet.");
+            }
+        }
+
+        serverLogger.debug("Stopped receiving UDP packets.");
+    }
+
+    private void routeUDP(MessageInputStream packetStream, int length) throws IOException {
+        int messageTypeBytes = serializer.getWireFormat() == WireFormat.Compact ? 1 : MessageUtils.EnumBytes;
+
+        if (length < MessageUtils.UuidBytes + messageTypeBytes) {
+            serverLogger.warn("Discarding UDP packet of {} bytes, too short for a header.", length);
+            return;
+        }
+
+        UUID senderId = new UUID(packetStream.readLong(), packetStream.readLong());
+        ServerClient<E> client = clientsById.get(senderId);
+
+        if (client == null) {
+            serverLogger.warn("Couldn't find client {} to receive UDP packet.", senderId);
+            return;
+        }
+
+        client.receiveUDP(packetStream);
     }
 
     public void receiveCommand(CommandTarget commandTarget, E commandId, UUID senderId, MessageInputStream stream)
@@ -313,9 +536,7 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
             .map(Lobby::getLobbyIdentifier)
             .toArray(LobbyIdentifier[]::new);
 
-        client.getTcpOut().writeObject(SentMessageType.AvailableLobbiesUpdate, SentMessageType.class);
-        client.getTcpOut().writeArray(lobbyIdentifiers);
-        client.getTcpOut().flush();
+        client.sendAvailableLobbies(lobbyIdentifiers);
     }
 
     public void createLobby(ServerClient<E> client, String lobbyName) throws IOException {
@@ -324,6 +545,7 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
         Lobby<E> lobby = lobbyCreator.apply(client, lobbyName);
         lobbies.put(lobby.getLobbyIdentifier().id(), lobby);
 
+        lobbiesByClientId.put(client.getClientId(), lobby);
         lobby.receiveNewClient(client);
         client.setOnDisconnect(() -> disconnectClient(client));
     }
@@ -345,6 +567,7 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
 
         serverLogger.info("Client {} joining lobby {}", client.getClientId(), lobby.getLobbyIdentifier().name());
 
+        lobbiesByClientId.put(client.getClientId(), lobby);
         lobby.receiveNewClient(client);
         client.setOnDisconnect(() -> disconnectClient(client));
     }
@@ -399,12 +622,13 @@ public class Server<E extends Enum<E> & CommandAlias> implements ServerCommandRe
             client.disconnect();
         }
 
-        Lobby<E> lobby = getLobby(client);
+        Lobby<E> lobby = lobbiesByClientId.remove(client.getClientId());
 
         if (lobby != null) {
             lobby.clientDisconnect(client);
         }
 
         allClients.remove(client);
+        clientsById.remove(client.getClientId(), client);
     }
 }
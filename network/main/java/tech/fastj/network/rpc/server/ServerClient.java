@@ -1,9 +1,15 @@
 package tech.fastj.network.rpc.server;
 
+import tech.fastj.network.concurrent.NetworkExecutors;
 import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.config.WireFeature;
 import tech.fastj.network.rpc.ClientBase;
+import tech.fastj.network.rpc.CoalescingOutputStream;
 import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.ConnectionStatus;
 import tech.fastj.network.rpc.SendUtils;
+import tech.fastj.network.rpc.WriteBatch;
 import tech.fastj.network.rpc.local.LocalClient;
 import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
@@ -12,19 +18,25 @@ import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
 import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
 import tech.fastj.network.rpc.server.command.ServerCommand;
+import tech.fastj.network.rpc.server.command.ServerCommandInvoker;
 import tech.fastj.network.rpc.server.command.ServerCommandReader;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
 import tech.fastj.network.serial.read.MessageInputStream;
-import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.util.VarIntUtils;
 import tech.fastj.network.serial.write.MessageOutputStream;
 
 import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -37,21 +49,44 @@ public class ServerClient<E extends Enum<E> & CommandAlias> extends ClientBase<E
     private final Server<E> server;
     private final Class<E> aliasClass;
     private final Map<E, ServerCommand> commands;
+    private final Map<E, ServerCommandInvoker<E>> invokers;
 
-    private ClientConfig udpConfig;
+    private final ChannelConnection channelConnection;
+    private final BufferMessageInputStream channelIn;
+
+    private volatile ClientConfig udpConfig;
+    private volatile InetSocketAddress udpAddress;
 
     public ServerClient(Socket socket, Server<E> server, DatagramSocket udpServer, Class<E> aliasClass) throws IOException {
-        super(socket, udpServer);
+        this(socket, server, udpServer, aliasClass, null, TcpBufferConfig.Default);
+    }
+
+    ServerClient(Socket socket, Server<E> server, DatagramSocket udpServer, Class<E> aliasClass, TcpBufferConfig tcpBufferConfig)
+        throws IOException {
+        this(socket, server, udpServer, aliasClass, null, tcpBufferConfig);
+    }
+
+    ServerClient(SocketChannel socketChannel, Server<E> server, DatagramSocket udpServer, Class<E> aliasClass, EventLoop eventLoop,
+                 TcpBufferConfig tcpBufferConfig) throws IOException {
+        this(socketChannel.socket(), server, udpServer, aliasClass, eventLoop, tcpBufferConfig);
+    }
+
+    private ServerClient(Socket socket, Server<E> server, DatagramSocket udpServer, Class<E> aliasClass, EventLoop eventLoop,
+                         TcpBufferConfig tcpBufferConfig) throws IOException {
+        super(socket, udpServer, tcpBufferConfig, server.getSerializer().getRegistry());
 
         this.server = server;
         this.aliasClass = aliasClass;
         this.commands = new EnumMap<>(aliasClass);
-
-        serializer.registerSerializer(SessionIdentifier.class);
-        serializer.registerSerializer(LobbyIdentifier.class);
-
-        for (E commandAlias : aliasClass.getEnumConstants()) {
-            commandAlias.registerMessages(serializer);
+        this.invokers = new EnumMap<>(aliasClass);
+        WireFeature.configure(serializer, server.getWireFeatures());
+
+        if (eventLoop != null) {
+            channelConnection = new ChannelConnection(socket.getChannel(), eventLoop, this::readChannelData, this::disconnect);
+            channelIn = new BufferMessageInputStream(serializer);
+        } else {
+            channelConnection = null;
+            channelIn = null;
         }
 
         resetCommands();
@@ -76,28 +111,203 @@ public class ServerClient<E extends Enum<E> & CommandAlias> extends ClientBase<E
         return commands;
     }
 
+    @Override
+    public Map<E, ServerCommandInvoker<E>> getInvokers() {
+        return invokers;
+    }
+
     @Override
     public void connect() throws IOException {
+        if (channelConnection != null) {
+            connectChannel();
+            return;
+        }
+
         super.connect();
 
         ServerClientLogger.debug("{} syncing client id.", clientId);
 
-        tcpOut.writeInt(LocalClient.Join);
-        tcpOut.writeObject(clientId, UUID.class);
-        tcpOut.flush();
+        writeHandshake();
 
         int udpPort = tcpIn.readInt();
-        udpConfig = new ClientConfig(tcpSocket.getInetAddress(), udpPort);
+        long schemaFingerprint = tcpIn.readLong();
+
+        if (schemaFingerprint != server.getSchemaFingerprint()) {
+            throw new IOException(clientId + " has schema fingerprint " + Long.toHexString(schemaFingerprint) + ", expected " + Long.toHexString(server.getSchemaFingerprint()) + ".");
+        }
+
+        setUdpPort(udpPort);
 
         ServerClientLogger.debug("Received port: {}", udpPort);
         ServerClientLogger.debug("{} connected on UDP to {}:{}.", clientId, clientConfig.address(), clientConfig.port());
     }
 
+    private void connectChannel() throws IOException {
+        tcpWriter = new CoalescingOutputStream(channelConnection.getOutputStream(), tcpBufferConfig);
+        tcpOut = new MessageOutputStream(tcpWriter, getSerializer());
+        connectionStatus = ConnectionStatus.Connecting;
+
+        ServerClientLogger.debug("{} syncing client id over channel.", clientId);
+
+        writeHandshake();
+    }
+
+    private void writeHandshake() throws IOException {
+        Set<WireFeature> wireFeatures = server.getWireFeatures();
+
+        tcpOut.writeInt(LocalClient.Join);
+        tcpOut.writeObject(clientId, UUID.class);
+        tcpOut.writeInt(WireFeature.toBits(wireFeatures));
+        tcpOut.writeLong(server.getSchemaFingerprint());
+        tcpOut.flush();
+
+        if (wireFeatures.contains(WireFeature.Framing)) {
+            enableFraming();
+
+            if (wireFeatures.contains(WireFeature.Compression)) {
+                enableCompression();
+            }
+
+            if (wireFeatures.contains(WireFeature.StringDictionary)) {
+                enableStringDictionary();
+            }
+        }
+    }
+
+    @Override
+    protected void enableStringDictionary() {
+        super.enableStringDictionary();
+
+        if (channelIn != null) {
+            channelIn.setStringDictionary(getIncomingStrings());
+        }
+    }
+
+    @Override
+    protected void listen() {
+        if (channelConnection != null) {
+            channelConnection.startReading();
+            return;
+        }
+
+        connectionListener = NetworkExecutors.newExecutor("fastj-server-client-listener");
+        connectionListener.submit(this::listenTCP);
+    }
+
+    @Override
+    public void stopListening() {
+        super.stopListening();
+
+        if (channelConnection != null) {
+            channelConnection.stopReading();
+        }
+    }
+
+    private void readChannelData(ByteBuffer channelData) {
+        if (udpConfig == null) {
+            if (channelData.remaining() < Integer.BYTES + Long.BYTES) {
+                return;
+            }
+
+            int udpPort = channelData.getInt();
+            long schemaFingerprint = channelData.getLong();
+
+            if (schemaFingerprint != server.getSchemaFingerprint()) {
+                getLogger().warn("{} has schema fingerprint {}, expected {}", clientId, Long.toHexString(schemaFingerprint), Long.toHexString(server.getSchemaFingerprint()));
+                disconnect();
+                return;
+            }
+
+            setUdpPort(udpPort);
+            connectionStatus = ConnectionStatus.InServer;
+
+            ServerClientLogger.debug("Received port: {}", udpPort);
+            ServerClientLogger.debug("{} connected on UDP to {}:{}.", clientId, clientConfig.address(), clientConfig.port());
+        }
+
+        WriteBatch.begin();
+        try {
+            readChannelFrames(channelData);
+        } finally {
+            WriteBatch.end();
+        }
+    }
+
+    private void readChannelFrames(ByteBuffer channelData) {
+        while (isListening && channelData.hasRemaining()) {
+            int frameStart = channelData.position();
+            int framePrefix;
+
+            try {
+                framePrefix = VarIntUtils.read(channelData);
+            } catch (StreamCorruptedException exception) {
+                getLogger().warn("{} sent a corrupted TCP frame length: {}", clientId, exception.getMessage());
+                disconnect();
+                return;
+            }
+
+            if (framePrefix == VarIntUtils.Incomplete) {
+                return;
+            }
+
+            int frameLength = frameLength(framePrefix);
+
+            if (frameLength < 0 || frameLength > SendUtils.MaxTcpFrameLength) {
+                getLogger().warn("{} sent an invalid TCP frame length {}", clientId, frameLength);
+                disconnect();
+                return;
+            }
+
+            if (channelData.remaining() < frameLength) {
+                channelData.position(frameStart);
+                return;
+            }
+
+            int bodyStart = channelData.position();
+            channelIn.reset(channelData, bodyStart, frameLength);
+            channelData.position(bodyStart + frameLength);
+
+            try {
+                MessageInputStream frameStream = isCompressedFrame(framePrefix) ? inflateFrame(channelData.slice(bodyStart, frameLength)) : channelIn;
+
+                SentMessageType sentMessageType = (SentMessageType) frameStream.readObject(SentMessageType.class);
+                readMessageType(NetworkType.TCP, clientId, frameStream, sentMessageType);
+            } catch (Exception exception) {
+                getLogger().error(clientId + " Error reading TCP frame, skipping its " + frameLength + " bytes", exception);
+            }
+        }
+    }
+
+    @Override
+    protected void shutdown() throws IOException {
+        if (channelConnection == null) {
+            super.shutdown();
+            return;
+        }
+
+        getLogger().debug("{} shutting down", clientId);
+
+        stopListening();
+        flushTcp();
+        channelConnection.close();
+    }
+
     @Override
     public Serializer getSerializer() {
         return serializer;
     }
 
+    void receiveUDP(MessageInputStream packetStream) throws IOException {
+        SentMessageType sentMessageType = (SentMessageType) packetStream.readObject(SentMessageType.class);
+
+        WriteBatch.begin();
+        try {
+            readMessageType(NetworkType.UDP, clientId, packetStream, sentMessageType);
+        } finally {
+            WriteBatch.end();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void readMessageType(NetworkType networkType, UUID senderId, MessageInputStream inputStream, SentMessageType sentMessageType)
@@ -125,6 +335,7 @@ public class ServerClient<E extends Enum<E> & CommandAlias> extends ClientBase<E
 
                 server.receiveRequest(requestType, senderId, inputStream);
             }
+            case StringDefinitions -> readStringDefinitions(inputStream);
             default -> ServerClientLogger.warn(
                 "{} Received unused message type {}, discarding {}",
                 senderId,
@@ -144,63 +355,42 @@ public class ServerClient<E extends Enum<E> & CommandAlias> extends ClientBase<E
     }
 
     @Override
-    public synchronized void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, byte[] rawData)
-        throws IOException {
-        assert aliasClass.isAssignableFrom(commandId.getClass());
-
-        ServerClientLogger.trace("{} sending {} \"{}\" to {}:{}", clientId, networkType.name(), commandId.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPCommand(tcpOut, commandTarget, commandId, rawData);
-            case UDP -> SendUtils.sendUDPCommand(udpSocket, udpConfig, commandTarget, commandId, clientId, rawData);
-        }
+    protected ClientConfig getUdpConfig() {
+        return udpConfig;
     }
 
-    @Override
-    public synchronized void sendRequest(NetworkType networkType, RequestType requestType, byte[] rawData) throws IOException {
-        ServerClientLogger.trace("{} sending {} \"{}\" to {}:{}", clientId, networkType.name(), requestType.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPRequest(tcpOut, requestType, rawData);
-            case UDP -> SendUtils.sendUDPRequest(udpSocket, udpConfig, requestType, clientId, rawData);
-        }
-    }
-
-    @Override
-    public synchronized void sendDisconnect(NetworkType networkType, byte[] rawData) throws IOException {
-        ServerClientLogger.trace("{} sending {} disconnect to {}:{}", clientId, networkType.name(), clientConfig.address(), clientConfig.port());
-
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPDisconnect(tcpOut);
-            case UDP -> SendUtils.sendUDPDisconnect(clientId, udpSocket, udpConfig);
-        }
+    InetSocketAddress getUdpAddress() {
+        return udpAddress;
     }
 
-    @Override
-    public synchronized void sendKeepAlive(NetworkType networkType) throws IOException {
-        switch (networkType) {
-            case TCP -> SendUtils.sendTCPKeepAlive(tcpOut);
-            case UDP -> SendUtils.sendUDPKeepAlive(clientId, udpSocket, udpConfig);
-        }
+    private void setUdpPort(int udpPort) {
+        udpAddress = new InetSocketAddress(tcpSocket.getInetAddress(), udpPort);
+        udpConfig = new ClientConfig(tcpSocket.getInetAddress(), udpPort);
     }
 
     public synchronized void sendLobbyUpdate(LobbyIdentifier lobbyUpdate) throws IOException {
-        ServerClientLogger.trace("{} sending TCP lobby update to {}:{}", clientId, clientConfig.address(), clientConfig.port());
-        SendUtils.sendTCPLobbyUpdate(tcpOut, serializer.writeMessage(lobbyUpdate));
+        serializer.writeMessage(beginPacket(NetworkType.TCP, SentMessageType.LobbyUpdate), lobbyUpdate);
+        sendPacket(NetworkType.TCP);
     }
 
     public synchronized void sendSessionUpdate(SessionIdentifier sessionUpdate) throws IOException {
-        ServerClientLogger.trace("{} sending TCP session update to {}:{}", clientId, clientConfig.address(), clientConfig.port());
-        SendUtils.sendTCPSessionUpdate(tcpOut, serializer.writeMessage(sessionUpdate));
+        serializer.writeMessage(beginPacket(NetworkType.TCP, SentMessageType.SessionUpdate), sessionUpdate);
+        sendPacket(NetworkType.TCP);
     }
 
-    public void sendPingResponse(long timestamp) throws IOException {
-        byte[] packetData = ByteBuffer.allocate(MessageUtils.EnumBytes + Long.BYTES)
-            .putInt(SentMessageType.PingResponse.ordinal())
-            .putLong(timestamp)
-            .array();
+    public synchronized void sendAvailableLobbies(LobbyIdentifier[] lobbyIdentifiers) throws IOException {
+        beginPacket(NetworkType.TCP, SentMessageType.AvailableLobbiesUpdate).writeArray(lobbyIdentifiers);
+        sendPacket(NetworkType.TCP);
+    }
+
+    public synchronized void sendPingResponse(long timestamp) throws IOException {
+        beginPacket(NetworkType.TCP, SentMessageType.PingResponse).writeLong(timestamp);
+        sendPacket(NetworkType.TCP);
+    }
 
-        tcpOut.write(packetData);
+    /** Sends a packet built by a {@link Broadcaster}, which writes its strings inline. */
+    synchronized void sendTCP(byte[] packetData, int offset, int length) throws IOException {
+        tcpOut.write(packetData, offset, length);
         tcpOut.flush();
     }
 }
@@ -1,34 +1,35 @@
 package tech.fastj.network.rpc.server;
 
+import tech.fastj.network.concurrent.NetworkExecutors;
+import tech.fastj.network.config.WireFeature;
 import tech.fastj.network.rpc.CommandAlias;
 import tech.fastj.network.rpc.NetworkSender;
-import tech.fastj.network.rpc.SendUtils;
 import tech.fastj.network.rpc.local.LocalClient;
-import tech.fastj.network.rpc.message.CommandTarget;
 import tech.fastj.network.rpc.message.NetworkType;
-import tech.fastj.network.rpc.message.RequestType;
-import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
+import tech.fastj.network.rpc.message.SentMessageType;
 import tech.fastj.network.rpc.message.prebuilt.SessionIdentifier;
 import tech.fastj.network.rpc.server.command.ServerCommand;
+import tech.fastj.network.rpc.server.command.ServerCommandInvoker;
 import tech.fastj.network.rpc.server.command.SessionCommandReader;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.write.MessageOutputStream;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,13 +47,16 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
     protected final SessionIdentifier sessionIdentifier;
 
     private final Map<E, ServerCommand> commands;
+    private final Map<E, ServerCommandInvoker<E>> invokers;
 
-    private final List<E> pendingResponses;
+    private final Set<E> pendingResponses;
     private final Map<ResponseId<E>, Object[]> responses;
 
     private BiConsumer<Session<E>, ServerClient<E>> onClientJoin;
     private BiConsumer<Session<E>, ServerClient<E>> onClientLeave;
 
+    private final Broadcaster<E> broadcaster;
+
     private ExecutorService sequenceRunner;
 
     protected Session(Lobby<E> lobby, String name, Class<E> aliasClass) {
@@ -60,21 +64,17 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
         this.lobby = lobby;
 
         commands = new EnumMap<>(aliasClass);
-        serializer = new Serializer();
-
-        serializer.registerSerializer(SessionIdentifier.class);
-        serializer.registerSerializer(LobbyIdentifier.class);
-
-        for (E commandAlias : aliasClass.getEnumConstants()) {
-            commandAlias.registerMessages(serializer);
-        }
+        invokers = new EnumMap<>(aliasClass);
+        serializer = new Serializer(lobby.getSerializer().getRegistry());
+        WireFeature.configure(serializer, lobby.getServer().getWireFeatures());
 
         resetCommands();
 
         clients = new ArrayList<>();
         sessionIdentifier = new SessionIdentifier(UUID.randomUUID(), name);
+        broadcaster = new Broadcaster<>(serializer, lobby.getServer(), clients, sessionIdentifier.sessionId());
 
-        pendingResponses = new ArrayList<>();
+        pendingResponses = EnumSet.noneOf(aliasClass);
         responses = new HashMap<>();
 
         onClientJoin = (session, client) -> {
@@ -95,6 +95,21 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
         return Collections.unmodifiableList(clients);
     }
 
+    /** Returns a sender for every client in the session. Each packet is serialized once, whatever the client count. */
+    public NetworkSender broadcast() {
+        return broadcaster;
+    }
+
+    /** Returns a sender for every client in the session except the one with the given id. */
+    public NetworkSender broadcastExcept(UUID clientId) {
+        return broadcaster.except(clientId);
+    }
+
+    /** Returns a sender for the clients in the session matching {@code recipients}. */
+    public NetworkSender broadcastTo(Predicate<ServerClient<E>> recipients) {
+        return broadcaster.to(recipients);
+    }
+
     public void setOnClientJoin(BiConsumer<Session<E>, ServerClient<E>> onClientJoin) {
         this.onClientJoin = onClientJoin;
     }
@@ -105,13 +120,14 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
 
     public <T> Future<T> startSessionSequence(Sequence<T, E> sessionSequence) {
         if (sequenceRunner == null) {
-            sequenceRunner = Executors.newWorkStealingPool();
+            sequenceRunner = NetworkExecutors.newExecutor("fastj-session-sequence");
         }
 
         return sequenceRunner.submit(sessionSequence::start);
     }
 
     public void clientJoin(ServerClient<E> client) throws IOException {
+        lobby.trackClientSession(client, this);
         client.sendSessionUpdate(sessionIdentifier);
         onClientJoin.accept(this, client);
         clients.add(client);
@@ -119,6 +135,7 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
 
     public void clientLeave(ServerClient<E> client) {
         clients.remove(client);
+        lobby.untrackClientSession(client, this);
         onClientLeave.accept(this, client);
     }
 
@@ -141,58 +158,34 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
         return commands;
     }
 
+    @Override
+    public Map<E, ServerCommandInvoker<E>> getInvokers() {
+        return invokers;
+    }
+
     @Override
     public Serializer getSerializer() {
         return serializer;
     }
 
     @Override
-    public synchronized void sendCommand(NetworkType networkType, CommandTarget commandTarget, Enum<? extends CommandAlias> commandId, byte[] rawData)
-        throws IOException {
-        assert aliasClass.isAssignableFrom(commandId.getClass());
-
-        SessionLogger.trace(
-            "Session {} sending {} \"{}\" to {} client(s)",
-            sessionIdentifier.sessionId(),
-            networkType.name(),
-            commandId.name(),
-            clients.size()
-        );
+    public Object getSendLock() {
+        return broadcaster;
+    }
 
-        switch (networkType) {
-            case TCP -> {
-                byte[] data = SendUtils.buildTCPCommandData(commandTarget, commandId, rawData);
-                sendTCP(data);
-            }
-            case UDP -> {
-                DatagramSocket udpServer = lobby.getServer().getUdpServer();
-                byte[] data = SendUtils.buildUDPCommandData(commandTarget, sessionIdentifier.sessionId(), commandId, rawData);
-                sendUDP(udpServer, data);
-            }
-        }
+    @Override
+    public MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException {
+        return broadcaster.beginPacket(networkType, messageType);
     }
 
     @Override
-    public void sendRequest(NetworkType networkType, RequestType requestType, byte[] rawData) throws IOException {
-        SessionLogger.trace(
-            "Session {} sending {} \"{}\" to {} client(s)",
-            sessionIdentifier.sessionId(),
-            networkType.name(),
-            requestType.name(),
-            clients.size()
-        );
+    public void sendPacket(NetworkType networkType) throws IOException {
+        broadcaster.sendPacket(networkType);
+    }
 
-        switch (networkType) {
-            case TCP -> {
-                byte[] data = SendUtils.buildTCPRequestData(requestType, rawData);
-                sendTCP(data);
-            }
-            case UDP -> {
-                DatagramSocket udpServer = lobby.getServer().getUdpServer();
-                byte[] data = SendUtils.buildUDPRequestData(sessionIdentifier.sessionId(), requestType, rawData);
-                sendUDP(udpServer, data);
-            }
-        }
+    @Override
+    public void flushPackets() {
+        broadcaster.flushPackets();
     }
 
     @Override
@@ -224,7 +217,7 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
     }
 
     @Override
-    public List<E> getPendingResponses() {
+    public Set<E> getPendingResponses() {
         return pendingResponses;
     }
 
@@ -233,20 +226,6 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
         return responses;
     }
 
-    private void sendTCP(byte[] data) throws IOException {
-        for (ServerClient<E> client : clients) {
-            client.getTcpOut().write(data);
-            client.getTcpOut().flush();
-        }
-    }
-
-    private void sendUDP(DatagramSocket udpServer, byte[] data) throws IOException {
-        for (ServerClient<E> client : clients) {
-            DatagramPacket packet = SendUtils.buildPacket(client.getClientConfig(), data);
-            udpServer.send(packet);
-        }
-    }
-
     public interface Sequence<T, H extends Enum<H> & CommandAlias> {
 
         T start() throws Exception;
@@ -272,7 +251,7 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
         }
 
         default Future<Boolean> waitForCompletionAsync(BooleanSupplier task, long timeout, long timeBetweenChecks, TimeUnit timeoutUnit) {
-            ExecutorService completionExecutor = Executors.newWorkStealingPool();
+            ExecutorService completionExecutor = NetworkExecutors.newExecutor("fastj-session-completion");
 
             try {
                 return completionExecutor.submit(() -> waitForCompletion(task, timeout, timeBetweenChecks, timeoutUnit));
@@ -309,7 +288,7 @@ public abstract class Session<E extends Enum<E> & CommandAlias> implements Netwo
 
         default Future<Map<ResponseId<H>, Object[]>> waitForResponsesAsync(Session<H> session, H responseId, long timeout,
                                                                            long timeBetweenChecks, TimeUnit timeoutUnit) {
-            ExecutorService completionExecutor = Executors.newWorkStealingPool();
+            ExecutorService completionExecutor = NetworkExecutors.newExecutor("fastj-session-completion");
 
             try {
                 return completionExecutor.submit(() -> waitForResponses(session, responseId, timeout, timeBetweenChecks, timeoutUnit));
@@ -0,0 +1,154 @@
+package tech.fastj.network.rpc.server.command;
+
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.server.ServerClient;
+import tech.fastj.network.serial.FieldCodec;
+import tech.fastj.network.serial.read.MessageInputStream;
+
+import java.io.IOException;
+
+/**
+ * Reads a command's arguments and runs its handler. {@link ServerCommandReader} builds one per command as the command
+ * is added, so running a command is one lookup and one call, with each argument's codec already resolved.
+ */
+@FunctionalInterface
+public interface ServerCommandInvoker<E extends Enum<E> & CommandAlias> {
+
+    void invoke(ServerClient<E> client, MessageInputStream inputStream) throws IOException;
+
+    /**
+     * Returns the invoker for {@code command}, added as {@code id}. If {@code session} is not {@code null}, the invoker
+     * also records each call's arguments as a response while {@code session} is tracking responses to {@code id}.
+     */
+    @SuppressWarnings("unchecked")
+    static <E extends Enum<E> & CommandAlias> ServerCommandInvoker<E> of(E id, ServerCommand command, SessionCommandReader<E> session) {
+        if (command instanceof ServerStreamCommand<?> streamCommand) {
+            return ((ServerStreamCommand<ServerClient<E>>) streamCommand)::runCommand;
+        }
+
+        FieldCodec[] codecs = id.commandCodecs();
+
+        return switch (codecs.length) {
+            case 0 -> {
+                var command0 = (ServerCommand0<ServerClient<E>>) command;
+
+                yield (client, inputStream) -> {
+                    command0.runCommand(client);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[0]);
+                    }
+                };
+            }
+            case 1 -> {
+                var command1 = (ServerCommand1<ServerClient<E>, Object>) command;
+                FieldCodec codec1 = codecs[0];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    command1.runCommand(client, t1);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1});
+                    }
+                };
+            }
+            case 2 -> {
+                var command2 = (ServerCommand2<ServerClient<E>, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    command2.runCommand(client, t1, t2);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1, t2});
+                    }
+                };
+            }
+            case 3 -> {
+                var command3 = (ServerCommand3<ServerClient<E>, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    command3.runCommand(client, t1, t2, t3);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1, t2, t3});
+                    }
+                };
+            }
+            case 4 -> {
+                var command4 = (ServerCommand4<ServerClient<E>, Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    command4.runCommand(client, t1, t2, t3, t4);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1, t2, t3, t4});
+                    }
+                };
+            }
+            case 5 -> {
+                var command5 = (ServerCommand5<ServerClient<E>, Object, Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+                FieldCodec codec5 = codecs[4];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    Object t5 = codec5.read(inputStream);
+                    command5.runCommand(client, t1, t2, t3, t4, t5);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1, t2, t3, t4, t5});
+                    }
+                };
+            }
+            case 6 -> {
+                var command6 = (ServerCommand6<ServerClient<E>, Object, Object, Object, Object, Object, Object>) command;
+                FieldCodec codec1 = codecs[0];
+                FieldCodec codec2 = codecs[1];
+                FieldCodec codec3 = codecs[2];
+                FieldCodec codec4 = codecs[3];
+                FieldCodec codec5 = codecs[4];
+                FieldCodec codec6 = codecs[5];
+
+                yield (client, inputStream) -> {
+                    Object t1 = codec1.read(inputStream);
+                    Object t2 = codec2.read(inputStream);
+                    Object t3 = codec3.read(inputStream);
+                    Object t4 = codec4.read(inputStream);
+                    Object t5 = codec5.read(inputStream);
+                    Object t6 = codec6.read(inputStream);
+                    command6.runCommand(client, t1, t2, t3, t4, t5, t6);
+
+                    if (session != null && session.isTrackingResponses(id)) {
+                        session.recordResponse(id, client, new Object[] {t1, t2, t3, t4, t5, t6});
+                    }
+                };
+            }
+            default -> throw new IllegalArgumentException(id.name() + " has " + codecs.length + " command parameters, more than the maximum of 6.");
+        };
+    }
+}
@@ -7,10 +7,11 @@ import tech.fastj.network.rpc.server.Session;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface SessionCommandReader<H extends Enum<H> & CommandAlias> extends ServerCommandReader<H> {
 
-    List<H> getPendingResponses();
+    Set<H> getPendingResponses();
 
     Map<Session.ResponseId<H>, Object[]> getResponses();
 
@@ -46,66 +47,20 @@ public interface SessionCommandReader<H extends Enum<H> & CommandAlias> extends
         return responseResults;
     }
 
-    @Override
-    default void runCommand(H id, ServerClient<H> client) {
-        ServerCommandReader.super.runCommand(id, client);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[0]);
-        }
-    }
-
-    @Override
-    default <T1> void runCommand(H id, ServerClient<H> client, T1 t1) {
-        ServerCommandReader.super.runCommand(id, client, t1);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1});
-        }
-    }
-
-    @Override
-    default <T1, T2> void runCommand(H id, ServerClient<H> client, T1 t1, T2 t2) {
-        ServerCommandReader.super.runCommand(id, client, t1, t2);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1, t2});
-        }
-    }
-
-    @Override
-    default <T1, T2, T3> void runCommand(H id, ServerClient<H> client, T1 t1, T2 t2, T3 t3) {
-        ServerCommandReader.super.runCommand(id, client, t1, t2, t3);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1, t2, t3});
-        }
-    }
-
-    @Override
-    default <T1, T2, T3, T4> void runCommand(H id, ServerClient<H> client, T1 t1, T2 t2, T3 t3, T4 t4) {
-        ServerCommandReader.super.runCommand(id, client, t1, t2, t3, t4);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1, t2, t3, t4});
-        }
+    /**
+     * Whether responses to {@code responseId} are being tracked. This runs for every command the reader reads, so
+     * {@link #getPendingResponses()} should answer it in constant time, like an {@link java.util.EnumSet} does.
+     */
+    default boolean isTrackingResponses(H responseId) {
+        return getPendingResponses().contains(responseId);
     }
 
-    @Override
-    default <T1, T2, T3, T4, T5> void runCommand(H id, ServerClient<H> client, T1 t1, T2 t2, T3 t3, T4 t4, T5 t5) {
-        ServerCommandReader.super.runCommand(id, client, t1, t2, t3, t4, t5);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1, t2, t3, t4, t5});
-        }
+    default void recordResponse(H responseId, ServerClient<H> client, Object[] arguments) {
+        getResponses().put(new Session.ResponseId<>(responseId, client.getClientId()), arguments);
     }
 
     @Override
-    default <T1, T2, T3, T4, T5, T6> void runCommand(H id, ServerClient<H> client, T1 t1, T2 t2, T3 t3, T4 t4, T5 t5, T6 t6) {
-        ServerCommandReader.super.runCommand(id, client, t1, t2, t3, t4, t5, t6);
-
-        if (getPendingResponses().contains(id)) {
-            getResponses().put(new Session.ResponseId<>(id, client.getClientId()), new Object[] {t1, t2, t3, t4, t5, t6});
-        }
+    default ServerCommandInvoker<H> createInvoker(H id, ServerCommand command) {
+        return ServerCommandInvoker.of(id, command, this);
     }
 }
@@ -0,0 +1,23 @@
+package tech.fastj.network.serial;
+
+import tech.fastj.network.serial.util.QuantizeUtils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends a {@code float} or {@code double} record component holding an angle in degrees as a fixed-point integer of
+ * {@link #bits()} bits.
+ * <p>
+ * The angle is wrapped into {@code [0, 360)} first, so it reads back as the same direction rather than the same number.
+ * See {@link QuantizeUtils}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Angle {
+    int bits();
+}
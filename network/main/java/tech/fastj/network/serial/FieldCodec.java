@@ -0,0 +1,15 @@
+package tech.fastj.network.serial;
+
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.FieldCodecUtils;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+
+/** Reads and writes values of one field type. {@link FieldCodecUtils} resolves each type's codec once. */
+public interface FieldCodec {
+
+    Object read(MessageInputStream inputStream) throws IOException;
+
+    void write(MessageOutputStream outputStream, Object value) throws IOException;
+}
@@ -0,0 +1,20 @@
+package tech.fastj.network.serial;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Message} record for the network annotation processor, which generates its {@link MessageSerializer}
+ * at compile time.
+ * <p>
+ * {@link Serializer} uses the generated serializer whenever it can be found next to the record, and generates one at
+ * runtime otherwise. Both write exactly the same bytes.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface NetworkMessage {
+}
@@ -0,0 +1,27 @@
+package tech.fastj.network.serial;
+
+import tech.fastj.network.serial.util.QuantizeUtils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends a {@code float} or {@code double} record component as a fixed-point integer of {@link #bits()} bits, covering
+ * {@link #min()} to {@link #max()} in equal steps, instead of as a full-width float.
+ * <p>
+ * Values outside the range are clamped to it, and {@link #max()} itself reads back one step lower. Choose the range so
+ * that the values that matter most (usually {@code 0}) land exactly on a step. See {@link QuantizeUtils}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Quantized {
+    float min();
+
+    float max();
+
+    int bits();
+}
@@ -1,16 +1,18 @@
 package tech.fastj.network.serial;
 
+import tech.fastj.network.serial.read.BufferMessageInputStream;
 import tech.fastj.network.serial.read.MessageInputStream;
-import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.util.GeneratedSerializerUtils;
 import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.util.SchemaUtils;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
 import tech.fastj.network.serial.write.MessageOutputStream;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -25,17 +27,36 @@ public class Serializer {
         float.class, Float.class,
         double.class, Double.class,
         byte[].class,
+        short[].class,
         int[].class,
+        long[].class,
         float[].class,
+        double[].class,
+        boolean[].class,
+        BitSet.class,
         String.class,
         UUID.class
     );
-    private final Map<MessageSerializer<?>, UUID> serializersToTypes;
-    private final Map<Class<?>, MessageSerializer<?>> typeClassesToSerializers;
+    /** Starting size of the streams the {@code byte[]} writes use, which fits most commands without growing. */
+    private static final int ScratchStreamCapacity = 256;
+    private static final int MaxScratchStreamCapacity = 64 * 1024;
+
+    private final SerializerRegistry registry;
+    /**
+     * Each thread's stream for the writes returning a {@code byte[]}, which write each value in one pass into a buffer that
+     * grows as needed, rather than measuring it first to size a new buffer.
+     */
+    private final ThreadLocal<BufferMessageOutputStream> scratchStreams = new ThreadLocal<>();
+    private WireFormat wireFormat = WireFormat.Fixed;
+    private boolean usesStringDictionary;
 
     public Serializer() {
-        serializersToTypes = new HashMap<>();
-        typeClassesToSerializers = new HashMap<>();
+        this(new SerializerRegistry());
+    }
+
+    /** Creates a serializer for the message types in {@code registry}, which it may share with other serializers. */
+    public Serializer(SerializerRegistry registry) {
+        this.registry = registry;
     }
 
     @SafeVarargs
@@ -47,7 +68,7 @@ public class Serializer {
         }
     }
 
-    public Serializer(Map<UUID, Class<? extends Message>> messageSerializers) {
+    public Serializer(Map<Integer, Class<? extends Message>> messageSerializers) {
         this();
 
         for (var messageType : messageSerializers.entrySet()) {
@@ -55,26 +76,73 @@ public class Serializer {
         }
     }
 
-    public <T extends Message> void registerSerializer(Class<T> messageType) {
-        registerSerializer(UUID.randomUUID(), RecordSerializerUtils.generate(this, messageType));
+    public SerializerRegistry getRegistry() {
+        return registry;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /** Sets the format this serializer's streams use. Should be set before the serializer is shared between threads. */
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
     }
 
-    public <T extends Message> void registerSerializer(UUID id, Class<T> messageType) {
-        registerSerializer(id, RecordSerializerUtils.generate(this, messageType));
+    /** Whether strings are written so they can be replaced by {@link StringDictionary} ids. */
+    public boolean usesStringDictionary() {
+        return usesStringDictionary;
     }
 
-    public synchronized <T extends Message> void registerSerializer(UUID id, MessageSerializer<T> serializer) {
-        if (typeClassesToSerializers.containsKey(serializer.messageClass())) {
+    /** Sets whether strings are written for a {@link StringDictionary}. Like the wire format, set before sharing. */
+    public void setUsesStringDictionary(boolean usesStringDictionary) {
+        this.usesStringDictionary = usesStringDictionary;
+    }
+
+    /** Registers {@code messageType} with the type id derived from its schema, the same in every process. */
+    public <T extends Message> void registerSerializer(Class<T> messageType) {
+        registerSerializer(SchemaUtils.typeId(messageType), messageType);
+    }
+
+    public <T extends Message> void registerSerializer(int typeId, Class<T> messageType) {
+        if (registry.isRegistered(messageType)) {
             return;
         }
 
-        serializersToTypes.put(serializer, id);
-        typeClassesToSerializers.put(serializer.messageClass(), serializer);
+        registry.register(typeId, createSerializer(messageType));
+    }
+
+    public <T extends Message> void registerSerializer(int typeId, MessageSerializer<T> serializer) {
+        registry.register(typeId, serializer);
+    }
+
+    /** Uses the serializer generated at compile time for {@code messageType} if there is one, or generates one now. */
+    private <T extends Message> MessageSerializer<T> createSerializer(Class<T> messageType) {
+        MessageSerializer<T> generatedSerializer = GeneratedSerializerUtils.find(this, messageType);
+
+        if (generatedSerializer != null) {
+            return generatedSerializer;
+        }
+
+        return RecordSerializerUtils.generate(this, messageType);
     }
 
-    @SuppressWarnings("unchecked")
     public <T extends Message> MessageSerializer<T> getSerializer(Class<T> messageType) {
-        return (MessageSerializer<T>) typeClassesToSerializers.get(messageType);
+        return registry.getSerializer(messageType);
+    }
+
+    public MessageSerializer<?> getSerializer(int typeId) {
+        return registry.getSerializer(typeId);
+    }
+
+    /** Returns the type id {@code messageType} was registered with, or {@code null} if it isn't registered. */
+    public Integer getTypeId(Class<? extends Message> messageType) {
+        return registry.getTypeId(messageType);
+    }
+
+    /** Like {@link #getSerializer(Class)}, but creates and keeps a serializer for message types that aren't registered. */
+    public <T extends Message> MessageSerializer<T> resolveSerializer(Class<T> messageType) {
+        return registry.resolve(messageType, this::createSerializer);
     }
 
     public Message readMessage(MessageInputStream inputStream, Class<? extends Message> messageClass)
@@ -85,7 +153,7 @@ public class Serializer {
             if (isMessageNull) {
                 return null;
             } else {
-                var type = typeClassesToSerializers.get(messageClass);
+                var type = registry.getSerializer(messageClass);
                 return type.reader().read(inputStream);
             }
         } catch (IOException exception) {
@@ -98,7 +166,7 @@ public class Serializer {
     }
 
     public Message readMessage(byte[] data, Class<? extends Message> messageClass) throws IOException {
-        return readMessage(new ByteArrayInputStream(data), messageClass);
+        return readMessage(new BufferMessageInputStream(ByteBuffer.wrap(data), this), messageClass);
     }
 
     public <T extends Message> void writeMessage(MessageOutputStream outputStream, T message) throws IOException {
@@ -106,12 +174,13 @@ public class Serializer {
             outputStream.writeBoolean(message == null);
 
             if (message != null) {
-                UUID messageId = serializersToTypes.get(typeClassesToSerializers.get(message.getClass()));
-                if (messageId == null) {
+                @SuppressWarnings("unchecked")
+                MessageSerializer<T> messageSerializer = (MessageSerializer<T>) registry.getSerializer(message.getClass());
+                if (messageSerializer == null) {
                     throw new IOException("Unsupported message type '" + message.getClass().getSimpleName() + "'");
                 }
 
-                message.getSerializer(this).writer().write(outputStream, message);
+                messageSerializer.writer().write(outputStream, message);
             }
         } catch (IOException exception) {
             throw new IOException("Unable to write message: " + exception.getMessage(), exception);
@@ -123,48 +192,53 @@ public class Serializer {
     }
 
     public <T extends Message> byte[] writeMessage(T message) throws IOException {
-        ByteArrayOutputStream outputStream;
+        BufferMessageOutputStream outputStream = takeScratchStream();
 
-        if (message == null) {
-            outputStream = new ByteArrayOutputStream(MessageUtils.MinMessageBytes);
-        } else {
-            int byteLength = message.getSerializer(this).byteLengthFunction().apply(message);
-            outputStream = new ByteArrayOutputStream(MessageUtils.MinMessageBytes + byteLength);
+        try {
+            writeMessage(outputStream, message);
+            return outputStream.toByteArray();
+        } finally {
+            releaseScratchStream(outputStream);
         }
-
-        writeMessage(outputStream, message);
-        return outputStream.toByteArray();
     }
 
     public byte[] writeMessages(Message... messages) throws IOException {
-        int length = 0;
+        BufferMessageOutputStream outputStream = takeScratchStream();
 
-        for (Message message : messages) {
-            length += MessageUtils.bytesLength(this, message);
+        try {
+            writeMessages(outputStream, messages);
+            return outputStream.toByteArray();
+        } finally {
+            releaseScratchStream(outputStream);
         }
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length + Integer.BYTES);
-        var writeStream = new MessageOutputStream(outputStream, this);
-
+    public void writeMessages(MessageOutputStream outputStream, Message... messages) throws IOException {
         if (!messages.getClass().componentType().equals(Message.class)) {
-            writeStream.writeArray(messages);
+            outputStream.writeArray(messages);
         } else {
             for (Message message : messages) {
-                writeMessage(writeStream, message);
+                writeMessage(outputStream, message);
             }
         }
-
-        return outputStream.toByteArray();
     }
 
     public <T> byte[] writeObject(T value, Class<T> type) throws IOException {
         typeCheck(type);
 
-        int length = MessageUtils.bytesLength(this, value);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length);
-        new MessageOutputStream(outputStream, this).writeObject(value, type);
+        BufferMessageOutputStream outputStream = takeScratchStream();
 
-        return outputStream.toByteArray();
+        try {
+            outputStream.writeObject(value, type);
+            return outputStream.toByteArray();
+        } finally {
+            releaseScratchStream(outputStream);
+        }
+    }
+
+    public <T> void writeObject(MessageOutputStream outputStream, T value) throws IOException {
+        typeCheck(value.getClass());
+        outputStream.writeObject(value, value.getClass());
     }
 
     @SuppressWarnings("unchecked")
@@ -173,33 +247,58 @@ public class Serializer {
     }
 
     public final byte[] writeObjects(Object... objects) throws IOException {
-        int length = 0;
+        BufferMessageOutputStream outputStream = takeScratchStream();
 
+        try {
+            writeObjects(outputStream, objects);
+            return outputStream.toByteArray();
+        } finally {
+            releaseScratchStream(outputStream);
+        }
+    }
+
+    public final void writeObjects(MessageOutputStream outputStream, Object... objects) throws IOException {
         for (Object object : objects) {
             typeCheck(object.getClass());
+        }
 
-            length += MessageUtils.bytesLength(this, object);
+        for (Object object : objects) {
+            outputStream.writeObject(object, object.getClass());
         }
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length);
-        var writeStream = new MessageOutputStream(outputStream, this);
+    /**
+     * Takes this thread's scratch stream, or a new one if it's already taken, like when a message's writer writes another
+     * message to an array of its own.
+     */
+    private BufferMessageOutputStream takeScratchStream() {
+        BufferMessageOutputStream outputStream = scratchStreams.get();
 
-        for (Object object : objects) {
-            writeStream.writeObject(object, object.getClass());
+        if (outputStream == null) {
+            return new BufferMessageOutputStream(this, ScratchStreamCapacity);
         }
 
-        return outputStream.toByteArray();
+        scratchStreams.set(null);
+        outputStream.reset();
+
+        return outputStream;
+    }
+
+    /** Returns a stream taken with {@link #takeScratchStream()}, unless it has grown too large to keep around. */
+    private void releaseScratchStream(BufferMessageOutputStream outputStream) {
+        if (outputStream.data().length <= MaxScratchStreamCapacity) {
+            scratchStreams.set(outputStream);
+        }
     }
 
+    @SuppressWarnings("unchecked")
     private void typeCheck(Class<?> type) throws IOException {
         if (DefaultAllowedTypes.contains(type)) {
             return;
         } else if (Enum.class.isAssignableFrom(type)) {
             return;
         } else if (Message.class.isAssignableFrom(type)) {
-            UUID messageId = serializersToTypes.get(typeClassesToSerializers.get(type));
-
-            if (messageId == null) {
+            if (!registry.isRegistered((Class<? extends Message>) type)) {
                 throw new IOException("Unsupported message type '" + type.getSimpleName() + "'");
             }
 
@@ -0,0 +1,103 @@
+package tech.fastj.network.serial;
+
+import tech.fastj.network.serial.util.SchemaUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The message types {@link Serializer}s read and write, with their type ids and message serializers.
+ * <p>
+ * Any number of serializers can share a registry, each with its own wire format. Once {@link #freeze() frozen}, its
+ * registered types can no longer change, so one registry can be built up front and shared between threads and
+ * connections. Serializers for message types only ever nested inside other messages are still created the first time
+ * they're needed, and kept for every serializer sharing the registry.
+ */
+public class SerializerRegistry {
+
+    private final Map<Integer, MessageSerializer<?>> typeIdsToSerializers;
+    private final Map<Class<?>, Integer> typeClassesToIds;
+    private final Map<Class<?>, MessageSerializer<?>> typeClassesToSerializers;
+    /** Registered serializers, plus those generated for messages only ever nested inside other messages. */
+    private final Map<Class<?>, MessageSerializer<?>> resolvedSerializers;
+    private volatile boolean isFrozen;
+
+    public SerializerRegistry() {
+        typeIdsToSerializers = new ConcurrentHashMap<>();
+        typeClassesToIds = new ConcurrentHashMap<>();
+        typeClassesToSerializers = new ConcurrentHashMap<>();
+        resolvedSerializers = new ConcurrentHashMap<>();
+    }
+
+    public boolean isFrozen() {
+        return isFrozen;
+    }
+
+    /** Stops any more message types being registered, and returns this registry. */
+    public SerializerRegistry freeze() {
+        isFrozen = true;
+        return this;
+    }
+
+    public boolean isRegistered(Class<? extends Message> messageType) {
+        return typeClassesToSerializers.containsKey(messageType);
+    }
+
+    /**
+     * Registers {@code serializer}'s message type with {@code typeId}, unless the type is already registered.
+     *
+     * @throws IllegalStateException if the registry is frozen and the type isn't registered yet.
+     */
+    public synchronized <T extends Message> void register(int typeId, MessageSerializer<T> serializer) {
+        if (typeClassesToSerializers.containsKey(serializer.messageClass())) {
+            return;
+        }
+
+        if (isFrozen) {
+            throw new IllegalStateException("Cannot register " + serializer.messageClass().getName() + " in a frozen registry.");
+        }
+
+        if (typeId < 0 || typeId > SchemaUtils.MaxTypeId) {
+            throw new IllegalArgumentException("Type id " + typeId + " of " + serializer.messageClass().getSimpleName() + " is outside 0.." + SchemaUtils.MaxTypeId);
+        }
+
+        MessageSerializer<?> existingSerializer = typeIdsToSerializers.get(typeId);
+        if (existingSerializer != null) {
+            throw new IllegalArgumentException(
+                serializer.messageClass().getName() + " and " + existingSerializer.messageClass().getName() + " share type id " + typeId
+                    + ", register one of them with an explicit id."
+            );
+        }
+
+        typeIdsToSerializers.put(typeId, serializer);
+        typeClassesToIds.put(serializer.messageClass(), typeId);
+        typeClassesToSerializers.put(serializer.messageClass(), serializer);
+        resolvedSerializers.put(serializer.messageClass(), serializer);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Message> MessageSerializer<T> getSerializer(Class<T> messageType) {
+        return (MessageSerializer<T>) typeClassesToSerializers.get(messageType);
+    }
+
+    public MessageSerializer<?> getSerializer(int typeId) {
+        return typeIdsToSerializers.get(typeId);
+    }
+
+    public Integer getTypeId(Class<? extends Message> messageType) {
+        return typeClassesToIds.get(messageType);
+    }
+
+    /** Returns the serializer registered or created for {@code messageType}, creating one with {@code creator} if neither. */
+    @SuppressWarnings("unchecked")
+    public <T extends Message> MessageSerializer<T> resolve(Class<T> messageType, Function<Class<T>, MessageSerializer<T>> creator) {
+        MessageSerializer<?> messageSerializer = resolvedSerializers.get(messageType);
+
+        if (messageSerializer == null) {
+            messageSerializer = resolvedSerializers.computeIfAbsent(messageType, type -> creator.apply((Class<T>) type));
+        }
+
+        return (MessageSerializer<T>) messageSerializer;
+    }
+}
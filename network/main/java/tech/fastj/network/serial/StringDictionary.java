@@ -0,0 +1,115 @@
+package tech.fastj.network.serial;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers repeated strings, so a connection using {@link tech.fastj.network.config.WireFeature#StringDictionary} can
+ * send a string's id in place of the string once the other end has been sent its definition. Each end of a connection
+ * keeps one dictionary per direction, so a connection is only ever sent the definitions of strings sent over it.
+ * <p>
+ * Ids are handed out in order. The sending side keeps each string's UTF-8 bytes for the definitions it has yet to send,
+ * and the receiving side keeps the decoded strings, so neither encodes or decodes a string more than once. Strings
+ * longer than {@link #MaxStringLength} chars, and strings first seen once the dictionary is full, are written inline.
+ * Before the next packet, the sending side then {@link #clear() clears} its dictionary, and its next definitions start
+ * from id {@code 0} again, which tells the receiving side to clear its own.
+ */
+public class StringDictionary {
+
+    public static final int MaxStrings = 4096;
+    public static final int MaxStringLength = 64;
+
+    /** Returned by {@link #idOf(String)} for a string which isn't given an id. */
+    public static final int NoId = -1;
+
+    private final Map<String, Integer> ids;
+    private String[] strings;
+    private byte[][] stringBytes;
+    private volatile int size;
+
+    public StringDictionary() {
+        ids = new ConcurrentHashMap<>();
+        strings = new String[16];
+        stringBytes = new byte[16][];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size >= MaxStrings;
+    }
+
+    /** Returns the id of {@code string}, giving it the next one if it doesn't have one yet, or {@link #NoId}. */
+    public int idOf(String string) {
+        Integer id = ids.get(string);
+
+        if (id != null) {
+            return id;
+        } else if (string.length() > MaxStringLength || size >= MaxStrings) {
+            return NoId;
+        }
+
+        return add(string, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Gives {@code string} the next id, as the sender of its definition did. Returns {@code false} if the dictionary is full. */
+    public synchronized boolean define(String string) {
+        if (size >= MaxStrings) {
+            return false;
+        }
+
+        append(string, null);
+        return true;
+    }
+
+    /** Forgets every string, so ids are handed out from {@code 0} again. */
+    public synchronized void clear() {
+        ids.clear();
+        Arrays.fill(strings, 0, size, null);
+        Arrays.fill(stringBytes, 0, size, null);
+        size = 0;
+    }
+
+    public String get(int id) {
+        return id >= 0 && id < size ? strings[id] : null;
+    }
+
+    /** The UTF-8 bytes of the string with the given id, which must have been given out by {@link #idOf(String)}. */
+    public synchronized byte[] bytes(int id) {
+        return stringBytes[id];
+    }
+
+    private synchronized int add(String string, byte[] bytes) {
+        Integer id = ids.get(string);
+
+        if (id != null) {
+            return id;
+        } else if (size >= MaxStrings) {
+            return NoId;
+        }
+
+        int newId = append(string, bytes);
+        ids.put(string, newId);
+
+        return newId;
+    }
+
+    private int append(String string, byte[] bytes) {
+        int id = size;
+
+        if (id == strings.length) {
+            strings = Arrays.copyOf(strings, id * 2);
+            stringBytes = Arrays.copyOf(stringBytes, id * 2);
+        }
+
+        strings[id] = string;
+        stringBytes[id] = bytes;
+        size = id + 1;
+
+        return id;
+    }
+}
@@ -0,0 +1,12 @@
+package tech.fastj.network.serial;
+
+/** How a {@link Serializer}'s streams encode enum ordinals, lengths and int fields. */
+public enum WireFormat {
+    /** Every ordinal, length and int takes 4 bytes. */
+    Fixed,
+    /**
+     * Ordinals and lengths are unsigned variable-length ints, and int fields are zig-zag encoded variable-length ints, so
+     * small values take a single byte.
+     */
+    Compact
+}
@@ -0,0 +1,235 @@
+package tech.fastj.network.serial.read;
+
+import tech.fastj.network.serial.Serializer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Reads messages from a range of a {@link ByteBuffer}, which can be reset to read the next frame or datagram without
+ * allocating.
+ * <p>
+ * Every primitive read is one absolute access to the buffer, checked against the end of the range first, so the
+ * buffer's own position and limit are never touched. Reading past the end of the range throws an
+ * {@link EOFException} and is recorded, so a reader can tell a message that has only partially arrived apart from one
+ * that is malformed.
+ */
+public class BufferMessageInputStream extends MessageInputStream {
+
+    private static final ByteBuffer EmptyBuffer = ByteBuffer.allocate(0);
+
+    private ByteBuffer buffer;
+    private ByteBuffer wrappedArray;
+    private int start;
+    private int position;
+    private int limit;
+    private boolean hasUnderflowed;
+
+    public BufferMessageInputStream(Serializer serializer) {
+        super(serializer);
+        this.buffer = EmptyBuffer;
+    }
+
+    public BufferMessageInputStream(ByteBuffer buffer, Serializer serializer) {
+        this(serializer);
+        reset(buffer);
+    }
+
+    /** Reads {@code buffer} from its position to its limit. */
+    public void reset(ByteBuffer buffer) {
+        reset(buffer, buffer.position(), buffer.remaining());
+    }
+
+    /** Reads {@code length} bytes of {@code buffer}, starting at absolute index {@code index}. */
+    public void reset(ByteBuffer buffer, int index, int length) {
+        Objects.checkFromIndexSize(index, length, buffer.limit());
+
+        // messages are big-endian, like DataInput
+        this.buffer = buffer.order() == ByteOrder.BIG_ENDIAN ? buffer : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.start = index;
+        this.position = index;
+        this.limit = index + length;
+        this.hasUnderflowed = false;
+    }
+
+    /** Reads {@code length} bytes of {@code data}, starting at {@code offset}. Reading the same array again doesn't allocate. */
+    public void reset(byte[] data, int offset, int length) {
+        if (wrappedArray == null || wrappedArray.array() != data) {
+            wrappedArray = ByteBuffer.wrap(data);
+        }
+
+        reset(wrappedArray, offset, length);
+    }
+
+    /** The number of bytes read since the last reset. */
+    public int consumed() {
+        return position - start;
+    }
+
+    public boolean hasUnderflowed() {
+        return hasUnderflowed;
+    }
+
+    /** Moves past {@code length} bytes and returns the index they start at. */
+    private int claim(int length) throws EOFException {
+        int index = position;
+
+        if (length > limit - index) {
+            hasUnderflowed = true;
+            throw new EOFException("Needed " + length + " bytes, but only " + (limit - index) + " remain.");
+        }
+
+        position = index + length;
+        return index;
+    }
+
+    @Override
+    public int read() {
+        if (position >= limit) {
+            hasUnderflowed = true;
+            return -1;
+        }
+
+        return buffer.get(position++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+
+        if (length == 0) {
+            return 0;
+        }
+
+        if (position >= limit) {
+            hasUnderflowed = true;
+            return -1;
+        }
+
+        int readLength = Math.min(length, limit - position);
+        buffer.get(position, bytes, offset, readLength);
+        position += readLength;
+
+        return readLength;
+    }
+
+    @Override
+    public byte[] readNBytes(int length) throws EOFException {
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(claim(length), bytes, 0, length);
+
+        return bytes;
+    }
+
+    @Override
+    public long skip(long length) {
+        int skipLength = (int) Math.max(0L, Math.min(length, limit - position));
+        position += skipLength;
+
+        return skipLength;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws EOFException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        buffer.get(claim(length), bytes, offset, length);
+    }
+
+    @Override
+    public int skipBytes(int length) {
+        return (int) skip(length);
+    }
+
+    @Override
+    public boolean readBoolean() throws EOFException {
+        return buffer.get(claim(1)) != 0;
+    }
+
+    @Override
+    public byte readByte() throws EOFException {
+        return buffer.get(claim(Byte.BYTES));
+    }
+
+    @Override
+    public int readUnsignedByte() throws EOFException {
+        return buffer.get(claim(Byte.BYTES)) & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws EOFException {
+        return buffer.getShort(claim(Short.BYTES));
+    }
+
+    @Override
+    public int readUnsignedShort() throws EOFException {
+        return buffer.getShort(claim(Short.BYTES)) & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws EOFException {
+        return buffer.getChar(claim(Character.BYTES));
+    }
+
+    @Override
+    public int readInt() throws EOFException {
+        return buffer.getInt(claim(Integer.BYTES));
+    }
+
+    @Override
+    public long readLong() throws EOFException {
+        return buffer.getLong(claim(Long.BYTES));
+    }
+
+    @Override
+    public float readFloat() throws EOFException {
+        return buffer.getFloat(claim(Float.BYTES));
+    }
+
+    @Override
+    public double readDouble() throws EOFException {
+        return buffer.getDouble(claim(Double.BYTES));
+    }
+
+    @Override
+    protected void checkArrayLength(int length, int minElementBytes) throws IOException {
+        super.checkArrayLength(length, minElementBytes);
+
+        if ((long) length * minElementBytes > limit - position) {
+            hasUnderflowed = true;
+            throw new EOFException("An array of " + length + " elements needs at least " + ((long) length * minElementBytes) + " bytes, but only " + (limit - position) + " remain.");
+        }
+    }
+
+    @Override
+    protected <T> T readBulk(int length, int elementBytes, IntFunction<T> newArray, BulkReader<T> reader) throws EOFException {
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+
+        // claimed before the array is created, so a corrupt length can't allocate more than the range holds
+        int byteLength = (int) Math.min(Integer.MAX_VALUE, (long) length * elementBytes);
+        int index = claim(byteLength);
+
+        T array = newArray.apply(length);
+        reader.get(buffer.slice(index, byteLength), array, 0, length);
+
+        return array;
+    }
+}
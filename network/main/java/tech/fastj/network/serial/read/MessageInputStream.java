@@ -2,96 +2,256 @@ package tech.fastj.network.serial.read;
 
 import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.MessageSerializer;
-import tech.fastj.network.serial.RecordSerializer;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.StringDictionary;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.util.BitPackUtils;
+import tech.fastj.network.serial.util.FieldCodecUtils;
 import tech.fastj.network.serial.util.MessageUtils;
-import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.util.QuantizeUtils;
+import tech.fastj.network.serial.util.VarIntUtils;
 
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StreamCorruptedException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.UUID;
+import java.util.function.IntFunction;
 
-public class MessageInputStream extends DataInputStream {
+/**
+ * Reads messages and their fields from an {@link InputStream}.
+ * <p>
+ * Primitive reads go through the underlying stream a byte at a time. Data that is already in memory, like a TCP frame
+ * or a UDP datagram, should be read with a {@link BufferMessageInputStream} instead, which overrides each primitive
+ * read with a single bounds-checked access to its buffer.
+ */
+public class MessageInputStream extends InputStream implements DataInput {
 
+    private static final int BulkBufferBytes = 1024;
+
+    private final DataInputStream in;
     private final Serializer serializer;
+    private ByteBuffer bulkBuffer;
+    private StringDictionary stringDictionary;
 
     public MessageInputStream(InputStream inputStream, Serializer serializer) {
-        super(inputStream);
+        this.in = new DataInputStream(inputStream);
         this.serializer = serializer;
     }
 
-    @SuppressWarnings("unchecked")
+    /** For subclasses that override every primitive read, and so have no underlying stream. */
+    protected MessageInputStream(Serializer serializer) {
+        this.in = null;
+        this.serializer = serializer;
+    }
+
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /** Reads string ids as strings from {@code stringDictionary} from now on. Without one, a string id can't be read. */
+    public void setStringDictionary(StringDictionary stringDictionary) {
+        this.stringDictionary = stringDictionary;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return in.read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        return in.read(bytes, offset, length);
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        return in.skip(length);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        in.readFully(bytes, offset, length);
+    }
+
+    @Override
+    public int skipBytes(int length) throws IOException {
+        return in.skipBytes(length);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return in.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return in.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return in.readUnsignedShort();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return in.readChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return in.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return in.readDouble();
+    }
+
+    /** Unsupported: messages never contain lines of text. */
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("Messages cannot be read as lines of text.");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
     public Object readObject(Class<?> objectType) throws IOException {
-        if (objectType.equals(Integer.class) || objectType.equals(int.class)) {
-            return readInt();
-        } else if (objectType.equals(Short.class) || objectType.equals(short.class)) {
-            return readShort();
-        } else if (objectType.equals(Byte.class) || objectType.equals(byte.class)) {
-            return (byte) read();
-        } else if (objectType.equals(Long.class) || objectType.equals(long.class)) {
-            return readLong();
-        } else if (objectType.equals(Float.class) || objectType.equals(float.class)) {
-            return readFloat();
-        } else if (objectType.equals(Double.class) || objectType.equals(double.class)) {
-            return readDouble();
-        } else if (objectType.equals(Boolean.class) || objectType.equals(boolean.class)) {
-            return readBoolean();
-        } else if (objectType.isEnum()) {
-            return readEnum((Class<? extends Enum<?>>) objectType);
-        } else if (objectType.equals(String.class)) {
-            return readString();
-        } else if (objectType.equals(UUID.class)) {
-            return readUUID();
-        } else if (objectType.isAssignableFrom(byte[].class)) {
-            return readByteArray();
-        } else if (objectType.isAssignableFrom(float[].class)) {
-            return readFloatArray();
-        } else if (objectType.isAssignableFrom(int[].class)) {
-            return readIntArray();
-        } else if (objectType.isArray() && Message.class.isAssignableFrom(objectType.getComponentType())) {
-            var messageType = RecordSerializerUtils.get(serializer, (Class<? extends Message>) objectType.getComponentType());
-            return readArray(messageType);
-        } else if (Message.class.isAssignableFrom(objectType)) {
-            var messageType = RecordSerializerUtils.get(serializer, (Class<? extends Message>) objectType);
-            return readMessage(messageType);
-        } else {
-            throw new IOException("Unsupported object type: " + objectType.getSimpleName());
-        }
+        return FieldCodecUtils.get(objectType).read(this);
     }
 
-    private <T extends Message> T readMessage(RecordSerializer<T> messageType) throws IOException {
+    public <T extends Message> T readMessage(Class<T> messageType) throws IOException {
         boolean isMessageNull = readBoolean();
         if (isMessageNull) {
             return null;
         } else {
-            return messageType.reader().read(this);
+            return serializer.resolveSerializer(messageType).reader().read(this);
         }
     }
 
-    private Enum<?> readEnum(Class<? extends Enum<?>> enumType) throws IOException {
-        int enumOrdinal = readInt();
-
-        if (enumOrdinal == MessageUtils.Null) {
+    /**
+     * Reads a message written by {@code MessageOutputStream.writeTypedMessage}, whose type is only known from the type id
+     * in front of it.
+     */
+    public Message readTypedMessage() throws IOException {
+        int typeId = readLength();
+        if (typeId == MessageUtils.Null) {
             return null;
-        } else {
-            return enumType.getEnumConstants()[enumOrdinal];
         }
+
+        MessageSerializer<?> messageSerializer = serializer.getSerializer(typeId);
+        if (messageSerializer == null) {
+            throw new IOException("Unregistered message type id: " + typeId);
+        }
+
+        return messageSerializer.reader().read(this);
+    }
+
+    /** Reads a length or enum ordinal written by {@code MessageOutputStream.writeLength}. */
+    public int readLength() throws IOException {
+        if (serializer.getWireFormat() == WireFormat.Compact) {
+            return VarIntUtils.read(this) - 1;
+        }
+
+        return readInt();
+    }
+
+    /** Reads an int field written by {@code MessageOutputStream.writeIntField}. */
+    public int readIntField() throws IOException {
+        if (serializer.getWireFormat() == WireFormat.Compact) {
+            return VarIntUtils.decodeZigZag(VarIntUtils.read(this));
+        }
+
+        return readInt();
+    }
+
+    /** Reads a float written by {@code MessageOutputStream.writeQuantizedFloat} with the same range and bits. */
+    public float readQuantizedFloat(float min, float max, int bits) throws IOException {
+        return QuantizeUtils.dequantize(readQuantized(bits), min, max, bits);
+    }
+
+    /** Reads an angle in degrees written by {@code MessageOutputStream.writeAngle} with the same bits. */
+    public float readAngle(int bits) throws IOException {
+        return QuantizeUtils.dequantizeAngle(readQuantized(bits), bits);
+    }
+
+    private int readQuantized(int bits) throws IOException {
+        int step = 0;
+
+        for (int i = QuantizeUtils.bytesLength(bits); i > 0; i--) {
+            step = (step << Byte.SIZE) | readUnsignedByte();
+        }
+
+        return step;
     }
 
-    private String readString() throws IOException {
-        int stringLength = readInt();
+    /** Reads a string written by {@code MessageOutputStream.writeString}, looking up its id if it was written as one. */
+    public String readString() throws IOException {
+        int stringLength = readLength();
 
         if (stringLength == MessageUtils.Null) {
             return null;
-        } else {
-            byte[] stringBytes = readNBytes(stringLength);
-            return new String(stringBytes);
+        } else if (!serializer.usesStringDictionary()) {
+            return new String(readNBytes(stringLength), StandardCharsets.UTF_8);
+        } else if ((stringLength & 1) == 0) {
+            return new String(readNBytes(stringLength >>> 1), StandardCharsets.UTF_8);
+        }
+
+        int stringId = stringLength >>> 1;
+        String string = stringDictionary == null ? null : stringDictionary.get(stringId);
+
+        if (string == null) {
+            throw new StreamCorruptedException("Undefined string id " + stringId + ".");
         }
+
+        return string;
     }
 
-    private UUID readUUID() throws IOException {
+    public UUID readUUID() throws IOException {
         long least = readLong();
         long most = readLong();
 
@@ -102,8 +262,8 @@ public class MessageInputStream extends DataInputStream {
         }
     }
 
-    private byte[] readByteArray() throws IOException {
-        int arrayLength = readInt();
+    public byte[] readByteArray() throws IOException {
+        int arrayLength = readLength();
 
         if (arrayLength == MessageUtils.Null) {
             return null;
@@ -112,49 +272,139 @@ public class MessageInputStream extends DataInputStream {
         }
     }
 
-    private float[] readFloatArray() throws IOException {
-        int arrayLength = readInt();
+    public short[] readShortArray() throws IOException {
+        int arrayLength = readLength();
 
         if (arrayLength == MessageUtils.Null) {
             return null;
         } else {
-            float[] floatArray = new float[arrayLength];
-            for (int i = 0; i < arrayLength; i++) {
-                floatArray[i] = readFloat();
-            }
-
-            return floatArray;
+            return readBulk(arrayLength, Short.BYTES, short[]::new, (source, values, offset, count) -> source.asShortBuffer().get(values, offset, count));
         }
     }
 
-    private int[] readIntArray() throws IOException {
-        int arrayLength = readInt();
+    public int[] readIntArray() throws IOException {
+        int arrayLength = readLength();
 
         if (arrayLength == MessageUtils.Null) {
             return null;
-        } else {
+        } else if (serializer.getWireFormat() == WireFormat.Compact) {
+            checkArrayLength(arrayLength, 1);
+
             int[] intArray = new int[arrayLength];
             for (int i = 0; i < arrayLength; i++) {
-                intArray[i] = readInt();
+                intArray[i] = readIntField();
             }
 
             return intArray;
+        } else {
+            return readBulk(arrayLength, Integer.BYTES, int[]::new, (source, values, offset, count) -> source.asIntBuffer().get(values, offset, count));
+        }
+    }
+
+    public long[] readLongArray() throws IOException {
+        int arrayLength = readLength();
+
+        if (arrayLength == MessageUtils.Null) {
+            return null;
+        } else {
+            return readBulk(arrayLength, Long.BYTES, long[]::new, (source, values, offset, count) -> source.asLongBuffer().get(values, offset, count));
+        }
+    }
+
+    public float[] readFloatArray() throws IOException {
+        int arrayLength = readLength();
+
+        if (arrayLength == MessageUtils.Null) {
+            return null;
+        } else {
+            return readBulk(arrayLength, Float.BYTES, float[]::new, (source, values, offset, count) -> source.asFloatBuffer().get(values, offset, count));
+        }
+    }
+
+    public double[] readDoubleArray() throws IOException {
+        int arrayLength = readLength();
+
+        if (arrayLength == MessageUtils.Null) {
+            return null;
+        } else {
+            return readBulk(arrayLength, Double.BYTES, double[]::new, (source, values, offset, count) -> source.asDoubleBuffer().get(values, offset, count));
+        }
+    }
+
+    /** Reads values written by {@code MessageOutputStream.writeArray(boolean[])}, packed eight to a byte. */
+    public boolean[] readBooleanArray() throws IOException {
+        int arrayLength = readLength();
+
+        if (arrayLength == MessageUtils.Null) {
+            return null;
+        } else {
+            return readBulk(BitPackUtils.bytesLength(arrayLength), Byte.BYTES, byteLength -> new boolean[arrayLength], BitPackUtils::unpack);
         }
     }
 
+    public BitSet readBitSet() throws IOException {
+        byte[] bytes = readByteArray();
+        return bytes == null ? null : BitSet.valueOf(bytes);
+    }
+
     @SuppressWarnings("unchecked")
-    private <T extends Message> T[] readArray(MessageSerializer<T> serializer) throws IOException {
-        int arrayLength = readInt();
+    public <T extends Message> T[] readArray(Class<T> messageType) throws IOException {
+        int arrayLength = readLength();
 
         if (arrayLength == MessageUtils.Null) {
             return null;
         } else {
-            T[] array = (T[]) Array.newInstance(serializer.messageClass(), arrayLength);
+            checkArrayLength(arrayLength, MessageUtils.MinMessageBytes);
+
+            MessageSerializer<T> messageSerializer = serializer.resolveSerializer(messageType);
+            T[] array = (T[]) Array.newInstance(messageType, arrayLength);
+
             for (int i = 0; i < arrayLength; i++) {
-                array[i] = (T) readMessage((RecordSerializer<?>) serializer);
+                array[i] = readBoolean() ? null : messageSerializer.reader().read(this);
             }
 
             return array;
         }
     }
+
+    /**
+     * Checks a length read from the stream before an array of that many elements is created, each of which takes at
+     * least {@code minElementBytes} bytes. A plain stream can't tell how much data is still to come, so it only rejects
+     * negative lengths; a {@link BufferMessageInputStream} also rejects lengths its remaining bytes can't hold.
+     */
+    protected void checkArrayLength(int length, int minElementBytes) throws IOException {
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid array length " + length + ".");
+        }
+    }
+
+    /**
+     * Creates an array for {@code length} elements, each {@code elementBytes} long, and fills it by letting
+     * {@code reader} copy them out of a buffer in bulk.
+     * <p>
+     * The stream copies them through a small reusable buffer. Subclasses with their own buffer can hand the reader a
+     * slice of it instead, so the elements are copied once.
+     */
+    protected <T> T readBulk(int length, int elementBytes, IntFunction<T> newArray, BulkReader<T> reader) throws IOException {
+        if (bulkBuffer == null) {
+            bulkBuffer = ByteBuffer.allocate(BulkBufferBytes);
+        }
+
+        T array = newArray.apply(length);
+        int chunkLength = BulkBufferBytes / elementBytes;
+
+        for (int offset = 0; offset < length; offset += chunkLength) {
+            int count = Math.min(chunkLength, length - offset);
+            readFully(bulkBuffer.array(), 0, count * elementBytes);
+            reader.get(bulkBuffer, array, offset, count);
+        }
+
+        return array;
+    }
+
+    /** Copies {@code count} elements from the start of a big-endian buffer into an array, starting at {@code offset}. */
+    @FunctionalInterface
+    protected interface BulkReader<T> {
+        void get(ByteBuffer source, T array, int offset, int count);
+    }
 }
@@ -0,0 +1,47 @@
+package tech.fastj.network.serial.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs {@code boolean[]} values eight to a byte, lowest bit first, which is the same layout
+ * {@link java.util.BitSet#toByteArray()} uses.
+ */
+public class BitPackUtils {
+
+    private BitPackUtils() {
+    }
+
+    public static int bytesLength(int bitCount) {
+        return (bitCount + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /** Packs the bits of bytes {@code [offset, offset + count)} of {@code values} into the start of {@code destination}. */
+    public static void pack(ByteBuffer destination, boolean[] values, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            int first = (offset + i) * Byte.SIZE;
+            int last = Math.min(values.length, first + Byte.SIZE);
+            int packed = 0;
+
+            for (int bit = first; bit < last; bit++) {
+                if (values[bit]) {
+                    packed |= 1 << (bit - first);
+                }
+            }
+
+            destination.put(i, (byte) packed);
+        }
+    }
+
+    /** Unpacks the start of {@code source} into the bits of bytes {@code [offset, offset + count)} of {@code values}. */
+    public static void unpack(ByteBuffer source, boolean[] values, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            int first = (offset + i) * Byte.SIZE;
+            int last = Math.min(values.length, first + Byte.SIZE);
+            int packed = source.get(i);
+
+            for (int bit = first; bit < last; bit++) {
+                values[bit] = (packed & (1 << (bit - first))) != 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package tech.fastj.network.serial.util;
+
+import tech.fastj.network.serial.Angle;
+import tech.fastj.network.serial.FieldCodec;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Quantized;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.lang.reflect.RecordComponent;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the {@link FieldCodec} for each field type the first time it's used, so reading or writing a field after
+ * that is one table lookup and one call, instead of a walk through every supported type.
+ */
+public class FieldCodecUtils {
+
+    private static final Map<Class<?>, FieldCodec> BuiltInCodecs = Map.ofEntries(
+        Map.entry(boolean.class, BuiltInCodec.Boolean),
+        Map.entry(Boolean.class, BuiltInCodec.Boolean),
+        Map.entry(byte.class, BuiltInCodec.Byte),
+        Map.entry(Byte.class, BuiltInCodec.Byte),
+        Map.entry(short.class, BuiltInCodec.Short),
+        Map.entry(Short.class, BuiltInCodec.Short),
+        Map.entry(int.class, BuiltInCodec.Int),
+        Map.entry(Integer.class, BuiltInCodec.Int),
+        Map.entry(long.class, BuiltInCodec.Long),
+        Map.entry(Long.class, BuiltInCodec.Long),
+        Map.entry(float.class, BuiltInCodec.Float),
+        Map.entry(Float.class, BuiltInCodec.Float),
+        Map.entry(double.class, BuiltInCodec.Double),
+        Map.entry(Double.class, BuiltInCodec.Double),
+        Map.entry(String.class, BuiltInCodec.String),
+        Map.entry(UUID.class, BuiltInCodec.Uuid),
+        Map.entry(byte[].class, BuiltInCodec.ByteArray),
+        Map.entry(short[].class, BuiltInCodec.ShortArray),
+        Map.entry(int[].class, BuiltInCodec.IntArray),
+        Map.entry(long[].class, BuiltInCodec.LongArray),
+        Map.entry(float[].class, BuiltInCodec.FloatArray),
+        Map.entry(double[].class, BuiltInCodec.DoubleArray),
+        Map.entry(boolean[].class, BuiltInCodec.BooleanArray),
+        Map.entry(BitSet.class, BuiltInCodec.BitSet)
+    );
+
+    private static final ClassValue<FieldCodec> FieldCodecs = new ClassValue<>() {
+        @Override
+        protected FieldCodec computeValue(Class<?> type) {
+            return createCodec(type);
+        }
+    };
+
+    private FieldCodecUtils() {
+    }
+
+    public static FieldCodec get(Class<?> type) {
+        return FieldCodecs.get(type);
+    }
+
+    /** Returns the codec for {@code component}, honouring its {@link Quantized} or {@link Angle} annotation. */
+    public static FieldCodec get(RecordComponent component) {
+        if (!QuantizeUtils.validate(component)) {
+            return get(component.getType());
+        }
+
+        boolean isDouble = component.getType() == double.class;
+        Angle angle = component.getAnnotation(Angle.class);
+
+        if (angle != null) {
+            return new AngleCodec(angle.bits(), isDouble);
+        }
+
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        return new QuantizedCodec(quantized.min(), quantized.max(), quantized.bits(), isDouble);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FieldCodec createCodec(Class<?> type) {
+        FieldCodec builtInCodec = BuiltInCodecs.get(type);
+
+        if (builtInCodec != null) {
+            return builtInCodec;
+        } else if (type.isEnum()) {
+            return new EnumCodec(type.getEnumConstants());
+        } else if (type.isArray() && Message.class.isAssignableFrom(type.getComponentType())) {
+            return new MessageArrayCodec((Class<? extends Message>) type.getComponentType());
+        } else if (Message.class.isAssignableFrom(type) && !type.isRecord()) {
+            return TypedMessageCodec.Instance;
+        } else if (Message.class.isAssignableFrom(type)) {
+            return new MessageCodec((Class<? extends Message>) type);
+        } else {
+            return new UnsupportedCodec(type);
+        }
+    }
+
+    private enum BuiltInCodec implements FieldCodec {
+        Boolean {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readBoolean();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeBoolean((boolean) value);
+            }
+        },
+        Byte {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readByte();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeByte((byte) value);
+            }
+        },
+        Short {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readShort();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeShort((short) value);
+            }
+        },
+        Int {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readIntField();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeIntField((int) value);
+            }
+        },
+        Long {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readLong();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeLong((long) value);
+            }
+        },
+        Float {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readFloat();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeFloat((float) value);
+            }
+        },
+        Double {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readDouble();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeDouble((double) value);
+            }
+        },
+        String {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readString();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeString((java.lang.String) value);
+            }
+        },
+        Uuid {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readUUID();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeUUID((UUID) value);
+            }
+        },
+        ByteArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readByteArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((byte[]) value);
+            }
+        },
+        ShortArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readShortArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((short[]) value);
+            }
+        },
+        IntArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readIntArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((int[]) value);
+            }
+        },
+        LongArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readLongArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((long[]) value);
+            }
+        },
+        FloatArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readFloatArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((float[]) value);
+            }
+        },
+        DoubleArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readDoubleArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((double[]) value);
+            }
+        },
+        BooleanArray {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readBooleanArray();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeArray((boolean[]) value);
+            }
+        },
+        BitSet {
+            @Override
+            public Object read(MessageInputStream inputStream) throws IOException {
+                return inputStream.readBitSet();
+            }
+
+            @Override
+            public void write(MessageOutputStream outputStream, Object value) throws IOException {
+                outputStream.writeBitSet((java.util.BitSet) value);
+            }
+        }
+    }
+
+    /** Keeps the enum's constants, since {@link Class#getEnumConstants()} copies them on every call. */
+    private record EnumCodec(Object[] constants) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            int enumOrdinal = inputStream.readLength();
+            return enumOrdinal == MessageUtils.Null ? null : constants[enumOrdinal];
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeEnum((Enum<?>) value);
+        }
+    }
+
+    private record MessageCodec(Class<? extends Message> messageType) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            return inputStream.readMessage(messageType);
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeMessage((Message) value);
+        }
+    }
+
+    /** Reads and writes fields declared as {@link Message} or another interface, whose value may be any registered type. */
+    private enum TypedMessageCodec implements FieldCodec {
+        Instance;
+
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            return inputStream.readTypedMessage();
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeTypedMessage((Message) value);
+        }
+    }
+
+    private record MessageArrayCodec(Class<? extends Message> messageType) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            return inputStream.readArray(messageType);
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeArray((Message[]) value);
+        }
+    }
+
+    private record QuantizedCodec(float min, float max, int bits, boolean isDouble) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            float value = inputStream.readQuantizedFloat(min, max, bits);
+            return isDouble ? (Object) (double) value : (Object) value;
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeQuantizedFloat(((Number) value).floatValue(), min, max, bits);
+        }
+    }
+
+    private record AngleCodec(int bits, boolean isDouble) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            float degrees = inputStream.readAngle(bits);
+            return isDouble ? (Object) (double) degrees : (Object) degrees;
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            outputStream.writeAngle(((Number) value).floatValue(), bits);
+        }
+    }
+
+    private record UnsupportedCodec(Class<?> type) implements FieldCodec {
+        @Override
+        public Object read(MessageInputStream inputStream) throws IOException {
+            throw new IOException("Unsupported object type: " + type.getSimpleName());
+        }
+
+        @Override
+        public void write(MessageOutputStream outputStream, Object value) throws IOException {
+            throw new IOException("Unsupported object type: " + type.getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tech.fastj.network.serial.util;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.MessageSerializer;
+import tech.fastj.network.serial.NetworkMessage;
+import tech.fastj.network.serial.Serializer;
+
+import java.lang.reflect.Constructor;
+import java.util.Optional;
+
+/**
+ * Finds the serializers generated for {@link NetworkMessage} records.
+ * <p>
+ * A record's generated serializer sits in the record's package, named after the record's binary name with {@code $}
+ * replaced by {@code _} and {@value #GeneratedSuffix} appended, and has a public constructor taking a
+ * {@link Serializer}.
+ */
+public class GeneratedSerializerUtils {
+
+    public static final String GeneratedSuffix = "MessageSerializer";
+
+    private static final ClassValue<Optional<Constructor<?>>> GeneratedConstructors = new ClassValue<>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(Class<?> messageType) {
+            try {
+                Class<?> generatedType = Class.forName(generatedName(messageType), false, messageType.getClassLoader());
+                return Optional.of(generatedType.getConstructor(Serializer.class));
+            } catch (ClassNotFoundException | NoSuchMethodException exception) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private GeneratedSerializerUtils() {
+    }
+
+    public static String generatedName(Class<?> messageType) {
+        String packagePrefix = messageType.getPackageName().isEmpty() ? "" : messageType.getPackageName() + ".";
+        String flatName = messageType.getName().substring(packagePrefix.length()).replace('$', '_');
+
+        return packagePrefix + flatName + GeneratedSuffix;
+    }
+
+    /** Returns a new instance of {@code messageType}'s generated serializer, or {@code null} if it doesn't have one. */
+    @SuppressWarnings("unchecked")
+    public static <T extends Message> MessageSerializer<T> find(Serializer serializer, Class<T> messageType) {
+        Optional<Constructor<?>> generatedConstructor = GeneratedConstructors.get(messageType);
+
+        if (generatedConstructor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return (MessageSerializer<T>) generatedConstructor.get().newInstance(serializer);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Unable to create the generated serializer for " + messageType.getSimpleName(), exception);
+        }
+    }
+}
@@ -4,9 +4,13 @@ import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.MessageSerializer;
 import tech.fastj.network.serial.Serializer;
 
-import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.UUID;
 
+/**
+ * Byte lengths of values in {@link tech.fastj.network.serial.WireFormat#Fixed}. A value in the compact format is never
+ * longer, except for int fields of 2<sup>27</sup> or more in magnitude, so these lengths are only used to size buffers.
+ */
 public class MessageUtils {
 
     public static final int Null = -1;
@@ -14,9 +18,33 @@ public class MessageUtils {
     public static final int EnumBytes = Integer.BYTES;
     public static final int MinStringBytes = Integer.BYTES;
     public static final int MinMessageBytes = 1;
+    public static final int TypeIdBytes = Integer.BYTES;
 
     public static int bytesLength(String string) {
-        return MinStringBytes + (string == null ? 0 : string.getBytes(StandardCharsets.UTF_8).length);
+        return MinStringBytes + (string == null ? 0 : utf8Length(string));
+    }
+
+    /** Returns the length of {@code string} in UTF-8, without encoding it. */
+    public static int utf8Length(String string) {
+        int length = string.length();
+
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            if (c >= 0x800) {
+                // a surrogate pair is 4 bytes for 2 chars; an unpaired surrogate is encoded as '?'
+                if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+
+        return length;
     }
 
     public static int bytesLength(String... strings) {
@@ -33,11 +61,22 @@ public class MessageUtils {
         if (message == null) {
             return MinMessageBytes;
         } else {
-            MessageSerializer<T> typeSerializer = (MessageSerializer<T>) serializer.getSerializer(message.getClass());
+            MessageSerializer<T> typeSerializer = (MessageSerializer<T>) serializer.resolveSerializer(message.getClass());
             return MinMessageBytes + typeSerializer.byteLengthFunction().apply(message);
         }
     }
 
+    /** Returns the length of {@code message} as written by {@code MessageOutputStream.writeTypedMessage}. */
+    @SuppressWarnings("unchecked")
+    public static <T extends Message> int typedBytesLength(Serializer serializer, T message) {
+        if (message == null) {
+            return TypeIdBytes;
+        } else {
+            MessageSerializer<T> typeSerializer = (MessageSerializer<T>) serializer.resolveSerializer(message.getClass());
+            return TypeIdBytes + typeSerializer.byteLengthFunction().apply(message);
+        }
+    }
+
     public static <T extends Message> int bytesLength(Serializer serializer, T[] items) {
         int count = Integer.BYTES;
         for (var item : items) {
@@ -48,7 +87,10 @@ public class MessageUtils {
     }
 
     public static int bytesLength(Serializer serializer, Object object) {
-        if (object instanceof Integer) {
+        if (object == null) {
+            // only array fields reach here as null, and they are written as a Null length
+            return Integer.BYTES;
+        } else if (object instanceof Integer) {
             return Integer.BYTES;
         } else if (object instanceof Float) {
             return Float.BYTES;
@@ -70,10 +112,20 @@ public class MessageUtils {
             return EnumBytes;
         } else if (object instanceof byte[]) {
             return Integer.BYTES + ((byte[]) object).length;
+        } else if (object instanceof short[]) {
+            return Integer.BYTES + ((short[]) object).length * Short.BYTES;
         } else if (object instanceof int[]) {
-            return Integer.BYTES + ((int[]) object).length;
+            return Integer.BYTES + ((int[]) object).length * Integer.BYTES;
+        } else if (object instanceof long[]) {
+            return Integer.BYTES + ((long[]) object).length * Long.BYTES;
         } else if (object instanceof float[]) {
-            return Integer.BYTES + ((float[]) object).length;
+            return Integer.BYTES + ((float[]) object).length * Float.BYTES;
+        } else if (object instanceof double[]) {
+            return Integer.BYTES + ((double[]) object).length * Double.BYTES;
+        } else if (object instanceof boolean[]) {
+            return Integer.BYTES + BitPackUtils.bytesLength(((boolean[]) object).length);
+        } else if (object instanceof BitSet) {
+            return Integer.BYTES + BitPackUtils.bytesLength(((BitSet) object).length());
         } else if (object.getClass().isArray()) {
             if (Message.class.isAssignableFrom(object.getClass().getComponentType())) {
                 return bytesLength(serializer, (Message[]) object);
@@ -0,0 +1,92 @@
+package tech.fastj.network.serial.util;
+
+import tech.fastj.network.serial.Angle;
+import tech.fastj.network.serial.Quantized;
+
+import java.lang.reflect.RecordComponent;
+
+/**
+ * Converts floats to and from the fixed-point integers that {@link Quantized} and {@link Angle} components are sent as.
+ * <p>
+ * A range split into {@code bits} bits has {@code 2^bits} equal steps starting at its minimum, and each value is sent
+ * as the index of its nearest step, in the fewest whole bytes that hold {@code bits} bits.
+ */
+public class QuantizeUtils {
+
+    public static final int MaxBits = 31;
+    public static final float FullTurn = 360f;
+
+    private QuantizeUtils() {
+    }
+
+    public static int bytesLength(int bits) {
+        return (bits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    public static int quantize(float value, float min, float max, int bits) {
+        long steps = 1L << bits;
+        long step = Math.round((value - (double) min) * steps / ((double) max - min));
+
+        return (int) Math.max(0L, Math.min(steps - 1L, step));
+    }
+
+    public static float dequantize(int step, float min, float max, int bits) {
+        return (float) (min + step * ((double) max - min) / (1L << bits));
+    }
+
+    public static int quantizeAngle(float degrees, int bits) {
+        long steps = 1L << bits;
+        double turns = degrees / (double) FullTurn;
+        long step = Math.round((turns - Math.floor(turns)) * steps);
+
+        // anything within half a step of a full turn rounds up to it, which is the same direction as 0
+        return (int) (step == steps ? 0L : step);
+    }
+
+    public static float dequantizeAngle(int step, int bits) {
+        return (float) (step * (double) FullTurn / (1L << bits));
+    }
+
+    /**
+     * Checks that {@code component}'s {@link Quantized} or {@link Angle} annotation, if it has one, can be honoured.
+     *
+     * @return whether {@code component} is quantized
+     */
+    public static boolean validate(RecordComponent component) {
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        Angle angle = component.getAnnotation(Angle.class);
+        String componentName = component.getDeclaringRecord().getSimpleName() + "." + component.getName();
+
+        if (quantized == null && angle == null) {
+            return false;
+        } else if (quantized != null && angle != null) {
+            throw new IllegalArgumentException("Component " + componentName + " cannot be both @Quantized and an @Angle");
+        } else if (component.getType() != float.class && component.getType() != double.class) {
+            throw new IllegalArgumentException("Only float or double components can be quantized, not " + componentName);
+        }
+
+        if (angle != null) {
+            checkBits(angle.bits(), componentName);
+            return true;
+        }
+
+        checkBits(quantized.bits(), componentName);
+
+        if (!Float.isFinite(quantized.min()) || !Float.isFinite(quantized.max()) || quantized.min() >= quantized.max()) {
+            throw new IllegalArgumentException(
+                "@Quantized component " + componentName + " needs a finite range with min < max, not ["
+                    + quantized.min() + ", " + quantized.max() + "]"
+            );
+        }
+
+        return true;
+    }
+
+    private static void checkBits(int bits, String componentName) {
+        if (bits < 1 || bits > MaxBits) {
+            throw new IllegalArgumentException(
+                "Quantized component " + componentName + " must use between 1 and " + MaxBits + " bits, not " + bits
+            );
+        }
+    }
+}
@@ -1,29 +1,67 @@
 package tech.fastj.network.serial.util;
 
+import tech.fastj.network.serial.Angle;
+import tech.fastj.network.serial.FieldCodec;
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Quantized;
 import tech.fastj.network.serial.RecordSerializer;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.MessageInputStream;
 import tech.fastj.network.serial.read.MessageReader;
+import tech.fastj.network.serial.write.MessageOutputStream;
 import tech.fastj.network.serial.write.MessageWriter;
 
-import java.lang.reflect.Constructor;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.RecordComponent;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+/**
+ * Generates {@link RecordSerializer}s for message records.
+ * <p>
+ * Each record's reader, writer and size function are composed from method handles once, when the record is
+ * registered. Components are read and written in declaration order with the matching primitive
+ * {@code readX}/{@code writeX} call, or with their type's {@link FieldCodec}, so primitive components are never boxed
+ * and nothing is looked up per message.
+ */
 public class RecordSerializerUtils {
 
-    private static final Map<MessageType<?>, RecordSerializer<?>> generatedMessageTypes = new HashMap<>();
+    private static final MethodHandles.Lookup NetworkLookup = MethodHandles.lookup();
 
-    @SuppressWarnings("unchecked")
-    public static <T extends Message> RecordSerializer<T> get(Serializer serializer, Class<T> messageType) {
-        return (RecordSerializer<T>) generatedMessageTypes.computeIfAbsent(
-            new MessageType<>(serializer, messageType),
-            type -> generate(serializer, (Class<T>) type.messageType())
-        );
-    }
+    private static final Map<Class<?>, String> PrimitiveReads = Map.of(
+        boolean.class, "readBoolean",
+        byte.class, "readByte",
+        short.class, "readShort",
+        int.class, "readIntField",
+        long.class, "readLong",
+        float.class, "readFloat",
+        double.class, "readDouble"
+    );
+
+    private static final Map<Class<?>, String> PrimitiveWrites = Map.of(
+        boolean.class, "writeBoolean",
+        byte.class, "writeByte",
+        short.class, "writeShort",
+        int.class, "writeIntField",
+        long.class, "writeLong",
+        float.class, "writeFloat",
+        double.class, "writeDouble"
+    );
+
+    private static final Map<Class<?>, Integer> FixedBytesLengths = Map.of(
+        boolean.class, 1,
+        byte.class, Byte.BYTES,
+        short.class, Short.BYTES,
+        int.class, Integer.BYTES,
+        long.class, Long.BYTES,
+        float.class, Float.BYTES,
+        double.class, Double.BYTES,
+        UUID.class, MessageUtils.UuidBytes
+    );
 
     public static <T extends Message> RecordSerializer<T> generate(Serializer serializer, Class<T> messageType) {
         RecordComponent[] components = messageType.getRecordComponents();
@@ -32,67 +70,266 @@ public class RecordSerializerUtils {
             throw new IllegalArgumentException("Cannot generate a MessageTypeSerializer for non-record class " + messageType.getSimpleName());
         }
 
-        Constructor<T> constructor;
+        Class<?>[] componentTypes = new Class<?>[components.length];
+        MethodHandle[] accessors = new MethodHandle[components.length];
 
         try {
-            constructor = messageType.getDeclaredConstructor(
-                Arrays.stream(components)
-                    .map(RecordComponent::getType)
-                    .toArray(Class<?>[]::new)
+            MethodHandles.Lookup lookup = lookupFor(messageType);
+
+            for (int i = 0; i < components.length; i++) {
+                QuantizeUtils.validate(components[i]);
+                componentTypes[i] = components[i].getType();
+                accessors[i] = lookup.unreflect(components[i].getAccessor())
+                    .asType(MethodType.methodType(componentTypes[i], Message.class));
+            }
+
+            MethodHandle constructor = lookup.findConstructor(messageType, MethodType.methodType(void.class, componentTypes));
+
+            return new RecordSerializer<>(
+                messageType,
+                generateByteSizeFunction(serializer, components, accessors),
+                generateReader(constructor, components),
+                generateWriter(components, accessors)
             );
-        } catch (NoSuchMethodException exception) {
+        } catch (ReflectiveOperationException exception) {
             throw new IllegalArgumentException(exception);
         }
+    }
 
-        return new RecordSerializer<>(
-            messageType,
-            generateByteSizeFunction(serializer, components),
-            generateReader(constructor),
-            generateWriter(components)
-        );
+    /** Returns a lookup that can reach {@code messageType}'s accessors and canonical constructor. */
+    public static MethodHandles.Lookup lookupFor(Class<?> messageType) throws IllegalAccessException {
+        Module networkModule = RecordSerializerUtils.class.getModule();
+        networkModule.addReads(messageType.getModule());
+
+        if (messageType.getModule().isOpen(messageType.getPackageName(), networkModule)) {
+            return MethodHandles.privateLookupIn(messageType, NetworkLookup);
+        }
+
+        return NetworkLookup;
     }
 
-    private static <T extends Message> Function<T, Integer> generateByteSizeFunction(Serializer serializer, RecordComponent[] components) {
-        return message -> {
-            int size = 0;
-
-            for (var component : components) {
-                try {
-                    size += MessageUtils.bytesLength(serializer, component.getAccessor().invoke(message));
-                } catch (ReflectiveOperationException exception) {
-                    throw new IllegalStateException(exception);
-                }
+    private static <T extends Message> Function<T, Integer> generateByteSizeFunction(Serializer serializer, RecordComponent[] components,
+                                                                                      MethodHandle[] accessors)
+        throws ReflectiveOperationException {
+        int fixedSize = 0;
+        MethodHandle size = null;
+
+        for (int i = 0; i < components.length; i++) {
+            Class<?> componentType = components[i].getType();
+
+            if (componentType.isEnum()) {
+                fixedSize += MessageUtils.EnumBytes;
+                continue;
             }
 
-            return size;
+            Integer quantizedBits = quantizedBits(components[i]);
+            Integer fixedBytesLength = quantizedBits != null
+                ? (Integer) QuantizeUtils.bytesLength(quantizedBits)
+                : FixedBytesLengths.get(componentType);
+
+            if (fixedBytesLength != null) {
+                fixedSize += fixedBytesLength;
+                continue;
+            }
+
+            MethodHandle componentSize = MethodHandles.filterArguments(sizeHandle(serializer, componentType), 0, accessors[i]);
+            size = size == null ? componentSize : sum(size, componentSize);
+        }
+
+        MethodHandle fixedSizeHandle = MethodHandles.dropArguments(MethodHandles.constant(int.class, fixedSize), 0, Message.class);
+        MethodHandle byteSize = size == null ? fixedSizeHandle : sum(fixedSizeHandle, size);
+
+        return message -> {
+            try {
+                return (int) byteSize.invokeExact((Message) message);
+            } catch (RuntimeException | Error exception) {
+                throw exception;
+            } catch (Throwable exception) {
+                throw new IllegalStateException(exception);
+            }
         };
     }
 
-    private static <T extends Message> MessageReader<T> generateReader(Constructor<T> constructor) {
-        return inputStream -> {
-            Object[] values = new Object[constructor.getParameterCount()];
+    @SuppressWarnings("unchecked")
+    private static <T extends Message> MessageReader<T> generateReader(MethodHandle constructor, RecordComponent[] components)
+        throws ReflectiveOperationException {
+        // (c1, ..., cn, in) -> new T(c1, ..., cn), then each component is folded in from the last to the first so the
+        // outermost fold reads the first component, and every read happens in declaration order.
+        MethodHandle reader = MethodHandles.dropArguments(constructor, components.length, MessageInputStream.class);
 
-            for (int i = 0; i < values.length; i++) {
-                values[i] = inputStream.readObject(constructor.getParameterTypes()[i]);
-            }
+        for (int i = components.length - 1; i >= 0; i--) {
+            reader = MethodHandles.foldArguments(reader, i, readHandle(components[i]));
+        }
 
+        MethodHandle readMessage = reader.asType(MethodType.methodType(Message.class, MessageInputStream.class));
+
+        return inputStream -> {
             try {
-                return constructor.newInstance(values);
-            } catch (ReflectiveOperationException exception) {
+                return (T) (Message) readMessage.invokeExact(inputStream);
+            } catch (IOException | RuntimeException | Error exception) {
+                throw exception;
+            } catch (Throwable exception) {
                 throw new IllegalStateException(exception);
             }
         };
     }
 
-    private static <T extends Message> MessageWriter<T> generateWriter(RecordComponent[] components) {
+    private static <T extends Message> MessageWriter<T> generateWriter(RecordComponent[] components, MethodHandle[] accessors)
+        throws ReflectiveOperationException {
+        MethodHandle writer = MethodHandles.empty(MethodType.methodType(void.class, MessageOutputStream.class, Message.class));
+
+        for (int i = components.length - 1; i >= 0; i--) {
+            MethodHandle writeComponent = MethodHandles.filterArguments(writeHandle(components[i]), 1, accessors[i]);
+            writer = MethodHandles.foldArguments(writer, writeComponent);
+        }
+
+        MethodHandle writeMessage = writer;
+
         return (outputStream, message) -> {
-            for (var component : components) {
-                try {
-                    outputStream.writeObject(component.getAccessor().invoke(message), component.getType());
-                } catch (ReflectiveOperationException exception) {
-                    throw new IllegalStateException(exception);
-                }
+            try {
+                writeMessage.invokeExact(outputStream, (Message) message);
+            } catch (IOException | RuntimeException | Error exception) {
+                throw exception;
+            } catch (Throwable exception) {
+                throw new IllegalStateException(exception);
             }
         };
     }
+
+    private static MethodHandle readHandle(RecordComponent component) throws ReflectiveOperationException {
+        Class<?> type = component.getType();
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        Angle angle = component.getAnnotation(Angle.class);
+
+        if (quantized != null) {
+            MethodHandle readQuantized = NetworkLookup.findVirtual(
+                MessageInputStream.class,
+                "readQuantizedFloat",
+                MethodType.methodType(float.class, float.class, float.class, int.class)
+            );
+
+            return MethodHandles.insertArguments(readQuantized, 1, quantized.min(), quantized.max(), quantized.bits())
+                .asType(MethodType.methodType(type, MessageInputStream.class));
+        } else if (angle != null) {
+            MethodHandle readAngle = NetworkLookup.findVirtual(MessageInputStream.class, "readAngle", MethodType.methodType(float.class, int.class));
+
+            return MethodHandles.insertArguments(readAngle, 1, angle.bits())
+                .asType(MethodType.methodType(type, MessageInputStream.class));
+        }
+
+        String primitiveRead = PrimitiveReads.get(type);
+
+        if (primitiveRead != null) {
+            return NetworkLookup.findVirtual(MessageInputStream.class, primitiveRead, MethodType.methodType(type));
+        }
+
+        MethodHandle readField = NetworkLookup.findVirtual(
+            FieldCodec.class,
+            "read",
+            MethodType.methodType(Object.class, MessageInputStream.class)
+        );
+
+        return readField.bindTo(FieldCodecUtils.get(type))
+            .asType(MethodType.methodType(type, MessageInputStream.class));
+    }
+
+    private static MethodHandle writeHandle(RecordComponent component) throws ReflectiveOperationException {
+        Class<?> type = component.getType();
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        Angle angle = component.getAnnotation(Angle.class);
+
+        // quantized values are written as floats, so double components are narrowed first
+        if (quantized != null) {
+            MethodHandle writeQuantized = NetworkLookup.findVirtual(
+                MessageOutputStream.class,
+                "writeQuantizedFloat",
+                MethodType.methodType(void.class, float.class, float.class, float.class, int.class)
+            );
+
+            return MethodHandles.explicitCastArguments(
+                MethodHandles.insertArguments(writeQuantized, 2, quantized.min(), quantized.max(), quantized.bits()),
+                MethodType.methodType(void.class, MessageOutputStream.class, type)
+            );
+        } else if (angle != null) {
+            MethodHandle writeAngle = NetworkLookup.findVirtual(
+                MessageOutputStream.class,
+                "writeAngle",
+                MethodType.methodType(void.class, float.class, int.class)
+            );
+
+            return MethodHandles.explicitCastArguments(
+                MethodHandles.insertArguments(writeAngle, 2, angle.bits()),
+                MethodType.methodType(void.class, MessageOutputStream.class, type)
+            );
+        }
+
+        String primitiveWrite = PrimitiveWrites.get(type);
+
+        if (primitiveWrite != null) {
+            // writeByte and writeShort take an int, like the rest of DataOutput
+            Class<?> parameterType = type == byte.class || type == short.class ? int.class : type;
+
+            return NetworkLookup.findVirtual(MessageOutputStream.class, primitiveWrite, MethodType.methodType(void.class, parameterType))
+                .asType(MethodType.methodType(void.class, MessageOutputStream.class, type));
+        }
+
+        MethodHandle writeField = NetworkLookup.findVirtual(
+            FieldCodec.class,
+            "write",
+            MethodType.methodType(void.class, MessageOutputStream.class, Object.class)
+        );
+
+        return writeField.bindTo(FieldCodecUtils.get(type))
+            .asType(MethodType.methodType(void.class, MessageOutputStream.class, type));
+    }
+
+    private static MethodHandle sizeHandle(Serializer serializer, Class<?> type) throws ReflectiveOperationException {
+        MethodHandle size;
+
+        if (type == String.class) {
+            size = NetworkLookup.findStatic(MessageUtils.class, "bytesLength", MethodType.methodType(int.class, String.class));
+        } else if (Message.class.isAssignableFrom(type) && !type.isRecord()) {
+            size = MethodHandles.insertArguments(
+                NetworkLookup.findStatic(MessageUtils.class, "typedBytesLength", MethodType.methodType(int.class, Serializer.class, Message.class)),
+                0,
+                serializer
+            );
+        } else if (Message.class.isAssignableFrom(type)) {
+            size = MethodHandles.insertArguments(
+                NetworkLookup.findStatic(MessageUtils.class, "bytesLength", MethodType.methodType(int.class, Serializer.class, Message.class)),
+                0,
+                serializer
+            );
+        } else {
+            size = MethodHandles.insertArguments(
+                NetworkLookup.findStatic(MessageUtils.class, "bytesLength", MethodType.methodType(int.class, Serializer.class, Object.class)),
+                0,
+                serializer
+            );
+        }
+
+        return size.asType(MethodType.methodType(int.class, type));
+    }
+
+    /** Returns the number of bits {@code component} is quantized to, or {@code null} if it isn't quantized. */
+    private static Integer quantizedBits(RecordComponent component) {
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        Angle angle = component.getAnnotation(Angle.class);
+
+        if (quantized != null) {
+            return quantized.bits();
+        } else if (angle != null) {
+            return angle.bits();
+        }
+
+        return null;
+    }
+
+    /** Returns {@code (message) -> first(message) + second(message)}. */
+    private static MethodHandle sum(MethodHandle first, MethodHandle second) throws ReflectiveOperationException {
+        MethodHandle add = NetworkLookup.findStatic(Integer.class, "sum", MethodType.methodType(int.class, int.class, int.class));
+        MethodHandle sum = MethodHandles.filterArguments(add, 0, first, second);
+
+        return MethodHandles.permuteArguments(sum, MethodType.methodType(int.class, Message.class), 0, 0);
+    }
 }
@@ -0,0 +1,107 @@
+package tech.fastj.network.serial.util;
+
+import tech.fastj.network.serial.Angle;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Quantized;
+import tech.fastj.network.serial.Serializer;
+
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes the wire layout of message types, so both ends of a connection can check they agree on it.
+ * <p>
+ * A type's schema names the type and, for records, each component's name, schema and quantization in declaration
+ * order; for enums, each constant in order. The same build always produces the same schemas, in every process.
+ */
+public class SchemaUtils {
+
+    /** The largest type id {@link #typeId(Class)} assigns, chosen so that every id fits in two compact bytes. */
+    public static final int MaxTypeId = (1 << 14) - 2;
+
+    private static final long FnvOffsetBasis = 0xcbf29ce484222325L;
+    private static final long FnvPrime = 0x100000001b3L;
+
+    private SchemaUtils() {
+    }
+
+    public static String schema(Class<?> type) {
+        StringBuilder schema = new StringBuilder();
+        appendSchema(schema, type, new HashSet<>());
+
+        return schema.toString();
+    }
+
+    /** Returns the 64-bit FNV-1a hash of {@code schema}'s UTF-8 bytes. */
+    public static long hash(String schema) {
+        long hash = FnvOffsetBasis;
+
+        for (byte b : schema.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FnvPrime;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns the type id {@link Serializer#registerSerializer(Class)} assigns to {@code messageType}, taken from the hash
+     * of its schema.
+     */
+    public static int typeId(Class<? extends Message> messageType) {
+        long hash = hash(schema(messageType));
+        return (int) Long.remainderUnsigned(hash ^ (hash >>> 32), MaxTypeId + 1);
+    }
+
+    private static void appendSchema(StringBuilder schema, Class<?> type, Set<Class<?>> visiting) {
+        if (type.isArray()) {
+            appendSchema(schema, type.getComponentType(), visiting);
+            schema.append("[]");
+            return;
+        }
+
+        schema.append(type.getName());
+
+        if (!visiting.add(type)) {
+            return;
+        }
+
+        if (type.isEnum()) {
+            schema.append('{');
+
+            Object[] constants = type.getEnumConstants();
+            for (int i = 0; i < constants.length; i++) {
+                schema.append(i == 0 ? "" : ",").append(((Enum<?>) constants[i]).name());
+            }
+
+            schema.append('}');
+        } else if (type.isRecord()) {
+            schema.append('(');
+
+            RecordComponent[] components = type.getRecordComponents();
+            for (int i = 0; i < components.length; i++) {
+                schema.append(i == 0 ? "" : ",").append(components[i].getName()).append(':');
+                appendSchema(schema, components[i].getType(), visiting);
+                appendQuantization(schema, components[i]);
+            }
+
+            schema.append(')');
+        }
+
+        visiting.remove(type);
+    }
+
+    private static void appendQuantization(StringBuilder schema, RecordComponent component) {
+        Quantized quantized = component.getAnnotation(Quantized.class);
+        Angle angle = component.getAnnotation(Angle.class);
+
+        if (quantized != null) {
+            schema.append("@Quantized(").append(quantized.min()).append(',').append(quantized.max()).append(',')
+                .append(quantized.bits()).append(')');
+        } else if (angle != null) {
+            schema.append("@Angle(").append(angle.bits()).append(')');
+        }
+    }
+}
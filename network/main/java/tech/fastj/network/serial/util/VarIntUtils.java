@@ -0,0 +1,91 @@
+package tech.fastj.network.serial.util;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes unsigned variable-length ints, stored 7 bits per byte with the high bit marking a continuation.
+ * Signed values go through {@link #encodeZigZag(int)} first, so small negative values stay short too.
+ */
+public class VarIntUtils {
+
+    public static final int MaxBytes = 5;
+
+    /** Returned by {@link #read(ByteBuffer)} when the buffer ends partway through a value. */
+    public static final int Incomplete = -1;
+
+    private VarIntUtils() {
+    }
+
+    public static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static int bytesLength(int value) {
+        if ((value & ~0x7F) == 0) {
+            return 1;
+        } else if ((value & ~0x3FFF) == 0) {
+            return 2;
+        } else if ((value & ~0x1FFFFF) == 0) {
+            return 3;
+        } else if ((value & ~0xFFFFFFF) == 0) {
+            return 4;
+        }
+
+        return MaxBytes;
+    }
+
+    public static int write(int value, byte[] destination, int offset) {
+        int position = offset;
+
+        while ((value & ~0x7F) != 0) {
+            destination[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        destination[position++] = (byte) value;
+        return position - offset;
+    }
+
+    public static int read(DataInput input) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new StreamCorruptedException("Variable-length int is longer than " + MaxBytes + " bytes.");
+    }
+
+    public static int read(ByteBuffer buffer) throws StreamCorruptedException {
+        int start = buffer.position();
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                buffer.position(start);
+                return Incomplete;
+            }
+
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new StreamCorruptedException("Variable-length int is longer than " + MaxBytes + " bytes.");
+    }
+}
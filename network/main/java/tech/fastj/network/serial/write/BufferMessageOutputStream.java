@@ -0,0 +1,148 @@
+package tech.fastj.network.serial.write;
+
+import tech.fastj.network.serial.Serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Writes messages into a heap {@link ByteBuffer} that grows to fit them, and can be reset to write the next packet
+ * without allocating.
+ * <p>
+ * Every primitive write is one absolute access to the buffer, so writing a record's components never goes through an
+ * {@link OutputStream}. The bytes written so far are {@code data()[0, length())}.
+ */
+public class BufferMessageOutputStream extends MessageOutputStream {
+
+    private static final int MinCapacity = 16;
+
+    private ByteBuffer buffer;
+    private int position;
+
+    public BufferMessageOutputStream(Serializer serializer, int initialCapacity) {
+        super(serializer);
+        this.buffer = ByteBuffer.allocate(Math.max(MinCapacity, initialCapacity));
+    }
+
+    /** Discards everything written so far. */
+    public void reset() {
+        position = 0;
+    }
+
+    /** The buffer's backing array. It is replaced when the buffer grows, so it shouldn't be kept across writes. */
+    public byte[] data() {
+        return buffer.array();
+    }
+
+    public int length() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), position);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, position);
+    }
+
+    /**
+     * Moves past {@code length} bytes, growing the buffer if they don't fit, and returns the index they start at. Call it
+     * before reading {@link #buffer}, which it may replace.
+     */
+    private int claim(int length) {
+        int index = position;
+
+        if (length > buffer.capacity() - index) {
+            grow(index + length);
+        }
+
+        position = index + length;
+        return index;
+    }
+
+    private void grow(int minCapacity) {
+        byte[] data = Arrays.copyOf(buffer.array(), Math.max(buffer.capacity() * 2, minCapacity));
+        buffer = ByteBuffer.wrap(data);
+    }
+
+    @Override
+    public void write(int b) {
+        int index = claim(Byte.BYTES);
+        buffer.put(index, (byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+
+        int index = claim(length);
+        buffer.put(index, bytes, offset, length);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        int index = claim(1);
+        buffer.put(index, (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void writeByte(int value) {
+        int index = claim(Byte.BYTES);
+        buffer.put(index, (byte) value);
+    }
+
+    @Override
+    public void writeShort(int value) {
+        int index = claim(Short.BYTES);
+        buffer.putShort(index, (short) value);
+    }
+
+    @Override
+    public void writeChar(int value) {
+        int index = claim(Character.BYTES);
+        buffer.putChar(index, (char) value);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        int index = claim(Integer.BYTES);
+        buffer.putInt(index, value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        int index = claim(Long.BYTES);
+        buffer.putLong(index, value);
+    }
+
+    @Override
+    public void writeFloat(float value) {
+        int index = claim(Float.BYTES);
+        buffer.putFloat(index, value);
+    }
+
+    @Override
+    public void writeDouble(double value) {
+        int index = claim(Double.BYTES);
+        buffer.putDouble(index, value);
+    }
+
+    @Override
+    protected <T> void writeBulk(T array, int length, int elementBytes, BulkWriter<T> writer) {
+        int byteLength = Math.multiplyExact(length, elementBytes);
+        int index = claim(byteLength);
+        writer.put(buffer.slice(index, byteLength), array, 0, length);
+    }
+}
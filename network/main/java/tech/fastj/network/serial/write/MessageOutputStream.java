@@ -2,85 +2,268 @@ package tech.fastj.network.serial.write;
 
 import tech.fastj.network.serial.Message;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.StringDictionary;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.util.BitPackUtils;
+import tech.fastj.network.serial.util.FieldCodecUtils;
 import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.util.QuantizeUtils;
+import tech.fastj.network.serial.util.VarIntUtils;
 
+import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.UUID;
 
-public class MessageOutputStream extends DataOutputStream {
+/**
+ * Writes messages and their fields to an {@link OutputStream}.
+ * <p>
+ * Primitive writes go through the underlying stream. Packets that are built in memory before they're sent should be
+ * written to a {@link BufferMessageOutputStream} instead, which overrides each primitive write with a single access to
+ * its buffer.
+ */
+public class MessageOutputStream extends OutputStream implements DataOutput {
 
+    private static final int BulkBufferBytes = 1024;
+
+    private final DataOutputStream out;
     private final Serializer serializer;
+    private final byte[] varIntBuffer = new byte[VarIntUtils.MaxBytes];
+    private ByteBuffer bulkBuffer;
+    private StringDictionary stringDictionary;
+    private int highestStringId = StringDictionary.NoId;
 
     public MessageOutputStream(OutputStream outputStream, Serializer serializer) {
-        super(outputStream);
+        this.out = new DataOutputStream(outputStream);
+        this.serializer = serializer;
+    }
+
+    /** For subclasses that override every primitive write, and so have no underlying stream. */
+    protected MessageOutputStream(Serializer serializer) {
+        this.out = null;
         this.serializer = serializer;
     }
 
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Writes strings as ids from {@code stringDictionary} from now on, or always in full if it's {@code null}. Only
+     * streams whose data reaches the other end in order, like TCP packets, should use one.
+     */
+    public void setStringDictionary(StringDictionary stringDictionary) {
+        this.stringDictionary = stringDictionary;
+        this.highestStringId = StringDictionary.NoId;
+    }
+
+    /**
+     * The highest string id written since the dictionary was set, or {@link StringDictionary#NoId}. The other end must be
+     * sent the definitions of every id up to it before it reads this stream's data.
+     */
+    public int getHighestStringId() {
+        return highestStringId;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    @Override
+    public void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    @Override
+    public void writeShort(int value) throws IOException {
+        out.writeShort(value);
+    }
+
+    @Override
+    public void writeChar(int value) throws IOException {
+        out.writeChar(value);
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        out.writeFloat(value);
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    @Override
+    public void writeBytes(String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            writeByte(string.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            writeChar(string.charAt(i));
+        }
+    }
+
+    /** Unsupported: message strings are written with {@link #writeString(String)}. */
+    @Override
+    public void writeUTF(String string) {
+        throw new UnsupportedOperationException("Write strings with writeString instead.");
+    }
+
     public void writeObject(Object object, Class<?> type) throws IOException {
-        if (type.equals(Integer.class) || type.equals(int.class)) {
-            writeInt((int) object);
-        } else if (type.equals(Short.class) || type.equals(short.class)) {
-            writeShort((short) object);
-        } else if (type.equals(Byte.class) || type.equals(byte.class)) {
-            writeByte((byte) object);
-        } else if (type.equals(Long.class) || type.equals(long.class)) {
-            writeLong((long) object);
-        } else if (type.equals(Float.class) || type.equals(float.class)) {
-            writeFloat((float) object);
-        } else if (type.equals(Double.class) || type.equals(double.class)) {
-            writeDouble((double) object);
-        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
-            writeBoolean((boolean) object);
-        } else if (type.equals(String.class)) {
-            writeString((String) object);
-        } else if (type.equals(UUID.class)) {
-            writeUUID((UUID) object);
-        } else if (type.isEnum()) {
-            writeEnum((Enum<?>) object);
-        } else if (type.equals(byte[].class)) {
-            writeArray((byte[]) object);
-        } else if (type.equals(int[].class)) {
-            writeArray((int[]) object);
-        } else if (type.equals(float[].class)) {
-            writeArray((float[]) object);
-        } else if (type.isArray() && Message.class.isAssignableFrom(type.getComponentType())) {
-            writeArray((Message[]) object);
-        } else if (Message.class.isAssignableFrom(type)) {
-            writeMessage((Message) object);
+        FieldCodecUtils.get(type).write(this, object);
+    }
+
+    /** Writes a length or enum ordinal, which is never negative except for {@link MessageUtils#Null}. */
+    public void writeLength(int length) throws IOException {
+        if (serializer.getWireFormat() == WireFormat.Compact) {
+            // shifted by one so Null is written as 0, in one byte
+            writeVarInt(length + 1);
         } else {
-            throw new IOException("Unsupported object type: " + object.getClass().getSimpleName());
+            writeInt(length);
         }
     }
 
-    private <T extends Message> void writeMessage(T message) throws IOException {
+    public void writeIntField(int value) throws IOException {
+        if (serializer.getWireFormat() == WireFormat.Compact) {
+            writeVarInt(VarIntUtils.encodeZigZag(value));
+        } else {
+            writeInt(value);
+        }
+    }
+
+    /** Writes {@code value} as a {@link tech.fastj.network.serial.Quantized} component with the given range and bits. */
+    public void writeQuantizedFloat(float value, float min, float max, int bits) throws IOException {
+        writeQuantized(QuantizeUtils.quantize(value, min, max, bits), bits);
+    }
+
+    /** Writes {@code degrees} as an {@link tech.fastj.network.serial.Angle} component with the given bits. */
+    public void writeAngle(float degrees, int bits) throws IOException {
+        writeQuantized(QuantizeUtils.quantizeAngle(degrees, bits), bits);
+    }
+
+    private void writeQuantized(int step, int bits) throws IOException {
+        for (int shift = (QuantizeUtils.bytesLength(bits) - 1) * Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            write(step >>> shift);
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        write(varIntBuffer, 0, VarIntUtils.write(value, varIntBuffer, 0));
+    }
+
+    public <T extends Message> void writeMessage(T message) throws IOException {
         writeBoolean(message == null);
         if (message != null) {
             message.getSerializer(serializer).writer().write(this, message);
         }
     }
 
-    private void writeEnum(Enum<?> enumValue) throws IOException {
+    /**
+     * Writes {@code message} behind its registered type id, so it can be read back without knowing its type up front.
+     *
+     * @throws IOException if the message's type isn't registered with this stream's serializer.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Message> void writeTypedMessage(T message) throws IOException {
+        if (message == null) {
+            writeLength(MessageUtils.Null);
+            return;
+        }
+
+        Class<T> messageType = (Class<T>) message.getClass();
+        Integer typeId = serializer.getTypeId(messageType);
+        if (typeId == null) {
+            throw new IOException("Unregistered message type: " + messageType.getSimpleName());
+        }
+
+        writeLength(typeId);
+        serializer.getSerializer(messageType).writer().write(this, message);
+    }
+
+    public void writeEnum(Enum<?> enumValue) throws IOException {
         if (enumValue == null) {
-            writeInt(MessageUtils.Null);
+            writeLength(MessageUtils.Null);
         } else {
-            writeInt(enumValue.ordinal());
+            writeLength(enumValue.ordinal());
         }
     }
 
-    private void writeString(String string) throws IOException {
+    /**
+     * Writes {@code string} as its UTF-8 length and bytes. With a {@link StringDictionary} in use, the length is shifted
+     * left one bit, and a string with an id in this stream's dictionary is written as its id, shifted left with the low
+     * bit set.
+     */
+    public void writeString(String string) throws IOException {
         if (string == null) {
-            writeInt(MessageUtils.Null);
-        } else {
-            writeInt(string.length());
+            writeLength(MessageUtils.Null);
+            return;
+        }
+
+        if (!serializer.usesStringDictionary()) {
             byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            writeLength(stringBytes.length);
             write(stringBytes);
+            return;
+        }
+
+        int stringId = stringDictionary == null ? StringDictionary.NoId : stringDictionary.idOf(string);
+
+        if (stringId == StringDictionary.NoId) {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            writeLength(stringBytes.length << 1);
+            write(stringBytes);
+        } else {
+            highestStringId = Math.max(highestStringId, stringId);
+            writeLength((stringId << 1) | 1);
         }
     }
 
-    private void writeUUID(UUID uuid) throws IOException {
+    public void writeUUID(UUID uuid) throws IOException {
         if (uuid == null) {
             writeLong(MessageUtils.Null);
             writeLong(MessageUtils.Null);
@@ -92,9 +275,9 @@ public class MessageOutputStream extends DataOutputStream {
 
     public <T extends Message> void writeArray(T[] objectArray) throws IOException {
         if (objectArray == null) {
-            writeInt(MessageUtils.Null);
+            writeLength(MessageUtils.Null);
         } else {
-            writeInt(objectArray.length);
+            writeLength(objectArray.length);
             for (var item : objectArray) {
                 writeMessage(item);
             }
@@ -103,32 +286,102 @@ public class MessageOutputStream extends DataOutputStream {
 
     public void writeArray(byte[] byteArray) throws IOException {
         if (byteArray == null) {
-            writeInt(MessageUtils.Null);
+            writeLength(MessageUtils.Null);
         } else {
-            writeInt(byteArray.length);
+            writeLength(byteArray.length);
             write(byteArray);
         }
     }
 
+    public void writeArray(short[] shortArray) throws IOException {
+        if (shortArray == null) {
+            writeLength(MessageUtils.Null);
+        } else {
+            writeLength(shortArray.length);
+            writeBulk(shortArray, shortArray.length, Short.BYTES, (destination, values, offset, count) -> destination.asShortBuffer().put(values, offset, count));
+        }
+    }
+
     public void writeArray(int[] intArray) throws IOException {
         if (intArray == null) {
-            writeInt(MessageUtils.Null);
-        } else {
-            writeInt(intArray.length);
+            writeLength(MessageUtils.Null);
+        } else if (serializer.getWireFormat() == WireFormat.Compact) {
+            writeLength(intArray.length);
             for (var item : intArray) {
-                writeInt(item);
+                writeIntField(item);
             }
+        } else {
+            writeLength(intArray.length);
+            writeBulk(intArray, intArray.length, Integer.BYTES, (destination, values, offset, count) -> destination.asIntBuffer().put(values, offset, count));
+        }
+    }
+
+    public void writeArray(long[] longArray) throws IOException {
+        if (longArray == null) {
+            writeLength(MessageUtils.Null);
+        } else {
+            writeLength(longArray.length);
+            writeBulk(longArray, longArray.length, Long.BYTES, (destination, values, offset, count) -> destination.asLongBuffer().put(values, offset, count));
         }
     }
 
     public void writeArray(float[] floatArray) throws IOException {
         if (floatArray == null) {
-            writeInt(MessageUtils.Null);
+            writeLength(MessageUtils.Null);
         } else {
-            writeInt(floatArray.length);
-            for (var item : floatArray) {
-                writeFloat(item);
-            }
+            writeLength(floatArray.length);
+            writeBulk(floatArray, floatArray.length, Float.BYTES, (destination, values, offset, count) -> destination.asFloatBuffer().put(values, offset, count));
         }
     }
+
+    public void writeArray(double[] doubleArray) throws IOException {
+        if (doubleArray == null) {
+            writeLength(MessageUtils.Null);
+        } else {
+            writeLength(doubleArray.length);
+            writeBulk(doubleArray, doubleArray.length, Double.BYTES, (destination, values, offset, count) -> destination.asDoubleBuffer().put(values, offset, count));
+        }
+    }
+
+    /** Writes the number of values, then the values packed eight to a byte, lowest bit first. */
+    public void writeArray(boolean[] booleanArray) throws IOException {
+        if (booleanArray == null) {
+            writeLength(MessageUtils.Null);
+        } else {
+            writeLength(booleanArray.length);
+            writeBulk(booleanArray, BitPackUtils.bytesLength(booleanArray.length), Byte.BYTES, BitPackUtils::pack);
+        }
+    }
+
+    /** Writes the set's bits as {@link BitSet#toByteArray()}, which packs them like a {@code boolean[]}. */
+    public void writeBitSet(BitSet bitSet) throws IOException {
+        writeArray(bitSet == null ? null : bitSet.toByteArray());
+    }
+
+    /**
+     * Writes {@code length} elements of {@code array}, each {@code elementBytes} long, by letting {@code writer} copy them
+     * into a buffer in bulk.
+     * <p>
+     * The stream copies them through a small reusable buffer. Subclasses with their own buffer can hand the writer a
+     * slice of it instead, so the elements are copied once.
+     */
+    protected <T> void writeBulk(T array, int length, int elementBytes, BulkWriter<T> writer) throws IOException {
+        if (bulkBuffer == null) {
+            bulkBuffer = ByteBuffer.allocate(BulkBufferBytes);
+        }
+
+        int chunkLength = BulkBufferBytes / elementBytes;
+
+        for (int offset = 0; offset < length; offset += chunkLength) {
+            int count = Math.min(chunkLength, length - offset);
+            writer.put(bulkBuffer, array, offset, count);
+            write(bulkBuffer.array(), 0, count * elementBytes);
+        }
+    }
+
+    /** Copies {@code count} elements of an array, starting at {@code offset}, to the start of a big-endian buffer. */
+    @FunctionalInterface
+    protected interface BulkWriter<T> {
+        void put(ByteBuffer destination, T array, int offset, int count);
+    }
 }
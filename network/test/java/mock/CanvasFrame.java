@@ -0,0 +1,11 @@
+package mock;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+
+import java.util.BitSet;
+
+@NetworkMessage
+public record CanvasFrame(short[] heights, int[] colors, long[] timestamps, float[] weights, double[] samples,
+                          boolean[] visible, BitSet pixels) implements Message {
+}
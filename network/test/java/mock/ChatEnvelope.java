@@ -0,0 +1,8 @@
+package mock;
+
+import tech.fastj.network.serial.Message;
+
+import java.util.UUID;
+
+public record ChatEnvelope(UUID senderId, Message payload) implements Message {
+}
@@ -0,0 +1,14 @@
+package mock;
+
+import tech.fastj.network.serial.Angle;
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+import tech.fastj.network.serial.Quantized;
+
+import java.util.UUID;
+
+@NetworkMessage
+public record PlayerMovement(UUID playerId, @Quantized(min = -1024f, max = 1024f, bits = 16) float x,
+                             @Quantized(min = -1024f, max = 1024f, bits = 16) double y, @Angle(bits = 12) float rotation,
+                             @Quantized(min = 0f, max = 2f, bits = 8) float charge) implements Message {
+}
@@ -0,0 +1,93 @@
+package mock;
+
+import tech.fastj.network.replication.Replicable;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.IOException;
+import java.util.Objects;
+
+public class PlayerPosition implements Replicable<PlayerPosition> {
+
+    private static final int HitsComponent = 0;
+    private static final int PositionComponent = 1;
+
+    private int hits;
+    private float x;
+    private float y;
+
+    public PlayerPosition() {
+    }
+
+    public PlayerPosition(int hits, float x, float y) {
+        this.hits = hits;
+        this.x = x;
+        this.y = y;
+    }
+
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public int componentCount() {
+        return 2;
+    }
+
+    @Override
+    public boolean isComponentChanged(int index, PlayerPosition other) {
+        return switch (index) {
+            case HitsComponent -> hits != other.hits;
+            case PositionComponent -> Float.compare(x, other.x) != 0 || Float.compare(y, other.y) != 0;
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
+
+    @Override
+    public void writeComponent(MessageOutputStream outputStream, int index) throws IOException {
+        switch (index) {
+            case HitsComponent -> outputStream.writeIntField(hits);
+            case PositionComponent -> {
+                outputStream.writeFloat(x);
+                outputStream.writeFloat(y);
+            }
+            default -> throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    @Override
+    public void readComponent(MessageInputStream inputStream, int index) throws IOException {
+        switch (index) {
+            case HitsComponent -> hits = inputStream.readIntField();
+            case PositionComponent -> {
+                x = inputStream.readFloat();
+                y = inputStream.readFloat();
+            }
+            default -> throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    @Override
+    public void set(PlayerPosition other) {
+        hits = other.hits;
+        x = other.x;
+        y = other.y;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PlayerPosition position && hits == position.hits
+            && Float.compare(x, position.x) == 0 && Float.compare(y, position.y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hits, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerPosition[hits=" + hits + ", x=" + x + ", y=" + y + "]";
+    }
+}
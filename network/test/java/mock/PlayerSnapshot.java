@@ -0,0 +1,11 @@
+package mock;
+
+import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.NetworkMessage;
+
+import java.util.UUID;
+
+@NetworkMessage
+public record PlayerSnapshot(UUID playerId, GameState gameState, boolean isAlive, byte team, short score, int hits, long tick,
+                             float x, double rotation, ChatMessage lastMessage) implements Message {
+}
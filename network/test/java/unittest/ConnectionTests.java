@@ -6,6 +6,7 @@ import tech.fastj.network.rpc.CommandAlias;
 import tech.fastj.network.rpc.classes.Classes;
 import tech.fastj.network.rpc.classes.Classes0;
 import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.classes.Classes2;
 import tech.fastj.network.rpc.classes.Classes3;
 import tech.fastj.network.rpc.classes.Classes6;
 import tech.fastj.network.rpc.local.LocalClient;
@@ -18,9 +19,12 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +32,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import mock.ChatMessage;
+import mock.EmptyCommands;
 import mock.GameState;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -40,6 +45,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -60,8 +66,10 @@ class ConnectionTests {
 
     enum TestCommands implements CommandAlias {
         TCPNoData(new Classes0()),
+        TCPThrowing(new Classes1<>(ChatMessage.class)),
         UDPNoData(new Classes0()),
         UDPCorrectClientReceiver(new Classes0()),
+        UDPRoutedToSender(new Classes1<>(UUID.class)),
         TCPGameState(new Classes1<>(GameState.class)),
         UDPUuid(new Classes1<>(UUID.class)),
         TCPChatMessage(new Classes1<>(ChatMessage.class)),
@@ -69,7 +77,8 @@ class ConnectionTests {
         TCPMultipleChatMessage(new Classes3<>(ChatMessage.class, ChatMessage.class, ChatMessage.class)),
         UDPMultipleChatMessage(new Classes3<>(ChatMessage.class, ChatMessage.class, ChatMessage.class)),
         TCPMultipleData(new Classes6<>(boolean.class, byte.class, short.class, byte[].class, int[].class, String.class)),
-        UDPMultipleData(new Classes6<>(int.class, float.class, double.class, long.class, float[].class, ChatMessage.class));
+        UDPMultipleData(new Classes6<>(int.class, float.class, double.class, long.class, float[].class, ChatMessage.class)),
+        TCPDrawing(new Classes2<>(String.class, byte[].class));
 
         private final Classes commandClasses;
 
@@ -98,6 +107,14 @@ class ConnectionTests {
         });
     }
 
+    @Test
+    void checkConnectClientToServer_withMismatchedCommands_fails() throws IOException {
+        ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+        LocalClient<EmptyCommands> client = new LocalClient<>(clientConfig, EmptyCommands.class);
+
+        assertThrows(IOException.class, client::connect, "A client with different commands than the server should fail to connect.");
+    }
+
     @Test
     void checkSendDataToServer_usingCommandsWithZeroMessages() throws InterruptedException {
         AtomicBoolean receivedTCPData = new AtomicBoolean();
@@ -359,6 +376,115 @@ class ConnectionTests {
         }
     }
 
+    @Test
+    void checkStreamCommands_readTheirOwnArguments() throws InterruptedException {
+        ChatMessage[] chatMessages = {
+            new ChatMessage("lucasstarsz", 1L, "first"),
+            new ChatMessage("lucasstarsz", 2L, "second"),
+            new ChatMessage("lucasstarsz", 3L, "third")
+        };
+        ChatMessage followingMessage = new ChatMessage("lucasstarsz", 4L, "following");
+
+        List<ChatMessage> serverMessages = new ArrayList<>();
+        List<ChatMessage> clientMessages = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+
+        assertDoesNotThrow(() -> {
+            server.addStreamCommand(TestCommands.TCPMultipleChatMessage, (client, inputStream) -> {
+                for (int i = 0; i < chatMessages.length; i++) {
+                    serverMessages.add(inputStream.readMessage(ChatMessage.class));
+                }
+
+                client.sendCommand(NetworkType.TCP, CommandTarget.Client, TestCommands.TCPMultipleChatMessage, (Object[]) chatMessages);
+            });
+            server.addCommand(TestCommands.TCPChatMessage, (client, chatMessage) -> {
+                serverMessages.add((ChatMessage) chatMessage);
+                latch.countDown();
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.addStreamCommand(TestCommands.TCPMultipleChatMessage, inputStream -> {
+                for (int i = 0; i < chatMessages.length; i++) {
+                    clientMessages.add(inputStream.readMessage(ChatMessage.class));
+                }
+
+                latch.countDown();
+            });
+            client.connect();
+
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPMultipleChatMessage, (Object[]) chatMessages);
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPChatMessage, followingMessage);
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Both the client and server should have run their stream commands.");
+        assertEquals(List.of(chatMessages[0], chatMessages[1], chatMessages[2], followingMessage), serverMessages, "The command after a stream command should still be read.");
+        assertEquals(Arrays.asList(chatMessages), clientMessages);
+    }
+
+    @Test
+    void checkTCPCommandAfterFailingCommand_isStillReceived() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPThrowing, (client, chatMessage) -> {
+                throw new IllegalStateException("Failing on purpose.");
+            });
+            server.addCommand(TestCommands.TCPNoData, (client) -> latch.countDown());
+
+            ClientConfig clientConfig = new ClientConfig(Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.connect();
+            assertTrue(client.isFramed());
+
+            ChatMessage chatMessage = new ChatMessage("failing", 0, "message");
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPThrowing, chatMessage);
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPNoData);
+        });
+
+        boolean success = latch.await(5, TimeUnit.SECONDS);
+
+        assertTrue(success, "Server should skip the failing command and keep reading the connection.");
+    }
+
+    @Test
+    void checkSendLargeTCPData_isCompressedBothWays() throws InterruptedException {
+        byte[] pixels = new byte[20000];
+        for (int i = 0; i < pixels.length; i += 7) {
+            pixels[i] = (byte) i;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<byte[]> receivedPixels = new AtomicReference<>();
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPDrawing, (ServerClient<TestCommands> client, String name, byte[] drawing) -> {
+                assertArrayEquals(pixels, drawing, "The server should read the decompressed data.");
+
+                try {
+                    client.sendCommand(NetworkType.TCP, CommandTarget.Client, TestCommands.TCPDrawing, name, drawing);
+                } catch (IOException exception) {
+                    fail("Unable to send the drawing back: " + exception.getMessage());
+                }
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.addCommand(TestCommands.TCPDrawing, (String name, byte[] drawing) -> {
+                receivedPixels.set(drawing);
+                latch.countDown();
+            });
+
+            client.connect();
+            assertTrue(client.isCompressed());
+
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPDrawing, "drawing", pixels);
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Client did not receive the drawing back.");
+        assertArrayEquals(pixels, receivedPixels.get(), "The client should read the decompressed data.");
+    }
+
     @Test
     void checkPingsAndKeepAlives() throws InterruptedException {
         int countdownStart = 50;
@@ -433,6 +559,46 @@ class ConnectionTests {
         }
     }
 
+    @Test
+    void checkUDPMessagesAreRoutedToEachSender() throws InterruptedException {
+        int clientCount = 6;
+        CountDownLatch latch = new CountDownLatch(clientCount);
+        Set<UUID> routedClients = ConcurrentHashMap.newKeySet();
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.UDPRoutedToSender, (ServerClient<TestCommands> client, UUID senderId) -> {
+                assertEquals(senderId, client.getClientId(), "UDP packets should be routed to the client that sent them.");
+
+                if (routedClients.add(senderId)) {
+                    latch.countDown();
+                }
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            List<LocalClient<TestCommands>> clients = new ArrayList<>();
+
+            for (int i = 0; i < clientCount; i++) {
+                LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+                client.connect();
+                clients.add(client);
+            }
+
+            while (latch.getCount() > 0) {
+                for (LocalClient<TestCommands> client : clients) {
+                    client.sendCommand(NetworkType.UDP, CommandTarget.Server, TestCommands.UDPRoutedToSender, client.getClientId());
+                }
+
+                TimeUnit.MILLISECONDS.sleep(100L);
+            }
+        });
+
+        boolean success = latch.await(5, TimeUnit.SECONDS);
+
+        if (!success) {
+            fail("Server did not route UDP packets from every client.");
+        }
+    }
+
     @BeforeAll
     static void startServer() throws IOException {
         ServerConfig serverConfig = new ServerConfig(Port);
@@ -0,0 +1,256 @@
+package unittest;
+
+import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.config.ServerIoMode;
+import tech.fastj.network.config.WireFeature;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes0;
+import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.classes.Classes2;
+import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.server.Server;
+import tech.fastj.network.rpc.server.ServerClient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mock.ChatMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SelectorConnectionTests {
+
+    private static final InetAddress ClientTargetAddress;
+    private static final int Port = 19998;
+    private static Server<TestCommands> server;
+
+    static {
+        try {
+            ClientTargetAddress = InetAddress.getLocalHost();
+        } catch (UnknownHostException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    enum TestCommands implements CommandAlias {
+        TCPNoData(new Classes0()),
+        TCPThrowing(new Classes1<>(ChatMessage.class)),
+        UDPNoData(new Classes0()),
+        TCPChatMessage(new Classes1<>(ChatMessage.class)),
+        TCPDrawing(new Classes2<>(String.class, byte[].class));
+
+        private final Classes commandClasses;
+
+        TestCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @AfterEach
+    void cleanServer() {
+        server.disconnectAllClients();
+    }
+
+    @Test
+    void checkSendDataToServer_usingCommandsWithZeroMessages() throws InterruptedException {
+        AtomicBoolean receivedTCPData = new AtomicBoolean();
+        AtomicBoolean receivedUDPData = new AtomicBoolean();
+
+        CountDownLatch latch = new CountDownLatch(2);
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPNoData, (client) -> {
+                receivedTCPData.set(true);
+                latch.countDown();
+            });
+
+            server.addCommand(TestCommands.UDPNoData, (client) -> {
+                if (!receivedUDPData.getAndSet(true)) {
+                    latch.countDown();
+                }
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.connect();
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPNoData);
+
+            while (!receivedUDPData.get()) {
+                client.sendCommand(NetworkType.UDP, CommandTarget.Server, TestCommands.UDPNoData);
+                TimeUnit.MILLISECONDS.sleep(100L);
+            }
+        });
+
+        boolean success = latch.await(5, TimeUnit.SECONDS);
+
+        if (!success) {
+            fail(
+                "Server did not receive both TCP and UDP properly.\n" +
+                    "TCP Received: " + receivedTCPData.get() + ", UDP received: " + receivedUDPData.get()
+            );
+        }
+    }
+
+    @Test
+    void checkSendManyTCPCommandsToServer_arriveInOrder() throws InterruptedException {
+        int messageCount = 200;
+        List<ChatMessage> sentMessages = new ArrayList<>(messageCount);
+        List<ChatMessage> receivedMessages = Collections.synchronizedList(new ArrayList<>(messageCount));
+
+        CountDownLatch latch = new CountDownLatch(messageCount);
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPChatMessage, (client, chatMessage) -> {
+                receivedMessages.add((ChatMessage) chatMessage);
+                latch.countDown();
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.connect();
+
+            for (int i = 0; i < messageCount; i++) {
+                ChatMessage chatMessage = new ChatMessage(UUID.randomUUID().toString(), i, UUID.randomUUID().toString());
+                sentMessages.add(chatMessage);
+                client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPChatMessage, chatMessage);
+            }
+        });
+
+        boolean success = latch.await(5, TimeUnit.SECONDS);
+
+        assertTrue(success, "Server should have received all " + messageCount + " TCP messages.");
+        assertEquals(sentMessages, receivedMessages, "TCP messages should arrive in the order they were sent.");
+    }
+
+    @Test
+    void checkTCPCommandAfterFailingCommand_isStillReceived() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPThrowing, (client, chatMessage) -> {
+                throw new IllegalStateException("Failing on purpose.");
+            });
+            server.addCommand(TestCommands.TCPNoData, (client) -> latch.countDown());
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.connect();
+            assertTrue(client.isFramed());
+
+            ChatMessage chatMessage = new ChatMessage("failing", 0, "message");
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPThrowing, chatMessage);
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPNoData);
+        });
+
+        boolean success = latch.await(5, TimeUnit.SECONDS);
+
+        assertTrue(success, "Server should skip the failing command and keep reading the connection.");
+    }
+
+    @Test
+    void checkSendLargeTCPData_isCompressedBothWays() throws InterruptedException {
+        byte[] pixels = new byte[20000];
+        for (int i = 0; i < pixels.length; i += 7) {
+            pixels[i] = (byte) i;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<byte[]> receivedPixels = new AtomicReference<>();
+
+        assertDoesNotThrow(() -> {
+            server.addCommand(TestCommands.TCPDrawing, (ServerClient<TestCommands> client, String name, byte[] drawing) -> {
+                assertArrayEquals(pixels, drawing, "The server should read the decompressed data.");
+
+                try {
+                    client.sendCommand(NetworkType.TCP, CommandTarget.Client, TestCommands.TCPDrawing, name, drawing);
+                } catch (IOException exception) {
+                    fail("Unable to send the drawing back: " + exception.getMessage());
+                }
+            });
+
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+            client.addCommand(TestCommands.TCPDrawing, (String name, byte[] drawing) -> {
+                receivedPixels.set(drawing);
+                latch.countDown();
+            });
+
+            client.connect();
+            assertTrue(client.isCompressed());
+
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.TCPDrawing, "drawing", pixels);
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Client did not receive the drawing back.");
+        assertArrayEquals(pixels, receivedPixels.get(), "The client should read the decompressed data.");
+    }
+
+    @Test
+    void checkMultipleClientsConnectToServer() {
+        assertDoesNotThrow(() -> {
+            ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+            List<LocalClient<TestCommands>> clients = new ArrayList<>();
+
+            for (int i = 0; i < 8; i++) {
+                LocalClient<TestCommands> client = new LocalClient<>(clientConfig, TestCommands.class);
+                client.connect();
+                clients.add(client);
+            }
+
+            for (LocalClient<TestCommands> client : clients) {
+                client.disconnect();
+            }
+        });
+    }
+
+    @Test
+    void checkSelectorServerConfig_requiresFraming() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new ServerConfig(Port, ServerIoMode.Selector, Set.of(WireFeature.CompactEncoding)),
+            "A selector server should not read messages without knowing where they end."
+        );
+    }
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        ServerConfig serverConfig = new ServerConfig(Port, ServerIoMode.Selector);
+
+        server = new Server<>(serverConfig, TestCommands.class, null);
+        server.start();
+        server.allowClients();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+}
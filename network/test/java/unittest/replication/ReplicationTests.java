@@ -0,0 +1,236 @@
+package unittest.replication;
+
+import tech.fastj.network.replication.Replica;
+import tech.fastj.network.replication.ReplicatedState;
+import tech.fastj.network.replication.StateDelta;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import mock.ChatMessage;
+import mock.GameState;
+import mock.PlayerPosition;
+import mock.PlayerSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ReplicationTests {
+
+    private static final UUID PlayerId = UUID.randomUUID();
+    private static final UUID RecipientId = UUID.randomUUID();
+
+    private static PlayerSnapshot snapshotAt(int x) {
+        return new PlayerSnapshot(PlayerId, GameState.Playing, true, (byte) 1, (short) 2, x, 4L, 5f, 6d, new ChatMessage("lucasstarsz", 7L, "hi"));
+    }
+
+    @Test
+    void checkDeltaFor_sendsOnlyChangedComponentsOnceAcknowledged() throws IOException {
+        Serializer serializer = new Serializer();
+        serializer.setWireFormat(WireFormat.Compact);
+
+        ReplicatedState<PlayerSnapshot> replicatedState = new ReplicatedState<>(PlayerSnapshot.class);
+        Replica<PlayerSnapshot> replica = new Replica<>(PlayerSnapshot.class);
+
+        replicatedState.set(snapshotAt(0));
+        StateDelta snapshot = replicatedState.deltaFor(serializer, RecipientId);
+
+        assertEquals(MessageUtils.Null, snapshot.baselineSequence(), "A recipient that has acknowledged nothing should be sent a snapshot.");
+        assertEquals(snapshotAt(0), replica.apply(serializer, snapshot), "The snapshot should be applied in full.");
+
+        replicatedState.acknowledge(RecipientId, snapshot.sequence());
+        replicatedState.set(snapshotAt(1));
+        StateDelta delta = replicatedState.deltaFor(serializer, RecipientId);
+
+        assertEquals(snapshot.sequence(), delta.baselineSequence(), "The delta should be relative to the acknowledged update.");
+        assertTrue(
+            delta.changes().length < snapshot.changes().length / 4,
+            "A delta with one changed int should be much smaller than the " + snapshot.changes().length + " byte snapshot, but was " + delta.changes().length
+        );
+        assertEquals(snapshotAt(1), replica.apply(serializer, delta), "Unchanged components should be taken from the baseline.");
+    }
+
+    @Test
+    void checkDeltaFor_withExpiredBaseline_sendsSnapshot() throws IOException {
+        Serializer serializer = new Serializer();
+        ReplicatedState<PlayerSnapshot> replicatedState = new ReplicatedState<>(PlayerSnapshot.class);
+
+        replicatedState.set(snapshotAt(0));
+        replicatedState.acknowledge(RecipientId, replicatedState.getSequence());
+
+        for (int i = 1; i <= ReplicatedState.HistoryLength; i++) {
+            replicatedState.set(snapshotAt(i));
+        }
+
+        assertEquals(
+            MessageUtils.Null, replicatedState.deltaFor(serializer, RecipientId).baselineSequence(),
+            "A recipient whose acknowledged update is no longer kept should be sent a snapshot."
+        );
+
+        replicatedState.acknowledge(RecipientId, replicatedState.getSequence());
+        replicatedState.forget(RecipientId);
+
+        assertEquals(
+            MessageUtils.Null, replicatedState.deltaFor(serializer, RecipientId).baselineSequence(),
+            "A forgotten recipient should be sent a snapshot."
+        );
+    }
+
+    @Test
+    void checkApply_withMissingBaseline_throws() throws IOException {
+        Serializer serializer = new Serializer();
+        ReplicatedState<PlayerSnapshot> replicatedState = new ReplicatedState<>(PlayerSnapshot.class);
+        Replica<PlayerSnapshot> replica = new Replica<>(PlayerSnapshot.class);
+
+        replicatedState.set(snapshotAt(0));
+        replicatedState.acknowledge(RecipientId, replicatedState.getSequence());
+        replicatedState.set(snapshotAt(1));
+
+        StateDelta delta = replicatedState.deltaFor(serializer, RecipientId);
+
+        assertThrows(IOException.class, () -> replica.apply(serializer, delta), "A delta whose baseline never arrived should not be applied.");
+        assertEquals(MessageUtils.Null, replica.getSequence(), "A delta that failed to apply should not be acknowledged.");
+    }
+
+    @Test
+    void checkApplyFromStream_matchesAppliedDeltas_inEveryWireFormat() throws IOException {
+        for (WireFormat wireFormat : WireFormat.values()) {
+            Serializer serializer = new Serializer();
+            serializer.setWireFormat(wireFormat);
+
+            ReplicatedState<PlayerSnapshot> replicatedState = new ReplicatedState<>(PlayerSnapshot.class);
+            replicatedState.set(snapshotAt(0));
+            StateDelta snapshot = replicatedState.deltaFor(serializer, RecipientId);
+            replicatedState.acknowledge(RecipientId, snapshot.sequence());
+            replicatedState.set(snapshotAt(1));
+            StateDelta delta = replicatedState.deltaFor(serializer, RecipientId);
+
+            // written the way a command sends them, with an argument after each to check nothing is left unread
+            BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 64);
+            for (StateDelta stateDelta : new StateDelta[] {snapshot, delta, snapshot, delta}) {
+                outputStream.writeObject(stateDelta, StateDelta.class);
+                outputStream.writeIntField(42);
+            }
+
+            BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+            inputStream.reset(outputStream.data(), 0, outputStream.length());
+
+            Replica<PlayerSnapshot> replica = new Replica<>(PlayerSnapshot.class);
+            PlayerSnapshot fromSnapshot = replica.apply(inputStream);
+            assertEquals(42, inputStream.readIntField());
+            assertEquals(snapshotAt(0), fromSnapshot, "The snapshot should be applied in full in " + wireFormat + ".");
+
+            assertEquals(snapshotAt(1), replica.apply(inputStream), "Unchanged components should be taken from the baseline in " + wireFormat + ".");
+            assertEquals(42, inputStream.readIntField());
+
+            assertEquals(snapshotAt(1), replica.apply(inputStream), "An old update should be skipped.");
+            assertEquals(42, inputStream.readIntField(), "A skipped update should still be read past.");
+
+            Replica<PlayerSnapshot> otherReplica = new Replica<>(PlayerSnapshot.class);
+
+            assertThrows(IOException.class, () -> otherReplica.apply(inputStream), "A delta whose baseline never arrived should not be applied.");
+            assertEquals(42, inputStream.readIntField(), "An update that can't be applied should still be read past.");
+            assertEquals(0, inputStream.available());
+        }
+    }
+
+    @Test
+    void checkApply_withNothingChanged_returnsBaseline() throws IOException {
+        Serializer serializer = new Serializer();
+        ReplicatedState<PlayerSnapshot> replicatedState = new ReplicatedState<>(PlayerSnapshot.class);
+        Replica<PlayerSnapshot> replica = new Replica<>(PlayerSnapshot.class);
+
+        replicatedState.set(snapshotAt(0));
+        PlayerSnapshot baseline = replica.apply(serializer, replicatedState.deltaFor(serializer, RecipientId));
+        replicatedState.acknowledge(RecipientId, replicatedState.getSequence());
+
+        StateDelta unchanged = new StateDelta(replicatedState.getSequence() + 1, replicatedState.getSequence(), replicatedState.deltaFor(serializer, RecipientId).changes());
+
+        assertSame(baseline, replica.apply(serializer, unchanged), "An update that changed nothing should not create a new state.");
+    }
+
+    @Test
+    void checkReplicableState_appliesDeltasIntoItsOwnEntries() throws IOException {
+        Serializer serializer = new Serializer();
+        serializer.setWireFormat(WireFormat.Compact);
+
+        ReplicatedState<PlayerPosition> replicatedState = new ReplicatedState<>(PlayerPosition.class);
+        Replica<PlayerPosition> replica = new Replica<>(PlayerPosition.class);
+        PlayerPosition position = new PlayerPosition(3, 1f, 2f);
+
+        replicatedState.set(position);
+        StateDelta snapshot = replicatedState.deltaFor(serializer, RecipientId);
+        replicatedState.acknowledge(RecipientId, snapshot.sequence());
+
+        PlayerPosition fromSnapshot = replica.apply(serializer, snapshot);
+        assertEquals(new PlayerPosition(3, 1f, 2f), fromSnapshot, "The snapshot should be applied in full.");
+        assertNotSame(position, fromSnapshot, "The replica should decode into its own state.");
+
+        position.setPosition(5f, 6f);
+        assertTrue(replicatedState.set(position), "Changing the state passed in earlier should still count as a change.");
+
+        StateDelta delta = replicatedState.deltaFor(serializer, RecipientId);
+
+        assertTrue(delta.changes().length < snapshot.changes().length, "A delta without the unchanged hits should be smaller than the snapshot.");
+        assertEquals(new PlayerPosition(3, 5f, 6f), replica.apply(serializer, delta), "Unchanged components should be taken from the baseline.");
+        assertEquals(new PlayerPosition(3, 1f, 2f), fromSnapshot, "The baseline should be kept intact while it can still be used.");
+    }
+
+    @Test
+    void checkApplyFromStream_withReplicableState_inSteadyState_doesNotAllocate() throws IOException {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Serializer serializer = new Serializer();
+        serializer.setWireFormat(WireFormat.Compact);
+
+        ReplicatedState<PlayerPosition> replicatedState = new ReplicatedState<>(PlayerPosition.class);
+        PlayerPosition position = new PlayerPosition();
+        int updates = 100_000;
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, updates * 16);
+
+        for (int i = 1; i <= updates; i++) {
+            position.setPosition(i, -i);
+            replicatedState.set(position);
+
+            StateDelta delta = replicatedState.deltaFor(serializer, RecipientId);
+            replicatedState.acknowledge(RecipientId, delta.sequence());
+            outputStream.writeObject(delta, StateDelta.class);
+        }
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(outputStream.data(), 0, outputStream.length());
+
+        Replica<PlayerPosition> replica = new Replica<>(PlayerPosition.class);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < updates / 2; i++) {
+            replica.apply(inputStream);
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        for (int i = updates / 2; i < updates; i++) {
+            replica.apply(inputStream);
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(
+            allocated < updates / 10,
+            "Applying " + (updates / 2) + " updates should allocate (next to) nothing, but allocated " + allocated + " bytes."
+        );
+        assertEquals(new PlayerPosition(0, updates, -updates), replica.get(), "Every update should have been applied.");
+    }
+}
@@ -0,0 +1,228 @@
+package unittest.rpc;
+
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.rpc.CoalescingOutputStream;
+import tech.fastj.network.rpc.WriteBatch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingOutputStreamTests {
+
+    @Test
+    void checkFlush_outsideBatch_writesImmediately() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+
+        out.write(new byte[] {1, 2, 3});
+        assertEquals(0, socketOut.writes, "Data should be buffered until flushed.");
+
+        out.flush();
+        assertEquals(1, socketOut.writes);
+        assertArrayEquals(new byte[] {1, 2, 3}, socketOut.toByteArray());
+    }
+
+    @Test
+    void checkFlush_insideBatch_coalescesUntilBatchCloses() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+
+        try (WriteBatch outerBatch = WriteBatch.begin()) {
+            try (WriteBatch innerBatch = WriteBatch.begin()) {
+                for (int i = 0; i < 10; i++) {
+                    out.write(i);
+                    out.flush();
+                }
+            }
+
+            assertEquals(0, socketOut.writes, "Nested batches should only flush when the outermost batch closes.");
+        }
+
+        assertEquals(1, socketOut.writes, "All messages in a batch should be written together.");
+        assertArrayEquals(new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, socketOut.toByteArray());
+    }
+
+    @Test
+    void checkFlush_insideBatch_coalescesUntilBatchEnds() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+
+        WriteBatch.begin();
+        try {
+            out.write(new byte[] {1, 2});
+            out.flush();
+            out.write(new byte[] {3});
+            out.flush();
+
+            assertEquals(0, socketOut.writes, "Data should wait for the batch to end.");
+        } finally {
+            WriteBatch.end();
+        }
+
+        assertEquals(1, socketOut.writes, "Ending the batch should write everything it deferred.");
+        assertArrayEquals(new byte[] {1, 2, 3}, socketOut.toByteArray());
+    }
+
+    @Test
+    void checkWrite_overMaxBytes_writesMidBatch() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, new TcpBufferConfig(16));
+
+        try (WriteBatch batch = WriteBatch.begin()) {
+            out.write(new byte[10]);
+            out.flush();
+            assertEquals(0, socketOut.writes);
+
+            out.write(new byte[10]);
+            assertEquals(1, socketOut.writes, "Reaching the byte threshold should write without waiting for the batch.");
+        }
+
+        assertEquals(20, socketOut.size());
+    }
+
+    @Test
+    void checkFlush_withMaxLatency_writesAfterLatency() throws IOException, InterruptedException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, new TcpBufferConfig(1024, 20L, TimeUnit.MILLISECONDS));
+
+        out.write(1);
+        out.flush();
+        out.write(2);
+        out.flush();
+        assertEquals(0, socketOut.writes, "Flushes should wait up to the configured latency.");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2L);
+        while (socketOut.writes == 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5L);
+        }
+
+        assertEquals(1, socketOut.writes);
+        assertArrayEquals(new byte[] {1, 2}, socketOut.toByteArray());
+    }
+
+    @Test
+    void checkFlush_withFraming_prefixesEachMessageWithItsLength() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+        out.enableFraming();
+
+        try (WriteBatch batch = WriteBatch.begin()) {
+            out.write(new byte[] {1, 2, 3});
+            out.flush();
+            out.write(new byte[200]);
+            out.flush();
+        }
+
+        byte[] written = socketOut.toByteArray();
+        assertEquals(1 + 3 + 2 + 200, written.length);
+        assertArrayEquals(new byte[] {3, 1, 2, 3}, Arrays.copyOf(written, 4));
+        assertEquals((byte) (200 & 0x7F | 0x80), written[4]);
+        assertEquals((byte) (200 >>> 7), written[5]);
+    }
+
+    @Test
+    void checkFlushNow_withFraming_holdsBackUnfinishedMessage() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+        out.enableFraming();
+
+        out.write(new byte[] {1, 2});
+        out.flushNow();
+        assertEquals(0, socketOut.size(), "An unfinished frame should not be written.");
+
+        out.write(3);
+        out.flush();
+        assertArrayEquals(new byte[] {3, 1, 2, 3}, socketOut.toByteArray());
+    }
+
+    @Test
+    void checkFlush_withCompression_compressesFramesFromThreshold() throws IOException, DataFormatException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+        out.enableFraming();
+        out.enableCompression(100);
+
+        byte[] largeMessage = new byte[2000];
+        for (int i = 0; i < largeMessage.length; i++) {
+            largeMessage[i] = (byte) (i % 16);
+        }
+
+        try (WriteBatch batch = WriteBatch.begin()) {
+            out.write(new byte[] {1, 2, 3});
+            out.flush();
+            out.write(largeMessage);
+            out.flush();
+        }
+
+        byte[] written = socketOut.toByteArray();
+        assertArrayEquals(new byte[] {3 << 1, 1, 2, 3}, Arrays.copyOf(written, 4), "Frames under the threshold should only have their prefix shifted.");
+
+        int prefix = written[4] & 0x7F;
+        int bodyStart = 5;
+        if ((written[4] & 0x80) != 0) {
+            prefix |= (written[5] & 0x7F) << 7;
+            bodyStart = 6;
+        }
+
+        assertEquals(1, prefix & 1, "Frames from the threshold should be flagged as compressed.");
+        int bodyLength = prefix >>> 1;
+        assertEquals(written.length, bodyStart + bodyLength);
+        assertTrue(bodyLength < largeMessage.length, "Compressed frame should be shorter than the message.");
+
+        assertEquals((byte) (2000 & 0x7F | 0x80), written[bodyStart]);
+        assertEquals((byte) (2000 >>> 7), written[bodyStart + 1]);
+
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(written, bodyStart + 2, bodyLength - 2);
+        byte[] inflated = new byte[largeMessage.length];
+        assertEquals(largeMessage.length, inflater.inflate(inflated));
+        assertArrayEquals(largeMessage, inflated);
+    }
+
+    @Test
+    void checkFlush_withCompression_sendsIncompressibleFramesAsIs() throws IOException {
+        CountingOutputStream socketOut = new CountingOutputStream();
+        CoalescingOutputStream out = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+        out.enableFraming();
+        out.enableCompression(0);
+
+        byte[] randomMessage = new byte[200];
+        new Random(1L).nextBytes(randomMessage);
+
+        out.write(randomMessage);
+        out.flush();
+
+        byte[] written = socketOut.toByteArray();
+        assertEquals(2 + randomMessage.length, written.length);
+        assertEquals((byte) ((200 << 1) & 0x7F | 0x80), written[0]);
+        assertEquals((byte) ((200 << 1) >>> 7), written[1]);
+        assertArrayEquals(randomMessage, Arrays.copyOfRange(written, 2, written.length));
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        private volatile int writes;
+
+        @Override
+        public synchronized void write(int b) {
+            writes++;
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            writes++;
+            super.write(bytes, offset, length);
+        }
+    }
+}
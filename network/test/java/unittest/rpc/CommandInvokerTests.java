@@ -0,0 +1,170 @@
+package unittest.rpc;
+
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.classes.Classes3;
+import tech.fastj.network.rpc.local.command.LocalCommand3;
+import tech.fastj.network.rpc.local.command.LocalCommandInvoker;
+import tech.fastj.network.rpc.server.ServerClient;
+import tech.fastj.network.rpc.server.Session;
+import tech.fastj.network.rpc.server.command.ServerCommand;
+import tech.fastj.network.rpc.server.command.ServerCommandInvoker;
+import tech.fastj.network.rpc.server.command.SessionCommandReader;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mock.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandInvokerTests {
+
+    enum TestCommands implements CommandAlias {
+        Chat(new Classes1<>(ChatMessage.class)),
+        Mixed(new Classes3<>(int.class, String.class, ChatMessage.class));
+
+        private final Classes commandClasses;
+
+        TestCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @Test
+    void checkLocalInvoker_readsEachArgumentInOrder() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class);
+        ChatMessage firstMessage = new ChatMessage("lucasstarsz", 1L, "gg");
+        ChatMessage secondMessage = new ChatMessage("someone else", 2L, "wp");
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 64);
+        outputStream.writeObject(7, int.class);
+        outputStream.writeObject("first", String.class);
+        outputStream.writeObject(firstMessage, ChatMessage.class);
+        outputStream.writeObject(-3, int.class);
+        outputStream.writeObject("second", String.class);
+        outputStream.writeObject(secondMessage, ChatMessage.class);
+
+        List<Object> received = new ArrayList<>();
+        LocalCommand3<Integer, String, ChatMessage> command = (number, name, chatMessage) -> {
+            received.add(number);
+            received.add(name);
+            received.add(chatMessage);
+        };
+
+        LocalCommandInvoker invoker = LocalCommandInvoker.of(TestCommands.Mixed, command);
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(ByteBuffer.wrap(outputStream.toByteArray()), serializer);
+
+        invoker.invoke(inputStream);
+        invoker.invoke(inputStream);
+
+        assertEquals(List.of(7, "first", firstMessage, -3, "second", secondMessage), received);
+        assertEquals(0, inputStream.available(), "Every argument written should have been read.");
+    }
+
+    @Test
+    void checkSessionInvoker_recordsResponsesOnlyWhileTracked() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class);
+        ChatMessage untrackedMessage = new ChatMessage("lucasstarsz", 1L, "before");
+        ChatMessage trackedMessage = new ChatMessage("lucasstarsz", 2L, "after");
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 64);
+        outputStream.writeObject(untrackedMessage, ChatMessage.class);
+        outputStream.writeObject(trackedMessage, ChatMessage.class);
+
+        ResponseRecorder reader = new ResponseRecorder(serializer);
+        List<ChatMessage> received = new ArrayList<>();
+        reader.addCommand(TestCommands.Chat, (ServerClient<TestCommands> client, ChatMessage chatMessage) -> received.add(chatMessage));
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(ByteBuffer.wrap(outputStream.toByteArray()), serializer);
+
+        reader.readCommand(TestCommands.Chat, inputStream, null);
+        assertTrue(reader.recordedResponses.isEmpty(), "Responses to an untracked command shouldn't be recorded.");
+
+        reader.trackResponses(TestCommands.Chat);
+        reader.readCommand(TestCommands.Chat, inputStream, null);
+
+        assertEquals(List.of(untrackedMessage, trackedMessage), received, "The handler should run whether or not responses are tracked.");
+        assertEquals(1, reader.recordedResponses.size());
+        assertArrayEquals(new Object[] {trackedMessage}, reader.recordedResponses.get(0));
+    }
+
+    /** A session reader which records responses without needing a connected client. */
+    private static class ResponseRecorder implements SessionCommandReader<TestCommands> {
+
+        private static final Logger ResponseRecorderLogger = LoggerFactory.getLogger(ResponseRecorder.class);
+
+        private final Serializer serializer;
+        private final Map<TestCommands, ServerCommand> commands = new EnumMap<>(TestCommands.class);
+        private final Map<TestCommands, ServerCommandInvoker<TestCommands>> invokers = new EnumMap<>(TestCommands.class);
+        private final Set<TestCommands> pendingResponses = EnumSet.noneOf(TestCommands.class);
+        private final Map<Session.ResponseId<TestCommands>, Object[]> responses = new HashMap<>();
+        private final List<Object[]> recordedResponses = new ArrayList<>();
+
+        private ResponseRecorder(Serializer serializer) {
+            this.serializer = serializer;
+            resetCommands();
+        }
+
+        @Override
+        public void recordResponse(TestCommands responseId, ServerClient<TestCommands> client, Object[] arguments) {
+            recordedResponses.add(arguments);
+        }
+
+        @Override
+        public Logger getLogger() {
+            return ResponseRecorderLogger;
+        }
+
+        @Override
+        public Class<TestCommands> getAliasClass() {
+            return TestCommands.class;
+        }
+
+        @Override
+        public Map<TestCommands, ServerCommand> getCommands() {
+            return commands;
+        }
+
+        @Override
+        public Map<TestCommands, ServerCommandInvoker<TestCommands>> getInvokers() {
+            return invokers;
+        }
+
+        @Override
+        public Serializer getSerializer() {
+            return serializer;
+        }
+
+        @Override
+        public Set<TestCommands> getPendingResponses() {
+            return pendingResponses;
+        }
+
+        @Override
+        public Map<Session.ResponseId<TestCommands>, Object[]> getResponses() {
+            return responses;
+        }
+    }
+}
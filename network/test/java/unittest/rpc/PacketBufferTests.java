@@ -0,0 +1,135 @@
+package unittest.rpc;
+
+import tech.fastj.network.config.TcpBufferConfig;
+import tech.fastj.network.rpc.CoalescingOutputStream;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.NetworkSender;
+import tech.fastj.network.rpc.PacketBuffer;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes0;
+import tech.fastj.network.rpc.classes.Classes3;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.message.SentMessageType;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PacketBufferTests {
+
+    enum TestCommands implements CommandAlias {
+        NoData(new Classes0()),
+        MultipleData(new Classes3<>(UUID.class, int.class, byte[].class));
+
+        private final Classes commandClasses;
+
+        TestCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @Test
+    void checkSendCommand_writesReadableCommandPacket() throws IOException {
+        ByteArrayOutputStream socketOut = new ByteArrayOutputStream();
+        TestSender sender = new TestSender(socketOut);
+        UUID id = UUID.randomUUID();
+        byte[] bytes = {1, 2, 3};
+
+        sender.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.MultipleData, id, 42, bytes);
+
+        BufferMessageInputStream packetIn = new BufferMessageInputStream(ByteBuffer.wrap(socketOut.toByteArray()), sender.getSerializer());
+
+        assertEquals(SentMessageType.RPCCommand, packetIn.readObject(SentMessageType.class));
+        assertEquals(CommandTarget.Server, packetIn.readObject(CommandTarget.class));
+        assertEquals(TestCommands.MultipleData, packetIn.readObject(TestCommands.class));
+        assertEquals(id, packetIn.readObject(UUID.class));
+        assertEquals(42, packetIn.readObject(int.class));
+        assertArrayEquals(bytes, (byte[]) packetIn.readObject(byte[].class));
+        assertEquals(0, packetIn.available(), "The packet should end after the command's data.");
+    }
+
+    @Test
+    void checkSendCommand_inSteadyState_doesNotAllocate() throws IOException {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        TestSender sender = new TestSender(OutputStream.nullOutputStream());
+        sender.tcpWriter.enableFraming();
+
+        Object[] data = {UUID.randomUUID(), 42, new byte[64]};
+        byte[] rawData = new byte[64];
+        long threadId = Thread.currentThread().getId();
+        int sends = 100_000;
+
+        for (int i = 0; i < sends; i++) {
+            sendAll(sender, data, rawData);
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < sends; i++) {
+            sendAll(sender, data, rawData);
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(
+            allocated < sends / 10,
+            "Sending " + (sends * 3) + " commands should allocate (next to) nothing, but allocated " + allocated + " bytes."
+        );
+    }
+
+    private static void sendAll(TestSender sender, Object[] data, byte[] rawData) throws IOException {
+        sender.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.NoData);
+        sender.sendCommand(NetworkType.TCP, CommandTarget.Server, TestCommands.MultipleData, data);
+        sender.sendCommand(NetworkType.TCP, CommandTarget.Client, TestCommands.NoData, rawData);
+    }
+
+    private static class TestSender implements NetworkSender {
+        private final Serializer serializer = new Serializer();
+        private final PacketBuffer packetBuffer = new PacketBuffer(serializer);
+        private final CoalescingOutputStream tcpWriter;
+
+        private TestSender(OutputStream socketOut) {
+            tcpWriter = new CoalescingOutputStream(socketOut, TcpBufferConfig.Default);
+        }
+
+        @Override
+        public Serializer getSerializer() {
+            return serializer;
+        }
+
+        @Override
+        public MessageOutputStream beginPacket(NetworkType networkType, SentMessageType messageType) throws IOException {
+            MessageOutputStream packetOut = packetBuffer.begin();
+            packetOut.writeEnum(messageType);
+
+            return packetOut;
+        }
+
+        @Override
+        public void sendPacket(NetworkType networkType) throws IOException {
+            packetBuffer.writeTo(tcpWriter);
+            tcpWriter.flush();
+        }
+    }
+}
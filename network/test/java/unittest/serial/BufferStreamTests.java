@@ -0,0 +1,108 @@
+package unittest.serial;
+
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import mock.ChatMessage;
+import mock.GameState;
+import mock.PlayerSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferStreamTests {
+
+    @Test
+    void checkBufferStreams_matchStreamBytes_inEveryWireFormat() throws IOException {
+        PlayerSnapshot message = new PlayerSnapshot(
+            UUID.randomUUID(), GameState.Playing, true, (byte) -3, (short) 1200, -42, 1L << 40,
+            1.5f, Math.PI, new ChatMessage("lucasstarsz", 7L, "gg")
+        );
+
+        for (WireFormat wireFormat : WireFormat.values()) {
+            Serializer serializer = new Serializer(ChatMessage.class, PlayerSnapshot.class);
+            serializer.setWireFormat(wireFormat);
+
+            ByteArrayOutputStream streamData = new ByteArrayOutputStream();
+            serializer.writeMessage(new MessageOutputStream(streamData, serializer), message);
+
+            // starts smaller than the message, so writing it has to grow the buffer
+            BufferMessageOutputStream bufferOut = new BufferMessageOutputStream(serializer, 1);
+            serializer.writeMessage(bufferOut, message);
+
+            assertArrayEquals(streamData.toByteArray(), bufferOut.toByteArray(), "The buffer stream should write the same bytes in " + wireFormat + ".");
+
+            MessageInputStream streamIn = new MessageInputStream(new ByteArrayInputStream(bufferOut.toByteArray()), serializer);
+            BufferMessageInputStream bufferIn = new BufferMessageInputStream(ByteBuffer.wrap(bufferOut.toByteArray()), serializer);
+
+            assertEquals(serializer.readMessage(streamIn, PlayerSnapshot.class), serializer.readMessage(bufferIn, PlayerSnapshot.class));
+            assertEquals(0, bufferIn.available(), "Every byte written should have been read back.");
+        }
+    }
+
+    @Test
+    void checkBufferInputStream_readsOnlyItsRange() throws IOException {
+        Serializer serializer = new Serializer();
+        ByteBuffer buffer = ByteBuffer.allocate(16).putInt(1).putInt(2).putInt(3).putInt(4);
+        buffer.position(2);
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(buffer, Integer.BYTES, Integer.BYTES * 2);
+
+        assertEquals(2, inputStream.readInt());
+        assertEquals(3, inputStream.readInt());
+        assertEquals(Integer.BYTES * 2, inputStream.consumed());
+        assertEquals(-1, inputStream.read(), "Reads should stop at the end of the range.");
+        assertEquals(2, buffer.position(), "Reading should not move the buffer's own position.");
+    }
+
+    @Test
+    void checkBufferInputStream_withTruncatedData_throwsAndRecordsUnderflow() throws IOException {
+        Serializer serializer = new Serializer();
+        byte[] data = serializer.writeObjects(42L, "lucasstarsz");
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(data, 0, Long.BYTES + 2);
+
+        assertEquals(42L, inputStream.readLong());
+        assertThrows(EOFException.class, () -> inputStream.readObject(String.class), "Reading past the end of the range should fail.");
+        assertTrue(inputStream.hasUnderflowed(), "Reading past the end of the range should be recorded.");
+
+        inputStream.reset(data, 0, data.length);
+
+        assertEquals(42L, inputStream.readLong());
+        assertEquals("lucasstarsz", inputStream.readObject(String.class), "A reset stream should read its new range from the start.");
+        assertFalse(inputStream.hasUnderflowed(), "Resetting should clear the recorded underflow.");
+    }
+
+    @Test
+    void checkBufferInputStream_withCorruptArrayLength_throwsBeforeAllocating() {
+        Serializer serializer = new Serializer(ChatMessage.class);
+        serializer.setWireFormat(WireFormat.Compact);
+
+        // a length of about 2^31 elements, with nothing after it
+        byte[] corruptLength = {(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+
+        inputStream.reset(corruptLength, 0, corruptLength.length);
+        assertThrows(EOFException.class, inputStream::readIntArray, "An int array longer than the remaining bytes should be rejected.");
+
+        inputStream.reset(corruptLength, 0, corruptLength.length);
+        assertThrows(EOFException.class, () -> inputStream.readArray(ChatMessage.class), "A message array longer than the remaining bytes should be rejected.");
+    }
+}
@@ -1,27 +1,45 @@
 package unittest.serial;
 
 import tech.fastj.network.serial.Message;
+import tech.fastj.network.serial.Quantized;
 import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.SerializerRegistry;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.util.GeneratedSerializerUtils;
 import tech.fastj.network.serial.util.MessageUtils;
+import tech.fastj.network.serial.util.RecordSerializerUtils;
+import tech.fastj.network.serial.util.SchemaUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Map;
+import java.util.Random;
 import java.util.UUID;
 
+import mock.CanvasFrame;
+import mock.ChatEnvelope;
 import mock.ChatMessage;
+import mock.GameState;
+import mock.PlayerMovement;
+import mock.PlayerSnapshot;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SerializerTests {
 
     @Test
     void checkCreateSerializer_withMessageMapping() {
-        UUID chatMessageId = UUID.randomUUID();
-        Map<UUID, Class<? extends Message>> messageTypes = Map.of(chatMessageId, ChatMessage.class);
+        int chatMessageId = 7;
+        Map<Integer, Class<? extends Message>> messageTypes = Map.of(chatMessageId, ChatMessage.class);
         Serializer serializer = new Serializer(messageTypes);
 
         assertNotNull(
@@ -34,7 +52,7 @@ class SerializerTests {
     void checkReadAndWriteMessage() throws IOException {
         Serializer serializer = new Serializer();
 
-        UUID chatMessageId = UUID.randomUUID();
+        int chatMessageId = 7;
         serializer.registerSerializer(chatMessageId, ChatMessage.class);
 
         ChatMessage messageOut = new ChatMessage("lucasstarsz", System.currentTimeMillis(), "Hello world!");
@@ -56,7 +74,7 @@ class SerializerTests {
     void checkReadAndWriteMessage_noStreamSpecified() throws IOException {
         Serializer serializer = new Serializer();
 
-        UUID chatMessageId = UUID.randomUUID();
+        int chatMessageId = 7;
         serializer.registerSerializer(chatMessageId, ChatMessage.class);
 
         ChatMessage messageOut = new ChatMessage("lucasstarsz", System.currentTimeMillis(), "Hello world!");
@@ -71,4 +89,297 @@ class SerializerTests {
         ChatMessage messageIn = (ChatMessage) serializer.readMessage(data, ChatMessage.class);
         assertEquals(messageOut, messageIn, "The message read in should match the message written out.");
     }
+
+    @Test
+    void checkReadAndWriteMessage_withEveryComponentKind() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class, PlayerSnapshot.class);
+
+        PlayerSnapshot messageOut = new PlayerSnapshot(
+            UUID.randomUUID(), GameState.Paused, true, (byte) -3, (short) 1200, 42, 1L << 40,
+            1.5f, Math.PI, new ChatMessage("lucasstarsz", 7L, "gg")
+        );
+        PlayerSnapshot messageWithNulls = new PlayerSnapshot(null, null, false, (byte) 0, (short) 0, 0, 0L, 0f, 0d, null);
+
+        for (PlayerSnapshot message : new PlayerSnapshot[] {messageOut, messageWithNulls}) {
+            byte[] data = serializer.writeMessage(message);
+
+            assertEquals(
+                MessageUtils.bytesLength(serializer, message), data.length,
+                "The computed length of the message should match the length written."
+            );
+            assertEquals(message, serializer.readMessage(data, PlayerSnapshot.class), "The message read in should match the message written out.");
+        }
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withUnregisteredNestedMessage() throws IOException {
+        Serializer serializer = new Serializer(PlayerSnapshot.class);
+        PlayerSnapshot messageOut = new PlayerSnapshot(
+            UUID.randomUUID(), GameState.Results, false, (byte) 1, (short) 2, 3, 4L, 5f, 6d, new ChatMessage("lucasstarsz", 8L, "nested")
+        );
+
+        byte[] data = serializer.writeMessage(messageOut);
+
+        assertEquals(MessageUtils.bytesLength(serializer, messageOut), data.length, "The computed length of the message should match the length written.");
+        assertEquals(messageOut, serializer.readMessage(data, PlayerSnapshot.class), "Nested messages should not need to be registered themselves.");
+    }
+
+    @Test
+    void checkRegisterSerializer_prefersGeneratedSerializer() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class, PlayerSnapshot.class);
+        PlayerSnapshot message = new PlayerSnapshot(
+            UUID.randomUUID(), GameState.Playing, true, (byte) 2, (short) -7, 3, 99L, 0.25f, 180d, new ChatMessage("lucasstarsz", 1L, "hi")
+        );
+
+        assertEquals(
+            GeneratedSerializerUtils.generatedName(PlayerSnapshot.class), serializer.getSerializer(PlayerSnapshot.class).getClass().getName(),
+            "A message annotated with @NetworkMessage should be registered with its generated serializer."
+        );
+
+        Serializer runtimeSerializer = new Serializer(ChatMessage.class);
+        runtimeSerializer.registerSerializer(SchemaUtils.typeId(PlayerSnapshot.class), RecordSerializerUtils.generate(runtimeSerializer, PlayerSnapshot.class));
+
+        assertArrayEquals(
+            runtimeSerializer.writeMessage(message), serializer.writeMessage(message),
+            "The generated serializer should write the same bytes as the runtime generated one."
+        );
+    }
+
+    @Test
+    void checkRegisterSerializer_assignsTheSameTypeIdToEachSerializer() {
+        Serializer serializer = new Serializer(ChatMessage.class, PlayerSnapshot.class);
+        Serializer otherSerializer = new Serializer(PlayerSnapshot.class, ChatMessage.class);
+
+        assertEquals(
+            serializer.getTypeId(ChatMessage.class), otherSerializer.getTypeId(ChatMessage.class),
+            "A message's type id should not depend on the order it was registered in."
+        );
+        assertEquals(
+            serializer.getTypeId(PlayerSnapshot.class), otherSerializer.getTypeId(PlayerSnapshot.class),
+            "A message's type id should not depend on the order it was registered in."
+        );
+    }
+
+    @Test
+    void checkWriteMessage_toByteArrays_returnsIndependentCopies() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class);
+
+        ChatMessage largeMessage = new ChatMessage("lucasstarsz", 1L, "a".repeat(100_000));
+        ChatMessage smallMessage = new ChatMessage("lucasstarsz", 2L, "b");
+        ChatMessage[] messages = {smallMessage, largeMessage, null};
+
+        byte[] largeData = serializer.writeMessage(largeMessage);
+        byte[] smallData = serializer.writeMessage(smallMessage);
+        byte[] arrayData = serializer.writeMessages(messages);
+        byte[] smallDataAgain = serializer.writeMessage(smallMessage);
+
+        assertEquals(MessageUtils.bytesLength(serializer, largeMessage), largeData.length, "Writing in one pass should not leave unused bytes.");
+        assertEquals(MessageUtils.bytesLength(serializer, smallMessage), smallData.length, "Writing in one pass should not leave unused bytes.");
+        assertArrayEquals(smallData, smallDataAgain, "Reusing a stream should not change what is written.");
+
+        assertEquals(largeMessage, serializer.readMessage(largeData, ChatMessage.class), "Earlier arrays should not change when the stream is reused.");
+        assertEquals(smallMessage, serializer.readMessage(smallData, ChatMessage.class));
+        assertArrayEquals(messages, new MessageInputStream(new ByteArrayInputStream(arrayData), serializer).readArray(ChatMessage.class));
+    }
+
+    @Test
+    void checkRegisterSerializer_withTakenTypeId_throws() {
+        Serializer serializer = new Serializer();
+        serializer.registerSerializer(7, ChatMessage.class);
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> serializer.registerSerializer(7, ChatEnvelope.class),
+            "Registering a second message type with the same type id should fail."
+        );
+    }
+
+    @Test
+    void checkRegisterSerializer_inFrozenRegistry_onlyAcceptsRegisteredTypes() {
+        SerializerRegistry registry = new SerializerRegistry();
+        Serializer serializer = new Serializer(registry);
+        serializer.registerSerializer(ChatMessage.class);
+        registry.freeze();
+
+        serializer.registerSerializer(ChatMessage.class);
+        assertThrows(
+            IllegalStateException.class,
+            () -> serializer.registerSerializer(PlayerSnapshot.class),
+            "Registering a new message type in a frozen registry should fail."
+        );
+    }
+
+    @Test
+    void checkSerializersSharingRegistry_keepTheirOwnWireFormat() throws IOException {
+        SerializerRegistry registry = new SerializerRegistry();
+        Serializer fixedSerializer = new Serializer(registry);
+        Serializer compactSerializer = new Serializer(registry);
+        compactSerializer.setWireFormat(WireFormat.Compact);
+
+        fixedSerializer.registerSerializer(ChatMessage.class);
+        registry.freeze();
+
+        assertSame(fixedSerializer.getSerializer(ChatMessage.class), compactSerializer.getSerializer(ChatMessage.class), "Serializers sharing a registry should share its message serializers.");
+
+        ChatMessage messageOut = new ChatMessage("lucasstarsz", 1_000_000L, "Hello world!");
+        byte[] fixedData = fixedSerializer.writeMessage(messageOut);
+        byte[] compactData = compactSerializer.writeMessage(messageOut);
+
+        assertTrue(compactData.length < fixedData.length, "Each serializer should write in its own wire format.");
+        assertEquals(messageOut, fixedSerializer.readMessage(fixedData, ChatMessage.class));
+        assertEquals(messageOut, compactSerializer.readMessage(compactData, ChatMessage.class));
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withTypedMessageField() throws IOException {
+        Serializer serializer = new Serializer(ChatEnvelope.class, ChatMessage.class, PlayerSnapshot.class);
+        ChatEnvelope chatEnvelope = new ChatEnvelope(UUID.randomUUID(), new ChatMessage("lucasstarsz", 9L, "typed"));
+        ChatEnvelope snapshotEnvelope = new ChatEnvelope(
+            UUID.randomUUID(), new PlayerSnapshot(UUID.randomUUID(), GameState.Playing, true, (byte) 1, (short) 2, 3, 4L, 5f, 6d, null)
+        );
+        ChatEnvelope emptyEnvelope = new ChatEnvelope(UUID.randomUUID(), null);
+
+        for (ChatEnvelope message : new ChatEnvelope[] {chatEnvelope, snapshotEnvelope, emptyEnvelope}) {
+            byte[] data = serializer.writeMessage(message);
+
+            assertEquals(MessageUtils.bytesLength(serializer, message), data.length, "The computed length of the message should match the length written.");
+            assertEquals(message, serializer.readMessage(data, ChatEnvelope.class), "A message field should be read back as the type it was written as.");
+        }
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withQuantizedComponents() throws IOException {
+        Serializer serializer = new Serializer(PlayerMovement.class);
+        UUID playerId = UUID.randomUUID();
+        PlayerMovement messageOut = new PlayerMovement(playerId, 123.4567f, -0.01d, -90f, 1f);
+
+        byte[] data = serializer.writeMessage(messageOut);
+        PlayerMovement messageIn = (PlayerMovement) serializer.readMessage(data, PlayerMovement.class);
+
+        assertEquals(MessageUtils.MinMessageBytes + MessageUtils.UuidBytes + 2 + 2 + 2 + 1, data.length, "Each quantized component should be written in the fewest bytes holding its bits.");
+        assertEquals(MessageUtils.bytesLength(serializer, messageOut), data.length, "The computed length of the message should match the length written.");
+        assertEquals(playerId, messageIn.playerId(), "Components that aren't quantized should be read back exactly.");
+        assertEquals(123.4567f, messageIn.x(), 1024f / (1 << 16), "A quantized component should be read back within half a step.");
+        assertEquals(-0.01d, messageIn.y(), 1024d / (1 << 16), "A quantized double component should be read back within half a step.");
+        assertEquals(270f, messageIn.rotation(), 180f / (1 << 12), "An angle should be read back wrapped into [0, 360).");
+        assertEquals(1f, messageIn.charge(), "A value that lands on a step should be read back exactly.");
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withQuantizedComponentsOutOfRange() throws IOException {
+        Serializer serializer = new Serializer(PlayerMovement.class);
+        PlayerMovement messageOut = new PlayerMovement(UUID.randomUUID(), 5000f, -5000d, 359.99f, Float.NaN);
+
+        PlayerMovement messageIn = (PlayerMovement) serializer.readMessage(serializer.writeMessage(messageOut), PlayerMovement.class);
+
+        assertEquals(1024f - 2048f / (1 << 16), messageIn.x(), "Values above the range should be clamped to its last step.");
+        assertEquals(-1024d, messageIn.y(), "Values below the range should be clamped to its minimum.");
+        assertEquals(0f, messageIn.rotation(), "An angle within half a step of a full turn should be read back as 0.");
+        assertEquals(0f, messageIn.charge(), "NaN should be read back as the range's minimum.");
+    }
+
+    @Test
+    void checkRegisterSerializer_withQuantizedComponents_matchesGeneratedSerializer() throws IOException {
+        Serializer serializer = new Serializer(PlayerMovement.class);
+        PlayerMovement message = new PlayerMovement(UUID.randomUUID(), -512.3f, 77.7d, 725f, 0.3f);
+
+        Serializer runtimeSerializer = new Serializer();
+        runtimeSerializer.registerSerializer(SchemaUtils.typeId(PlayerMovement.class), RecordSerializerUtils.generate(runtimeSerializer, PlayerMovement.class));
+
+        assertArrayEquals(
+            runtimeSerializer.writeMessage(message), serializer.writeMessage(message),
+            "The generated serializer should quantize components exactly as the runtime generated one."
+        );
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withPrimitiveArrays() throws IOException {
+        Serializer serializer = new Serializer(CanvasFrame.class);
+        Random random = new Random(17);
+
+        // longer than the streams' bulk copy buffer, so they are copied in several chunks
+        short[] heights = new short[700];
+        int[] colors = new int[300];
+        long[] timestamps = new long[200];
+        float[] weights = new float[600];
+        double[] samples = new double[150];
+        boolean[] visible = new boolean[13];
+        BitSet pixels = new BitSet(160000);
+
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = (short) random.nextInt();
+        }
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = random.nextInt();
+        }
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = random.nextLong();
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextFloat();
+        }
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextDouble();
+        }
+        for (int i = 0; i < visible.length; i++) {
+            visible[i] = random.nextBoolean();
+        }
+        for (int i = 0; i < 500; i++) {
+            pixels.set(random.nextInt(160000));
+        }
+
+        CanvasFrame messageOut = new CanvasFrame(heights, colors, timestamps, weights, samples, visible, pixels);
+        byte[] data = serializer.writeMessage(messageOut);
+
+        assertEquals(MessageUtils.bytesLength(serializer, messageOut), data.length, "The computed length of the message should match the length written.");
+
+        CanvasFrame fromBuffer = (CanvasFrame) serializer.readMessage(data, CanvasFrame.class);
+        CanvasFrame fromStream = (CanvasFrame) serializer.readMessage(new ByteArrayInputStream(data), CanvasFrame.class);
+
+        for (CanvasFrame messageIn : new CanvasFrame[] {fromBuffer, fromStream}) {
+            assertArrayEquals(heights, messageIn.heights());
+            assertArrayEquals(colors, messageIn.colors());
+            assertArrayEquals(timestamps, messageIn.timestamps());
+            assertArrayEquals(weights, messageIn.weights());
+            assertArrayEquals(samples, messageIn.samples());
+            assertArrayEquals(visible, messageIn.visible());
+            assertEquals(pixels, messageIn.pixels());
+        }
+
+        CanvasFrame messageWithNulls = new CanvasFrame(null, null, null, null, null, null, null);
+        assertEquals(messageWithNulls, serializer.readMessage(serializer.writeMessage(messageWithNulls), CanvasFrame.class), "Null arrays should be read back as null.");
+    }
+
+    @Test
+    void checkWriteBooleanArray_packsEightToAByte() throws IOException {
+        Serializer serializer = new Serializer();
+        boolean[] values = {true, false, false, true, false, false, false, false, true};
+
+        byte[] data = serializer.writeObject(values);
+
+        assertArrayEquals(new byte[] {0, 0, 0, 9, 0b1001, 1}, data, "Values should be written lowest bit first, after their count.");
+        assertArrayEquals(values, (boolean[]) new MessageInputStream(new ByteArrayInputStream(data), serializer).readObject(boolean[].class));
+    }
+
+    @Test
+    void checkGenerateSerializer_withInvalidQuantization_throws() {
+        Serializer serializer = new Serializer();
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> RecordSerializerUtils.generate(serializer, EmptyRange.class),
+            "A quantized range with min >= max should be rejected."
+        );
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> RecordSerializerUtils.generate(serializer, QuantizedInt.class),
+            "Only float and double components should be quantizable."
+        );
+    }
+
+    record EmptyRange(@Quantized(min = 1f, max = 1f, bits = 8) float value) implements Message {
+    }
+
+    record QuantizedInt(@Quantized(min = 0f, max = 100f, bits = 8) int value) implements Message {
+    }
 }
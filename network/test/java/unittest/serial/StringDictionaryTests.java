@@ -0,0 +1,120 @@
+package unittest.serial;
+
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.StringDictionary;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.BufferMessageInputStream;
+import tech.fastj.network.serial.write.BufferMessageOutputStream;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTests {
+
+    @Test
+    void checkWriteString_withDictionary_writesIds() throws IOException {
+        Serializer serializer = createSerializer();
+        StringDictionary senderStrings = new StringDictionary();
+        StringDictionary receiverStrings = new StringDictionary();
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 16);
+        outputStream.setStringDictionary(senderStrings);
+        outputStream.writeString("lucasstarsz");
+        outputStream.writeString("lucasstarsz");
+        outputStream.writeString(null);
+
+        assertEquals(0, outputStream.getHighestStringId(), "Both writes should use the name's id.");
+        assertEquals(3, outputStream.length(), "Each id should take a single byte, like a null string.");
+
+        // the definition is sent ahead of the data using it
+        receiverStrings.define(new String(senderStrings.bytes(0), StandardCharsets.UTF_8));
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(outputStream.data(), 0, outputStream.length());
+        inputStream.setStringDictionary(receiverStrings);
+
+        assertEquals("lucasstarsz", inputStream.readString());
+        assertEquals("lucasstarsz", inputStream.readString());
+        assertNull(inputStream.readString());
+    }
+
+    @Test
+    void checkWriteString_withoutDictionary_writesInline() throws IOException {
+        Serializer serializer = createSerializer();
+        String name = "Zo\u00eb \u2603 \ud83c\udf89";
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 16);
+        outputStream.writeString(name);
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(outputStream.data(), 0, outputStream.length());
+
+        assertEquals(name, inputStream.readString(), "Strings written inline should be readable without a dictionary.");
+        assertEquals(0, inputStream.available());
+    }
+
+    @Test
+    void checkReadString_withUndefinedId_throws() throws IOException {
+        Serializer serializer = createSerializer();
+
+        BufferMessageOutputStream outputStream = new BufferMessageOutputStream(serializer, 16);
+        outputStream.setStringDictionary(new StringDictionary());
+        outputStream.writeString("lucasstarsz");
+
+        BufferMessageInputStream inputStream = new BufferMessageInputStream(serializer);
+        inputStream.reset(outputStream.data(), 0, outputStream.length());
+        inputStream.setStringDictionary(new StringDictionary());
+
+        assertThrows(StreamCorruptedException.class, inputStream::readString, "An id without a definition should not be readable.");
+    }
+
+    @Test
+    void checkIdOf_withLongStringOrFullDictionary_returnsNoId() {
+        StringDictionary strings = new StringDictionary();
+
+        assertEquals(StringDictionary.NoId, strings.idOf("a".repeat(StringDictionary.MaxStringLength + 1)), "Long strings should be written inline.");
+
+        for (int i = 0; i < StringDictionary.MaxStrings; i++) {
+            assertEquals(i, strings.idOf("name" + i));
+        }
+
+        assertEquals(StringDictionary.NoId, strings.idOf("one too many"), "A full dictionary should not give out more ids.");
+        assertEquals(7, strings.idOf("name7"), "Strings with ids should keep them once the dictionary is full.");
+        assertFalse(strings.define("one too many"), "A full dictionary should not accept more definitions.");
+    }
+
+    @Test
+    void checkClear_startsIdsOver() {
+        StringDictionary strings = new StringDictionary();
+
+        for (int i = 0; i < StringDictionary.MaxStrings; i++) {
+            strings.idOf("name" + i);
+        }
+
+        assertTrue(strings.isFull());
+
+        strings.clear();
+
+        assertEquals(0, strings.size());
+        assertNull(strings.get(0), "Cleared ids should not be readable.");
+        assertEquals(0, strings.idOf("one too many"), "A cleared dictionary should give out ids from 0 again.");
+        assertEquals(1, strings.idOf("name7"), "Strings from before clearing should be given new ids.");
+    }
+
+    private static Serializer createSerializer() {
+        Serializer serializer = new Serializer();
+        serializer.setWireFormat(WireFormat.Compact);
+        serializer.setUsesStringDictionary(true);
+
+        return serializer;
+    }
+}
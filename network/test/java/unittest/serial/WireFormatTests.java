@@ -0,0 +1,89 @@
+package unittest.serial;
+
+import tech.fastj.network.rpc.PacketBuffer;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.SentMessageType;
+import tech.fastj.network.serial.Serializer;
+import tech.fastj.network.serial.WireFormat;
+import tech.fastj.network.serial.read.MessageInputStream;
+import tech.fastj.network.serial.write.MessageOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import mock.ChatMessage;
+import mock.GameState;
+import mock.PlayerSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WireFormatTests {
+
+    @Test
+    void checkReadAndWriteObjects_withCompactFormat() throws IOException {
+        Serializer serializer = new Serializer();
+        serializer.setWireFormat(WireFormat.Compact);
+
+        UUID id = UUID.randomUUID();
+        int[] ints = {Integer.MIN_VALUE, -1, 0, 1, 300, Integer.MAX_VALUE};
+        byte[] data = serializer.writeObjects(-64, 63, Integer.MIN_VALUE, "lucasstarsz", GameState.Results, id, ints, new byte[] {1, 2});
+
+        MessageInputStream inputStream = new MessageInputStream(new ByteArrayInputStream(data), serializer);
+
+        assertEquals(-64, inputStream.readObject(int.class));
+        assertEquals(63, inputStream.readObject(Integer.class));
+        assertEquals(Integer.MIN_VALUE, inputStream.readObject(int.class));
+        assertEquals("lucasstarsz", inputStream.readObject(String.class));
+        assertEquals(GameState.Results, inputStream.readObject(GameState.class));
+        assertEquals(id, inputStream.readObject(UUID.class));
+        assertArrayEquals(ints, (int[]) inputStream.readObject(int[].class));
+        assertArrayEquals(new byte[] {1, 2}, (byte[]) inputStream.readObject(byte[].class));
+        assertEquals(-1, inputStream.read(), "Every byte written should have been read back.");
+    }
+
+    @Test
+    void checkReadAndWriteMessage_withCompactFormat() throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class, PlayerSnapshot.class);
+        serializer.setWireFormat(WireFormat.Compact);
+
+        PlayerSnapshot messageOut = new PlayerSnapshot(
+            UUID.randomUUID(), GameState.Paused, true, (byte) -3, (short) 1200, -42, 1L << 40,
+            1.5f, Math.PI, new ChatMessage("lucasstarsz", 7L, "gg")
+        );
+        PlayerSnapshot messageWithNulls = new PlayerSnapshot(null, null, false, (byte) 0, (short) 0, 0, 0L, 0f, 0d, null);
+
+        for (PlayerSnapshot message : new PlayerSnapshot[] {messageOut, messageWithNulls}) {
+            byte[] data = serializer.writeMessage(message);
+            assertEquals(message, serializer.readMessage(data, PlayerSnapshot.class), "The message read in should match the message written out.");
+        }
+    }
+
+    @Test
+    void checkCompactFormat_shrinksCommandHeadersAndLengths() throws IOException {
+        ChatMessage message = new ChatMessage("lucasstarsz", 7L, "gg");
+
+        int fixedLength = writeCommand(WireFormat.Fixed, message);
+        int compactLength = writeCommand(WireFormat.Compact, message);
+
+        // 3 header enums and 2 string lengths, each down from 4 bytes to 1
+        assertEquals(fixedLength - 5 * 3, compactLength);
+    }
+
+    private static int writeCommand(WireFormat wireFormat, ChatMessage message) throws IOException {
+        Serializer serializer = new Serializer(ChatMessage.class);
+        serializer.setWireFormat(wireFormat);
+
+        PacketBuffer packetBuffer = new PacketBuffer(serializer);
+        MessageOutputStream packetOut = packetBuffer.begin();
+
+        packetOut.writeEnum(SentMessageType.RPCCommand);
+        packetOut.writeEnum(CommandTarget.Client);
+        packetOut.writeEnum(GameState.Playing);
+        serializer.writeMessage(packetOut, message);
+
+        return packetBuffer.length();
+    }
+}
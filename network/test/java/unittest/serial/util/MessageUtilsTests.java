@@ -19,6 +19,7 @@ class MessageUtilsTests {
         assertEquals(MessageUtils.MinStringBytes, MessageUtils.bytesLength((String) null), "The length of a written null string should be the minimum amount.");
         assertEquals(MessageUtils.MinStringBytes + 1, MessageUtils.bytesLength("a"));
         assertEquals(MessageUtils.MinStringBytes + 12, MessageUtils.bytesLength("Hello world!"));
+        assertEquals(MessageUtils.MinStringBytes + 13, MessageUtils.bytesLength("Zo\u00eb \u2603 \ud83c\udf89"), "Non-ASCII chars should be counted in UTF-8 bytes.");
         assertEquals(MessageUtils.MinStringBytes * 2, MessageUtils.bytesLength("", ""));
         assertEquals((MessageUtils.MinStringBytes + 1) * 2, MessageUtils.bytesLength("a", "b"));
 
@@ -28,7 +29,7 @@ class MessageUtilsTests {
         int expectedMessageSize = MessageUtils.MinMessageBytes + (MessageUtils.MinStringBytes + username.length()) + Long.BYTES + (MessageUtils.MinStringBytes + message.length());
 
         Serializer serializer = new Serializer();
-        UUID chatMessageId = UUID.randomUUID();
+        int chatMessageId = 7;
         serializer.registerSerializer(chatMessageId, ChatMessage.class);
 
         assertEquals(MessageUtils.MinMessageBytes, MessageUtils.bytesLength(serializer, (Message) null), "The length of a written null message should be the minimum amount.");
@@ -37,5 +38,10 @@ class MessageUtilsTests {
 
         assertEquals(MessageUtils.UuidBytes, MessageUtils.bytesLength(serializer, UUID.randomUUID()));
         assertEquals(MessageUtils.EnumBytes, MessageUtils.bytesLength(serializer, StandardCopyOption.ATOMIC_MOVE));
+
+        assertEquals(Integer.BYTES + 3 * Integer.BYTES, MessageUtils.bytesLength(serializer, new int[3]), "The length of an array should count each element's width.");
+        assertEquals(Integer.BYTES + 3 * Float.BYTES, MessageUtils.bytesLength(serializer, new float[3]));
+        assertEquals(Integer.BYTES + 3 * Long.BYTES, MessageUtils.bytesLength(serializer, new long[3]));
+        assertEquals(Integer.BYTES + 2, MessageUtils.bytesLength(serializer, new boolean[9]), "Booleans should be counted eight to a byte.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package unittest.session;
+
+import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.config.WireFeature;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.message.prebuilt.LobbyIdentifier;
+import tech.fastj.network.rpc.server.Lobby;
+import tech.fastj.network.rpc.server.Server;
+import tech.fastj.network.rpc.server.ServerClient;
+import tech.fastj.network.rpc.server.Session;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import mock.ChatMessage;
+import mock.SingleSessionLobby;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BroadcastTests {
+
+    private static final int Port = 19999;
+    private static final InetAddress ClientTargetAddress;
+    private static Server<BroadcastCommands> server;
+    private static final BiFunction<ServerClient<BroadcastCommands>, String, Lobby<BroadcastCommands>> LobbyCreator = (client, serverName) -> new SingleSessionLobby<>(server, serverName, BroadcastCommands.class);
+
+    static {
+        try {
+            ClientTargetAddress = InetAddress.getLocalHost();
+        } catch (UnknownHostException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    enum BroadcastCommands implements CommandAlias {
+        Broadcast(new Classes1<>(UUID.class)),
+        Chat(new Classes1<>(ChatMessage.class));
+
+        private final Classes commandClasses;
+
+        BroadcastCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @AfterEach
+    void cleanServer() {
+        server.stopAllLobbies();
+        server.disconnectAllClients();
+    }
+
+    @Test
+    void checkBroadcastExcept_reachesEveryOtherClientInSession() throws IOException, InterruptedException {
+        List<LocalClient<BroadcastCommands>> clients = connectClientsToOneLobby(3);
+        Session<BroadcastCommands> session = getSession(clients.get(0));
+        UUID excludedClientId = clients.get(0).getClientId();
+
+        Set<UUID> receivers = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(2);
+        UUID payload = UUID.randomUUID();
+
+        for (LocalClient<BroadcastCommands> client : clients) {
+            client.addCommand(BroadcastCommands.Broadcast, (UUID receivedPayload) -> {
+                if (payload.equals(receivedPayload)) {
+                    receivers.add(client.getClientId());
+                    latch.countDown();
+                }
+            });
+        }
+
+        session.broadcastExcept(excludedClientId).sendCommand(NetworkType.TCP, CommandTarget.Client, BroadcastCommands.Broadcast, payload);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Not every other client received the broadcast.");
+        TimeUnit.MILLISECONDS.sleep(100L);
+
+        assertEquals(Set.of(clients.get(1).getClientId(), clients.get(2).getClientId()), receivers);
+    }
+
+    @Test
+    void checkUDPBroadcast_reachesEveryClientInSession() throws IOException, InterruptedException {
+        List<LocalClient<BroadcastCommands>> clients = connectClientsToOneLobby(3);
+        Session<BroadcastCommands> session = getSession(clients.get(0));
+
+        Set<UUID> receivers = ConcurrentHashMap.newKeySet();
+        UUID payload = UUID.randomUUID();
+
+        for (LocalClient<BroadcastCommands> client : clients) {
+            client.addCommand(BroadcastCommands.Broadcast, (UUID receivedPayload) -> {
+                if (payload.equals(receivedPayload)) {
+                    receivers.add(client.getClientId());
+                }
+            });
+        }
+
+        for (int i = 0; i < 50 && receivers.size() < clients.size(); i++) {
+            session.broadcast().sendCommand(NetworkType.UDP, CommandTarget.Client, BroadcastCommands.Broadcast, payload);
+            TimeUnit.MILLISECONDS.sleep(100L);
+        }
+
+        assertEquals(clients.size(), receivers.size(), "Not every client received the UDP broadcast.");
+    }
+
+    @Test
+    void checkBroadcastTo_onlyReachesMatchingClients() throws IOException, InterruptedException {
+        List<LocalClient<BroadcastCommands>> clients = connectClientsToOneLobby(3);
+        Session<BroadcastCommands> session = getSession(clients.get(0));
+        UUID targetClientId = clients.get(2).getClientId();
+
+        Set<UUID> receivers = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(1);
+        UUID payload = UUID.randomUUID();
+
+        for (LocalClient<BroadcastCommands> client : clients) {
+            client.addCommand(BroadcastCommands.Broadcast, (UUID receivedPayload) -> {
+                if (payload.equals(receivedPayload)) {
+                    receivers.add(client.getClientId());
+                    latch.countDown();
+                }
+            });
+        }
+
+        session.broadcastTo(client -> targetClientId.equals(client.getClientId()))
+            .sendCommand(NetworkType.TCP, CommandTarget.Client, BroadcastCommands.Broadcast, payload);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "The matching client did not receive the broadcast.");
+        TimeUnit.MILLISECONDS.sleep(100L);
+
+        assertEquals(Set.of(targetClientId), receivers);
+    }
+
+    @Test
+    void checkBroadcastRepeatedNames_reachesEveryClientIntact() throws IOException, InterruptedException {
+        List<LocalClient<BroadcastCommands>> clients = connectClientsToOneLobby(3);
+        Session<BroadcastCommands> session = getSession(clients.get(0));
+
+        int messageCount = 10;
+        List<ChatMessage> sentMessages = new ArrayList<>(messageCount);
+        List<List<ChatMessage>> receivedMessages = new ArrayList<>(clients.size());
+        CountDownLatch latch = new CountDownLatch(messageCount * clients.size());
+
+        for (LocalClient<BroadcastCommands> client : clients) {
+            List<ChatMessage> clientMessages = Collections.synchronizedList(new ArrayList<>(messageCount));
+            receivedMessages.add(clientMessages);
+
+            client.addCommand(BroadcastCommands.Chat, (ChatMessage chatMessage) -> {
+                clientMessages.add(chatMessage);
+                latch.countDown();
+            });
+        }
+
+        for (int i = 0; i < messageCount; i++) {
+            ChatMessage chatMessage = new ChatMessage(i < 5 ? "lucasstarsz" : "someone else", i, "gg");
+            sentMessages.add(chatMessage);
+            session.broadcast().sendCommand(NetworkType.TCP, CommandTarget.Client, BroadcastCommands.Chat, chatMessage);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Not every client received every broadcast.");
+
+        for (List<ChatMessage> clientMessages : receivedMessages) {
+            assertEquals(sentMessages, clientMessages, "Every client should read the strings the server sent.");
+        }
+    }
+
+    private static List<LocalClient<BroadcastCommands>> connectClientsToOneLobby(int clientCount) throws IOException, InterruptedException {
+        List<LocalClient<BroadcastCommands>> clients = new ArrayList<>(clientCount);
+        LobbyIdentifier lobby = null;
+
+        for (int i = 0; i < clientCount; i++) {
+            LocalClient<BroadcastCommands> client = new LocalClient<>(new ClientConfig(ClientTargetAddress, Port), BroadcastCommands.class);
+            client.connect();
+
+            if (lobby == null) {
+                lobby = client.createLobby(UUID.randomUUID().toString());
+            } else {
+                client.joinLobby(lobby.id());
+            }
+
+            clients.add(client);
+        }
+
+        return clients;
+    }
+
+    private static Session<BroadcastCommands> getSession(LocalClient<BroadcastCommands> client) {
+        ServerClient<BroadcastCommands> serverClient = server.getClient(client.getClientId());
+        return server.getLobby(serverClient).getCurrentSession();
+    }
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        ServerConfig serverConfig = new ServerConfig(
+            Port, ServerConfig.DefaultIoMode, Set.of(WireFeature.Framing, WireFeature.CompactEncoding, WireFeature.StringDictionary)
+        );
+
+        server = new Server<>(serverConfig, BroadcastCommands.class, LobbyCreator);
+        server.start();
+        server.allowClients();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+}
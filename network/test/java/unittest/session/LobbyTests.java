@@ -26,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -109,6 +110,11 @@ class LobbyTests {
             assertTrue(server.getLobbies().get(newLobby.id()).hasClient(client1.getClientId()));
             assertTrue(server.getLobbies().get(newLobby.id()).hasClient(client2.getClientId()));
 
+            Lobby<EmptyCommands> lobby = server.getLobbies().get(newLobby.id());
+            assertSame(server.getSerializer().getRegistry(), lobby.getSerializer().getRegistry(), "The lobby should share the server's message registry.");
+            assertSame(server.getSerializer().getRegistry(), server.getClient(client2.getClientId()).getSerializer().getRegistry(), "Each connection should share the server's message registry.");
+            assertSame(client1.getSerializer().getRegistry(), client2.getSerializer().getRegistry(), "Clients with the same commands should share a message registry.");
+
             latch.countDown();
         });
 
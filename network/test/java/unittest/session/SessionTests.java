@@ -27,6 +27,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class SessionTests {
@@ -85,6 +86,28 @@ class SessionTests {
         }
     }
 
+    @Test
+    void checkClientSession_followsClientBetweenSessions() throws IOException, InterruptedException {
+        ClientConfig clientConfig = new ClientConfig(ClientTargetAddress, Port);
+        LocalClient<EmptyCommands> client = new LocalClient<>(clientConfig, EmptyCommands.class);
+        client.connect();
+        client.createLobby(UUID.randomUUID().toString());
+
+        ServerClient<EmptyCommands> serverClient = server.getClient(client.getClientId());
+        Lobby<EmptyCommands> lobby = server.getLobby(serverClient);
+        Session<EmptyCommands> homeSession = lobby.getHomeSession();
+
+        homeSession.clientLeave(serverClient);
+        assertNull(lobby.getClientSession(serverClient));
+
+        homeSession.clientJoin(serverClient);
+        assertEquals(homeSession, lobby.getClientSession(serverClient));
+
+        server.disconnectClient(serverClient);
+        assertNull(server.getLobby(serverClient));
+        assertNull(lobby.getClientSession(serverClient));
+    }
+
     @BeforeAll
     static void startServer() throws IOException {
         ServerConfig serverConfig = new ServerConfig(Port);
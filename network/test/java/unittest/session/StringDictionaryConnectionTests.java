@@ -0,0 +1,164 @@
+package unittest.session;
+
+import tech.fastj.network.config.ClientConfig;
+import tech.fastj.network.config.ServerConfig;
+import tech.fastj.network.config.ServerIoMode;
+import tech.fastj.network.config.WireFeature;
+import tech.fastj.network.rpc.CommandAlias;
+import tech.fastj.network.rpc.classes.Classes;
+import tech.fastj.network.rpc.classes.Classes1;
+import tech.fastj.network.rpc.local.LocalClient;
+import tech.fastj.network.rpc.message.CommandTarget;
+import tech.fastj.network.rpc.message.NetworkType;
+import tech.fastj.network.rpc.server.Lobby;
+import tech.fastj.network.rpc.server.Server;
+import tech.fastj.network.rpc.server.ServerClient;
+import tech.fastj.network.serial.StringDictionary;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import mock.ChatMessage;
+import mock.SingleSessionLobby;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryConnectionTests {
+
+    private static final int Port = 19997;
+    private static final InetAddress ClientTargetAddress;
+    private static Server<ChatCommands> server;
+    private static final BiFunction<ServerClient<ChatCommands>, String, Lobby<ChatCommands>> LobbyCreator = (client, serverName) -> new SingleSessionLobby<>(server, serverName, ChatCommands.class);
+
+    static {
+        try {
+            ClientTargetAddress = InetAddress.getLocalHost();
+        } catch (UnknownHostException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    enum ChatCommands implements CommandAlias {
+        Chat(new Classes1<>(ChatMessage.class)),
+        Throwing(new Classes1<>(ChatMessage.class));
+
+        private final Classes commandClasses;
+
+        ChatCommands(Classes commandClasses) {
+            this.commandClasses = commandClasses;
+        }
+
+        @Override
+        public Classes getCommandClasses() {
+            return commandClasses;
+        }
+    }
+
+    @AfterEach
+    void cleanServer() {
+        server.stopAllLobbies();
+        server.disconnectAllClients();
+    }
+
+    @Test
+    void checkSendRepeatedNamesToServer_arriveIntact() throws IOException, InterruptedException {
+        int messageCount = 100;
+        List<ChatMessage> sentMessages = new ArrayList<>(messageCount);
+        List<ChatMessage> receivedMessages = Collections.synchronizedList(new ArrayList<>(messageCount));
+        CountDownLatch latch = new CountDownLatch(messageCount);
+
+        server.addCommand(ChatCommands.Chat, (client, chatMessage) -> {
+            receivedMessages.add((ChatMessage) chatMessage);
+            latch.countDown();
+        });
+        server.addCommand(ChatCommands.Throwing, (client, chatMessage) -> {
+            throw new IllegalStateException("expected");
+        });
+
+        LocalClient<ChatCommands> client = new LocalClient<>(new ClientConfig(ClientTargetAddress, Port), ChatCommands.class);
+        client.connect();
+
+        for (int i = 0; i < messageCount; i++) {
+            String username = i % 2 == 0 ? "lucasstarsz" : "Zo\u00eb \u2603 \ud83c\udf89";
+            String message = i % 10 == 0 ? "message " + i : "gg";
+            ChatMessage chatMessage = new ChatMessage(username, i, message);
+
+            if (i % 25 == 0) {
+                // a new name first seen by a failing command must still be defined for the commands after it
+                client.sendCommand(NetworkType.TCP, CommandTarget.Server, ChatCommands.Throwing, new ChatMessage("new name " + i, i, message));
+                chatMessage = new ChatMessage("new name " + i, i, message);
+            }
+
+            sentMessages.add(chatMessage);
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, ChatCommands.Chat, chatMessage);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Server should have received all " + messageCount + " messages.");
+        assertEquals(sentMessages, receivedMessages, "Strings sent as ids should be read back as the strings sent.");
+    }
+
+    @Test
+    void checkSendMoreNamesThanDictionaryHolds_arriveIntact() throws IOException, InterruptedException {
+        int messageCount = StringDictionary.MaxStrings + 100;
+        List<ChatMessage> sentMessages = new ArrayList<>(messageCount);
+        List<ChatMessage> receivedMessages = Collections.synchronizedList(new ArrayList<>(messageCount));
+        CountDownLatch latch = new CountDownLatch(messageCount);
+
+        server.addCommand(ChatCommands.Chat, (client, chatMessage) -> {
+            receivedMessages.add((ChatMessage) chatMessage);
+            latch.countDown();
+        });
+
+        LocalClient<ChatCommands> client = new LocalClient<>(new ClientConfig(ClientTargetAddress, Port), ChatCommands.class);
+        client.connect();
+
+        for (int i = 0; i < messageCount; i++) {
+            // every name is new, so the client's dictionary fills and starts over partway through
+            ChatMessage chatMessage = new ChatMessage("player " + i, i, "gg");
+            sentMessages.add(chatMessage);
+            client.sendCommand(NetworkType.TCP, CommandTarget.Server, ChatCommands.Chat, chatMessage);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Server should have received all " + messageCount + " messages.");
+        assertEquals(sentMessages, receivedMessages, "Strings sent after the dictionary started over should be read back intact.");
+    }
+
+    @Test
+    void checkStringDictionaryConfig_requiresFraming() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new ServerConfig(Port, ServerIoMode.Blocking, Set.of(WireFeature.CompactEncoding, WireFeature.StringDictionary)),
+            "String definitions should only be read once all of them have arrived."
+        );
+    }
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        ServerConfig serverConfig = new ServerConfig(
+            Port, ServerIoMode.Selector, Set.of(WireFeature.Framing, WireFeature.CompactEncoding, WireFeature.StringDictionary)
+        );
+
+        server = new Server<>(serverConfig, ChatCommands.class, LobbyCreator);
+        server.start();
+        server.allowClients();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+}
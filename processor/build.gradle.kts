@@ -0,0 +1,16 @@
+plugins {
+    id("java")
+}
+
+group = "io.github.lucasstarsz.fastj"
+version = "0.0.3"
+description = "Generates serializers for FastJ network messages at compile time."
+
+sourceSets {
+    main {
+        java.setSrcDirs(listOf("main/java"))
+        resources.setSrcDirs(listOf("main/resources"))
+    }
+}
+
+repositories.mavenCentral()
@@ -0,0 +1,399 @@
+package tech.fastj.network.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code MessageSerializer} for each record annotated with {@code @NetworkMessage}.
+ * <p>
+ * The generated serializer reads and writes the record's components in declaration order, exactly as
+ * {@code RecordSerializerUtils} does at runtime, so both produce the same bytes. Components that aren't primitives
+ * use their type's {@code FieldCodec}, looked up once when the serializer class is initialized, and {@code @Quantized}
+ * or {@code @Angle} components use the matching fixed-point read and write. It is named by
+ * {@code GeneratedSerializerUtils}' convention: the record's binary name with {@code $} replaced by {@code _}, followed
+ * by {@value #GeneratedSuffix}.
+ */
+@SupportedAnnotationTypes(NetworkMessageProcessor.NetworkMessageName)
+public class NetworkMessageProcessor extends AbstractProcessor {
+
+    static final String NetworkMessageName = "tech.fastj.network.serial.NetworkMessage";
+    static final String GeneratedSuffix = "MessageSerializer";
+
+    private static final String MessageName = "tech.fastj.network.serial.Message";
+    private static final String UuidName = "java.util.UUID";
+    private static final String QuantizedName = "tech.fastj.network.serial.Quantized";
+    private static final String AngleName = "tech.fastj.network.serial.Angle";
+    private static final int MaxQuantizedBits = 31;
+
+    private static final Map<TypeKind, String> PrimitiveNames = Map.of(
+        TypeKind.BOOLEAN, "Boolean",
+        TypeKind.BYTE, "Byte",
+        TypeKind.SHORT, "Short",
+        TypeKind.INT, "IntField",
+        TypeKind.LONG, "Long",
+        TypeKind.FLOAT, "Float",
+        TypeKind.DOUBLE, "Double"
+    );
+
+    private static final Map<TypeKind, String> PrimitiveBytesLengths = Map.of(
+        TypeKind.BOOLEAN, "1",
+        TypeKind.BYTE, "Byte.BYTES",
+        TypeKind.SHORT, "Short.BYTES",
+        TypeKind.INT, "Integer.BYTES",
+        TypeKind.LONG, "Long.BYTES",
+        TypeKind.FLOAT, "Float.BYTES",
+        TypeKind.DOUBLE, "Double.BYTES"
+    );
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        TypeElement networkMessage = processingEnv.getElementUtils().getTypeElement(NetworkMessageName);
+
+        if (networkMessage == null) {
+            return false;
+        }
+
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(networkMessage)) {
+            if (!isMessageRecord(element)) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "@NetworkMessage can only be used on records that implement " + MessageName,
+                    element
+                );
+                continue;
+            }
+
+            if (!checkQuantizedComponents((TypeElement) element)) {
+                continue;
+            }
+
+            try {
+                generateSerializer((TypeElement) element);
+            } catch (IOException exception) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Unable to write the generated serializer: " + exception.getMessage(),
+                    element
+                );
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isMessageRecord(Element element) {
+        TypeElement message = processingEnv.getElementUtils().getTypeElement(MessageName);
+
+        return element.getKind() == ElementKind.RECORD
+            && message != null
+            && processingEnv.getTypeUtils().isAssignable(element.asType(), message.asType());
+    }
+
+    /** Reports every component whose {@code @Quantized} or {@code @Angle} annotation can't be honoured. */
+    private boolean checkQuantizedComponents(TypeElement record) {
+        boolean valid = true;
+
+        for (RecordComponentElement component : record.getRecordComponents()) {
+            AnnotationMirror quantized = annotation(component, QuantizedName);
+            AnnotationMirror angle = annotation(component, AngleName);
+            String error = null;
+
+            if (quantized == null && angle == null) {
+                continue;
+            } else if (quantized != null && angle != null) {
+                error = "A component cannot be both @Quantized and an @Angle";
+            } else if (component.asType().getKind() != TypeKind.FLOAT && component.asType().getKind() != TypeKind.DOUBLE) {
+                error = "Only float or double components can be quantized";
+            } else {
+                int bits = (int) annotationValue(quantized != null ? quantized : angle, "bits");
+
+                if (bits < 1 || bits > MaxQuantizedBits) {
+                    error = "Quantized components must use between 1 and " + MaxQuantizedBits + " bits, not " + bits;
+                } else if (quantized != null) {
+                    float min = (float) annotationValue(quantized, "min");
+                    float max = (float) annotationValue(quantized, "max");
+
+                    if (!Float.isFinite(min) || !Float.isFinite(max) || min >= max) {
+                        error = "@Quantized needs a finite range with min < max, not [" + min + ", " + max + "]";
+                    }
+                }
+            }
+
+            if (error != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, error, component);
+                valid = false;
+            }
+        }
+
+        return valid;
+    }
+
+    private void generateSerializer(TypeElement record) throws IOException {
+        PackageElement recordPackage = processingEnv.getElementUtils().getPackageOf(record);
+        String packageName = recordPackage.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(record).toString();
+        String serializerName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_')
+            + GeneratedSuffix;
+
+        String recordName = record.getQualifiedName().toString();
+        List<? extends RecordComponentElement> components = record.getRecordComponents();
+
+        String qualifiedSerializerName = packageName.isEmpty() ? serializerName : packageName + "." + serializerName;
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedSerializerName, record).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+
+            out.println("/** Generated from {@link " + recordName + "} by " + NetworkMessageProcessor.class.getName() + ". */");
+            out.println("public final class " + serializerName + " implements tech.fastj.network.serial.MessageSerializer<" + recordName + "> {");
+            out.println();
+            writeCodecs(out, components);
+
+            out.println("    private final tech.fastj.network.serial.Serializer serializer;");
+            out.println("    private final java.util.function.Function<" + recordName + ", Integer> byteLengthFunction = this::bytesLength;");
+            out.println("    private final tech.fastj.network.serial.read.MessageReader<" + recordName + "> reader = this::read;");
+            out.println("    private final tech.fastj.network.serial.write.MessageWriter<" + recordName + "> writer = this::write;");
+            out.println();
+            out.println("    public " + serializerName + "(tech.fastj.network.serial.Serializer serializer) {");
+            out.println("        this.serializer = serializer;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + recordName + "> messageClass() {");
+            out.println("        return " + recordName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public java.util.function.Function<" + recordName + ", Integer> byteLengthFunction() {");
+            out.println("        return byteLengthFunction;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public tech.fastj.network.serial.read.MessageReader<" + recordName + "> reader() {");
+            out.println("        return reader;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public tech.fastj.network.serial.write.MessageWriter<" + recordName + "> writer() {");
+            out.println("        return writer;");
+            out.println("    }");
+            out.println();
+
+            writeBytesLength(out, recordName, components);
+            out.println();
+            writeRead(out, recordName, components);
+            out.println();
+            writeWrite(out, recordName, components);
+
+            out.println("}");
+        }
+    }
+
+    private void writeCodecs(PrintWriter out, List<? extends RecordComponentElement> components) {
+        boolean hasCodecs = false;
+
+        for (RecordComponentElement component : components) {
+            TypeMirror type = component.asType();
+
+            if (!PrimitiveNames.containsKey(type.getKind()) && quantization(component) == null) {
+                out.println("    private static final tech.fastj.network.serial.FieldCodec " + codecName(component)
+                    + " = tech.fastj.network.serial.util.FieldCodecUtils.get(" + classLiteral(type) + ");");
+                hasCodecs = true;
+            }
+        }
+
+        if (hasCodecs) {
+            out.println();
+        }
+    }
+
+    private void writeBytesLength(PrintWriter out, String recordName, List<? extends RecordComponentElement> components) {
+        StringBuilder bytesLength = new StringBuilder();
+
+        for (RecordComponentElement component : components) {
+            TypeMirror type = component.asType();
+            String accessor = "message." + component.getSimpleName() + "()";
+            String primitiveBytesLength = PrimitiveBytesLengths.get(type.getKind());
+            Quantization quantization = quantization(component);
+
+            bytesLength.append(bytesLength.length() == 0 ? "" : "\n            + ");
+
+            if (quantization != null) {
+                bytesLength.append((quantization.bits() + Byte.SIZE - 1) / Byte.SIZE);
+            } else if (primitiveBytesLength != null) {
+                bytesLength.append(primitiveBytesLength);
+            } else if (isEnum(type)) {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.EnumBytes");
+            } else if (isNamed(type, UuidName)) {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.UuidBytes");
+            } else if (isNamed(type, String.class.getName())) {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.bytesLength(").append(accessor).append(")");
+            } else if (isMessage(type) && !isRecord(type)) {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.typedBytesLength(serializer, (tech.fastj.network.serial.Message) ")
+                    .append(accessor).append(")");
+            } else if (isMessage(type)) {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.bytesLength(serializer, (tech.fastj.network.serial.Message) ")
+                    .append(accessor).append(")");
+            } else {
+                bytesLength.append("tech.fastj.network.serial.util.MessageUtils.bytesLength(serializer, (Object) ").append(accessor).append(")");
+            }
+        }
+
+        out.println("    private int bytesLength(" + recordName + " message) {");
+        out.println("        return " + (bytesLength.length() == 0 ? "0" : bytesLength) + ";");
+        out.println("    }");
+    }
+
+    private void writeRead(PrintWriter out, String recordName, List<? extends RecordComponentElement> components) {
+        out.println("    private " + recordName + " read(tech.fastj.network.serial.read.MessageInputStream inputStream) throws java.io.IOException {");
+
+        // constructor arguments are evaluated left to right, so the components are read in declaration order
+        StringBuilder arguments = new StringBuilder();
+
+        for (RecordComponentElement component : components) {
+            TypeMirror type = component.asType();
+            String primitiveName = PrimitiveNames.get(type.getKind());
+            Quantization quantization = quantization(component);
+
+            arguments.append(arguments.length() == 0 ? "\n            " : ",\n            ");
+
+            if (quantization != null) {
+                arguments.append("inputStream.read").append(quantization.name()).append("(").append(quantization.arguments()).append(")");
+            } else if (primitiveName != null) {
+                arguments.append("inputStream.read").append(primitiveName).append("()");
+            } else {
+                arguments.append("(").append(type).append(") ").append(codecName(component)).append(".read(inputStream)");
+            }
+        }
+
+        out.println("        return new " + recordName + "(" + arguments + "\n        );");
+        out.println("    }");
+    }
+
+    private void writeWrite(PrintWriter out, String recordName, List<? extends RecordComponentElement> components) {
+        out.println("    private void write(tech.fastj.network.serial.write.MessageOutputStream outputStream, " + recordName + " message) throws java.io.IOException {");
+
+        for (RecordComponentElement component : components) {
+            TypeMirror type = component.asType();
+            String accessor = "message." + component.getSimpleName() + "()";
+            String primitiveName = PrimitiveNames.get(type.getKind());
+            Quantization quantization = quantization(component);
+
+            if (quantization != null) {
+                out.println("        outputStream.write" + quantization.name() + "((float) " + accessor + ", " + quantization.arguments() + ");");
+            } else if (primitiveName != null) {
+                out.println("        outputStream.write" + primitiveName + "(" + accessor + ");");
+            } else {
+                out.println("        " + codecName(component) + ".write(outputStream, " + accessor + ");");
+            }
+        }
+
+        out.println("    }");
+    }
+
+    /** Returns how {@code component} is quantized, or {@code null} if it isn't. */
+    private Quantization quantization(RecordComponentElement component) {
+        AnnotationMirror quantized = annotation(component, QuantizedName);
+
+        if (quantized != null) {
+            int bits = (int) annotationValue(quantized, "bits");
+            String arguments = floatLiteral((float) annotationValue(quantized, "min")) + ", "
+                + floatLiteral((float) annotationValue(quantized, "max")) + ", " + bits;
+
+            return new Quantization("QuantizedFloat", arguments, bits);
+        }
+
+        AnnotationMirror angle = annotation(component, AngleName);
+
+        if (angle != null) {
+            int bits = (int) annotationValue(angle, "bits");
+            return new Quantization("Angle", String.valueOf(bits), bits);
+        }
+
+        return null;
+    }
+
+    private AnnotationMirror annotation(RecordComponentElement component, String qualifiedName) {
+        for (AnnotationMirror annotation : component.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(qualifiedName)) {
+                return annotation;
+            }
+        }
+
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror annotation, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils()
+            .getElementValuesWithDefaults(annotation);
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(name)) {
+                return value.getValue().getValue();
+            }
+        }
+
+        throw new IllegalStateException("No value for " + name + " in " + annotation);
+    }
+
+    private String floatLiteral(float value) {
+        return Float.toString(value) + "f";
+    }
+
+    private String codecName(RecordComponentElement component) {
+        String name = component.getSimpleName().toString();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Codec";
+    }
+
+    private String classLiteral(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type) + ".class";
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+    }
+
+    private boolean isRecord(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.RECORD;
+    }
+
+    private boolean isNamed(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED
+            && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private boolean isMessage(TypeMirror type) {
+        TypeElement message = processingEnv.getElementUtils().getTypeElement(MessageName);
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().isAssignable(type, message.asType());
+    }
+
+    /** The {@code MessageInputStream.readX}/{@code MessageOutputStream.writeX} name and trailing arguments for a quantized component. */
+    private record Quantization(String name, String arguments, int bits) {
+    }
+}
@@ -1,4 +1,4 @@
 rootProject.name = "party-house"
-include("hcore", "hclient", "hserver", "network")
+include("hcore", "hclient", "hserver", "network", "processor")
 enableFeaturePreview("VERSION_CATALOGS")
 enableFeaturePreview("TYPESAFE_PROJECT_ACCESSORS")